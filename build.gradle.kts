@@ -19,6 +19,20 @@ java {
     withSourcesJar()
 }
 
+// Java 21 overlay for the multi-release jar (virtual threads); the base classes stay on Java 17
+sourceSets {
+    create("java21") {
+        java.srcDir("src/main/java21")
+    }
+}
+
+tasks.named<JavaCompile>("compileJava21Java") {
+    javaCompiler.set(javaToolchains.compilerFor {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    })
+    options.release.set(21)
+}
+
 repositories {
     // Use Maven Central for dependencies
     mavenCentral()
@@ -44,8 +58,13 @@ dependencies {
     implementation("org.bouncycastle:bcprov-jdk18on:1.78")
     implementation("org.bouncycastle:bcpkix-jdk18on:1.78")
 
-    // Apache Commons Compress for GZIP/ZIP
+    // Apache Commons Compress for ZIP archives and the ZSTD, BZIP2 and XZ streams; GZIP, BGZF and
+    // LZ4 use the toolkit's own codecs (LZ4 takes its XXH32 checksums from Commons Codec)
     api("org.apache.commons:commons-compress:1.26.1")
+    implementation("commons-codec:commons-codec:1.16.1")
+    // XZ support for Commons Compress. Zstandard additionally needs com.github.luben:zstd-jni
+    // (native, bundled for common platforms), which users add themselves if they want ZSTD.
+    implementation("org.tukaani:xz:1.9")
 
     // For JSON Schema validation
     api("com.networknt:json-schema-validator:1.3.3")
@@ -140,11 +159,15 @@ signing {
 // Configure jar task
 tasks.jar {
     archiveBaseName.set("universal-file-toolkit")
+    into("META-INF/versions/21") {
+        from(sourceSets["java21"].output)
+    }
     manifest {
         attributes(
             "Implementation-Title" to project.name,
             "Implementation-Version" to project.version,
-            "Implementation-Vendor" to "Diyawanna"
+            "Implementation-Vendor" to "Diyawanna",
+            "Multi-Release" to "true"
         )
     }
 }
@@ -0,0 +1,171 @@
+package com.diyawanna.uft;
+
+import com.diyawanna.uft.model.FileJob;
+import com.diyawanna.uft.util.BulkResult;
+import com.diyawanna.uft.util.FileHandleLimiter;
+import com.diyawanna.uft.util.FileJobResult;
+import com.diyawanna.uft.util.PerformanceReport;
+import com.diyawanna.uft.util.ToolkitLogger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the {@link FileJob}s of a bulk request with bounded parallelism.
+ * Each request starts at most {@code maxParallelism} workers on the shared pool; workers pull the
+ * next job from the request until none are left, so fast and slow files balance out. A toolkit-wide
+ * semaphore bounds the files processed at once across concurrent requests, and every job holds a
+ * {@link FileHandleLimiter} permit while it runs.
+ */
+final class BulkJobExecutor {
+
+    /**
+     * Performs the operation of a single job.
+     */
+    @FunctionalInterface
+    interface JobHandler {
+        /**
+         * Executes the job.
+         * @param job The job to execute.
+         * @return The operation result.
+         * @throws ToolkitException if the operation fails.
+         */
+        Object execute(FileJob job) throws ToolkitException;
+    }
+
+    private final ExecutorService pool;
+    private final Semaphore globalSlots;
+    private final FileHandleLimiter fileHandleLimiter;
+    private final ToolkitLogger logger;
+
+    /**
+     * Constructs a new BulkJobExecutor.
+     * @param pool The pool to run workers on.
+     * @param globalParallelism The toolkit-wide limit on jobs running at once; zero or negative for no limit.
+     * @param fileHandleLimiter The toolkit's open-file limiter.
+     * @param logger The toolkit logger.
+     */
+    BulkJobExecutor(ExecutorService pool, int globalParallelism, FileHandleLimiter fileHandleLimiter, ToolkitLogger logger) {
+        this.pool = pool;
+        this.globalSlots = globalParallelism > 0 ? new Semaphore(globalParallelism) : null;
+        this.fileHandleLimiter = fileHandleLimiter;
+        this.logger = logger;
+    }
+
+    /**
+     * Runs all jobs and waits for them to finish. Failures of individual jobs are reported in the
+     * result rather than thrown.
+     * @param jobs The jobs to run.
+     * @param maxParallelism The maximum number of this request's jobs running at once.
+     * @param handler Performs each job.
+     * @return The per-job results, in submission order, and the aggregate report.
+     * @throws ToolkitException if the calling thread is interrupted while waiting.
+     */
+    BulkResult run(List<FileJob> jobs, int maxParallelism, JobHandler handler) throws ToolkitException {
+        long start = System.nanoTime();
+        FileJobResult[] results = new FileJobResult[jobs.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong peakMemory = new AtomicLong();
+        int workers = Math.max(1, Math.min(maxParallelism, jobs.size()));
+
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers && !jobs.isEmpty(); i++) {
+            futures.add(pool.submit(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < jobs.size()) {
+                    results[index] = runJob(jobs.get(index), handler);
+                    sampleMemory(peakMemory);
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOProcessingException("Interrupted while waiting for bulk job to finish", e);
+        } catch (ExecutionException e) {
+            throw new ToolkitException("Bulk job worker failed unexpectedly", e.getCause());
+        }
+
+        List<FileJobResult> resultList = Arrays.asList(results);
+        PerformanceReport report = aggregate(resultList, System.nanoTime() - start, peakMemory.get(), workers);
+        logger.debug("Bulk job finished: " + report);
+        return new BulkResult(resultList, report);
+    }
+
+    @SuppressWarnings("try")
+    private FileJobResult runJob(FileJob job, JobHandler handler) {
+        long start = System.nanoTime();
+        long bytesRead = job.getSource().length();
+        Object result = null;
+        ToolkitException error = null;
+        boolean slotAcquired = false;
+        try {
+            if (globalSlots != null) {
+                globalSlots.acquire();
+                slotAcquired = true;
+            }
+            try (FileHandleLimiter.Permit permit = fileHandleLimiter.acquire()) {
+                result = handler.execute(job);
+            }
+        } catch (ToolkitException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = new IOProcessingException("Interrupted while waiting to run " + job, e);
+        } catch (RuntimeException e) {
+            error = new ToolkitException("Unexpected failure in " + job, e);
+        } finally {
+            if (slotAcquired) {
+                globalSlots.release();
+            }
+        }
+        if (error != null) {
+            logger.error("Bulk job entry failed: " + job, error);
+        }
+        long bytesWritten = result instanceof File file && file.isFile() ? file.length() : 0L;
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        return new FileJobResult(job, result, error, new PerformanceReport(elapsedMillis, bytesRead, bytesWritten, 0L, Map.of()));
+    }
+
+    private static void sampleMemory(AtomicLong peakMemory) {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        peakMemory.accumulateAndGet(used, Math::max);
+    }
+
+    private static PerformanceReport aggregate(List<FileJobResult> results, long elapsedNanos, long peakMemory, int workers) {
+        long bytesRead = 0;
+        long bytesWritten = 0;
+        int failed = 0;
+        for (FileJobResult result : results) {
+            bytesRead += result.getPerformanceReport().getBytesRead();
+            bytesWritten += result.getPerformanceReport().getBytesWritten();
+            if (!result.isSuccess()) {
+                failed++;
+            }
+        }
+        double seconds = Math.max(elapsedNanos, 1L) / 1_000_000_000.0;
+        Map<String, Object> stages = new LinkedHashMap<>();
+        stages.put("jobs", results.size());
+        stages.put("succeeded", results.size() - failed);
+        stages.put("failed", failed);
+        stages.put("parallelism", workers);
+        stages.put("filesPerSecond", results.size() / seconds);
+        stages.put("throughputMBps", bytesRead / (1024.0 * 1024.0) / seconds);
+        return new PerformanceReport(elapsedNanos / 1_000_000L, bytesRead, bytesWritten, peakMemory, stages);
+    }
+}
@@ -0,0 +1,394 @@
+package com.diyawanna.uft;
+
+import com.diyawanna.uft.api.SecurityService;
+import com.diyawanna.uft.model.CompressionOptions;
+import com.diyawanna.uft.model.EncryptionOptions;
+import com.diyawanna.uft.model.FileFormat;
+import com.diyawanna.uft.model.HashType;
+import com.diyawanna.uft.model.TransformOptions;
+import com.diyawanna.uft.model.WriteOptions;
+import com.diyawanna.uft.util.ToolkitLogger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the inputs and outputs of completed file operations, so that repeated jobs skip the
+ * work whose inputs have not changed. An entry is keyed by the operation, the source file and
+ * what tells its outputs apart (the compression type, the transform target), and holds the
+ * source's size, modification time and SHA-256 content hash, a fingerprint of the options and the
+ * output's size and modification time.
+ * <p>
+ * An operation is skipped if its entry has the same options fingerprint, its output is still as
+ * it was written and its source is unchanged: same size and modification time or, if only the
+ * time differs, the same content hash. The source is hashed only then and when recording a
+ * source whose hash is not already known from the lookup or its previous entry.
+ * <p>
+ * The encryption key is part of the fingerprint as an HMAC-SHA256 of the password or raw AES key
+ * under a random salt kept in the manifest, so that the manifest holds no secrets and the same
+ * key is identified differently in every manifest; an HMAC of a password is still open to
+ * guessing, so the manifest file deserves the protection of the password itself. Keys that
+ * cannot be exported have no fingerprint, and their operations bypass the manifest. An RSA
+ * recipient is identified by the digest of its public key.
+ * <p>
+ * The manifest is a JSON file, loaded on first use and written atomically: while operations are
+ * recorded at most every {@value #SAVE_INTERVAL_MILLIS} ms, and on {@link #flush()}. A manifest
+ * that cannot be read or saved is logged and does not fail the operations.
+ */
+final class ContentManifest {
+
+    /**
+     * Performs an operation that the manifest did not skip.
+     */
+    @FunctionalInterface
+    interface Task {
+        /**
+         * Runs the operation.
+         * @return The output file.
+         * @throws ToolkitException if the operation fails.
+         */
+        File run() throws ToolkitException;
+    }
+
+    /**
+     * The lookup of an operation, to be {@linkplain #record(Check, File) recorded} once it has run.
+     * @param operation The operation name.
+     * @param source The absolute source path.
+     * @param variant What tells the operation's outputs for one source apart.
+     * @param options The options fingerprint.
+     * @param before The source state before the operation, {@code null} if it could not be read.
+     * @param sha256 The content hash of the source in state {@code before}, {@code null} if not yet known.
+     * @param unchanged The output of the recorded operation if it can be skipped, else {@code null}.
+     */
+    record Check(String operation, Path source, String variant, String options, FileState before, String sha256, File unchanged) {
+    }
+
+    /**
+     * The size and modification time of a file.
+     */
+    record FileState(long size, long modifiedMillis) {
+    }
+
+    /**
+     * A recorded operation, as stored in the manifest file.
+     */
+    record Entry(String operation, String source, String variant, long sourceSize, long sourceModified, String sourceSha256,
+                 String options, String output, long outputSize, long outputModified) {
+    }
+
+    /**
+     * The manifest file layout.
+     */
+    record Document(int version, String keySalt, List<Entry> entries) {
+    }
+
+    static final long SAVE_INTERVAL_MILLIS = 2000;
+
+    private static final int VERSION = 1;
+    private static final int KEY_SALT_LENGTH = 32;
+    private static final String KEY_MAC = "HmacSHA256";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final SecurityService securityService;
+    private final ToolkitLogger logger;
+    private Map<String, Entry> entries;
+    private byte[] keySalt;
+    private boolean dirty;
+    private long lastSave;
+
+    /**
+     * Constructs a new ContentManifest.
+     * @param file The manifest file; it is created on the first save.
+     * @param securityService The service that computes content hashes.
+     * @param logger The toolkit logger.
+     */
+    ContentManifest(Path file, SecurityService securityService, ToolkitLogger logger) {
+        this.file = file.toAbsolutePath();
+        this.securityService = securityService;
+        this.logger = logger;
+    }
+
+    /**
+     * Runs {@code task} unless the manifest records it as done on the same input, and records it.
+     * @param operation The operation name.
+     * @param source The source file.
+     * @param variant What tells the operation's outputs for one source apart, empty if there is one.
+     * @param options The options fingerprint, {@code null} to run the operation without the manifest.
+     * @param task Performs the operation.
+     * @return The output file, recorded or new.
+     * @throws ToolkitException if the operation fails.
+     */
+    File run(String operation, File source, String variant, String options, Task task) throws ToolkitException {
+        if (options == null) {
+            return task.run();
+        }
+        Check check = check(operation, source, variant, options);
+        if (check.unchanged() != null) {
+            return check.unchanged();
+        }
+        File output = task.run();
+        record(check, output);
+        return output;
+    }
+
+    /**
+     * Looks up an operation, for running it separately from the manifest, e.g. in a batch.
+     * @return The lookup; its {@link Check#unchanged()} output is set if the operation can be skipped.
+     * @throws ToolkitException if the source cannot be hashed.
+     */
+    Check check(String operation, File source, String variant, String options) throws ToolkitException {
+        Path path = source.toPath().toAbsolutePath().normalize();
+        String key = key(operation, path.toString(), variant);
+        FileState before = state(path);
+        Entry entry = entries().get(key);
+        if (before == null || entry == null) {
+            return new Check(operation, path, variant, options, before, null, null);
+        }
+        // The recorded hash still holds for a source of the recorded size and time, whether or not the operation can be skipped
+        String sha256 = entry.sourceSize() == before.size() && entry.sourceModified() == before.modifiedMillis() ? entry.sourceSha256() : null;
+        if (!entry.options().equals(options) || entry.sourceSize() != before.size()
+                || !new FileState(entry.outputSize(), entry.outputModified()).equals(state(Path.of(entry.output())))) {
+            return new Check(operation, path, variant, options, before, sha256, null);
+        }
+        if (sha256 == null) {
+            // Touched, copied or restored: only the content tells
+            String current = sha256(path);
+            boolean stable = before.equals(state(path));
+            if (!entry.sourceSha256().equals(current) || !stable) {
+                return new Check(operation, path, variant, options, before, stable ? current : null, null);
+            }
+            update(key, new Entry(entry.operation(), entry.source(), entry.variant(), before.size(), before.modifiedMillis(),
+                    entry.sourceSha256(), entry.options(), entry.output(), entry.outputSize(), entry.outputModified()));
+        }
+        logger.debug("Skipping " + operation + " of unchanged " + path + ", recorded output " + entry.output());
+        return new Check(operation, path, variant, options, before, entry.sourceSha256(), new File(entry.output()));
+    }
+
+    /**
+     * Records an operation that has run. Nothing is recorded if the source changed while it ran.
+     * The source is hashed unless the lookup already knows its hash.
+     * @param check The lookup made before running it.
+     * @param output The output file.
+     * @throws ToolkitException if the source cannot be hashed.
+     */
+    void record(Check check, File output) throws ToolkitException {
+        FileState outputState = state(output.toPath().toAbsolutePath());
+        if (check.before() == null || outputState == null) {
+            return;
+        }
+        String sha256 = check.sha256() != null ? check.sha256() : sha256(check.source());
+        if (!check.before().equals(state(check.source()))) {
+            logger.debug("Not recording " + check.source() + ", which changed while it was processed");
+            return;
+        }
+        String source = check.source().toString();
+        update(key(check.operation(), source, check.variant()), new Entry(check.operation(), source, check.variant(), check.before().size(),
+                check.before().modifiedMillis(), sha256, check.options(), output.getAbsolutePath(), outputState.size(),
+                outputState.modifiedMillis()));
+    }
+
+    /**
+     * Saves the manifest if it has unsaved entries.
+     */
+    synchronized void flush() {
+        if (!dirty) {
+            return;
+        }
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort(Comparator.comparing(Entry::source).thenComparing(Entry::operation).thenComparing(Entry::variant));
+        try {
+            Path directory = file.getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                MAPPER.writeValue(temp.toFile(), new Document(VERSION, HexFormat.of().formatHex(keySalt), list));
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            logger.error("Failed to save content manifest " + file, e);
+        }
+        lastSave = System.currentTimeMillis();
+    }
+
+    private synchronized void update(String key, Entry entry) {
+        entries.put(key, entry);
+        dirty = true;
+        if (System.currentTimeMillis() - lastSave >= SAVE_INTERVAL_MILLIS) {
+            flush();
+        }
+    }
+
+    private synchronized Map<String, Entry> entries() {
+        if (entries == null) {
+            entries = new ConcurrentHashMap<>();
+            try {
+                Document document = Files.exists(file) ? MAPPER.readValue(file.toFile(), Document.class) : null;
+                if (document != null && document.version() == VERSION && document.entries() != null) {
+                    for (Entry entry : document.entries()) {
+                        entries.put(key(entry.operation(), entry.source(), entry.variant()), entry);
+                    }
+                    if (document.keySalt() != null) {
+                        keySalt = HexFormat.of().parseHex(document.keySalt());
+                    }
+                } else if (document != null) {
+                    logger.info("Ignoring content manifest " + file + " of unsupported version " + document.version());
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Ignoring unreadable content manifest " + file, e);
+                entries.clear();
+                keySalt = null;
+            }
+            if (keySalt == null) {
+                keySalt = new byte[KEY_SALT_LENGTH];
+                new SecureRandom().nextBytes(keySalt);
+            }
+            lastSave = System.currentTimeMillis();
+        }
+        return entries;
+    }
+
+    private static String key(String operation, String source, String variant) {
+        return operation + '\n' + source + '\n' + variant;
+    }
+
+    private String sha256(Path path) throws ToolkitException {
+        return HexFormat.of().formatHex(securityService.hash(path.toFile(), HashType.SHA_256));
+    }
+
+    private static FileState state(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.isRegularFile() ? new FileState(attributes.size(), attributes.lastModifiedTime().toMillis()) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Fingerprint of compression options.
+     */
+    static String fingerprint(CompressionOptions options) {
+        return "level=" + options.getLevel()
+                + ",targetThroughputMBps=" + (options.getTargetThroughputMBps().isPresent() ? options.getTargetThroughputMBps().getAsDouble() : "")
+                + ",targetRatio=" + (options.getTargetRatio().isPresent() ? options.getTargetRatio().getAsDouble() : "");
+    }
+
+    /**
+     * Fingerprint of encryption options, identifying the password and secret key by their HMAC under the manifest's salt.
+     * @return The fingerprint, {@code null} if the secret key cannot be exported and so not identified.
+     */
+    String fingerprint(EncryptionOptions options) {
+        Optional<PublicKey> recipient = options.getRsaPublicKey().or(() -> options.getRsaKeyPair().map(KeyPair::getPublic));
+        String password = options.getPassword().map(chars -> keyId(utf8(chars))).orElse("");
+        String secretKey = "";
+        if (options.getSecretKey().isPresent()) {
+            byte[] encoded = options.getSecretKey().get().getEncoded();
+            if (encoded == null) {
+                return null;
+            }
+            secretKey = keyId(encoded);
+        }
+        return "type=" + options.getType() + ",transformation=" + options.getCipherTransformation().orElse("")
+                + ",useSalt=" + options.isUseSalt() + ",iterations=" + options.getIterations()
+                + ",segmentSize=" + options.getSegmentSize() + ",compressWith=" + options.getCompressWith()
+                + ",compressionLevel=" + options.getCompressionLevel()
+                + ",recipient=" + recipient.map(key -> sha256(key.getEncoded())).orElse("")
+                + ",password=" + password + ",secretKey=" + secretKey;
+    }
+
+    /**
+     * Non-reversible identifier of key material: its HMAC-SHA256 under the manifest's salt. The material is zeroed.
+     */
+    private String keyId(byte[] material) {
+        try {
+            Mac mac = Mac.getInstance(KEY_MAC);
+            mac.init(new SecretKeySpec(keySalt(), KEY_MAC));
+            return HexFormat.of().formatHex(mac.doFinal(material));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(KEY_MAC + " is not available", e);
+        } finally {
+            Arrays.fill(material, (byte) 0);
+        }
+    }
+
+    private static byte[] utf8(char[] chars) {
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(chars));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        Arrays.fill(encoded.array(), (byte) 0);
+        return bytes;
+    }
+
+    private synchronized byte[] keySalt() {
+        entries();
+        return keySalt;
+    }
+
+    /**
+     * Fingerprint of a transformation.
+     */
+    static String fingerprint(FileFormat sourceFormat, FileFormat targetFormat, TransformOptions options) {
+        StringBuilder fingerprint = new StringBuilder("from=" + sourceFormat + ",to=" + targetFormat);
+        if (options != null) {
+            fingerprint.append(",preserveHeaders=").append(options.isPreserveHeaders())
+                    .append(",maxRows=").append(options.getMaxRows())
+                    .append(",streamMode=").append(options.isStreamMode())
+                    .append(",columnMappings=").append(options.getColumnMappings() == null ? "{}" : new TreeMap<>(options.getColumnMappings()));
+            WriteOptions write = options.getTargetWriteOptions();
+            if (write != null) {
+                fingerprint.append(",charset=").append(write.getCharset())
+                        .append(",csvDelimiter=").append(write.getCsvDelimiter())
+                        .append(",csvHasHeader=").append(write.isCsvHasHeader())
+                        .append(",dateFormat=").append(write.getDateFormat())
+                        .append(",prettyPrintJson=").append(write.isPrettyPrintJson())
+                        .append(",compressWith=").append(write.getCompressWith());
+            }
+        }
+        return fingerprint.toString();
+    }
+
+    private static String sha256(byte[] bytes) {
+        if (bytes == null) {
+            return "unencodable";
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.diyawanna.uft;
 
 import com.diyawanna.uft.model.EncryptionType;
+import com.diyawanna.uft.util.ExecutionMode;
 import com.diyawanna.uft.util.LogLevel;
+import com.diyawanna.uft.util.ProviderSelection;
 import org.slf4j.Logger;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 /**
  * Configuration class for the Universal File Toolkit. 
@@ -20,6 +27,21 @@ public final class ToolkitConfig {
     private final EncryptionType defaultEncryption;
     private final Charset defaultCharset;
     private final Optional<Logger> externalLogger;
+    private final Optional<Executor> executor;
+    private final int maxConcurrentOperations;
+    private final ExecutionMode executionMode;
+    private final int maxOpenFiles;
+    private final int bulkParallelism;
+    private final int compressionThreads;
+    private final long parallelCompressionThreshold;
+    private final int cryptoThreads;
+    private final int validationThreads;
+    private final int derivedKeyCacheSize;
+    private final Duration derivedKeyCacheTtl;
+    private final ProviderSelection providerSelection;
+    private final Map<String, String> cryptoProviders;
+    private final Optional<Path> spillDirectory;
+    private final Optional<Path> contentManifest;
 
     /**
      * Private constructor to enforce the use of the Builder.
@@ -32,6 +54,21 @@ public final class ToolkitConfig {
         this.defaultEncryption = builder.defaultEncryption;
         this.defaultCharset = builder.defaultCharset;
         this.externalLogger = Optional.ofNullable(builder.externalLogger);
+        this.executor = Optional.ofNullable(builder.executor);
+        this.maxConcurrentOperations = builder.maxConcurrentOperations;
+        this.executionMode = builder.executionMode;
+        this.maxOpenFiles = builder.maxOpenFiles;
+        this.bulkParallelism = builder.bulkParallelism;
+        this.compressionThreads = builder.compressionThreads;
+        this.parallelCompressionThreshold = builder.parallelCompressionThreshold;
+        this.cryptoThreads = builder.cryptoThreads;
+        this.validationThreads = builder.validationThreads;
+        this.derivedKeyCacheSize = builder.derivedKeyCacheSize;
+        this.derivedKeyCacheTtl = builder.derivedKeyCacheTtl;
+        this.providerSelection = builder.providerSelection;
+        this.cryptoProviders = Map.copyOf(builder.cryptoProviders);
+        this.spillDirectory = Optional.ofNullable(builder.spillDirectory);
+        this.contentManifest = Optional.ofNullable(builder.contentManifest);
     }
 
     /**
@@ -90,6 +127,131 @@ public final class ToolkitConfig {
         return externalLogger;
     }
 
+    /**
+     * Returns an {@link Optional} containing the executor used for asynchronous operations if set.
+     * When empty, the toolkit uses an executor of its own, shut down by {@code UniversalFileToolkit.close()}:
+     * virtual threads in {@link ExecutionMode#VIRTUAL_THREADS}, otherwise one platform thread per processor.
+     * @return An {@link Optional} of {@link Executor}.
+     */
+    public Optional<Executor> getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the maximum number of asynchronous operations a toolkit instance runs at the same time.
+     * Further operations are queued until a running one completes.
+     * @return The limit, or {@code -1} if unlimited.
+     */
+    public int getMaxConcurrentOperations() {
+        return maxConcurrentOperations;
+    }
+
+    /**
+     * Returns the execution mode for asynchronous and bulk operations.
+     * @return The {@link ExecutionMode}.
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Returns the maximum number of files asynchronous and bulk operations may hold open at once.
+     * @return The limit, or {@code -1} if unlimited.
+     */
+    public int getMaxOpenFiles() {
+        return maxOpenFiles;
+    }
+
+    /**
+     * Returns the maximum number of bulk job files processed at the same time across the toolkit.
+     * @return The limit, or {@code -1} for the default (the number of available processors with
+     *         platform threads, unlimited with virtual threads).
+     */
+    public int getBulkParallelism() {
+        return bulkParallelism;
+    }
+
+    /**
+     * Returns the number of threads used to compress a single large GZIP file or the entries of a ZIP archive.
+     * @return The thread count, or {@code -1} for the number of available processors.
+     */
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    /**
+     * Returns the minimum file size in bytes from which GZIP compression runs in parallel.
+     * @return The threshold in bytes.
+     */
+    public long getParallelCompressionThreshold() {
+        return parallelCompressionThreshold;
+    }
+
+    /**
+     * Returns the number of threads used to encrypt or decrypt the segments of a single file.
+     * @return The thread count, or {@code -1} for the number of available processors.
+     */
+    public int getCryptoThreads() {
+        return cryptoThreads;
+    }
+
+    /**
+     * Returns the number of threads used to validate the byte ranges of a single large CSV file.
+     * @return The thread count, or {@code -1} for the number of available processors.
+     */
+    public int getValidationThreads() {
+        return validationThreads;
+    }
+
+    /**
+     * Returns the maximum number of password-derived keys kept in memory.
+     * @return The cache size, or {@code 0} if keys are derived on every use.
+     */
+    public int getDerivedKeyCacheSize() {
+        return derivedKeyCacheSize;
+    }
+
+    /**
+     * Returns how long a password-derived key stays cached.
+     * @return The time to live.
+     */
+    public Duration getDerivedKeyCacheTtl() {
+        return derivedKeyCacheTtl;
+    }
+
+    /**
+     * Returns how JCA providers are chosen for algorithms without an explicit provider.
+     * @return The {@link ProviderSelection}.
+     */
+    public ProviderSelection getProviderSelection() {
+        return providerSelection;
+    }
+
+    /**
+     * Returns the JCA providers set explicitly, by algorithm.
+     * @return An unmodifiable map of provider names by algorithm, {@code "*"} applying to all algorithms.
+     */
+    public Map<String, String> getCryptoProviders() {
+        return cryptoProviders;
+    }
+
+    /**
+     * Returns the directory for temporary spill files, such as the per-thread scatter buffers of
+     * parallel ZIP creation.
+     * @return An {@link Optional} containing the directory, or empty for the system temporary directory.
+     */
+    public Optional<Path> getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Returns the manifest file of completed operations, used to skip work on unchanged inputs.
+     * @return An {@link Optional} containing the manifest file, or empty if no manifest is kept.
+     */
+    public Optional<Path> getContentManifest() {
+        return contentManifest;
+    }
+
     /**
      * Builder class for {@link ToolkitConfig}.
      */
@@ -100,6 +262,21 @@ public final class ToolkitConfig {
         private EncryptionType defaultEncryption = null;
         private Charset defaultCharset = StandardCharsets.UTF_8;
         private Logger externalLogger;
+        private Executor executor;
+        private int maxConcurrentOperations = -1; // -1 for no limit
+        private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+        private int maxOpenFiles = -1; // -1 for no limit
+        private int bulkParallelism = -1; // -1 for the mode-dependent default
+        private int compressionThreads = -1; // -1 for the number of available processors
+        private long parallelCompressionThreshold = 16L * 1024 * 1024;
+        private int cryptoThreads = -1; // -1 for the number of available processors
+        private int validationThreads = -1; // -1 for the number of available processors
+        private int derivedKeyCacheSize = 0; // 0 disables the cache
+        private Duration derivedKeyCacheTtl = Duration.ofMinutes(10);
+        private ProviderSelection providerSelection = ProviderSelection.RANKED;
+        private final Map<String, String> cryptoProviders = new LinkedHashMap<>();
+        private Path spillDirectory;
+        private Path contentManifest;
 
         private Builder() {
             // Private constructor
@@ -165,6 +342,186 @@ public final class ToolkitConfig {
             return this;
         }
 
+        /**
+         * Sets the executor used for the CPU-bound stages of asynchronous operations
+         * (serialization and parsing). File I/O itself runs on asynchronous file channels and
+         * never occupies this executor. The toolkit does not shut it down.
+         * @param executor The {@link Executor} to use, or {@code null} for an executor owned by the toolkit.
+         * @return The builder instance.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of asynchronous operations that may run at the same time.
+         * @param maxConcurrentOperations The limit, or {@code -1} for no limit.
+         * @return The builder instance.
+         */
+        public Builder maxConcurrentOperations(int maxConcurrentOperations) {
+            this.maxConcurrentOperations = maxConcurrentOperations;
+            return this;
+        }
+
+        /**
+         * Sets the execution mode for asynchronous and bulk operations. With
+         * {@link ExecutionMode#VIRTUAL_THREADS} each operation runs on its own virtual thread when the
+         * JVM supports them (Java 21+); on older JVMs the toolkit falls back to platform threads.
+         * An explicitly configured {@link #executor(Executor)} takes precedence over the mode.
+         * @param mode The {@link ExecutionMode} to use.
+         * @return The builder instance.
+         */
+        public Builder executionMode(ExecutionMode mode) {
+            this.executionMode = mode;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of files asynchronous and bulk operations may hold open at once.
+         * Operations wait for a free slot before opening a file.
+         * @param maxOpenFiles The limit, or {@code -1} for no limit.
+         * @return The builder instance.
+         */
+        public Builder maxOpenFiles(int maxOpenFiles) {
+            this.maxOpenFiles = maxOpenFiles;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of bulk job files processed at the same time across the toolkit.
+         * With platform threads this is the parallelism of the toolkit's work-stealing bulk pool.
+         * @param bulkParallelism The limit, or {@code -1} for the mode-dependent default.
+         * @return The builder instance.
+         */
+        public Builder bulkParallelism(int bulkParallelism) {
+            this.bulkParallelism = bulkParallelism;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used to compress a single large GZIP file or the entries of
+         * a multi-file ZIP archive. Large GZIP inputs are split into blocks that are deflated
+         * concurrently into one standard GZIP stream; ZIP entries are deflated concurrently.
+         * @param compressionThreads The thread count, {@code -1} for the number of available processors, or {@code 1} to disable parallel compression.
+         * @return The builder instance.
+         */
+        public Builder compressionThreads(int compressionThreads) {
+            this.compressionThreads = compressionThreads;
+            return this;
+        }
+
+        /**
+         * Sets the minimum file size from which GZIP compression runs in parallel. Smaller files
+         * are compressed on the calling thread.
+         * @param bytes The threshold in bytes (default 16 MB), at least 1.
+         * @return The builder instance.
+         * @throws IllegalArgumentException if {@code bytes} is less than 1.
+         */
+        public Builder parallelCompressionThreshold(long bytes) {
+            if (bytes < 1) {
+                throw new IllegalArgumentException("Parallel compression threshold must be at least 1 byte, got " + bytes);
+            }
+            this.parallelCompressionThreshold = bytes;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used to encrypt or decrypt the segments of a single file.
+         * Files larger than one segment are processed segment by segment on these threads.
+         * @param cryptoThreads The thread count, {@code -1} for the number of available processors, or {@code 1} to disable parallel encryption.
+         * @return The builder instance.
+         */
+        public Builder cryptoThreads(int cryptoThreads) {
+            this.cryptoThreads = cryptoThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads used to validate a single large CSV file. Uncompressed files
+         * of at least two ranges of 8 MB are split into byte ranges validated on these threads.
+         * @param validationThreads The thread count, {@code -1} for the number of available processors, or {@code 1} to disable parallel validation.
+         * @return The builder instance.
+         */
+        public Builder validationThreads(int validationThreads) {
+            this.validationThreads = validationThreads;
+            return this;
+        }
+
+        /**
+         * Enables a cache of PBKDF2 password-derived keys, so that encrypting or decrypting many
+         * files with the same password derives the key once instead of once per file. While
+         * cached, a password's salt is reused for new files (each file still gets its own key
+         * and nonces). Key material is zeroed on eviction, on expiry and on
+         * {@link UniversalFileToolkit#close()}. RSA envelope encryption caches its data keys the
+         * same way: one RSA wrap per recipient public key, one unwrap per wrapped data key.
+         * @param maxEntries The maximum number of cached keys, or {@code 0} to disable the cache (the default).
+         * @param ttl How long a key stays cached after it was derived (default 10 minutes).
+         * @return The builder instance.
+         */
+        public Builder derivedKeyCache(int maxEntries, Duration ttl) {
+            this.derivedKeyCacheSize = maxEntries;
+            this.derivedKeyCacheTtl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets how a JCA provider is chosen for each cipher, MAC, digest and key derivation
+         * algorithm. {@link ProviderSelection#RANKED} (the default) prefers the JDK providers,
+         * whose AES-GCM and SHA implementations use CPU intrinsics, over third-party ones;
+         * {@link ProviderSelection#BENCHMARK} times every provider supporting an algorithm on
+         * first use, BouncyCastle included if it is on the classpath, and keeps the fastest.
+         * @param selection The {@link ProviderSelection}.
+         * @return The builder instance.
+         */
+        public Builder providerSelection(ProviderSelection selection) {
+            this.providerSelection = selection;
+            return this;
+        }
+
+        /**
+         * Sets the JCA provider of an algorithm, overriding the {@link #providerSelection(ProviderSelection) selection}.
+         * {@code "BC"} uses BouncyCastle from the classpath even when it is not registered.
+         * @param algorithm The algorithm or cipher transformation (e.g. {@code "AES/GCM/NoPadding"},
+         *                  {@code "SHA-256"}), or {@code "*"} for every algorithm the provider supports.
+         * @param providerName The provider name (e.g. {@code "SunJCE"}), or {@code null} to remove the override.
+         * @return The builder instance.
+         */
+        public Builder cryptoProvider(String algorithm, String providerName) {
+            if (providerName == null) {
+                this.cryptoProviders.remove(algorithm);
+            } else {
+                this.cryptoProviders.put(algorithm, providerName);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the directory for temporary spill files. Parallel ZIP creation compresses entries
+         * into per-thread scatter files there before gathering them into the archive, so it
+         * should have room for the compressed size of the archive.
+         * @param directory The directory, or {@code null} for the system temporary directory.
+         * @return The builder instance.
+         */
+        public Builder spillDirectory(Path directory) {
+            this.spillDirectory = directory;
+            return this;
+        }
+
+        /**
+         * Keeps a manifest of completed compress, encrypt and transform operations, including
+         * those of bulk jobs, so that repeated runs skip the files whose content and options have
+         * not changed and whose output is still in place. A source with the size and modification
+         * time it had is not read; one with only a new modification time is hashed and compared.
+         * Passwords and secret keys are not recorded, so changing only them does not redo the work.
+         * @param file The JSON manifest file, created if missing, or {@code null} to keep no manifest (the default).
+         * @return The builder instance.
+         */
+        public Builder contentManifest(Path file) {
+            this.contentManifest = file;
+            return this;
+        }
+
         /**
          * Builds an immutable {@link ToolkitConfig} instance.
          * @return A new {@link ToolkitConfig} instance.
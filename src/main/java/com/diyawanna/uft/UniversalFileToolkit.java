@@ -1,24 +1,50 @@
 package com.diyawanna.uft;
 
 import com.diyawanna.uft.model.*;
+import com.diyawanna.uft.util.AsyncFileIO;
+import com.diyawanna.uft.util.AsyncOperationLimiter;
+import com.diyawanna.uft.util.BulkResult;
+import com.diyawanna.uft.util.ExecutionMode;
+import com.diyawanna.uft.util.FileHandleLimiter;
+import com.diyawanna.uft.util.OperationResult;
+import com.diyawanna.uft.util.PerformanceReport;
 import com.diyawanna.uft.util.ToolkitLogger;
+import com.diyawanna.uft.util.VirtualThreads;
 import com.diyawanna.uft.api.Reader;
 import com.diyawanna.uft.api.Writer;
 import com.diyawanna.uft.api.Transformer;
 import com.diyawanna.uft.api.Validator;
 import com.diyawanna.uft.api.SecurityService;
 import com.diyawanna.uft.api.CompressionService;
+import com.diyawanna.uft.api.RecordSink;
 import com.diyawanna.uft.impl.*; // Import all default implementations
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -33,11 +59,24 @@ public final class UniversalFileToolkit {
 
     // Internal service implementations
     private final Reader<Object> reader;
+    private final Reader<List<Map<String, Object>>> columnarReader;
     private final Writer writer;
     private final Transformer transformer;
     private final Validator validator;
     private final SecurityService securityService;
     private final CompressionService compressionService;
+    private final ContentManifest manifest;
+
+    // Asynchronous execution
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final AsyncOperationLimiter asyncLimiter;
+    private final FileHandleLimiter fileHandleLimiter;
+
+    // Bulk execution
+    private final ExecutorService bulkPool;
+    private final int bulkParallelism;
+    private final BulkJobExecutor bulkJobExecutor;
 
     /**
      * Constructs a new UniversalFileToolkit instance with the given configuration.
@@ -47,19 +86,59 @@ public final class UniversalFileToolkit {
         this.config = config;
         this.logger = new ToolkitLogger(config.isLoggingEnabled(), config.getLogLevel(), config.getExternalLogger().orElse(null));
 
-        // Initialize internal services with default implementations
-        this.reader = new DefaultReader();
+        this.ownedExecutor = config.getExecutor().isPresent() ? null : createOwnedExecutor(config);
+        this.executor = config.getExecutor().orElse(ownedExecutor);
+
+        // Initialize internal services with default implementations; readers inflate BGZF input on the toolkit's executor
+        this.reader = new DefaultReader(executor);
+        this.columnarReader = new ColumnarReader(executor);
         this.writer = new DefaultWriter();
         this.transformer = new DefaultTransformer();
-        this.validator = new DefaultValidator();
-        this.securityService = new DefaultSecurityService();
-        this.compressionService = new DefaultCompressionService();
+        this.validator = new DefaultValidator(config.getValidationThreads(), executor);
+        this.securityService = new DefaultSecurityService(config.getCryptoThreads(), config.getDerivedKeyCacheSize(),
+                config.getDerivedKeyCacheTtl(), config.getProviderSelection(), config.getCryptoProviders());
+        this.compressionService = new DefaultCompressionService(config.getCompressionThreads(),
+                config.getParallelCompressionThreshold(), config.getSpillDirectory().orElse(null));
+        this.manifest = config.getContentManifest().map(file -> new ContentManifest(file, securityService, logger)).orElse(null);
+
+        this.asyncLimiter = new AsyncOperationLimiter(config.getMaxConcurrentOperations());
+        this.fileHandleLimiter = new FileHandleLimiter(config.getMaxOpenFiles());
+
+        // Virtual threads need no pool; otherwise bulk jobs get a dedicated work-stealing pool
+        boolean virtual = ownedExecutor != null && config.getExecutionMode() == ExecutionMode.VIRTUAL_THREADS && VirtualThreads.isSupported();
+        this.bulkParallelism = config.getBulkParallelism() > 0 ? config.getBulkParallelism()
+                : virtual ? -1 : Runtime.getRuntime().availableProcessors();
+        this.bulkPool = virtual ? ownedExecutor : new ForkJoinPool(bulkParallelism);
+        this.bulkJobExecutor = new BulkJobExecutor(bulkPool, bulkParallelism, fileHandleLimiter, logger);
 
         logger.info("UniversalFileToolkit initialized with config: " + config);
     }
 
     /**
-     * Reads a file of a specified format into a target type.
+     * Creates the executor the toolkit owns (and shuts down on {@link #close()}) when none is configured:
+     * a virtual-thread executor for {@link ExecutionMode#VIRTUAL_THREADS}, otherwise a fixed pool of
+     * daemon platform threads, one per processor, so that asynchronous work stays off the common pool.
+     * @param config The toolkit configuration.
+     * @return The toolkit's executor.
+     */
+    private ExecutorService createOwnedExecutor(ToolkitConfig config) {
+        if (config.getExecutionMode() == ExecutionMode.VIRTUAL_THREADS) {
+            if (VirtualThreads.isSupported()) {
+                return VirtualThreads.newThreadPerTaskExecutor("uft-virtual-");
+            }
+            logger.info("Virtual threads are not supported on Java " + Runtime.version().feature() + "; using platform threads.");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+            Thread thread = new Thread(task, "uft-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads a file of a specified format into a target type. Compressed files are detected by their
+     * magic number and decompressed on the fly.
      * @param source The source file to read.
      * @param format The format of the source file.
      * @param targetType The class of the target type to convert the file content into.
@@ -69,13 +148,12 @@ public final class UniversalFileToolkit {
      */
     public <T> T read(File source, FileFormat format, Class<T> targetType) throws ToolkitException {
         logger.debug("Reading file: " + source.getAbsolutePath() + " as " + format + " into " + targetType.getName());
-        // In a real implementation, you would select the appropriate reader based on 'format'
-        // For now, we'll use the default reader and cast the result (which will throw an exception)
-        return (T) reader.read(source, ReadOptions.builder().build());
+        return (T) readerFor(format).read(source, ReadOptions.builder().build());
     }
 
     /**
-     * Reads an input stream of a specified format into a target type.
+     * Reads an input stream of a specified format into a target type. Compressed streams are
+     * detected by their magic number and decompressed on the fly.
      * @param sourceStream The input stream to read.
      * @param format The format of the source stream.
      * @param targetType The class of the target type to convert the stream content into.
@@ -85,7 +163,15 @@ public final class UniversalFileToolkit {
      */
     public <T> T read(InputStream sourceStream, FileFormat format, Class<T> targetType) throws ToolkitException {
         logger.debug("Reading input stream as " + format + " into " + targetType.getName());
-        return (T) reader.read(sourceStream, ReadOptions.builder().build());
+        return (T) readerFor(format).read(sourceStream, ReadOptions.builder().build());
+    }
+
+    /**
+     * Selects the reader for a format. The toolkit-native columnar format has its own reader;
+     * everything else goes through the default reader.
+     */
+    private Reader<?> readerFor(FileFormat format) {
+        return format == FileFormat.COLUMNAR ? columnarReader : reader;
     }
 
     /**
@@ -99,7 +185,7 @@ public final class UniversalFileToolkit {
         logger.debug("Reading file: " + source.getAbsolutePath() + " as table from " + format);
         // This would typically use a specific reader for tabular data, or the generic reader with appropriate targetType
         // For now, we'll use the stream method and collect to a list.
-        try (Stream<Map<String, Object>> stream = reader.stream(source, ReadOptions.builder().build())) {
+        try (Stream<Map<String, Object>> stream = readerFor(format).stream(source, ReadOptions.builder().build())) {
             return stream.toList();
         } catch (Exception e) {
             throw new ToolkitException("Failed to read as table", e);
@@ -108,6 +194,9 @@ public final class UniversalFileToolkit {
 
     /**
      * Returns an iterator for reading tabular data from a file, allowing lazy loading.
+     * Compressed files are decompressed on the fly, like in {@link #streamAsTable(Path, FileFormat)}.
+     * The file is released once the iterator is exhausted; prefer {@link #streamAsTable(Path, FileFormat)}
+     * in try-with-resources when rows may be left unread.
      * @param source The source file to read.
      * @param format The format of the source file (e.g., CSV, EXCEL).
      * @return An iterator over maps, where each map represents a row.
@@ -115,21 +204,60 @@ public final class UniversalFileToolkit {
      */
     public Iterator<Map<String, Object>> readAsTableIterator(File source, FileFormat format) throws ToolkitException {
         logger.debug("Reading file: " + source.getAbsolutePath() + " as table iterator from " + format);
-        // This would require a specific iterator implementation from the reader
-        throw new ToolkitException("readAsTableIterator operation not yet implemented.");
+        Stream<Map<String, Object>> stream = readerFor(format).stream(source, ReadOptions.builder().build());
+        Iterator<Map<String, Object>> rows = stream.iterator();
+        return new Iterator<>() {
+            private boolean open = true;
+
+            @Override
+            public boolean hasNext() {
+                if (!open) {
+                    return false;
+                }
+                if (rows.hasNext()) {
+                    return true;
+                }
+                open = false;
+                stream.close();
+                return false;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return rows.next();
+            }
+        };
     }
 
     /**
      * Streams tabular data from a file, allowing efficient processing of large files.
+     * Files compressed with GZIP, ZIP (a single entry), LZ4, Zstandard, BZIP2 or XZ are detected by
+     * their magic number and decompressed on the fly, without an intermediate file.
      * @param source The source file path to stream from.
      * @param format The format of the source file (e.g., CSV, EXCEL).
      * @return A stream of maps, where each map represents a row.
      * @throws ToolkitException if an error occurs during streaming.
      */
     public Stream<Map<String, Object>> streamAsTable(Path source, FileFormat format) throws ToolkitException {
+        return streamAsTable(source, format, ReadOptions.builder().build());
+    }
+
+    /**
+     * Streams tabular data from a file with specific read options. For {@link FileFormat#COLUMNAR}
+     * files, {@link ReadOptions#getColumns()} limits decoding to the projected columns and
+     * {@link ReadOptions#getFilters()} skips whole row groups whose statistics cannot match.
+     * @param source The source file path to stream from.
+     * @param format The format of the source file.
+     * @param options Read options, including column projection and filters.
+     * @return A stream of maps, where each map represents a row; close it to release the file.
+     * @throws ToolkitException if an error occurs during streaming.
+     */
+    public Stream<Map<String, Object>> streamAsTable(Path source, FileFormat format, ReadOptions options) throws ToolkitException {
         logger.debug("Streaming file: " + source.toAbsolutePath() + " as table from " + format);
-        // This would require a specific stream implementation from the reader
-        return reader.stream(source.toFile(), ReadOptions.builder().build());
+        return readerFor(format).stream(source.toFile(), options);
     }
 
     /**
@@ -156,6 +284,32 @@ public final class UniversalFileToolkit {
         writer.write(data, targetStream, WriteOptions.builder().build());
     }
 
+    /**
+     * Opens a sink for writing tabular records to a file incrementally, using default write options.
+     * @param target The target file path to write to.
+     * @param format The format to write the records in (CSV, JSON or XML).
+     * @return An open {@link RecordSink}; use it in a try-with-resources block.
+     * @throws ToolkitException if the sink cannot be opened.
+     */
+    public RecordSink openSink(Path target, FileFormat format) throws ToolkitException {
+        return openSink(target, format, WriteOptions.builder().build());
+    }
+
+    /**
+     * Opens a sink for writing tabular records to a file incrementally.
+     * Rows can be written one at a time or in batches while they are being computed;
+     * the sink writes the format framing (CSV header, JSON array, XML root element) itself.
+     * @param target The target file path to write to.
+     * @param format The format to write the records in (CSV, JSON or XML).
+     * @param options Write options, e.g. charset, CSV delimiter or compression.
+     * @return An open {@link RecordSink}; use it in a try-with-resources block.
+     * @throws ToolkitException if the sink cannot be opened.
+     */
+    public RecordSink openSink(Path target, FileFormat format, WriteOptions options) throws ToolkitException {
+        logger.debug("Opening record sink for file: " + target.toAbsolutePath() + " as " + format);
+        return writer.openSink(target, format, options);
+    }
+
     /**
      * Transforms data from a source file in one format to a target file in another format.
      * @param source The source file.
@@ -167,7 +321,14 @@ public final class UniversalFileToolkit {
      */
     public void transform(File source, FileFormat sourceFormat, File target, FileFormat targetFormat, TransformOptions options) throws ToolkitException {
         logger.debug("Transforming from " + sourceFormat + " to " + targetFormat + " for file: " + source.getAbsolutePath());
-        transformer.transform(source, sourceFormat, target, targetFormat, options);
+        if (manifest == null) {
+            transformer.transform(source, sourceFormat, target, targetFormat, options);
+            return;
+        }
+        manifest.run("transform", source, target.getAbsolutePath(), ContentManifest.fingerprint(sourceFormat, targetFormat, options), () -> {
+            transformer.transform(source, sourceFormat, target, targetFormat, options);
+            return target;
+        });
     }
 
     /**
@@ -192,7 +353,10 @@ public final class UniversalFileToolkit {
      */
     public File encrypt(File source, EncryptionOptions options) throws ToolkitException {
         logger.debug("Encrypting file: " + source.getAbsolutePath());
-        return securityService.encrypt(source, options);
+        if (manifest == null) {
+            return securityService.encrypt(source, options);
+        }
+        return manifest.run("encrypt", source, "", manifest.fingerprint(options), () -> securityService.encrypt(source, options));
     }
 
     /**
@@ -207,6 +371,123 @@ public final class UniversalFileToolkit {
         return securityService.decrypt(source, options);
     }
 
+    /**
+     * Encrypts several files with the same options. With a password or an RSA public key, the
+     * key setup is shared: one PBKDF2 derivation or one RSA-wrapped data key for the batch.
+     * @param sources The files to encrypt.
+     * @param options Encryption options, including key/password.
+     * @return The encrypted files, in the order of {@code sources}.
+     * @throws ToolkitException if an error occurs during encryption.
+     */
+    public List<File> encrypt(List<File> sources, EncryptionOptions options) throws ToolkitException {
+        logger.debug("Encrypting " + sources.size() + " files");
+        String fingerprint = manifest == null ? null : manifest.fingerprint(options);
+        if (fingerprint == null) {
+            return securityService.encrypt(sources, options);
+        }
+        // Only the changed files go to the batch, which keeps its shared key setup
+        List<File> encrypted = new ArrayList<>(sources.size());
+        List<ContentManifest.Check> changed = new ArrayList<>();
+        for (File source : sources) {
+            ContentManifest.Check check = manifest.check("encrypt", source, "", fingerprint);
+            encrypted.add(check.unchanged());
+            if (check.unchanged() == null) {
+                changed.add(check);
+            }
+        }
+        List<File> outputs = securityService.encrypt(changed.stream().map(check -> check.source().toFile()).toList(), options);
+        for (int i = 0, next = 0; i < encrypted.size(); i++) {
+            if (encrypted.get(i) == null) {
+                manifest.record(changed.get(next), outputs.get(next));
+                encrypted.set(i, outputs.get(next++));
+            }
+        }
+        manifest.flush();
+        return encrypted;
+    }
+
+    /**
+     * Decrypts several files with the same options. Files encrypted together share their data
+     * key, which is then unwrapped or derived only once.
+     * @param sources The files to decrypt.
+     * @param options Decryption options, including key/password.
+     * @return The decrypted files, in the order of {@code sources}.
+     * @throws ToolkitException if an error occurs during decryption.
+     */
+    public List<File> decrypt(List<File> sources, EncryptionOptions options) throws ToolkitException {
+        logger.debug("Decrypting " + sources.size() + " files");
+        return securityService.decrypt(sources, options);
+    }
+
+    /**
+     * Opens an encrypted file for reading its plaintext from a given offset. Only the segments
+     * from the one holding the offset onwards are read and decrypted, each authenticated before
+     * its content is returned.
+     * @param file The encrypted file.
+     * @param offset The plaintext offset to start at.
+     * @param options Decryption options, including key/password.
+     * @return A stream of the plaintext from {@code offset}; the caller must close it.
+     * @throws ToolkitException if the file cannot be opened, the key is wrong or the offset is beyond the content.
+     */
+    public InputStream openDecrypted(Path file, long offset, EncryptionOptions options) throws ToolkitException {
+        logger.debug("Opening encrypted file: " + file.toAbsolutePath() + " at offset " + offset);
+        return securityService.openDecrypted(file, offset, options);
+    }
+
+    /**
+     * Computes the hash of a file.
+     * @param source The file to hash.
+     * @param type The type of hash to compute.
+     * @return The computed hash.
+     * @throws ToolkitException if an error occurs during hashing.
+     */
+    public byte[] hash(File source, HashType type) throws ToolkitException {
+        logger.debug("Hashing file: " + source.getAbsolutePath() + " with " + type);
+        return securityService.hash(source, type);
+    }
+
+    /**
+     * Computes several hashes of a file in a single read, e.g. MD5 and SHA-256 for an integrity
+     * check. Large files are memory-mapped and each algorithm digests on its own thread while
+     * the next part of the file is read.
+     * @param file The file to hash.
+     * @param types The types of hash to compute.
+     * @return The computed hashes by type.
+     * @throws ToolkitException if an error occurs during hashing.
+     */
+    public Map<HashType, byte[]> hash(Path file, Set<HashType> types) throws ToolkitException {
+        logger.debug("Hashing file: " + file.toAbsolutePath() + " with " + types);
+        return securityService.hash(file, types);
+    }
+
+    /**
+     * Computes the Merkle tree hash of a file. Chunks are hashed in parallel, so a large file is
+     * not bound to one core as a linear digest is; with a sidecar, re-hashing an unchanged file
+     * does not read it and re-hashing a growing file reads only the new part.
+     * @param file The file to hash.
+     * @param options Tree hash options, including hash type, chunk size and sidecar use.
+     * @return The tree, whose root identifies the file.
+     * @throws ToolkitException if an error occurs during hashing.
+     */
+    public MerkleTree treeHash(Path file, TreeHashOptions options) throws ToolkitException {
+        logger.debug("Tree hashing file: " + file.toAbsolutePath() + " with " + options.getHashType());
+        return securityService.treeHash(file, options);
+    }
+
+    /**
+     * Verifies a file against an expected Merkle tree, e.g. after a transfer, and reports which
+     * chunks differ so that only those need to be transferred again.
+     * @param file The file to verify.
+     * @param expected The expected tree.
+     * @param options Tree hash options for sidecar use.
+     * @return The indices of the differing chunks, empty if the file is intact.
+     * @throws ToolkitException if an error occurs during hashing.
+     */
+    public List<Integer> verifyTree(Path file, MerkleTree expected, TreeHashOptions options) throws ToolkitException {
+        logger.debug("Verifying file: " + file.toAbsolutePath() + " against a tree of " + expected.getChunkCount() + " chunks");
+        return securityService.verifyTree(file, expected, options);
+    }
+
     /**
      * Encrypts a source file using a password.
      * This is a convenience method that creates {@link EncryptionOptions} with PBKDF2_PASSWORD.
@@ -241,6 +522,27 @@ public final class UniversalFileToolkit {
         return decrypt(source, options);
     }
 
+    /**
+     * Compresses and encrypts a source file in a single pass using a password: the plaintext is
+     * streamed through the compressor into the cipher and straight to the target, with no
+     * intermediate file. The compression is recorded in the encrypted file, so
+     * {@link #decrypt(File, String)} restores the original content.
+     * @param source The file to compress and encrypt.
+     * @param compressionType The compression to apply before encryption (e.g., ZSTD, GZIP).
+     * @param password The password to use for encryption.
+     * @return The encrypted file.
+     * @throws ToolkitException if an error occurs during compression or encryption.
+     */
+    public File compressAndEncrypt(File source, CompressionType compressionType, String password) throws ToolkitException {
+        logger.debug("Compressing with " + compressionType + " and encrypting file: " + source.getAbsolutePath());
+        EncryptionOptions options = EncryptionOptions.builder()
+                .type(EncryptionType.PBKDF2_PASSWORD)
+                .password(password.toCharArray())
+                .compressWith(compressionType)
+                .build();
+        return encrypt(source, options);
+    }
+
     /**
      * Compresses a source file using the specified compression type.
      * @param source The file to compress.
@@ -250,7 +552,106 @@ public final class UniversalFileToolkit {
      */
     public File compress(File source, CompressionType compressionType) throws ToolkitException {
         logger.debug("Compressing file: " + source.getAbsolutePath() + " with " + compressionType);
-        return compressionService.compress(source, compressionType);
+        if (manifest == null) {
+            return compressionService.compress(source, compressionType);
+        }
+        return manifest.run("compress", source, compressionType.name(), ContentManifest.fingerprint(CompressionOptions.builder().build()),
+                () -> compressionService.compress(source, compressionType));
+    }
+
+    /**
+     * Compresses a source file with the given options, e.g. a speed/ratio level.
+     * @param source The file to compress.
+     * @param compressionType The type of compression to apply (e.g., LZ4, ZSTD, XZ).
+     * @param options The compression options; see {@link CompressionOptions} for the level range of each type.
+     * @return The compressed file.
+     * @throws ToolkitException if an error occurs during compression or the level is out of range.
+     */
+    public File compress(File source, CompressionType compressionType, CompressionOptions options) throws ToolkitException {
+        logger.debug("Compressing file: " + source.getAbsolutePath() + " with " + compressionType + " at level " + options.getLevel());
+        if (manifest == null) {
+            return compressionService.compress(source, compressionType, options);
+        }
+        return manifest.run("compress", source, compressionType.name(), ContentManifest.fingerprint(options),
+                () -> compressionService.compress(source, compressionType, options));
+    }
+
+    /**
+     * Compresses a source file and reports the time taken, bytes processed and throughput.
+     * @param source The file to compress.
+     * @param compressionType The type of compression to apply (e.g., GZIP, ZIP).
+     * @return The compressed file together with a performance report; see {@link PerformanceReport#getThroughputMBps()}.
+     * @throws ToolkitException if an error occurs during compression.
+     */
+    public OperationResult<File> compressWithPerformance(File source, CompressionType compressionType) throws ToolkitException {
+        logger.debug("Compressing file with performance report: " + source.getAbsolutePath() + " with " + compressionType);
+        OperationResult<File> result = compressionService.compressWithPerformance(source, compressionType);
+        logger.debug("Compression finished: " + result.getPerformanceReport());
+        return result;
+    }
+
+    /**
+     * Compresses a source file with the given options, e.g. a speed/ratio level, and reports the
+     * time taken, bytes processed and throughput.
+     * @param source The file to compress.
+     * @param compressionType The type of compression to apply (e.g., LZ4, ZSTD, XZ).
+     * @param options The compression options; see {@link CompressionOptions} for the level range of each type.
+     * @return The compressed file together with a performance report.
+     * @throws ToolkitException if an error occurs during compression or the level is out of range.
+     */
+    public OperationResult<File> compressWithPerformance(File source, CompressionType compressionType, CompressionOptions options) throws ToolkitException {
+        logger.debug("Compressing file with performance report: " + source.getAbsolutePath() + " with " + compressionType + " at level " + options.getLevel());
+        OperationResult<File> result = compressionService.compressWithPerformance(source, compressionType, options);
+        logger.debug("Compression finished: " + result.getPerformanceReport());
+        return result;
+    }
+
+    /**
+     * Compresses several files and directories into a single archive. Entries are deflated in
+     * parallel on {@link ToolkitConfig#getCompressionThreads()} threads.
+     * @param sources The files and directories to add; directories are added recursively under their own name.
+     * @param target The archive to create.
+     * @param compressionType The archive type; only ZIP is supported.
+     * @return The archive file.
+     * @throws ToolkitException if an error occurs during compression.
+     */
+    public File compress(List<File> sources, File target, CompressionType compressionType) throws ToolkitException {
+        logger.debug("Compressing " + sources.size() + " sources into " + target.getAbsolutePath() + " with " + compressionType);
+        return compressionService.compress(sources, target, compressionType);
+    }
+
+    /**
+     * Compresses several files and directories into a single archive with the given options.
+     * @param sources The files and directories to add; directories are added recursively under their own name.
+     * @param target The archive to create.
+     * @param compressionType The archive type; only ZIP is supported.
+     * @param options The compression options, e.g. the deflate level.
+     * @return The archive file.
+     * @throws ToolkitException if an error occurs during compression.
+     */
+    public File compress(List<File> sources, File target, CompressionType compressionType, CompressionOptions options) throws ToolkitException {
+        logger.debug("Compressing " + sources.size() + " sources into " + target.getAbsolutePath() + " with " + compressionType + " at level " + options.getLevel());
+        return compressionService.compress(sources, target, compressionType, options);
+    }
+
+    /**
+     * Creates a ZIP archive of a directory's content, with entry names relative to the directory.
+     * Entries are deflated in parallel; see {@link #compress(List, File, CompressionType)}.
+     * @param directory The directory to archive.
+     * @param target The archive to create; it is skipped if it lies inside {@code directory}.
+     * @return The archive file.
+     * @throws ToolkitException if the directory cannot be read or an error occurs during compression.
+     */
+    public File zipDirectory(Path directory, Path target) throws ToolkitException {
+        logger.debug("Zipping directory: " + directory.toAbsolutePath() + " into " + target.toAbsolutePath());
+        Path archive = target.toAbsolutePath();
+        List<File> children;
+        try (Stream<Path> paths = Files.list(directory)) {
+            children = paths.filter(path -> !path.toAbsolutePath().equals(archive)).sorted().map(Path::toFile).toList();
+        } catch (IOException | UncheckedIOException e) {
+            throw new IOProcessingException("Failed to list directory " + directory.toAbsolutePath(), e);
+        }
+        return compress(children, archive.toFile(), CompressionType.ZIP);
     }
 
     /**
@@ -292,18 +693,60 @@ public final class UniversalFileToolkit {
         return compressionService.decompress(source);
     }
 
+    /**
+     * Decompresses a source file, auto-detecting the compression type, and reports the time taken,
+     * bytes processed and throughput.
+     * @param source The file to decompress.
+     * @return The decompressed file (or directory) together with a performance report.
+     * @throws ToolkitException if an error occurs during decompression.
+     */
+    public OperationResult<File> decompressWithPerformance(File source) throws ToolkitException {
+        logger.debug("Decompressing file with performance report: " + source.getAbsolutePath());
+        OperationResult<File> result = compressionService.decompressWithPerformance(source);
+        logger.debug("Decompression finished: " + result.getPerformanceReport());
+        return result;
+    }
+
+    /**
+     * Opens a single entry of a ZIP archive for reading, without extracting the rest of the archive.
+     * Only the archive's central directory and the entry itself are read; the central directory is
+     * cached, so repeated lookups in the same unchanged archive cost a single small read each.
+     * @param zip The ZIP archive.
+     * @param entryName The full name of the entry, e.g. {@code "meta/manifest.json"}.
+     * @return A stream of the entry's uncompressed content; the caller must close it.
+     * @throws ToolkitException if the archive cannot be read or has no such entry.
+     */
+    public InputStream openEntry(Path zip, String entryName) throws ToolkitException {
+        logger.debug("Opening entry '" + entryName + "' of ZIP archive: " + zip.toAbsolutePath());
+        return compressionService.openEntry(zip, entryName);
+    }
+
+    /**
+     * Opens a BGZF file (see {@link CompressionType#BGZF}) for reading from an uncompressed offset,
+     * e.g. the start of a record range. Only the blocks from the one holding the offset onwards
+     * are inflated; the block index written beside the file is used, or rebuilt from the block
+     * headers if missing.
+     * @param file The BGZF file.
+     * @param uncompressedOffset The offset in the uncompressed content to start at.
+     * @return A stream of the uncompressed content from that offset; the caller must close it.
+     * @throws ToolkitException if the file is not BGZF or the offset is beyond its content.
+     */
+    public InputStream openAt(Path file, long uncompressedOffset) throws ToolkitException {
+        logger.debug("Opening BGZF file: " + file.toAbsolutePath() + " at offset " + uncompressedOffset);
+        return compressionService.openAt(file, uncompressedOffset);
+    }
+
     /**
      * Decompresses a source file using the specified compression type.
      * This is a convenience method for explicit decompression.
      * @param source The file to decompress.
      * @param compressionType The type of compression to expect (e.g., GZIP, ZIP).
      * @return The decompressed file (or a directory for ZIP with multiple entries).
-     * @throws ToolkitException if an error occurs during decompression.
+     * @throws ToolkitException if the file is not in the expected format or an error occurs during decompression.
      */
     public File decompress(File source, CompressionType compressionType) throws ToolkitException {
         logger.debug("Decompressing file: " + source.getAbsolutePath() + " with explicit type " + compressionType);
-        // The default decompress method should handle type detection, but for explicit calls, you might pass it through
-        return compressionService.decompress(source);
+        return compressionService.decompress(source, compressionType);
     }
 
     /**
@@ -320,6 +763,130 @@ public final class UniversalFileToolkit {
         return decompress(source, compressionType);
     }
 
+    /**
+     * Runs a batch of file jobs in parallel and waits for all of them to finish.
+     * Jobs run on the toolkit's bulk pool (virtual threads in {@link ExecutionMode#VIRTUAL_THREADS},
+     * otherwise a work-stealing pool sized by {@link ToolkitConfig#getBulkParallelism()}).
+     * Failures of individual jobs are reported in the result rather than thrown.
+     * @param jobs The jobs to run.
+     * @return Per-file results, in submission order, and an aggregate {@link com.diyawanna.uft.util.PerformanceReport}.
+     * @throws ToolkitException if the calling thread is interrupted while waiting.
+     */
+    public BulkResult submitAll(List<FileJob> jobs) throws ToolkitException {
+        return submitAll(jobs, bulkParallelism > 0 ? bulkParallelism : jobs.size());
+    }
+
+    /**
+     * Runs a batch of file jobs with at most {@code maxParallelism} of them in progress at once.
+     * The toolkit-wide bulk parallelism and open-file limits still apply on top of this limit.
+     * @param jobs The jobs to run.
+     * @param maxParallelism The maximum number of this batch's jobs running at the same time.
+     * @return Per-file results, in submission order, and an aggregate {@link com.diyawanna.uft.util.PerformanceReport}.
+     * @throws ToolkitException if the calling thread is interrupted while waiting.
+     */
+    public BulkResult submitAll(List<FileJob> jobs, int maxParallelism) throws ToolkitException {
+        logger.debug("Submitting bulk job with " + jobs.size() + " entries, max parallelism " + maxParallelism);
+        try {
+            return bulkJobExecutor.run(List.copyOf(jobs), maxParallelism, this::executeJob);
+        } finally {
+            if (manifest != null) {
+                manifest.flush();
+            }
+        }
+    }
+
+    /**
+     * Transforms every file under a directory that matches a glob, writing the results to a target directory
+     * with the same relative layout and the target format's file extension.
+     * @param sourceDir The directory to scan recursively.
+     * @param glob A glob matched against paths relative to {@code sourceDir} (e.g., {@code "**.csv"}).
+     * @param sourceFormat The format of the source files.
+     * @param targetDir The directory to write transformed files to.
+     * @param targetFormat The desired format for the target files.
+     * @param options Transformation options.
+     * @return Per-file results and an aggregate performance report.
+     * @throws ToolkitException if the directory cannot be scanned or the caller is interrupted.
+     */
+    public BulkResult transformDirectory(Path sourceDir, String glob, FileFormat sourceFormat, Path targetDir,
+                                         FileFormat targetFormat, TransformOptions options) throws ToolkitException {
+        List<FileJob> jobs = new ArrayList<>();
+        for (Path file : listFiles(sourceDir, glob)) {
+            Path relative = sourceDir.relativize(file);
+            Path target = targetDir.resolve(relative).resolveSibling(replaceExtension(file.getFileName().toString(), targetFormat));
+            jobs.add(FileJob.transform(file.toFile(), sourceFormat, target.toFile(), targetFormat, options));
+        }
+        return submitAll(jobs);
+    }
+
+    /**
+     * Validates every file under a directory that matches a glob.
+     * @param directory The directory to scan recursively.
+     * @param glob A glob matched against paths relative to {@code directory}.
+     * @param format The format of the files.
+     * @param options Validation options.
+     * @return Per-file results (each holding a {@link ValidationResult}) and an aggregate performance report.
+     * @throws ToolkitException if the directory cannot be scanned or the caller is interrupted.
+     */
+    public BulkResult validateDirectory(Path directory, String glob, FileFormat format, ValidationOptions options) throws ToolkitException {
+        List<FileJob> jobs = new ArrayList<>();
+        for (Path file : listFiles(directory, glob)) {
+            jobs.add(FileJob.validate(file.toFile(), format, options));
+        }
+        return submitAll(jobs);
+    }
+
+    /**
+     * Compresses every file under a directory that matches a glob, each into its own compressed file.
+     * @param directory The directory to scan recursively.
+     * @param glob A glob matched against paths relative to {@code directory}.
+     * @param compressionType The type of compression to apply.
+     * @return Per-file results (each holding the compressed file) and an aggregate performance report.
+     * @throws ToolkitException if the directory cannot be scanned or the caller is interrupted.
+     */
+    public BulkResult compressFiles(Path directory, String glob, CompressionType compressionType) throws ToolkitException {
+        List<FileJob> jobs = new ArrayList<>();
+        for (Path file : listFiles(directory, glob)) {
+            jobs.add(FileJob.compress(file.toFile(), compressionType));
+        }
+        return submitAll(jobs);
+    }
+
+    private Object executeJob(FileJob job) throws ToolkitException {
+        return switch (job.getOperation()) {
+            case TRANSFORM -> {
+                transform(job.getSource(), job.getSourceFormat(), job.getTarget(), job.getTargetFormat(), job.getTransformOptions());
+                yield job.getTarget();
+            }
+            case VALIDATE -> validate(job.getSource(), job.getSourceFormat(), job.getValidationOptions());
+            case COMPRESS -> compress(job.getSource(), job.getCompressionType());
+        };
+    }
+
+    private static List<Path> listFiles(Path directory, String glob) throws ToolkitException {
+        PathMatcher matcher = directory.getFileSystem().getPathMatcher("glob:" + glob);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(directory.relativize(path)))
+                    .sorted()
+                    .toList();
+        } catch (IOException | UncheckedIOException e) {
+            throw new IOProcessingException("Failed to scan directory " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    private static String replaceExtension(String fileName, FileFormat format) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = switch (format) {
+            case EXCEL -> "xlsx";
+            case YAML -> "yaml";
+            case GZIP -> "gz";
+            case COLUMNAR -> "uftc";
+            default -> format.name().toLowerCase(Locale.ROOT);
+        };
+        return base + "." + extension;
+    }
+
     /**
      * Filters tabular data from a file based on a given predicate.
      * @param source The source file containing tabular data.
@@ -336,7 +903,13 @@ public final class UniversalFileToolkit {
     }
 
     /**
-     * Performs an asynchronous write operation.
+     * Performs an asynchronous write operation. The data is serialized on the configured executor and
+     * written with an {@link java.nio.channels.AsynchronousFileChannel}; the target is replaced only once
+     * the write has completed. Cancelling the returned future stops the pending I/O.
+     * <p>
+     * Serialization goes through {@link Writer#write(Object, java.io.OutputStream, WriteOptions)}, which
+     * the default writer does not implement yet, so with it the future currently completes
+     * exceptionally and the asynchronous write path is untested end to end.
      * @param data The object to write.
      * @param target The target file path to write to.
      * @param format The format to write the data in.
@@ -344,28 +917,151 @@ public final class UniversalFileToolkit {
      */
     public CompletableFuture<Void> writeAsync(Object data, Path target, FileFormat format) {
         logger.debug("Asynchronously writing data to file: " + target.toAbsolutePath() + " as " + format);
-        return CompletableFuture.runAsync(() -> {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        asyncLimiter.submit(result, () -> executor.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
             try {
-                write(data, target.toFile(), format);
-            } catch (ToolkitException e) {
-                throw new RuntimeException(e); // Wrap for CompletableFuture
+                PayloadBuffer buffer = new PayloadBuffer();
+                write(data, buffer, format);
+                withFileHandle(result, () -> {
+                    CompletableFuture<Void> io = AsyncFileIO.write(target, buffer.toByteBuffer(), null);
+                    bind(io, result);
+                    return io;
+                });
+            } catch (ToolkitException | RuntimeException e) {
+                result.completeExceptionally(e);
             }
-        });
+        }));
+        return result;
     }
 
     /**
-     * Performs an asynchronous read operation for tabular data.
+     * Performs an asynchronous read operation for tabular data. The file is read with an
+     * {@link java.nio.channels.AsynchronousFileChannel} and parsed on the configured executor.
+     * Cancelling the returned future stops the pending I/O.
+     * <p>
+     * Parsing goes through the default reader, which does not read CSV, JSON or XML yet, so
+     * for those formats the future currently completes exceptionally and the asynchronous read
+     * path is untested end to end.
      * @param source The source file path to read from.
      * @param format The format of the source file.
      * @return A CompletableFuture that completes with a list of maps representing the tabular data.
      */
     public CompletableFuture<List<Map<String, Object>>> readAsTableAsync(Path source, FileFormat format) {
         logger.debug("Asynchronously reading file: " + source.toAbsolutePath() + " as table from " + format);
-        return CompletableFuture.supplyAsync(() -> {
+        CompletableFuture<List<Map<String, Object>>> result = new CompletableFuture<>();
+        asyncLimiter.submit(result, () -> executor.execute(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            withFileHandle(result, () -> {
+                CompletableFuture<byte[]> io = AsyncFileIO.readAll(source, null);
+                parseWhenRead(io, format, result);
+                return io;
+            });
+        }));
+        return result;
+    }
+
+    /**
+     * Starts the file I/O of an asynchronous operation once a file handle permit is available,
+     * without blocking the calling thread. The permit is held until the I/O completes, and
+     * released at once if starting it fails. A result completed while waiting, e.g. cancelled,
+     * gives up its place in the permit queue.
+     * @param result The operation's outcome.
+     * @param io Starts the I/O and returns its future.
+     */
+    private void withFileHandle(CompletableFuture<?> result, Supplier<CompletableFuture<?>> io) {
+        CompletableFuture<FileHandleLimiter.Permit> permit = fileHandleLimiter.acquireAsync();
+        result.whenComplete((value, error) -> permit.cancel(false));
+        permit.thenAccept(granted -> {
+            if (result.isDone()) {
+                granted.close();
+                return;
+            }
+            try {
+                io.get().whenComplete((value, error) -> granted.close());
+            } catch (RuntimeException e) {
+                granted.close();
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Completes {@code result} with the table parsed from the bytes read by {@code io}, on the
+     * configured executor, and cancels {@code io} if {@code result} is cancelled.
+     */
+    private void parseWhenRead(CompletableFuture<byte[]> io, FileFormat format, CompletableFuture<List<Map<String, Object>>> result) {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                io.cancel(true);
+            }
+        });
+        io.whenComplete((bytes, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
             try {
-                return readAsTable(source.toFile(), format);
-            } catch (ToolkitException e) {
-                throw new RuntimeException(e); // Wrap for CompletableFuture
+                executor.execute(() -> {
+                    if (result.isDone()) {
+                        return;
+                    }
+                    try {
+                        result.complete(parseTable(bytes, format));
+                    } catch (ToolkitException | RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Parses an in-memory file image as tabular data.
+     * @param content The file content.
+     * @param format The format of the content.
+     * @return The rows.
+     * @throws ToolkitException if the content cannot be parsed or is not tabular.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> parseTable(byte[] content, FileFormat format) throws ToolkitException {
+        Object parsed = read(new ByteArrayInputStream(content), format, Object.class);
+        if (!(parsed instanceof List<?>)) {
+            throw new FormatException("Content read as " + format + " is not tabular data");
+        }
+        return (List<Map<String, Object>>) parsed;
+    }
+
+    /**
+     * A byte array stream whose content can be written out without copying it.
+     */
+    private static final class PayloadBuffer extends ByteArrayOutputStream {
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+
+    /**
+     * Completes {@code result} with the outcome of {@code io}, and cancels {@code io} when {@code result} is cancelled.
+     */
+    private static <T> void bind(CompletableFuture<T> io, CompletableFuture<T> result) {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                io.cancel(true);
+            }
+        });
+        io.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
             }
         });
     }
@@ -375,7 +1071,22 @@ public final class UniversalFileToolkit {
      */
     public void close() {
         logger.info("Closing UniversalFileToolkit and releasing resources.");
-        // Implement resource cleanup here if necessary (e.g., closing internal readers/writers)
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        bulkPool.shutdown();
+        if (compressionService instanceof DefaultCompressionService service) {
+            service.close();
+        }
+        if (securityService instanceof DefaultSecurityService service) {
+            service.close();
+        }
+        if (validator instanceof DefaultValidator service) {
+            service.close();
+        }
+        if (manifest != null) {
+            manifest.flush();
+        }
     }
 
     /**
@@ -391,8 +1102,9 @@ public final class UniversalFileToolkit {
     }
 
     /**
-     * Placeholder for validate method with schema file as seen in example.
-     * This would typically delegate to the main validate method with appropriate options.
+     * Validates a file against a JSON Schema or XML Schema file. The compiled schema is cached
+     * and reused until the schema file changes, so validating many files or messages against the
+     * same schema compiles it once.
      * @param source The file to validate.
      * @param format The format of the file.
      * @param schemaFile The schema file for validation.
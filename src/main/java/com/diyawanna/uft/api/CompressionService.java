@@ -1,9 +1,16 @@
 package com.diyawanna.uft.api;
 
 import com.diyawanna.uft.CompressionException;
+import com.diyawanna.uft.model.CompressionOptions;
 import com.diyawanna.uft.model.CompressionType;
+import com.diyawanna.uft.util.OperationResult;
+import com.diyawanna.uft.util.PerformanceReport;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Public interface for performing compression and decompression operations.
@@ -19,6 +26,69 @@ public interface CompressionService {
      */
     File compress(File source, CompressionType type) throws CompressionException;
 
+    /**
+     * Compresses a given file using the specified compression type and options.
+     * @param source The file to compress.
+     * @param type The type of compression to apply.
+     * @param options The compression options, e.g. the level.
+     * @return The compressed file.
+     * @throws CompressionException if an error occurs during compression or the level is out of range.
+     */
+    default File compress(File source, CompressionType type, CompressionOptions options) throws CompressionException {
+        requireDefaultLevel(options);
+        return compress(source, type);
+    }
+
+    /**
+     * Compresses several files into a single archive. Directories are added recursively, with
+     * entry names prefixed by the directory name.
+     * @param sources The files and directories to add.
+     * @param target The archive to create.
+     * @param type The archive type; only multi-entry formats such as ZIP are supported.
+     * @return The archive file.
+     * @throws CompressionException if an error occurs or the type cannot hold multiple files.
+     */
+    default File compress(List<File> sources, File target, CompressionType type) throws CompressionException {
+        throw new CompressionException("Multi-file compression is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Compresses several files into a single archive using the specified options.
+     * @param sources The files and directories to add.
+     * @param target The archive to create.
+     * @param type The archive type; only multi-entry formats such as ZIP are supported.
+     * @param options The compression options, e.g. the level.
+     * @return The archive file.
+     * @throws CompressionException if an error occurs or the type cannot hold multiple files.
+     */
+    default File compress(List<File> sources, File target, CompressionType type, CompressionOptions options) throws CompressionException {
+        requireDefaultLevel(options);
+        return compress(sources, target, type);
+    }
+
+    /**
+     * Opens a single entry of a ZIP archive for reading without extracting the rest of the archive.
+     * @param archive The ZIP archive.
+     * @param entryName The full name of the entry, e.g. {@code "meta/manifest.json"}.
+     * @return A stream of the entry's uncompressed content; the caller must close it.
+     * @throws CompressionException if the archive cannot be read or has no such entry.
+     */
+    default InputStream openEntry(Path archive, String entryName) throws CompressionException {
+        throw new CompressionException("Single-entry access is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Opens a BGZF file for reading from an uncompressed offset, inflating only the blocks from
+     * the one holding that offset onwards.
+     * @param file The BGZF file.
+     * @param uncompressedOffset The offset in the uncompressed content to start at.
+     * @return A stream of the uncompressed content from that offset; the caller must close it.
+     * @throws CompressionException if the file is not BGZF or the offset is beyond its content.
+     */
+    default InputStream openAt(Path file, long uncompressedOffset) throws CompressionException {
+        throw new CompressionException("Random access is not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * Decompresses a given file. The implementation should ideally auto-detect the compression type.
      * @param source The file to decompress.
@@ -26,6 +96,62 @@ public interface CompressionService {
      * @throws CompressionException if an error occurs during decompression.
      */
     File decompress(File source) throws CompressionException;
-}
 
+    /**
+     * Decompresses a given file that is expected to be in a specific compression format.
+     * @param source The file to decompress.
+     * @param type The expected compression type.
+     * @return The decompressed file (or a directory for ZIP with multiple entries).
+     * @throws CompressionException if the file is not in the expected format or decompression fails.
+     */
+    default File decompress(File source, CompressionType type) throws CompressionException {
+        return decompress(source);
+    }
+
+    /**
+     * Compresses a given file and reports the time taken and bytes processed.
+     * Implementations should add a {@code throughputMBps} stage to the report.
+     * @param source The file to compress.
+     * @param type The type of compression to apply.
+     * @return The compressed file together with its performance report.
+     * @throws CompressionException if an error occurs during compression.
+     */
+    default OperationResult<File> compressWithPerformance(File source, CompressionType type) throws CompressionException {
+        long start = System.nanoTime();
+        File result = compress(source, type);
+        return new OperationResult<>(result, new PerformanceReport((System.nanoTime() - start) / 1_000_000L,
+                source.length(), result.length(), 0L, Map.of()));
+    }
+
+    /**
+     * Compresses a given file using the specified options and reports the time taken and bytes processed.
+     * @param source The file to compress.
+     * @param type The type of compression to apply.
+     * @param options The compression options, e.g. the level.
+     * @return The compressed file together with its performance report.
+     * @throws CompressionException if an error occurs during compression or the level is out of range.
+     */
+    default OperationResult<File> compressWithPerformance(File source, CompressionType type, CompressionOptions options) throws CompressionException {
+        requireDefaultLevel(options);
+        return compressWithPerformance(source, type);
+    }
 
+    /**
+     * Decompresses a given file and reports the time taken and bytes processed.
+     * @param source The file to decompress.
+     * @return The decompressed file (or directory) together with its performance report.
+     * @throws CompressionException if an error occurs during decompression.
+     */
+    default OperationResult<File> decompressWithPerformance(File source) throws CompressionException {
+        long start = System.nanoTime();
+        File result = decompress(source);
+        return new OperationResult<>(result, new PerformanceReport((System.nanoTime() - start) / 1_000_000L,
+                source.length(), result.length(), 0L, Map.of()));
+    }
+
+    private void requireDefaultLevel(CompressionOptions options) throws CompressionException {
+        if (options.getLevel() != CompressionOptions.DEFAULT_LEVEL) {
+            throw new CompressionException("Compression levels are not supported by " + getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.diyawanna.uft.api;
+
+import com.diyawanna.uft.ToolkitException;
+
+import java.util.Map;
+
+/**
+ * Public interface for writing tabular records incrementally to a single target.
+ * A sink takes care of the format framing itself (e.g., the CSV header, JSON array
+ * brackets or the XML root element), so callers can emit rows as they are produced
+ * instead of buffering the whole data set in memory.
+ * <p>
+ * Instances are NOT thread-safe. The target is only guaranteed to be complete once
+ * {@link #close()} has returned successfully.
+ */
+public interface RecordSink extends AutoCloseable {
+
+    /**
+     * Writes a single record.
+     * @param record The record to write (column name to value).
+     * @throws ToolkitException if the record cannot be serialized or written.
+     */
+    void write(Map<String, Object> record) throws ToolkitException;
+
+    /**
+     * Writes a batch of records in iteration order.
+     * @param records The records to write.
+     * @throws ToolkitException if any record cannot be serialized or written.
+     */
+    default void writeAll(Iterable<? extends Map<String, Object>> records) throws ToolkitException {
+        for (Map<String, Object> record : records) {
+            write(record);
+        }
+    }
+
+    /**
+     * Flushes any buffered output to the underlying target.
+     * @throws ToolkitException if an error occurs while flushing.
+     */
+    void flush() throws ToolkitException;
+
+    /**
+     * Returns the number of records written so far.
+     * @return The record count.
+     */
+    long getRecordCount();
+
+    /**
+     * Writes the closing format framing and publishes the target file.
+     * @throws ToolkitException if an error occurs while finishing the output.
+     */
+    @Override
+    void close() throws ToolkitException;
+}
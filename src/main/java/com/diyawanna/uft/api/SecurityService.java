@@ -4,8 +4,16 @@ import com.diyawanna.uft.SecurityException;
 import com.diyawanna.uft.ToolkitException;
 import com.diyawanna.uft.model.EncryptionOptions;
 import com.diyawanna.uft.model.HashType;
+import com.diyawanna.uft.model.MerkleTree;
+import com.diyawanna.uft.model.TreeHashOptions;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Public interface for performing security-related operations like encryption, decryption, and hashing.
@@ -30,6 +38,51 @@ public interface SecurityService {
      */
     File decrypt(File source, EncryptionOptions options) throws SecurityException;
 
+    /**
+     * Encrypts several files with the same options. Implementations may share the costly key
+     * setup, a password derivation or an RSA key wrap, across the files of the batch.
+     * @param sources The files to encrypt.
+     * @param options Encryption options, including algorithm, key, and password.
+     * @return The encrypted files, in the order of {@code sources}.
+     * @throws SecurityException if an error occurs during encryption; files encrypted before it are kept.
+     */
+    default List<File> encrypt(List<File> sources, EncryptionOptions options) throws SecurityException {
+        List<File> encrypted = new ArrayList<>(sources.size());
+        for (File source : sources) {
+            encrypted.add(encrypt(source, options));
+        }
+        return encrypted;
+    }
+
+    /**
+     * Decrypts several files with the same options. Implementations may share the costly key
+     * setup, a password derivation or an RSA key unwrap, across files encrypted together.
+     * @param sources The files to decrypt.
+     * @param options Decryption options, including algorithm, key, and password.
+     * @return The decrypted files, in the order of {@code sources}.
+     * @throws SecurityException if an error occurs during decryption; files decrypted before it are kept.
+     */
+    default List<File> decrypt(List<File> sources, EncryptionOptions options) throws SecurityException {
+        List<File> decrypted = new ArrayList<>(sources.size());
+        for (File source : sources) {
+            decrypted.add(decrypt(source, options));
+        }
+        return decrypted;
+    }
+
+    /**
+     * Opens an encrypted file for reading its plaintext from a given offset, without decrypting
+     * the content before it.
+     * @param file The encrypted file.
+     * @param offset The plaintext offset to start at.
+     * @param options Decryption options, including key or password.
+     * @return A stream of the plaintext from {@code offset}; the caller must close it.
+     * @throws SecurityException if the file cannot be opened, the key is wrong or the offset is beyond the content.
+     */
+    default InputStream openDecrypted(Path file, long offset, EncryptionOptions options) throws SecurityException {
+        throw new SecurityException("Random-access decryption is not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * Computes the hash of a given file using the specified hash type.
      * @param source The file for which to compute the hash.
@@ -38,6 +91,38 @@ public interface SecurityService {
      * @throws ToolkitException if an error occurs during hashing.
      */
     byte[] hash(File source, HashType type) throws ToolkitException;
-}
 
+    /**
+     * Computes several hashes of a file in a single read.
+     * @param file The file for which to compute the hashes.
+     * @param types The types of hash to compute.
+     * @return The computed hashes by type.
+     * @throws ToolkitException if an error occurs during hashing.
+     */
+    default Map<HashType, byte[]> hash(Path file, Set<HashType> types) throws ToolkitException {
+        throw new SecurityException("Multi-algorithm hashing is not supported by " + getClass().getSimpleName());
+    }
 
+    /**
+     * Computes the Merkle tree hash of a file: the digest of each fixed-size chunk and a root combining them.
+     * @param file The file to hash.
+     * @param options Tree hash options, including hash type, chunk size and sidecar use.
+     * @return The tree.
+     * @throws ToolkitException if an error occurs during hashing.
+     */
+    default MerkleTree treeHash(Path file, TreeHashOptions options) throws ToolkitException {
+        throw new SecurityException("Tree hashing is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Verifies a file against an expected Merkle tree, e.g. that of the original of a transferred file.
+     * @param file The file to verify.
+     * @param expected The expected tree, whose hash type and chunk size are used.
+     * @param options Tree hash options for sidecar use; the hash type and chunk size are ignored.
+     * @return The indices of the chunks that differ from the expected tree, empty if the file is intact.
+     * @throws ToolkitException if an error occurs during hashing.
+     */
+    default List<Integer> verifyTree(Path file, MerkleTree expected, TreeHashOptions options) throws ToolkitException {
+        throw new SecurityException("Tree hashing is not supported by " + getClass().getSimpleName());
+    }
+}
@@ -1,10 +1,13 @@
 package com.diyawanna.uft.api;
 
+import com.diyawanna.uft.FormatException;
 import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.model.FileFormat;
 import com.diyawanna.uft.model.WriteOptions;
 
 import java.io.File;
 import java.io.OutputStream;
+import java.nio.file.Path;
 
 /**
  * Public interface for writing data to various file formats.
@@ -28,6 +31,19 @@ public interface Writer {
      * @throws ToolkitException if an error occurs during writing.
      */
     void write(Object data, OutputStream out, WriteOptions options) throws ToolkitException;
+
+    /**
+     * Opens a {@link RecordSink} for writing tabular records to a file one at a time or in batches.
+     * Writers that cannot produce incremental output keep this default, which always fails.
+     * @param target The file to write to.
+     * @param format The format to write the records in.
+     * @param options Write options to control the writing process.
+     * @return An open {@link RecordSink}; the caller must close it.
+     * @throws ToolkitException if the sink cannot be opened or the format is not supported.
+     */
+    default RecordSink openSink(Path target, FileFormat format, WriteOptions options) throws ToolkitException {
+        throw new FormatException("Incremental writing is not supported by " + getClass().getName() + " for format " + format);
+    }
 }
 
 
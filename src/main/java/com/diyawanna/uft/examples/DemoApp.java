@@ -2,6 +2,7 @@ package com.diyawanna.uft.examples;
 
 import com.diyawanna.uft.UniversalFileToolkit;
 import com.diyawanna.uft.ToolkitConfig;
+import com.diyawanna.uft.model.CompressionType;
 import com.diyawanna.uft.model.FileFormat;
 import com.diyawanna.uft.model.EncryptionType;
 import com.diyawanna.uft.model.ValidationResult;
@@ -65,28 +66,23 @@ public class DemoApp {
                 System.err.println("Error validating JSON: " + e.getMessage());
             }
 
-            // 5️⃣ Encrypt and compress a file
-            // These will throw ToolkitException as encrypt/compress are not implemented
+            // 5️⃣ Compress and encrypt a file in one pass
+            File sealed = null;
             try {
-                File encrypted = uft.encrypt(new File("output.json"), "secret-password");
-                File compressed = uft.compress(encrypted, FileFormat.GZIP);
-                System.out.println("Encrypted & compressed file: " + compressed.getAbsolutePath());
+                sealed = uft.compressAndEncrypt(new File("output.json"), CompressionType.GZIP, "secret-password");
+                System.out.println("Compressed & encrypted file: " + sealed.getAbsolutePath());
             } catch (ToolkitException e) {
-                System.err.println("Error encrypting/compressing: " + e.getMessage());
+                System.err.println("Error compressing/encrypting: " + e.getMessage());
             }
 
-            // 6️⃣ Decompress and decrypt
-            // These will throw ToolkitException as decompress/decrypt are not implemented
-            try {
-                File dummyCompressed = new File("dummy.gz"); // Placeholder
-                if (!dummyCompressed.exists()) {
-                    dummyCompressed.createNewFile();
+            // 6️⃣ Decrypt and decompress, again in one pass
+            if (sealed != null) {
+                try {
+                    File restored = uft.decrypt(sealed, "secret-password");
+                    System.out.println("Restored file: " + restored.getAbsolutePath());
+                } catch (ToolkitException e) {
+                    System.err.println("Error decrypting/decompressing: " + e.getMessage());
                 }
-                File decompressed = uft.decompress(dummyCompressed, FileFormat.GZIP);
-                File decrypted = uft.decrypt(decompressed, "secret-password");
-                System.out.println("Restored file: " + decrypted.getAbsolutePath());
-            } catch (ToolkitException e) {
-                System.err.println("Error decompressing/decrypting: " + e.getMessage());
             }
 
             // 7️⃣ Transform JSON to Excel
@@ -0,0 +1,247 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.CompressionException;
+import com.diyawanna.uft.FormatException;
+import com.diyawanna.uft.IOProcessingException;
+import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.api.RecordSink;
+import com.diyawanna.uft.model.CompressionOptions;
+import com.diyawanna.uft.model.CompressionType;
+import com.diyawanna.uft.model.WriteOptions;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Base class for the format-specific {@link RecordSink} implementations.
+ * Output goes to a temporary file next to the target, which is moved into place
+ * only when the sink is closed successfully, so a failed producer never leaves a
+ * truncated target behind.
+ */
+abstract class AbstractRecordSink implements RecordSink {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final Path tempFile;
+    private final String dateFormat;
+    private SimpleDateFormat dateFormatter;
+    private DateTimeFormatter temporalFormatter;
+    protected final WriteOptions options;
+    protected final OutputStream out;
+    private long recordCount;
+    private boolean failed;
+    private boolean closed;
+
+    AbstractRecordSink(Path target, WriteOptions options) throws ToolkitException {
+        this.target = target.toAbsolutePath();
+        this.options = options;
+        this.dateFormat = options.getDateFormat();
+        Path temp = null;
+        try {
+            Path parent = this.target.getParent();
+            Files.createDirectories(parent);
+            temp = Files.createTempFile(parent, "." + this.target.getFileName(), ".tmp");
+            this.tempFile = temp;
+            this.out = wrapCompression(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE));
+        } catch (IOException | ToolkitException e) {
+            deleteQuietly(temp);
+            if (e instanceof ToolkitException te) {
+                throw te;
+            }
+            throw new IOProcessingException("Failed to open record sink for " + this.target, e);
+        }
+    }
+
+    /**
+     * Serializes a single record in the concrete format.
+     * @param record The record to write.
+     * @throws IOException if writing fails.
+     * @throws ToolkitException if the record cannot be represented in the format.
+     */
+    protected abstract void writeRecord(Map<String, Object> record) throws IOException, ToolkitException;
+
+    /**
+     * Writes the closing framing and flushes format-level buffers. Called once, on close.
+     * @throws IOException if writing fails.
+     */
+    protected abstract void finish() throws IOException;
+
+    /**
+     * Flushes format-level buffers into {@link #out}.
+     * @throws IOException if flushing fails.
+     */
+    protected abstract void flushFormat() throws IOException;
+
+    @Override
+    public final void write(Map<String, Object> record) throws ToolkitException {
+        ensureOpen();
+        try {
+            writeRecord(record);
+            recordCount++;
+        } catch (IOException e) {
+            failed = true;
+            throw new IOProcessingException("Failed to write record " + recordCount + " to " + target, e);
+        } catch (ToolkitException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public final void flush() throws ToolkitException {
+        ensureOpen();
+        try {
+            flushFormat();
+            out.flush();
+        } catch (IOException e) {
+            failed = true;
+            throw new IOProcessingException("Failed to flush record sink for " + target, e);
+        }
+    }
+
+    @Override
+    public final long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public final void close() throws ToolkitException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // Closed before publishing even if finishing fails, so the temporary file is not deleted while open
+            try (OutputStream closing = out) {
+                if (!failed) {
+                    finish();
+                }
+            }
+        } catch (IOException e) {
+            failed = true;
+            throw new IOProcessingException("Failed to finish record sink for " + target, e);
+        } finally {
+            publish();
+        }
+    }
+
+    /**
+     * Discards the partial output. Used by subclasses whose own initialisation fails
+     * after this base class has already opened the temporary file.
+     */
+    protected final void abort() {
+        closed = true;
+        failed = true;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // The temporary file is deleted below either way.
+        }
+        deleteQuietly(tempFile);
+    }
+
+    /**
+     * Formats a value for the text-based formats, honouring {@link WriteOptions#getDateFormat()}.
+     * The formatters are built on first use and kept for the life of the sink.
+     * @param value The value to format, may be {@code null}.
+     * @return The textual representation, or {@code null} for a {@code null} value.
+     */
+    protected String formatValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (dateFormat != null) {
+            if (value instanceof Date date) {
+                if (dateFormatter == null) {
+                    dateFormatter = new SimpleDateFormat(dateFormat);
+                }
+                return dateFormatter.format(date);
+            }
+            if (value instanceof TemporalAccessor temporal) {
+                if (temporalFormatter == null) {
+                    temporalFormatter = DateTimeFormatter.ofPattern(dateFormat);
+                }
+                return temporalFormatter.format(temporal);
+            }
+        }
+        return value.toString();
+    }
+
+    private void publish() throws ToolkitException {
+        try {
+            if (failed) {
+                Files.deleteIfExists(tempFile);
+                return;
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to publish " + target, e);
+        }
+    }
+
+    private OutputStream wrapCompression(OutputStream raw) throws IOException, ToolkitException {
+        CompressionType compression = options.getCompressWith();
+        if (compression == null || compression == CompressionType.NONE) {
+            return raw;
+        }
+        return switch (compression) {
+            case GZIP -> new GZIPOutputStream(raw, BUFFER_SIZE);
+            case BGZF -> new BgzfCodec.BlockOutputStream(raw, Deflater.DEFAULT_COMPRESSION, CodecPool.shared());
+            case ZIP -> {
+                ZipOutputStream zip = new ZipOutputStream(raw);
+                String name = target.getFileName().toString();
+                zip.putNextEntry(new ZipEntry(name.endsWith(".zip") ? name.substring(0, name.length() - 4) : name));
+                yield zip;
+            }
+            case LZ4, ZSTD, BZIP2, XZ -> {
+                try {
+                    CompressorStreams.requireAvailable(compression);
+                    yield CompressorStreams.compressor(compression, raw, CompressorStreams.resolveLevel(compression, CompressionOptions.DEFAULT_LEVEL));
+                } catch (CompressionException e) {
+                    raw.close();
+                    throw e;
+                }
+            }
+            default -> {
+                raw.close();
+                throw new FormatException("Unsupported compression for record sink: " + compression);
+            }
+        };
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Best effort: the original failure is more relevant than the cleanup failure.
+        }
+    }
+
+    private void ensureOpen() throws ToolkitException {
+        if (closed) {
+            throw new ToolkitException("Record sink for " + target + " is already closed");
+        }
+    }
+}
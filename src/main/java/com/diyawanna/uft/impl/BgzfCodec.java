@@ -0,0 +1,354 @@
+package com.diyawanna.uft.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Blocked GZIP (BGZF, as used by samtools/htslib): a series of independent GZIP members of at
+ * most 64 KB each, whose header carries the member's compressed size in a {@code BC} extra field,
+ * followed by an empty end-of-file member. The result is a standard multi-member GZIP file that
+ * any gunzip reads; because every block is self-contained, blocks can be compressed and inflated
+ * in parallel and reading can start at any block (see {@link BgzfIndex}).
+ */
+final class BgzfCodec {
+
+    /** Maximum size of a compressed block, header and trailer included. */
+    static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    /** Uncompressed bytes per block; leaves room for the framing of incompressible data. */
+    static final int BLOCK_INPUT_SIZE = 65280;
+
+    private static final int HEADER_LENGTH = 18;
+    private static final int TRAILER_LENGTH = 8;
+    private static final int FIXED_HEADER_LENGTH = 12;
+    private static final int FLAG_EXTRA = 0x04;
+    private static final byte SUBFIELD_1 = 'B';
+    private static final byte SUBFIELD_2 = 'C';
+
+    /** The empty block that marks the end of a BGZF file. */
+    static final byte[] EOF_BLOCK = {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0,
+            0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private BgzfCodec() {
+    }
+
+    /**
+     * Whether content starting with {@code header} is BGZF: a GZIP member with a {@code BC} extra subfield.
+     * @param header The leading bytes, at least {@value #HEADER_LENGTH} for a positive answer.
+     * @param length The number of valid bytes in {@code header}.
+     */
+    static boolean isBgzf(byte[] header, int length) {
+        if (length < HEADER_LENGTH || (header[0] & 0xff) != GzipCodec.MAGIC_1 || (header[1] & 0xff) != GzipCodec.MAGIC_2
+                || (header[3] & FLAG_EXTRA) == 0) {
+            return false;
+        }
+        return blockSize(header, Math.min(length, FIXED_HEADER_LENGTH + extraLength(header))) > 0;
+    }
+
+    /**
+     * Compresses the whole of {@code in} into BGZF blocks on {@code out}, recording each block in {@code index}.
+     * @param in The uncompressed input.
+     * @param out The compressed output.
+     * @param level The deflate level.
+     * @param pool The codec pool.
+     * @param workers The threads to compress blocks on, or {@code null} to compress on the calling thread.
+     * @param threads The number of worker threads, which bounds the blocks in flight.
+     * @param index Receives the offsets of every block.
+     * @return The number of bytes written to {@code out}.
+     * @throws IOException if reading or writing fails, or the thread is interrupted.
+     */
+    static long compress(FileChannel in, WritableByteChannel out, int level, CodecPool pool, ExecutorService workers,
+                         int threads, BgzfIndex.Builder index) throws IOException {
+        long size = in.size();
+        long written = 0;
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try {
+            for (long position = 0; position < size; position += BLOCK_INPUT_SIZE) {
+                byte[] data = new byte[(int) Math.min(BLOCK_INPUT_SIZE, size - position)];
+                readFully(in, ByteBuffer.wrap(data), position);
+                if (workers == null) {
+                    written += writeBlock(out, compressBlock(data, data.length, level, pool), data.length, written, index);
+                    continue;
+                }
+                pending.add(workers.submit(() -> compressBlock(data, data.length, level, pool)));
+                if (pending.size() >= threads * 2) {
+                    written += writeBlock(out, ParallelGzipCodec.await(pending.poll()), written, index);
+                }
+            }
+            while (!pending.isEmpty()) {
+                written += writeBlock(out, ParallelGzipCodec.await(pending.poll()), written, index);
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+        return written + GzipCodec.writeFully(out, ByteBuffer.wrap(EOF_BLOCK));
+    }
+
+    private static long writeBlock(WritableByteChannel out, byte[] block, long offset, BgzfIndex.Builder index) throws IOException {
+        return writeBlock(out, block, inputSize(block), offset, index);
+    }
+
+    private static long writeBlock(WritableByteChannel out, byte[] block, int inputSize, long offset, BgzfIndex.Builder index) throws IOException {
+        index.add(offset, inputSize);
+        return GzipCodec.writeFully(out, ByteBuffer.wrap(block));
+    }
+
+    /**
+     * Compresses the first {@code dataLength} bytes of {@code data}, at most {@link #BLOCK_INPUT_SIZE},
+     * into a complete BGZF member.
+     */
+    static byte[] compressBlock(byte[] data, int dataLength, int level, CodecPool pool) {
+        byte[] block = new byte[MAX_BLOCK_SIZE];
+        int length = deflate(data, dataLength, level, pool, block);
+        if (length < 0) {
+            // Incompressible: stored deflate always fits
+            length = deflate(data, dataLength, Deflater.NO_COMPRESSION, pool, block);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, dataLength);
+        int blockSize = HEADER_LENGTH + length + TRAILER_LENGTH;
+        ByteBuffer framing = ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+        framing.put(0, EOF_BLOCK, 0, 16).putShort(16, (short) (blockSize - 1));
+        framing.putInt(HEADER_LENGTH + length, (int) crc.getValue()).putInt(HEADER_LENGTH + length + 4, dataLength);
+        byte[] result = new byte[blockSize];
+        System.arraycopy(block, 0, result, 0, blockSize);
+        return result;
+    }
+
+    /**
+     * @return The deflated length written after the header, or -1 if it does not fit in a block.
+     */
+    private static int deflate(byte[] data, int dataLength, int level, CodecPool pool, byte[] block) {
+        Deflater deflater = pool.borrowDeflater(level);
+        try {
+            deflater.setInput(data, 0, dataLength);
+            deflater.finish();
+            int capacity = MAX_BLOCK_SIZE - HEADER_LENGTH - TRAILER_LENGTH;
+            int length = deflater.deflate(block, HEADER_LENGTH, capacity);
+            return deflater.finished() ? length : -1;
+        } finally {
+            pool.release(deflater, level);
+        }
+    }
+
+    /**
+     * Reads one complete block from {@code in}.
+     * @return The block, or {@code null} at the end of the input.
+     * @throws IOException if the input ends inside a block or holds something other than BGZF.
+     */
+    static byte[] readBlock(ReadableByteChannel in) throws IOException {
+        ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_LENGTH);
+        if (!readFully(in, fixed, true)) {
+            return null;
+        }
+        byte[] header = fixed.array();
+        if ((header[0] & 0xff) != GzipCodec.MAGIC_1 || (header[1] & 0xff) != GzipCodec.MAGIC_2 || (header[3] & FLAG_EXTRA) == 0) {
+            throw new ZipException("Not a BGZF block");
+        }
+        int extraLength = extraLength(header);
+        byte[] start = new byte[FIXED_HEADER_LENGTH + extraLength];
+        System.arraycopy(header, 0, start, 0, FIXED_HEADER_LENGTH);
+        readFully(in, ByteBuffer.wrap(start, FIXED_HEADER_LENGTH, extraLength), false);
+        int blockSize = blockSize(start, start.length);
+        if (blockSize < start.length + TRAILER_LENGTH) {
+            throw new ZipException("Not a BGZF block: missing or invalid block size");
+        }
+        byte[] block = new byte[blockSize];
+        System.arraycopy(start, 0, block, 0, start.length);
+        readFully(in, ByteBuffer.wrap(block, start.length, blockSize - start.length), false);
+        return block;
+    }
+
+    /**
+     * Reads the size of the block at {@code position} from its header alone.
+     * @return The total block size.
+     * @throws IOException if there is no BGZF block at {@code position}.
+     */
+    static int blockSizeAt(FileChannel in, long position) throws IOException {
+        ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_LENGTH);
+        readFully(in, fixed, position);
+        byte[] header = fixed.array();
+        if ((header[0] & 0xff) != GzipCodec.MAGIC_1 || (header[1] & 0xff) != GzipCodec.MAGIC_2 || (header[3] & FLAG_EXTRA) == 0) {
+            throw new ZipException("Not a BGZF block at offset " + position);
+        }
+        byte[] start = new byte[FIXED_HEADER_LENGTH + extraLength(header)];
+        System.arraycopy(header, 0, start, 0, FIXED_HEADER_LENGTH);
+        readFully(in, ByteBuffer.wrap(start, FIXED_HEADER_LENGTH, start.length - FIXED_HEADER_LENGTH), position);
+        int blockSize = blockSize(start, start.length);
+        if (blockSize < start.length + TRAILER_LENGTH) {
+            throw new ZipException("Not a BGZF block at offset " + position + ": missing or invalid block size");
+        }
+        return blockSize;
+    }
+
+    /**
+     * Inflates a complete block and verifies its CRC-32 and size.
+     * @return The uncompressed content.
+     * @throws IOException if the block is corrupt.
+     */
+    static byte[] inflateBlock(byte[] block, CodecPool pool) throws IOException {
+        int dataStart = FIXED_HEADER_LENGTH + extraLength(block);
+        ByteBuffer trailer = ByteBuffer.wrap(block, block.length - TRAILER_LENGTH, TRAILER_LENGTH).slice().order(ByteOrder.LITTLE_ENDIAN);
+        int size = trailer.getInt(4);
+        if (size < 0 || size > MAX_BLOCK_SIZE) {
+            throw new ZipException("Corrupt BGZF block: invalid size");
+        }
+        byte[] data = new byte[size];
+        Inflater inflater = pool.borrowInflater();
+        try {
+            inflater.setInput(block, dataStart, block.length - TRAILER_LENGTH - dataStart);
+            int n = 0;
+            while (n < size && !inflater.finished()) {
+                int count = inflater.inflate(data, n, size - n);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Corrupt BGZF block: truncated data");
+                }
+                n += count;
+            }
+            if (n != size || inflater.inflate(new byte[1]) > 0) {
+                throw new ZipException("BGZF size mismatch");
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt BGZF block: " + e.getMessage());
+        } finally {
+            pool.release(inflater);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        if ((int) crc.getValue() != trailer.getInt(0)) {
+            throw new ZipException("BGZF CRC-32 mismatch");
+        }
+        return data;
+    }
+
+    /**
+     * The uncompressed size stored in a complete block's trailer.
+     */
+    static int inputSize(byte[] block) {
+        return ByteBuffer.wrap(block, block.length - 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    private static int extraLength(byte[] header) {
+        return (header[10] & 0xff) | (header[11] & 0xff) << 8;
+    }
+
+    /**
+     * Finds the {@code BC} subfield in the extra field.
+     * @return The total block size, or -1 if absent.
+     */
+    private static int blockSize(byte[] header, int length) {
+        for (int i = FIXED_HEADER_LENGTH; i + 4 <= length; ) {
+            int subfieldLength = (header[i + 2] & 0xff) | (header[i + 3] & 0xff) << 8;
+            if (header[i] == SUBFIELD_1 && header[i + 1] == SUBFIELD_2 && subfieldLength == 2 && i + 6 <= length) {
+                return ((header[i + 4] & 0xff) | (header[i + 5] & 0xff) << 8) + 1;
+            }
+            i += 4 + subfieldLength;
+        }
+        return -1;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file at offset " + (position + buffer.position()));
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if {@code allowEnd} and the input ends before the first byte.
+     */
+    private static boolean readFully(ReadableByteChannel in, ByteBuffer buffer, boolean allowEnd) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                if (allowEnd && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Truncated BGZF block");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes BGZF blocks on the calling thread, for output produced incrementally such as a
+     * record sink. Closing the stream writes the end-of-file block and closes {@code out}.
+     */
+    static final class BlockOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final int level;
+        private final CodecPool pool;
+        private final byte[] buffer = new byte[BLOCK_INPUT_SIZE];
+        private int count;
+        private boolean closed;
+
+        BlockOutputStream(OutputStream out, int level, CodecPool pool) {
+            this.out = out;
+            this.level = level;
+            this.pool = pool;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeBlock();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Partial blocks are only written on close, so that flushing does not shrink blocks
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (out) {
+                if (count > 0) {
+                    writeBlock();
+                }
+                out.write(EOF_BLOCK);
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            out.write(compressBlock(buffer, count, level, pool));
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.diyawanna.uft.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Block index of a BGZF file (see {@link BgzfCodec}): the compressed and uncompressed offset of
+ * every block, so that reading can start at the block holding any uncompressed offset. The index
+ * is stored next to the file with a {@value #SUFFIX} suffix in the htslib layout (a little-endian
+ * count, then offset pairs, the first block being implicit), so {@code bgzip -r} can use it too.
+ * A file without an index, or whose index is older than the file, is indexed by walking the block
+ * headers, which reads a few bytes per 64 KB block and inflates nothing.
+ */
+final class BgzfIndex {
+
+    /** Suffix of the index sidecar file. */
+    static final String SUFFIX = ".gzi";
+
+    private final long[] compressedOffsets;
+    private final long[] uncompressedOffsets;
+
+    /**
+     * @param compressedOffsets The start of each block, then the end of the last data block.
+     * @param uncompressedOffsets The matching uncompressed offsets, the last being the total size.
+     */
+    private BgzfIndex(long[] compressedOffsets, long[] uncompressedOffsets) {
+        this.compressedOffsets = compressedOffsets;
+        this.uncompressedOffsets = uncompressedOffsets;
+    }
+
+    /**
+     * A position to start reading from.
+     * @param blockOffset The compressed offset of the block.
+     * @param skip The number of uncompressed bytes to skip within the block.
+     */
+    record Position(long blockOffset, long skip) {
+    }
+
+    /**
+     * The uncompressed size of the whole file.
+     */
+    long uncompressedSize() {
+        return uncompressedOffsets[uncompressedOffsets.length - 1];
+    }
+
+    /**
+     * Finds the block holding {@code uncompressedOffset}.
+     * @throws EOFException if the offset lies beyond the end of the content.
+     */
+    Position locate(long uncompressedOffset) throws EOFException {
+        if (uncompressedOffset < 0 || uncompressedOffset > uncompressedSize()) {
+            throw new EOFException("Offset " + uncompressedOffset + " is outside the content (" + uncompressedSize() + " bytes)");
+        }
+        int i = Arrays.binarySearch(uncompressedOffsets, uncompressedOffset);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return new Position(compressedOffsets[i], uncompressedOffset - uncompressedOffsets[i]);
+    }
+
+    /**
+     * Writes the index in the htslib {@code .gzi} layout.
+     * @return The number of bytes written.
+     */
+    long write(SeekableByteChannel out) throws IOException {
+        int count = compressedOffsets.length - 1;
+        ByteBuffer buffer = ByteBuffer.allocate(8 + count * 16).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(count);
+        for (int i = 1; i <= count; i++) {
+            buffer.putLong(compressedOffsets[i]).putLong(uncompressedOffsets[i]);
+        }
+        return GzipCodec.writeFully(out, buffer.flip());
+    }
+
+    /**
+     * Loads the index of {@code file} from its sidecar if that is current, else builds it from the block headers.
+     * @param file The BGZF file.
+     * @param channel An open channel on {@code file}.
+     */
+    static BgzfIndex load(Path file, FileChannel channel) throws IOException {
+        Path sidecar = sidecarOf(file);
+        try {
+            if (Files.getLastModifiedTime(sidecar).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+                return read(sidecar);
+            }
+        } catch (NoSuchFileException e) {
+            // No sidecar: fall through to scanning
+        }
+        return scan(channel);
+    }
+
+    /**
+     * The sidecar index path of a BGZF file.
+     */
+    static Path sidecarOf(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    private static BgzfIndex read(Path sidecar) throws IOException {
+        try (FileChannel in = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            long size = in.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE)).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+                // Read the whole index
+            }
+            buffer.flip();
+            long count = buffer.remaining() >= 8 ? buffer.getLong() : -1;
+            if (count < 0 || count * 16 != buffer.remaining()) {
+                throw new IOException("Corrupt BGZF index: " + sidecar);
+            }
+            long[] compressed = new long[(int) count + 1];
+            long[] uncompressed = new long[(int) count + 1];
+            for (int i = 1; i <= count; i++) {
+                compressed[i] = buffer.getLong();
+                uncompressed[i] = buffer.getLong();
+                if (compressed[i] < compressed[i - 1] || uncompressed[i] < uncompressed[i - 1]) {
+                    throw new IOException("Corrupt BGZF index: " + sidecar);
+                }
+            }
+            return new BgzfIndex(compressed, uncompressed);
+        }
+    }
+
+    private static BgzfIndex scan(FileChannel channel) throws IOException {
+        Builder builder = new Builder();
+        long size = channel.size();
+        ByteBuffer inputSize = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        long position = 0;
+        while (position < size) {
+            int blockSize = BgzfCodec.blockSizeAt(channel, position);
+            inputSize.clear();
+            while (inputSize.hasRemaining()) {
+                if (channel.read(inputSize, position + blockSize - 4 + inputSize.position()) < 0) {
+                    throw new EOFException("Truncated BGZF block at offset " + position);
+                }
+            }
+            int length = inputSize.getInt(0);
+            if (length > 0) {
+                builder.add(position, length);
+            }
+            position += blockSize;
+        }
+        return builder.build(position);
+    }
+
+    /**
+     * Collects the blocks as they are written.
+     */
+    static final class Builder {
+
+        private long[] compressed = new long[64];
+        private long[] uncompressed = new long[64];
+        private int count;
+        private long total;
+
+        /**
+         * Records a block.
+         * @param compressedOffset The start of the block in the file.
+         * @param inputSize The uncompressed size of the block.
+         */
+        void add(long compressedOffset, int inputSize) {
+            if (count == compressed.length) {
+                compressed = Arrays.copyOf(compressed, count * 2);
+                uncompressed = Arrays.copyOf(uncompressed, count * 2);
+            }
+            compressed[count] = compressedOffset;
+            uncompressed[count++] = total;
+            total += inputSize;
+        }
+
+        /**
+         * @param endOffset The end of the last data block, where the end-of-file block starts.
+         */
+        BgzfIndex build(long endOffset) {
+            long[] compressedOffsets = Arrays.copyOf(compressed, count + 1);
+            long[] uncompressedOffsets = Arrays.copyOf(uncompressed, count + 1);
+            compressedOffsets[count] = endOffset;
+            uncompressedOffsets[count] = total;
+            return new BgzfIndex(compressedOffsets, uncompressedOffsets);
+        }
+    }
+}
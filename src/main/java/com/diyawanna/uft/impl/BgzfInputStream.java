@@ -0,0 +1,151 @@
+package com.diyawanna.uft.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Reads the uncompressed content of BGZF blocks (see {@link BgzfCodec}) from a channel positioned
+ * at a block boundary. Blocks are read on the calling thread and, given an executor, inflated
+ * ahead of the reader on its threads, a bounded number at a time; content is always returned in
+ * order. A block that no thread has started on when the reader needs it is inflated by the reader,
+ * so a reader running on the executor's own threads cannot wait on work queued behind it.
+ * Each block's CRC-32 is verified.
+ */
+final class BgzfInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ReadableByteChannel in;
+    private final CodecPool pool;
+    private final Executor executor;
+    private final int readAhead;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] current = EMPTY;
+    private int position;
+    private boolean exhausted;
+    private boolean closed;
+
+    /**
+     * @param in The compressed content, positioned at a block boundary; closed with this stream.
+     * @param pool The codec pool.
+     * @param executor The threads to inflate blocks on, or {@code null} to inflate on the calling thread.
+     * @param readAhead The maximum number of blocks inflated ahead of the reader.
+     */
+    BgzfInputStream(ReadableByteChannel in, CodecPool pool, Executor executor, int readAhead) {
+        this.in = in;
+        this.pool = pool;
+        this.executor = executor;
+        this.readAhead = executor == null ? 1 : Math.max(1, readAhead);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!available(true)) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!available(true)) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && available(true)) {
+            int count = (int) Math.min(n - skipped, current.length - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return available(false) ? current.length - position : 0;
+    }
+
+    /**
+     * Makes sure the current block has unread content, moving on to the next block if {@code advance}.
+     * @return Whether there is content to read.
+     */
+    private boolean available(boolean advance) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (position == current.length) {
+            if (!advance) {
+                return false;
+            }
+            fill();
+            Future<byte[]> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            current = await(next);
+            position = 0;
+        }
+        return true;
+    }
+
+    private void fill() throws IOException {
+        while (!exhausted && pending.size() < readAhead) {
+            byte[] block = BgzfCodec.readBlock(in);
+            if (block == null) {
+                exhausted = true;
+            } else if (executor == null) {
+                pending.add(CompletableFuture.completedFuture(BgzfCodec.inflateBlock(block, pool)));
+            } else {
+                FutureTask<byte[]> task = new FutureTask<>(() -> BgzfCodec.inflateBlock(block, pool));
+                executor.execute(task);
+                pending.add(task);
+            }
+        }
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        if (future instanceof FutureTask<byte[]> task) {
+            // Does nothing if a thread has already started on the block
+            task.run();
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for decompressed block");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Block decompression failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pending.forEach(future -> future.cancel(true));
+        pending.clear();
+        in.close();
+    }
+}
@@ -0,0 +1,105 @@
+package com.diyawanna.uft.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pools of {@link Deflater}s, {@link Inflater}s, direct I/O buffers and heap arrays.
+ * Codecs hold native zlib state and direct buffers live outside the heap, so both are costly to
+ * create and are only reclaimed by the garbage collector; pooling them keeps that cost off the
+ * per-file path. Instances beyond the pool capacity are released immediately on return.
+ * All codecs use raw deflate ({@code nowrap}); callers write their own container framing.
+ * One pool, {@link #shared()}, serves the whole toolkit.
+ */
+final class CodecPool {
+
+    /** Size of each pooled I/O buffer. */
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final int CAPACITY = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final CodecPool SHARED = new CodecPool();
+
+    private final Map<Integer, Queue<Deflater>> deflaters = new ConcurrentHashMap<>();
+    private final Queue<Inflater> inflaters = new ArrayBlockingQueue<>(CAPACITY);
+    private final Queue<ByteBuffer> buffers = new ArrayBlockingQueue<>(CAPACITY * 2);
+    private final Queue<byte[]> arrays = new ArrayBlockingQueue<>(CAPACITY);
+
+    private CodecPool() {
+    }
+
+    /**
+     * The pool shared by all codecs; it is bounded, so sharing it only caps what is kept for reuse.
+     * @return The shared pool.
+     */
+    static CodecPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Borrows a raw deflater for the given level.
+     * @param level The compression level (0-9, or {@link Deflater#DEFAULT_COMPRESSION}).
+     * @return A deflater in its initial state.
+     */
+    Deflater borrowDeflater(int level) {
+        Deflater deflater = deflaters(level).poll();
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    void release(Deflater deflater, int level) {
+        deflater.reset();
+        if (!deflaters(level).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Borrows a raw inflater.
+     * @return An inflater in its initial state.
+     */
+    Inflater borrowInflater() {
+        Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    void release(Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Borrows a cleared direct buffer of {@link #BUFFER_SIZE} bytes.
+     * @return The buffer.
+     */
+    ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    void release(ByteBuffer buffer) {
+        buffers.offer(buffer);
+    }
+
+    /**
+     * Borrows a heap array of {@link #BUFFER_SIZE} bytes, for stream-based APIs.
+     * @return The array; its content is undefined.
+     */
+    byte[] borrowArray() {
+        byte[] array = arrays.poll();
+        return array != null ? array : new byte[BUFFER_SIZE];
+    }
+
+    void release(byte[] array) {
+        arrays.offer(array);
+    }
+
+    private Queue<Deflater> deflaters(int level) {
+        return deflaters.computeIfAbsent(level, l -> new ArrayBlockingQueue<>(CAPACITY));
+    }
+}
@@ -0,0 +1,159 @@
+package com.diyawanna.uft.impl;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Constants and primitive encoders shared by the {@link com.diyawanna.uft.model.FileFormat#COLUMNAR} writer and reader.
+ * <p>
+ * Layout (all integers are unsigned LEB128 varints unless noted, signed longs are zig-zag encoded):
+ * <pre>
+ * file        := "UFTC" version(byte) rowGroup* footer footerLength(int32 big-endian) "UFTC"
+ * rowGroup    := columnChunk{columnCount}
+ * columnChunk := type(byte) encoding(byte) rowCount hasNulls(byte) [nullBitmap] payload
+ * footer      := columnCount name{columnCount} rowGroupCount rowGroupMeta{rowGroupCount}
+ * rowGroupMeta:= rowCount chunkMeta{columnCount}
+ * chunkMeta   := offset length type(byte) nullCount hasStats(byte) [min max]
+ * </pre>
+ * Only non-null values are stored in a chunk payload; the null bitmap (bit set = null) restores
+ * their positions. Every chunk picks its own type and encoding, and the footer keeps per-chunk
+ * min/max statistics so readers can skip chunks without touching them.
+ */
+final class ColumnarFormat {
+
+    static final byte[] MAGIC = {'U', 'F', 'T', 'C'};
+    static final byte VERSION = 1;
+    static final int TRAILER_LENGTH = 4 + MAGIC.length;
+    static final int ROW_GROUP_SIZE = 64 * 1024;
+    static final int MAX_DICTIONARY_SIZE = 64 * 1024;
+
+    // Column chunk types
+    static final byte TYPE_NULL = 0;
+    static final byte TYPE_LONG = 1;
+    static final byte TYPE_DOUBLE = 2;
+    static final byte TYPE_BOOLEAN = 3;
+    static final byte TYPE_STRING = 4;
+
+    // Column chunk encodings
+    static final byte ENCODING_PLAIN = 0;
+    static final byte ENCODING_RLE = 1;
+    static final byte ENCODING_DICTIONARY = 2;
+
+    private ColumnarFormat() {
+        // Constants holder
+    }
+
+    /**
+     * A growable byte buffer with the primitive encoders of the format.
+     */
+    static final class Output {
+        private byte[] bytes = new byte[8 * 1024];
+        private int size;
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] value, int offset, int length) {
+            ensure(length);
+            System.arraycopy(value, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (bits >>> shift);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            writeBytes(utf8, 0, utf8.length);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static int readVarInt(ByteBuffer in) {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Varint out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    static long readZigZag(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = readVarInt(in);
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    static int zigZagSize(long value) {
+        return varLongSize((value << 1) ^ (value >> 63));
+    }
+
+    static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+}
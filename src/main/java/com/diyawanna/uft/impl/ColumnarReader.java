@@ -0,0 +1,388 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.FormatException;
+import com.diyawanna.uft.IOProcessingException;
+import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.api.Reader;
+import com.diyawanna.uft.model.ColumnFilter;
+import com.diyawanna.uft.model.CompressionType;
+import com.diyawanna.uft.model.ReadOptions;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.diyawanna.uft.impl.ColumnarFormat.*;
+
+/**
+ * {@link Reader} for the toolkit-native {@link com.diyawanna.uft.model.FileFormat#COLUMNAR} format
+ * (see {@link ColumnarFormat} for the layout). Only the footer and the column chunks needed for
+ * {@link ReadOptions#getColumns()} and {@link ReadOptions#getFilters()} are read; row groups whose
+ * chunk statistics rule out every filter match are skipped without being read at all.
+ * Streams are buffered in memory and may be compressed; files must not be, as they are read in place.
+ */
+public class ColumnarReader implements Reader<List<Map<String, Object>>> {
+
+    private final DecompressingInput input;
+
+    /**
+     * Creates a reader that decompresses BGZF input on the reading thread.
+     */
+    public ColumnarReader() {
+        this(null);
+    }
+
+    /**
+     * Creates a reader that inflates BGZF input ahead of the reader.
+     * @param decompressionExecutor The threads to inflate BGZF blocks on, typically the toolkit's executor; {@code null} for the reading thread.
+     */
+    public ColumnarReader(Executor decompressionExecutor) {
+        this.input = new DecompressingInput(decompressionExecutor);
+    }
+
+    @Override
+    public List<Map<String, Object>> read(File source, ReadOptions options) throws ToolkitException {
+        try (Stream<Map<String, Object>> rows = stream(source, options)) {
+            return rows.toList();
+        } catch (UncheckedIOException e) {
+            throw new IOProcessingException("Failed to read columnar file " + source.getAbsolutePath(), e.getCause());
+        } catch (RuntimeException e) {
+            throw new FormatException("Corrupt columnar file " + source.getAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> read(InputStream source, ReadOptions options) throws ToolkitException {
+        byte[] content;
+        try {
+            content = input.wrap(source).readAllBytes();
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to read columnar stream", e);
+        }
+        try (Stream<Map<String, Object>> rows = stream(new SeekableInMemoryByteChannel(content), options, "<stream>")) {
+            return rows.toList();
+        } catch (RuntimeException e) {
+            throw new FormatException("Corrupt columnar stream", e);
+        }
+    }
+
+    @Override
+    public Stream<Map<String, Object>> stream(File source, ReadOptions options) throws ToolkitException {
+        SeekableByteChannel channel;
+        try {
+            CompressionType compression = DecompressingInput.detect(source.toPath());
+            if (compression != CompressionType.NONE) {
+                // The footer and column chunks are located by offset, which needs the raw file
+                throw new FormatException("Columnar file " + source.getAbsolutePath() + " is " + compression
+                        + "-compressed; columnar files are read in place and must be decompressed first");
+            }
+            channel = Files.newByteChannel(source.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to open columnar file " + source.getAbsolutePath(), e);
+        }
+        return stream(channel, options, source.getAbsolutePath());
+    }
+
+    private Stream<Map<String, Object>> stream(SeekableByteChannel channel, ReadOptions options, String name) throws ToolkitException {
+        try {
+            Footer footer = readFooter(channel, name);
+            List<String> names = Arrays.asList(footer.columns);
+            List<String> projection = options.getColumns().isEmpty() ? names : options.getColumns();
+            int[] projected = resolve(names, projection, name);
+            List<ColumnFilter> filters = options.getFilters();
+            int[] filtered = resolve(names, filters.stream().map(ColumnFilter::getColumn).toList(), name);
+            RowIterator rows = new RowIterator(channel, footer, projection.toArray(String[]::new), projected,
+                    filters.toArray(ColumnFilter[]::new), filtered);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                    .onClose(() -> closeQuietly(channel));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new IOProcessingException("Failed to read columnar footer of " + name, e);
+        } catch (ToolkitException e) {
+            closeQuietly(channel);
+            throw e;
+        } catch (RuntimeException e) {
+            closeQuietly(channel);
+            throw new FormatException("Corrupt columnar footer in " + name, e);
+        }
+    }
+
+    private static int[] resolve(List<String> names, List<String> requested, String source) throws FormatException {
+        int[] indexes = new int[requested.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = names.indexOf(requested.get(i));
+            if (indexes[i] < 0) {
+                throw new FormatException("Column '" + requested.get(i) + "' does not exist in " + source);
+            }
+        }
+        return indexes;
+    }
+
+    private static Footer readFooter(SeekableByteChannel channel, String name) throws IOException, FormatException {
+        long size = channel.size();
+        if (size < MAGIC.length + 1 + TRAILER_LENGTH) {
+            throw new FormatException("Not a columnar file (too short): " + name);
+        }
+        ByteBuffer header = readFully(channel, 0, MAGIC.length + 1);
+        ByteBuffer trailer = readFully(channel, size - TRAILER_LENGTH, TRAILER_LENGTH);
+        int footerLength = trailer.getInt();
+        byte[] magic = new byte[MAGIC.length];
+        trailer.get(magic);
+        byte[] headerMagic = new byte[MAGIC.length];
+        header.get(headerMagic);
+        if (!Arrays.equals(magic, MAGIC) || !Arrays.equals(headerMagic, MAGIC)) {
+            throw new FormatException("Not a columnar file (bad magic): " + name);
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+            throw new FormatException("Unsupported columnar format version " + version + " in " + name);
+        }
+        if (footerLength < 0 || footerLength > size - TRAILER_LENGTH - MAGIC.length - 1) {
+            throw new FormatException("Corrupt columnar footer length in " + name);
+        }
+        ByteBuffer in = readFully(channel, size - TRAILER_LENGTH - footerLength, footerLength);
+
+        String[] columns = new String[readVarInt(in)];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = readString(in);
+        }
+        RowGroup[] rowGroups = new RowGroup[readVarInt(in)];
+        for (int g = 0; g < rowGroups.length; g++) {
+            int rowCount = readVarInt(in);
+            ChunkMeta[] chunks = new ChunkMeta[columns.length];
+            for (int c = 0; c < chunks.length; c++) {
+                long offset = readVarLong(in);
+                int length = readVarInt(in);
+                byte type = in.get();
+                int nullCount = readVarInt(in);
+                Object min = null;
+                Object max = null;
+                if (in.get() != 0) {
+                    min = readStat(in, type);
+                    max = readStat(in, type);
+                }
+                chunks[c] = new ChunkMeta(offset, length, type, nullCount, min, max);
+            }
+            rowGroups[g] = new RowGroup(rowCount, chunks);
+        }
+        return new Footer(columns, rowGroups);
+    }
+
+    private static Object readStat(ByteBuffer in, byte type) {
+        return switch (type) {
+            case TYPE_LONG -> readZigZag(in);
+            case TYPE_DOUBLE -> in.getDouble();
+            case TYPE_BOOLEAN -> in.get() != 0;
+            default -> readString(in);
+        };
+    }
+
+    private static ByteBuffer readFully(SeekableByteChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of columnar data at offset " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes one column chunk into an array with one entry per row.
+     */
+    private static Object[] decodeChunk(ByteBuffer in) {
+        byte type = in.get();
+        byte encoding = in.get();
+        int rows = readVarInt(in);
+        boolean[] isNull = new boolean[rows];
+        if (in.get() != 0) {
+            byte[] bitmap = new byte[(rows + 7) / 8];
+            in.get(bitmap);
+            for (int i = 0; i < rows; i++) {
+                isNull[i] = (bitmap[i >>> 3] & (1 << (i & 7))) != 0;
+            }
+        }
+        Object[] values = new Object[rows];
+        if (type == TYPE_NULL) {
+            return values;
+        }
+        String[] dictionary = null;
+        if (encoding == ENCODING_DICTIONARY) {
+            dictionary = new String[readVarInt(in)];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(in);
+            }
+        }
+        int run = 0;
+        Object current = null;
+        for (int i = 0; i < rows; i++) {
+            if (isNull[i]) {
+                continue;
+            }
+            if (encoding == ENCODING_PLAIN) {
+                current = readPlain(in, type);
+            } else if (run == 0) {
+                run = readVarInt(in);
+                current = dictionary != null ? dictionary[readVarInt(in)] : readPlain(in, type);
+            }
+            if (encoding != ENCODING_PLAIN) {
+                run--;
+            }
+            values[i] = current;
+        }
+        return values;
+    }
+
+    private static Object readPlain(ByteBuffer in, byte type) {
+        return switch (type) {
+            case TYPE_LONG -> readZigZag(in);
+            case TYPE_DOUBLE -> in.getDouble();
+            case TYPE_BOOLEAN -> in.get() != 0;
+            case TYPE_STRING -> readString(in);
+            default -> throw new IllegalStateException("Unknown columnar type " + type);
+        };
+    }
+
+    private static void closeQuietly(SeekableByteChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    private record Footer(String[] columns, RowGroup[] rowGroups) {
+    }
+
+    private record RowGroup(int rowCount, ChunkMeta[] chunks) {
+    }
+
+    private record ChunkMeta(long offset, int length, byte type, int nullCount, Object min, Object max) {
+    }
+
+    /**
+     * Lazily walks the row groups, decoding only the needed chunks of groups that may match.
+     */
+    private static final class RowIterator implements java.util.Iterator<Map<String, Object>> {
+        private final SeekableByteChannel channel;
+        private final Footer footer;
+        private final String[] projection;
+        private final int[] projected;
+        private final ColumnFilter[] filters;
+        private final int[] filtered;
+        private final Object[][] decoded;
+        private int group = -1;
+        private int row;
+        private int groupRows;
+        private Map<String, Object> next;
+
+        RowIterator(SeekableByteChannel channel, Footer footer, String[] projection, int[] projected,
+                    ColumnFilter[] filters, int[] filtered) {
+            this.channel = channel;
+            this.footer = footer;
+            this.projection = projection;
+            this.projected = projected;
+            this.filters = filters;
+            this.filtered = filtered;
+            this.decoded = new Object[footer.columns.length][];
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (row >= groupRows && !advanceGroup()) {
+                    return false;
+                }
+                int r = row++;
+                if (matches(r)) {
+                    Map<String, Object> record = new LinkedHashMap<>();
+                    for (int i = 0; i < projected.length; i++) {
+                        record.put(projection[i], decoded[projected[i]][r]);
+                    }
+                    next = record;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map<String, Object> record = next;
+            next = null;
+            return record;
+        }
+
+        private boolean matches(int r) {
+            for (int i = 0; i < filters.length; i++) {
+                if (!filters[i].matches(decoded[filtered[i]][r])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean advanceGroup() {
+            while (++group < footer.rowGroups.length) {
+                RowGroup rowGroup = footer.rowGroups[group];
+                if (!mayMatch(rowGroup)) {
+                    continue;
+                }
+                Arrays.fill(decoded, null);
+                try {
+                    for (int column : projected) {
+                        load(rowGroup, column);
+                    }
+                    for (int column : filtered) {
+                        load(rowGroup, column);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (BufferUnderflowException e) {
+                    throw new IllegalStateException("Corrupt columnar chunk in row group " + group, e);
+                }
+                row = 0;
+                groupRows = rowGroup.rowCount;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean mayMatch(RowGroup rowGroup) {
+            for (int i = 0; i < filters.length; i++) {
+                ChunkMeta meta = rowGroup.chunks[filtered[i]];
+                if (meta.type == TYPE_NULL || !filters[i].mayMatch(meta.min, meta.max)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void load(RowGroup rowGroup, int column) throws IOException {
+            if (decoded[column] == null) {
+                ChunkMeta meta = rowGroup.chunks[column];
+                decoded[column] = decodeChunk(readFully(channel, meta.offset, meta.length));
+            }
+        }
+    }
+}
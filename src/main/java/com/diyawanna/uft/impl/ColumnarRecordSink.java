@@ -0,0 +1,371 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.FormatException;
+import com.diyawanna.uft.IOProcessingException;
+import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.model.WriteOptions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.diyawanna.uft.impl.ColumnarFormat.*;
+
+/**
+ * {@link com.diyawanna.uft.api.RecordSink} producing the toolkit-native
+ * {@link com.diyawanna.uft.model.FileFormat#COLUMNAR} format (see {@link ColumnarFormat} for the layout).
+ * Records are buffered into row groups of {@value ColumnarFormat#ROW_GROUP_SIZE} rows, which are
+ * then written column by column. Integral values are stored as longs, floating-point values as
+ * doubles, booleans as booleans and everything else as strings. A chunk that mixes integral and
+ * floating-point values is stored as doubles, and a chunk with any other mix as strings.
+ */
+final class ColumnarRecordSink extends AbstractRecordSink {
+
+    private final Output chunk = new Output();
+    private final Output payload = new Output();
+    private final Output rowGroupIndex = new Output();
+    private List<String> columns;
+    private List<List<Object>> values;
+    private int bufferedRows;
+    private int rowGroupCount;
+    private long position;
+
+    ColumnarRecordSink(Path target, WriteOptions options) throws ToolkitException {
+        super(target, options);
+        try {
+            out.write(MAGIC);
+            out.write(VERSION);
+            position = MAGIC.length + 1L;
+        } catch (IOException e) {
+            abort();
+            throw new IOProcessingException("Failed to initialise columnar output for " + target, e);
+        }
+    }
+
+    @Override
+    protected void writeRecord(Map<String, Object> record) throws IOException, ToolkitException {
+        if (columns == null) {
+            columns = List.copyOf(record.keySet());
+            values = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                values.add(new ArrayList<>());
+            }
+        } else {
+            for (String key : record.keySet()) {
+                if (!columns.contains(key)) {
+                    throw new FormatException("Column '" + key + "' is not part of the columnar schema " + columns);
+                }
+            }
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            values.get(i).add(record.get(columns.get(i)));
+        }
+        if (++bufferedRows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    protected void flushFormat() {
+        // Row groups are only written when complete; partial groups stay buffered until close.
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        if (bufferedRows > 0) {
+            writeRowGroup();
+        }
+        Output footer = new Output();
+        List<String> names = columns == null ? List.of() : columns;
+        footer.writeVarLong(names.size());
+        for (String name : names) {
+            footer.writeString(name);
+        }
+        footer.writeVarLong(rowGroupCount);
+        footer.writeBytes(rowGroupIndex.array(), 0, rowGroupIndex.size());
+        out.write(footer.array(), 0, footer.size());
+        int length = footer.size();
+        out.write(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        out.write(MAGIC);
+    }
+
+    private void writeRowGroup() throws IOException {
+        rowGroupIndex.writeVarLong(bufferedRows);
+        for (List<Object> column : values) {
+            chunk.reset();
+            encodeChunk(column, rowGroupIndex);
+            out.write(chunk.array(), 0, chunk.size());
+            position += chunk.size();
+            column.clear();
+        }
+        rowGroupCount++;
+        bufferedRows = 0;
+    }
+
+    /**
+     * Encodes one column chunk into {@link #chunk} and appends its metadata to {@code index}.
+     */
+    private void encodeChunk(List<Object> column, Output index) {
+        int rows = column.size();
+        int nullCount = 0;
+        byte type = TYPE_NULL;
+        for (Object value : column) {
+            if (value == null) {
+                nullCount++;
+            } else {
+                type = widen(type, typeOf(value));
+            }
+        }
+
+        payload.reset();
+        Object[] stats = new Object[2];
+        byte encoding = switch (type) {
+            case TYPE_LONG -> encodeLongs(column, rows - nullCount, stats);
+            case TYPE_DOUBLE -> encodeDoubles(column, rows - nullCount, stats);
+            case TYPE_BOOLEAN -> encodeBooleans(column, stats);
+            case TYPE_STRING -> encodeStrings(column, rows - nullCount, stats);
+            default -> ENCODING_PLAIN;
+        };
+
+        long offset = position;
+        chunk.writeByte(type);
+        chunk.writeByte(encoding);
+        chunk.writeVarLong(rows);
+        chunk.writeByte(nullCount > 0 ? 1 : 0);
+        if (nullCount > 0) {
+            byte[] bitmap = new byte[(rows + 7) / 8];
+            for (int i = 0; i < rows; i++) {
+                if (column.get(i) == null) {
+                    bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            chunk.writeBytes(bitmap, 0, bitmap.length);
+        }
+        chunk.writeBytes(payload.array(), 0, payload.size());
+
+        index.writeVarLong(offset);
+        index.writeVarLong(chunk.size());
+        index.writeByte(type);
+        index.writeVarLong(nullCount);
+        boolean hasStats = stats[0] != null && stats[1] != null;
+        index.writeByte(hasStats ? 1 : 0);
+        if (hasStats) {
+            writeStat(index, type, stats[0]);
+            writeStat(index, type, stats[1]);
+        }
+    }
+
+    private byte encodeLongs(List<Object> column, int count, Object[] stats) {
+        long[] longs = new long[count];
+        int n = 0;
+        for (Object value : column) {
+            if (value != null) {
+                longs[n++] = ((Number) value).longValue();
+            }
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long plainSize = 0;
+        long rleSize = 0;
+        for (int i = 0; i < n; ) {
+            int run = runLength(longs, i, n);
+            min = Math.min(min, longs[i]);
+            max = Math.max(max, longs[i]);
+            plainSize += (long) run * zigZagSize(longs[i]);
+            rleSize += varLongSize(run) + zigZagSize(longs[i]);
+            i += run;
+        }
+        stats[0] = min;
+        stats[1] = max;
+        if (rleSize < plainSize) {
+            for (int i = 0; i < n; ) {
+                int run = runLength(longs, i, n);
+                payload.writeVarLong(run);
+                payload.writeZigZag(longs[i]);
+                i += run;
+            }
+            return ENCODING_RLE;
+        }
+        for (int i = 0; i < n; i++) {
+            payload.writeZigZag(longs[i]);
+        }
+        return ENCODING_PLAIN;
+    }
+
+    private byte encodeDoubles(List<Object> column, int count, Object[] stats) {
+        double[] doubles = new double[count];
+        int n = 0;
+        for (Object value : column) {
+            if (value != null) {
+                doubles[n++] = ((Number) value).doubleValue();
+            }
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean hasNaN = false;
+        int runs = 0;
+        for (int i = 0; i < n; ) {
+            int run = runLength(doubles, i, n);
+            hasNaN |= Double.isNaN(doubles[i]);
+            min = Math.min(min, doubles[i]);
+            max = Math.max(max, doubles[i]);
+            runs++;
+            i += run;
+        }
+        if (!hasNaN) {
+            stats[0] = min;
+            stats[1] = max;
+        }
+        if (runs * 10L < n * 8L) {
+            for (int i = 0; i < n; ) {
+                int run = runLength(doubles, i, n);
+                payload.writeVarLong(run);
+                payload.writeDouble(doubles[i]);
+                i += run;
+            }
+            return ENCODING_RLE;
+        }
+        for (int i = 0; i < n; i++) {
+            payload.writeDouble(doubles[i]);
+        }
+        return ENCODING_PLAIN;
+    }
+
+    private byte encodeBooleans(List<Object> column, Object[] stats) {
+        boolean current = false;
+        int run = 0;
+        boolean sawFalse = false;
+        boolean sawTrue = false;
+        for (Object value : column) {
+            if (value == null) {
+                continue;
+            }
+            boolean b = (Boolean) value;
+            sawTrue |= b;
+            sawFalse |= !b;
+            if (run > 0 && b != current) {
+                payload.writeVarLong(run);
+                payload.writeByte(current ? 1 : 0);
+                run = 0;
+            }
+            current = b;
+            run++;
+        }
+        if (run > 0) {
+            payload.writeVarLong(run);
+            payload.writeByte(current ? 1 : 0);
+        }
+        if (sawTrue || sawFalse) {
+            stats[0] = !sawFalse;
+            stats[1] = sawTrue;
+        }
+        return ENCODING_RLE;
+    }
+
+    private byte encodeStrings(List<Object> column, int count, Object[] stats) {
+        String[] strings = new String[count];
+        int n = 0;
+        String min = null;
+        String max = null;
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (Object value : column) {
+            if (value == null) {
+                continue;
+            }
+            String s = value.toString();
+            strings[n++] = s;
+            if (min == null || s.compareTo(min) < 0) {
+                min = s;
+            }
+            if (max == null || s.compareTo(max) > 0) {
+                max = s;
+            }
+            if (dictionary != null) {
+                dictionary.putIfAbsent(s, dictionary.size());
+                if (dictionary.size() > MAX_DICTIONARY_SIZE) {
+                    dictionary = null;
+                }
+            }
+        }
+        stats[0] = min;
+        stats[1] = max;
+        if (dictionary != null && dictionary.size() * 2 <= n) {
+            String[] entries = new String[dictionary.size()];
+            dictionary.forEach((s, id) -> entries[id] = s);
+            payload.writeVarLong(entries.length);
+            for (String entry : entries) {
+                payload.writeString(entry);
+            }
+            for (int i = 0; i < n; ) {
+                int id = dictionary.get(strings[i]);
+                int run = 1;
+                while (i + run < n && strings[i + run].equals(strings[i])) {
+                    run++;
+                }
+                payload.writeVarLong(run);
+                payload.writeVarLong(id);
+                i += run;
+            }
+            return ENCODING_DICTIONARY;
+        }
+        for (int i = 0; i < n; i++) {
+            payload.writeString(strings[i]);
+        }
+        return ENCODING_PLAIN;
+    }
+
+    private static void writeStat(Output index, byte type, Object value) {
+        switch (type) {
+            case TYPE_LONG -> index.writeZigZag((Long) value);
+            case TYPE_DOUBLE -> index.writeDouble((Double) value);
+            case TYPE_BOOLEAN -> index.writeByte((Boolean) value ? 1 : 0);
+            default -> index.writeString((String) value);
+        }
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return TYPE_LONG;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return TYPE_DOUBLE;
+        }
+        if (value instanceof Boolean) {
+            return TYPE_BOOLEAN;
+        }
+        return TYPE_STRING;
+    }
+
+    /**
+     * The type of a chunk holding values of both types: integers and doubles are stored as
+     * doubles, so that they still compare as numbers; any other mix is stored as strings.
+     */
+    private static byte widen(byte type, byte valueType) {
+        if (type == TYPE_NULL || type == valueType) {
+            return valueType;
+        }
+        if ((type == TYPE_LONG || type == TYPE_DOUBLE) && (valueType == TYPE_LONG || valueType == TYPE_DOUBLE)) {
+            return TYPE_DOUBLE;
+        }
+        return TYPE_STRING;
+    }
+
+    private static int runLength(long[] values, int start, int end) {
+        int run = 1;
+        while (start + run < end && values[start + run] == values[start]) {
+            run++;
+        }
+        return run;
+    }
+
+    private static int runLength(double[] values, int start, int end) {
+        int run = 1;
+        while (start + run < end && Double.compare(values[start + run], values[start]) == 0) {
+            run++;
+        }
+        return run;
+    }
+}
@@ -0,0 +1,149 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.CompressionException;
+import com.diyawanna.uft.model.CompressionOptions;
+import com.diyawanna.uft.model.CompressionType;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
+import org.apache.commons.compress.compressors.xz.XZUtils;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Stream codecs for the compression types beyond GZIP and ZIP: LZ4 through {@link Lz4Codec},
+ * the others backed by Commons Compress.
+ * XZ needs {@code org.tukaani:xz} and Zstandard needs {@code com.github.luben:zstd-jni} at
+ * runtime; {@link #requireAvailable(CompressionType)} reports a missing library before any
+ * output is written. Decompressors accept concatenated streams (frames, members) throughout.
+ */
+final class CompressorStreams {
+
+    /** Default LZ4 level: single-candidate match search without acceleration. */
+    static final int LZ4_DEFAULT_LEVEL = 5;
+
+    /** Default Zstandard level, as used by the {@code zstd} command line tool. */
+    static final int ZSTD_DEFAULT_LEVEL = 3;
+
+    /** Default XZ preset, as used by the {@code xz} command line tool. */
+    static final int XZ_DEFAULT_PRESET = 6;
+
+    /** Default BZIP2 block size (900 KB). */
+    static final int BZIP2_DEFAULT_BLOCK_SIZE = 9;
+
+    private CompressorStreams() {
+    }
+
+    /**
+     * Whether {@code type} is one of the stream codecs handled here.
+     */
+    static boolean handles(CompressionType type) {
+        return type == CompressionType.LZ4 || type == CompressionType.ZSTD
+                || type == CompressionType.BZIP2 || type == CompressionType.XZ;
+    }
+
+    /**
+     * Checks that the library behind {@code type} is on the classpath.
+     * @throws CompressionException if it is missing.
+     */
+    static void requireAvailable(CompressionType type) throws CompressionException {
+        if (type == CompressionType.XZ && !XZUtils.isXZCompressionAvailable()) {
+            throw new CompressionException("XZ compression requires org.tukaani:xz on the classpath");
+        }
+        if (type == CompressionType.ZSTD && !ZstdUtils.isZstdCompressionAvailable()) {
+            throw new CompressionException("Zstandard compression requires com.github.luben:zstd-jni on the classpath");
+        }
+    }
+
+    /**
+     * Validates a requested level against the range of {@code type} and resolves
+     * {@link CompressionOptions#DEFAULT_LEVEL} to the codec's default.
+     * @param type The compression type.
+     * @param level The requested level.
+     * @return The effective level.
+     * @throws CompressionException if the level is outside the codec's range.
+     */
+    static int resolveLevel(CompressionType type, int level) throws CompressionException {
+        int min;
+        int max;
+        int fallback;
+        switch (type) {
+            case GZIP, BGZF, ZIP -> {
+                min = Deflater.NO_COMPRESSION;
+                max = Deflater.BEST_COMPRESSION;
+                fallback = Deflater.DEFAULT_COMPRESSION;
+            }
+            case LZ4 -> {
+                min = 1;
+                max = 9;
+                fallback = LZ4_DEFAULT_LEVEL;
+            }
+            case ZSTD -> {
+                min = 1;
+                max = 22;
+                fallback = ZSTD_DEFAULT_LEVEL;
+            }
+            case BZIP2 -> {
+                min = 1;
+                max = 9;
+                fallback = BZIP2_DEFAULT_BLOCK_SIZE;
+            }
+            case XZ -> {
+                min = 0;
+                max = 9;
+                fallback = XZ_DEFAULT_PRESET;
+            }
+            default -> throw new CompressionException("Unsupported compression type: " + type);
+        }
+        if (level == CompressionOptions.DEFAULT_LEVEL) {
+            return fallback;
+        }
+        if (level < min || level > max) {
+            throw new CompressionException("Compression level for " + type + " must be between " + min + " and " + max + ", was " + level);
+        }
+        return level;
+    }
+
+    /**
+     * Wraps {@code out} in a compressor. Closing the returned stream finishes the compressed
+     * stream and closes {@code out}.
+     * @param type One of the types for which {@link #handles(CompressionType)} holds.
+     * @param out The destination of the compressed data; should be buffered, as some codecs write single bytes.
+     * @param level An effective level, as returned by {@link #resolveLevel(CompressionType, int)}.
+     * @return The compressing stream.
+     * @throws IOException if the stream header cannot be written.
+     */
+    static OutputStream compressor(CompressionType type, OutputStream out, int level) throws IOException {
+        return switch (type) {
+            case LZ4 -> new Lz4Codec.FrameOutputStream(out, level);
+            case ZSTD -> new ZstdCompressorOutputStream(out, level);
+            case BZIP2 -> new BZip2CompressorOutputStream(out, level);
+            case XZ -> new XZCompressorOutputStream(out, level);
+            default -> throw new IllegalArgumentException("Not a stream compression type: " + type);
+        };
+    }
+
+    /**
+     * Wraps {@code in} in a decompressor. Closing the returned stream closes {@code in}.
+     * @param type One of the types for which {@link #handles(CompressionType)} holds.
+     * @param in The compressed data; should be buffered.
+     * @return The decompressing stream.
+     * @throws IOException if the stream header cannot be read or is invalid.
+     */
+    static InputStream decompressor(CompressionType type, InputStream in) throws IOException {
+        return switch (type) {
+            case LZ4 -> new Lz4Codec.FrameInputStream(in);
+            case ZSTD -> new ZstdCompressorInputStream(in);
+            case BZIP2 -> new BZip2CompressorInputStream(in, true);
+            case XZ -> new XZCompressorInputStream(in, true);
+            default -> throw new IllegalArgumentException("Not a stream compression type: " + type);
+        };
+    }
+}
@@ -0,0 +1,296 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.util.ProviderSelection;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the JCA provider of each algorithm and caches engine instances per thread. Which
+ * provider serves an algorithm matters: the JDK's SunJCE and SUN providers use CPU intrinsics
+ * for AES-GCM and SHA, while a pure-Java provider such as BouncyCastle can be several times
+ * slower for the same algorithm. With {@link ProviderSelection#RANKED} the installed providers
+ * are ranked with the JDK providers first and BouncyCastle last; with
+ * {@link ProviderSelection#BENCHMARK} every provider supporting an algorithm, BouncyCastle
+ * included when on the classpath, is timed on a small buffer when the algorithm is first used,
+ * and the fastest is kept. An explicit override per algorithm (or {@code "*"} for all) wins over
+ * both. Instances returned by {@link #cipher(String)}, {@link #mac(String)} and
+ * {@link #digest(String)} belong to the calling thread and must be initialized on each use.
+ */
+final class CryptoProviders {
+
+    /** Override key applying to every algorithm. */
+    static final String ANY_ALGORITHM = "*";
+
+    private static final List<String> RANKING = List.of("SunJCE", "SUN", "SunRsaSign", "SunEC");
+    private static final String BOUNCY_CASTLE = "BC";
+    private static final String BOUNCY_CASTLE_CLASS = "org.bouncycastle.jce.provider.BouncyCastleProvider";
+    private static final int BENCHMARK_BYTES = 256 * 1024;
+    private static final int BENCHMARK_ROUNDS = 4;
+    private static final int BENCHMARK_ITERATIONS = 1000;
+
+    /**
+     * The JCA engine types chosen for.
+     */
+    enum Engine {
+        CIPHER("Cipher"),
+        MAC("Mac"),
+        DIGEST("MessageDigest"),
+        KEY_FACTORY("SecretKeyFactory");
+
+        private final String type;
+
+        Engine(String type) {
+            this.type = type;
+        }
+    }
+
+    private final ProviderSelection selection;
+    private final Map<String, String> overrides;
+    private final Map<String, Provider> chosen = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String, Cipher>> ciphers = ThreadLocal.withInitial(HashMap::new);
+    private final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(HashMap::new);
+    private final ThreadLocal<Map<String, MessageDigest>> digests = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * @param selection How to choose among the providers of an algorithm.
+     * @param overrides Provider names by algorithm, {@link #ANY_ALGORITHM} applying to all.
+     */
+    CryptoProviders(ProviderSelection selection, Map<String, String> overrides) {
+        this.selection = selection;
+        this.overrides = Map.copyOf(overrides);
+    }
+
+    /**
+     * The calling thread's cipher for {@code transformation}; it must be initialized before use.
+     */
+    Cipher cipher(String transformation) throws GeneralSecurityException {
+        Map<String, Cipher> cache = ciphers.get();
+        Cipher cipher = cache.get(transformation);
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation, provider(Engine.CIPHER, transformation));
+            cache.put(transformation, cipher);
+        }
+        return cipher;
+    }
+
+    /**
+     * The calling thread's MAC for {@code algorithm}; it must be initialized before use.
+     */
+    Mac mac(String algorithm) throws GeneralSecurityException {
+        Map<String, Mac> cache = macs.get();
+        Mac mac = cache.get(algorithm);
+        if (mac == null) {
+            mac = Mac.getInstance(algorithm, provider(Engine.MAC, algorithm));
+            cache.put(algorithm, mac);
+        }
+        return mac;
+    }
+
+    /**
+     * The calling thread's digest for {@code algorithm}, reset.
+     */
+    MessageDigest digest(String algorithm) throws GeneralSecurityException {
+        Map<String, MessageDigest> cache = digests.get();
+        MessageDigest digest = cache.get(algorithm);
+        if (digest == null) {
+            digest = MessageDigest.getInstance(algorithm, provider(Engine.DIGEST, algorithm));
+            cache.put(algorithm, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+
+    /**
+     * A new digest for {@code algorithm}, for use across threads.
+     */
+    MessageDigest newDigest(String algorithm) throws GeneralSecurityException {
+        return MessageDigest.getInstance(algorithm, provider(Engine.DIGEST, algorithm));
+    }
+
+    /**
+     * A new secret key factory for {@code algorithm}; factories are cheap next to the derivations they run.
+     */
+    SecretKeyFactory secretKeyFactory(String algorithm) throws GeneralSecurityException {
+        return SecretKeyFactory.getInstance(algorithm, provider(Engine.KEY_FACTORY, algorithm));
+    }
+
+    /**
+     * The provider chosen so far for each algorithm, by engine type and algorithm (e.g. {@code "Cipher.AES/GCM/NoPadding"}).
+     */
+    Map<String, String> selected() {
+        Map<String, String> selected = new TreeMap<>();
+        chosen.forEach((key, provider) -> selected.put(key, provider.getName()));
+        return selected;
+    }
+
+    /**
+     * The provider for {@code algorithm}, chosen on first use.
+     * @throws NoSuchAlgorithmException if no provider supports the algorithm.
+     * @throws NoSuchProviderException if an overriding provider is not available.
+     */
+    Provider provider(Engine engine, String algorithm) throws GeneralSecurityException {
+        String key = engine.type + "." + algorithm;
+        Provider provider = chosen.get(key);
+        if (provider == null) {
+            provider = choose(engine, algorithm);
+            Provider previous = chosen.putIfAbsent(key, provider);
+            if (previous != null) {
+                provider = previous;
+            }
+        }
+        return provider;
+    }
+
+    private Provider choose(Engine engine, String algorithm) throws GeneralSecurityException {
+        String override = overrides.getOrDefault(algorithm, overrides.get(ANY_ALGORITHM));
+        if (override != null) {
+            Provider provider = byName(override);
+            if (provider == null) {
+                throw new NoSuchProviderException("Crypto provider " + override + " is not available");
+            }
+            if (supports(provider, engine, algorithm)) {
+                return provider;
+            }
+            if (overrides.containsKey(algorithm)) {
+                throw new NoSuchAlgorithmException("Crypto provider " + override + " does not support " + algorithm);
+            }
+            // A catch-all override falls back to the regular choice for algorithms it lacks
+        }
+        List<Provider> candidates = candidates(engine, algorithm);
+        if (candidates.isEmpty()) {
+            throw new NoSuchAlgorithmException("No crypto provider supports " + engine.type + " " + algorithm);
+        }
+        if (selection == ProviderSelection.RANKED || candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        Provider fastest = candidates.get(0);
+        long best = Long.MAX_VALUE;
+        for (Provider candidate : candidates) {
+            long nanos = measure(candidate, engine, algorithm);
+            if (nanos < best) {
+                best = nanos;
+                fastest = candidate;
+            }
+        }
+        return fastest;
+    }
+
+    private List<Provider> candidates(Engine engine, String algorithm) {
+        List<Provider> providers = new ArrayList<>(List.of(Security.getProviders()));
+        if (selection == ProviderSelection.BENCHMARK && Security.getProvider(BOUNCY_CASTLE) == null) {
+            Provider bouncyCastle = bouncyCastle();
+            if (bouncyCastle != null) {
+                providers.add(bouncyCastle);
+            }
+        }
+        providers.removeIf(provider -> !supports(provider, engine, algorithm));
+        // Stable: unranked providers keep their installation order
+        providers.sort(Comparator.comparingInt(CryptoProviders::rank));
+        return providers;
+    }
+
+    private static int rank(Provider provider) {
+        int index = RANKING.indexOf(provider.getName());
+        if (index >= 0) {
+            return index;
+        }
+        return BOUNCY_CASTLE.equals(provider.getName()) ? RANKING.size() + 1 : RANKING.size();
+    }
+
+    private static Provider byName(String name) {
+        Provider provider = Security.getProvider(name);
+        return provider == null && BOUNCY_CASTLE.equals(name) ? bouncyCastle() : provider;
+    }
+
+    /**
+     * BouncyCastle from the classpath, without registering it.
+     * @return The provider, or {@code null} if it is not on the classpath.
+     */
+    private static Provider bouncyCastle() {
+        try {
+            return (Provider) Class.forName(BOUNCY_CASTLE_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static boolean supports(Provider provider, Engine engine, String algorithm) {
+        try {
+            switch (engine) {
+                case CIPHER -> Cipher.getInstance(algorithm, provider);
+                case MAC -> Mac.getInstance(algorithm, provider);
+                case DIGEST -> MessageDigest.getInstance(algorithm, provider);
+                case KEY_FACTORY -> SecretKeyFactory.getInstance(algorithm, provider);
+            }
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Best time of a few rounds of the algorithm on {@code provider}, {@link Long#MAX_VALUE} if it fails.
+     */
+    private static long measure(Provider provider, Engine engine, String algorithm) {
+        byte[] data = new byte[BENCHMARK_BYTES];
+        long best = Long.MAX_VALUE;
+        try {
+            // One warm-up round, not counted
+            for (int round = 0; round <= BENCHMARK_ROUNDS; round++) {
+                long start = System.nanoTime();
+                run(provider, engine, algorithm, data, round);
+                long nanos = System.nanoTime() - start;
+                if (round > 0) {
+                    best = Math.min(best, nanos);
+                }
+            }
+        } catch (GeneralSecurityException | RuntimeException e) {
+            return Long.MAX_VALUE;
+        }
+        return best;
+    }
+
+    private static void run(Provider provider, Engine engine, String algorithm, byte[] data, int round) throws GeneralSecurityException {
+        switch (engine) {
+            case CIPHER -> {
+                Cipher cipher = Cipher.getInstance(algorithm, provider);
+                SecretKeySpec key = new SecretKeySpec(new byte[32], algorithm.split("/", 2)[0]);
+                if (algorithm.toUpperCase().contains("/GCM/")) {
+                    byte[] nonce = ByteBuffer.allocate(12).putInt(8, round).array();
+                    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, nonce));
+                } else {
+                    cipher.init(Cipher.ENCRYPT_MODE, key);
+                }
+                cipher.doFinal(data);
+            }
+            case MAC -> {
+                Mac mac = Mac.getInstance(algorithm, provider);
+                mac.init(new SecretKeySpec(new byte[32], algorithm));
+                mac.doFinal(data);
+            }
+            case DIGEST -> MessageDigest.getInstance(algorithm, provider).digest(data);
+            case KEY_FACTORY -> SecretKeyFactory.getInstance(algorithm, provider)
+                    .generateSecret(new PBEKeySpec("benchmark".toCharArray(), new byte[16], BENCHMARK_ITERATIONS, 256));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.FormatException;
+import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.model.WriteOptions;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link com.diyawanna.uft.api.RecordSink} producing CSV. The column order is taken from
+ * the first record; the header line is written once, when that record arrives.
+ */
+final class CsvRecordSink extends AbstractRecordSink {
+
+    private final CSVPrinter printer;
+    private final List<Object> values = new ArrayList<>();
+    private List<String> columns;
+
+    CsvRecordSink(Path target, WriteOptions options) throws ToolkitException {
+        super(target, options);
+        try {
+            CSVFormat format = CSVFormat.DEFAULT.builder()
+                    .setDelimiter(options.getCsvDelimiter())
+                    .setRecordSeparator("\n")
+                    .build();
+            this.printer = new CSVPrinter(new OutputStreamWriter(out, options.getCharset()), format);
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw new FormatException("Failed to initialise CSV output for " + target, e);
+        }
+    }
+
+    @Override
+    protected void writeRecord(Map<String, Object> record) throws IOException, ToolkitException {
+        if (columns == null) {
+            columns = List.copyOf(record.keySet());
+            if (options.isCsvHasHeader()) {
+                printer.printRecord(columns);
+            }
+        } else {
+            for (String key : record.keySet()) {
+                if (!columns.contains(key)) {
+                    throw new FormatException("Column '" + key + "' is not part of the CSV header " + columns);
+                }
+            }
+        }
+        values.clear();
+        for (String column : columns) {
+            values.add(formatValue(record.get(column)));
+        }
+        printer.printRecord(values);
+    }
+
+    @Override
+    protected void flushFormat() throws IOException {
+        printer.flush();
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        printer.flush();
+    }
+}
@@ -0,0 +1,741 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.ValidationException;
+import com.diyawanna.uft.model.ValidationOptions;
+import com.diyawanna.uft.model.ValidationResult;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validation of delimiter-separated UTF-8 files with a header line, the delimiter being
+ * {@link ValidationOptions#getCsvDelimiter()}. Checked are the header against the required columns,
+ * the field count of every record against the header, the quoting, which follows RFC 4180, the UTF-8
+ * encoding and, with a JSON Schema describing the rows, each value against the {@code type} of its
+ * column's property: empty values only for the schema's {@code required} properties, and
+ * {@code integer}, {@code number} and {@code boolean} values by their text. Errors are reported by
+ * line.
+ * <p>
+ * Records are scanned byte by byte without building strings, except for the values whose type is
+ * checked; within other fields the scanner skips ahead to the next quote, separator or non-ASCII
+ * byte, so that without a schema it runs close to the speed of reading the file. A large
+ * uncompressed file is split into byte ranges scanned in parallel. Each range after the first
+ * starts past its first line break outside quotes, guessing from the quotes near its start whether
+ * it begins inside a quoted field; the ranges are then taken in order, and one that did not start
+ * where the previous one ended is scanned again from there, so the result is that of a sequential
+ * scan whatever the guess. When failing fast, an error stops the ranges after its own, which cannot
+ * hold an earlier error, while the ranges before it run on; a range stopped by an error that then
+ * turns out to come from a wrong guess is scanned again as well.
+ */
+final class CsvValidation {
+
+    /** The smallest byte range scanned on its own thread, by default. */
+    static final long MIN_SHARD_SIZE = 8L * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_SHOWN_VALUE = 40;
+
+    private static final int INTEGER = 1;
+    private static final int NUMBER = 2;
+    private static final int BOOLEAN = 4;
+
+    private CsvValidation() {
+    }
+
+    /**
+     * The column rules of a JSON Schema of the rows.
+     * @param types The checked types of the columns by name, {@code 0} for any value.
+     * @param required The columns that must have a value.
+     */
+    record Columns(Map<String, Integer> types, Set<String> required) {
+    }
+
+    /**
+     * Reads the column rules from a JSON Schema of an array of rows, or of one row.
+     * @throws ValidationException if the schema does not describe the rows' properties.
+     */
+    static Columns compile(JsonNode schema) throws ValidationException {
+        JsonNode rows = schema.path("items").isObject() ? schema.get("items") : schema;
+        JsonNode properties = rows.path("properties");
+        if (!properties.isObject()) {
+            throw new ValidationException("A CSV schema must describe the columns as the properties of a row");
+        }
+        Map<String, Integer> types = new TreeMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = properties.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            types.put(field.getKey(), types(field.getValue().path("type")));
+        }
+        Set<String> required = new LinkedHashSet<>();
+        rows.path("required").forEach(name -> required.add(name.asText()));
+        return new Columns(Map.copyOf(types), Set.copyOf(required));
+    }
+
+    private static int types(JsonNode type) {
+        int types = 0;
+        for (JsonNode name : type.isArray() ? type : List.of(type)) {
+            switch (name.asText()) {
+                case "integer" -> types |= INTEGER;
+                case "number" -> types |= NUMBER;
+                case "boolean" -> types |= BOOLEAN;
+                case "null" -> {
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Validates a CSV file read sequentially, e.g. a compressed one.
+     * @param in The content.
+     * @param columns The column rules of a schema, or {@code null}.
+     * @param options The options, for the required columns, additional columns and failing fast.
+     * @throws IOException if reading fails.
+     */
+    static ValidationResult validate(InputStream in, Columns columns, ValidationOptions options) throws IOException {
+        ValidationErrors errors = new ValidationErrors(options.isFailFast());
+        byte delimiter = delimiter(options);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        Scanner header = new Scanner(null, delimiter, 0, Long.MAX_VALUE, false);
+        int read = 0;
+        int used = 0;
+        while (!header.done && (read = in.read(buffer)) >= 0) {
+            used = header.feed(buffer, 0, read);
+        }
+        header.finish();
+        Rules rules = rules(header, columns, options, errors);
+        if (rules == null || errors.isStopped()) {
+            return errors.result();
+        }
+        Scanner records = new Scanner(rules, delimiter, header.end, Long.MAX_VALUE, options.isFailFast());
+        if (read > used) {
+            records.feed(buffer, used, read - used);
+        }
+        while (!records.done && (read = in.read(buffer)) >= 0) {
+            records.feed(buffer, 0, read);
+        }
+        records.finish();
+        report(records, 1 + header.newlines, errors);
+        return errors.result();
+    }
+
+    /**
+     * Validates an uncompressed CSV file in byte ranges scanned in parallel.
+     * @param file The file.
+     * @param columns The column rules of a schema, or {@code null}.
+     * @param options The options, for the required columns, additional columns and failing fast.
+     * @param workers The threads that scan the ranges.
+     * @param threads The number of worker threads.
+     * @param minShardSize The smallest range scanned on its own, normally {@link #MIN_SHARD_SIZE}.
+     * @throws IOException if reading fails or the calling thread is interrupted.
+     */
+    static ValidationResult validate(Path file, Columns columns, ValidationOptions options, ExecutorService workers,
+                                     int threads, long minShardSize) throws IOException {
+        ValidationErrors errors = new ValidationErrors(options.isFailFast());
+        byte delimiter = delimiter(options);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Scanner header = new Scanner(null, delimiter, 0, Long.MAX_VALUE, false);
+            scan(channel, header, size);
+            Rules rules = rules(header, columns, options, errors);
+            if (rules == null || errors.isStopped()) {
+                return errors.result();
+            }
+            int shardCount = (int) Math.max(1, Math.min(threads * 4L, (size - header.end) / minShardSize));
+            long[] bounds = new long[shardCount + 1];
+            for (int i = 0; i <= shardCount; i++) {
+                bounds[i] = header.end + (size - header.end) * i / shardCount;
+            }
+            // The index of the first range that failed fast; the ranges after it stop
+            AtomicInteger firstFailed = new AtomicInteger(Integer.MAX_VALUE);
+            List<Future<Scanner>> shards = new ArrayList<>(shardCount);
+            try {
+                for (int i = 0; i < shardCount; i++) {
+                    long from = bounds[i];
+                    long limit = bounds[i + 1];
+                    int index = i;
+                    shards.add(workers.submit(() -> {
+                        long start = index == 0 ? from : recordStart(channel, from, size, delimiter);
+                        Scanner shard = new Scanner(rules, delimiter, start, limit, options.isFailFast(), index,
+                                firstFailed);
+                        scan(channel, shard, size);
+                        return shard;
+                    }));
+                }
+                long expected = header.end;
+                long line = 1 + header.newlines;
+                for (int i = 0; i < shardCount; i++) {
+                    Scanner shard = get(shards.get(i));
+                    if (shard.start != expected || (shard.stopped && shard.problems.isEmpty())) {
+                        // A quoted field spans the range boundary, or an earlier range that started off a
+                        // record boundary stopped this one: the range is scanned again from its first record
+                        shard = new Scanner(rules, delimiter, expected, bounds[i + 1], options.isFailFast());
+                        scan(channel, shard, size);
+                    }
+                    if (!report(shard, line, errors) || shard.stopped) {
+                        return errors.result();
+                    }
+                    expected = shard.end;
+                    line += shard.newlines;
+                }
+                return errors.result();
+            } finally {
+                firstFailed.set(-1);
+            }
+        }
+    }
+
+    /**
+     * The offset after the first line break outside quotes at or after {@code offset - 1}, the
+     * file size if there is none. Whether the offset is inside a quoted field is guessed from the
+     * first quote after it that only fits as an opening or as a closing quote.
+     */
+    private static long recordStart(FileChannel channel, long offset, long size, byte delimiter) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        Boolean quoted = null;
+        for (long position = offset - 1; position < size; ) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            if (quoted == null) {
+                quoted = quotedAt(bytes, read, delimiter);
+            }
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '"') {
+                    quoted = !quoted;
+                } else if (bytes[i] == '\n' && !quoted) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Guesses whether bytes start inside a quoted field: a quote after a separator and before a
+     * value opens a field, one after a value and before a separator closes it, and every quote
+     * before it toggles the state. Without such a quote the bytes are taken to start outside.
+     */
+    private static boolean quotedAt(byte[] bytes, int length, byte delimiter) {
+        int quotes = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != '"') {
+                continue;
+            }
+            if (i + 1 < length && bytes[i + 1] == '"') {
+                // An escaped quote or an empty field: either way the state is unchanged after it
+                quotes += 2;
+                i++;
+                continue;
+            }
+            boolean separatorBefore = i > 0 && isSeparator(bytes[i - 1], delimiter);
+            boolean separatorAfter = i + 1 < length && isSeparator(bytes[i + 1], delimiter);
+            if (separatorBefore && !separatorAfter && i + 1 < length) {
+                return quotes % 2 != 0;
+            }
+            if (separatorAfter && !separatorBefore && i > 0) {
+                return quotes % 2 == 0;
+            }
+            quotes++;
+        }
+        return false;
+    }
+
+    private static boolean isSeparator(byte b, byte delimiter) {
+        return b == delimiter || b == '\n' || b == '\r';
+    }
+
+    private static byte delimiter(ValidationOptions options) {
+        return (byte) options.getCsvDelimiter().charAt(0);
+    }
+
+    private static void scan(FileChannel channel, Scanner scanner, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = scanner.start;
+        while (!scanner.done && position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            scanner.feed(buffer.array(), 0, read);
+            position += read;
+        }
+        scanner.finish();
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while validating");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Validation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Checks the header and derives the rules of the records from it.
+     * @return The rules, or {@code null} if the file has no header.
+     */
+    private static Rules rules(Scanner header, Columns columns, ValidationOptions options, ValidationErrors errors) {
+        if (!report(header, 1, errors)) {
+            return null;
+        }
+        if (header.header.isEmpty()) {
+            errors.add("line 1", "Missing header");
+            return null;
+        }
+        String path = "line " + (1 + header.recordLine);
+        int count = header.header.size();
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            String name = header.header.get(i).strip();
+            names[i] = i == 0 && name.startsWith("\uFEFF") ? name.substring(1) : name;
+        }
+        Set<String> present = new HashSet<>(List.of(names));
+        Set<String> required = new LinkedHashSet<>(options.getRequiredColumns());
+        if (columns != null) {
+            required.addAll(columns.required());
+        }
+        for (String name : required) {
+            if (!present.contains(name) && !errors.add(path, "Missing required column '" + name + "'")) {
+                return null;
+            }
+        }
+        int[] types = new int[count];
+        boolean[] requiredValues = new boolean[count];
+        if (columns != null) {
+            for (int i = 0; i < count; i++) {
+                Integer type = columns.types().get(names[i]);
+                if (type == null && !options.isAllowAdditionalProperties()
+                        && !errors.add(path, "Unexpected column '" + names[i] + "'")) {
+                    return null;
+                }
+                types[i] = type == null ? 0 : type;
+                requiredValues[i] = columns.required().contains(names[i]);
+            }
+        }
+        return new Rules(names, types, requiredValues);
+    }
+
+    /**
+     * Adds the problems a scanner found, at lines counted from {@code line}.
+     * @return Whether validation should go on.
+     */
+    private static boolean report(Scanner scanner, long line, ValidationErrors errors) {
+        for (Problem problem : scanner.problems) {
+            String path = "line " + (line + problem.line())
+                    + (problem.column() == null ? "" : ", column '" + problem.column() + "'");
+            if (!errors.add(path, problem.message())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The rules of the records, from the header and schema.
+     * @param names The column names.
+     * @param types The checked types of each column, {@code 0} for any value.
+     * @param required Whether each column must have a value.
+     */
+    private record Rules(String[] names, int[] types, boolean[] required) {
+
+        boolean captures(int field) {
+            return field < names.length && (types[field] != 0 || required[field]);
+        }
+    }
+
+    /**
+     * An error found by a scanner.
+     * @param line The line of the record, relative to where the scanner started.
+     * @param column The column, or {@code null} for the whole record.
+     * @param message The error message.
+     */
+    private record Problem(long line, String column, String message) {
+    }
+
+    /**
+     * Checks the records starting in a byte range, or reads the header if it has no rules. It is
+     * fed the bytes from {@link #start} on and is {@link #done} once it has consumed the record
+     * that crosses its limit, after which {@link #end} is the offset of the next record.
+     */
+    private static final class Scanner {
+
+        private static final int FIELD_START = 0;
+        private static final int UNQUOTED = 1;
+        private static final int QUOTED = 2;
+        private static final int CLOSING_QUOTE = 3;
+
+        final long start;
+        final List<Problem> problems = new ArrayList<>();
+        final List<String> header = new ArrayList<>();
+        /** The offset of the next record once done, and of the next byte to feed until then. */
+        long end;
+        /** The line breaks consumed. */
+        long newlines;
+        /** The line breaks before the current record. */
+        long recordLine;
+        boolean done;
+        /** Whether the scanner stopped before its limit, on an error or cancelled. */
+        boolean stopped;
+
+        private final Rules rules;
+        private final byte delimiter;
+        /** The bytes to look at inside a field whose value is not checked. */
+        private final boolean[] special = new boolean[256];
+        private final long limit;
+        private final boolean failFast;
+        private final int index;
+        private final AtomicInteger firstFailed;
+        private int state = FIELD_START;
+        private int field;
+        private boolean blank = true;
+        private boolean capture;
+        private byte[] value = new byte[64];
+        private int valueLength;
+        /** The continuation bytes still expected of a UTF-8 sequence, and the range of the next one. */
+        private int pending;
+        private int lower;
+        private int upper;
+        private boolean encodingReported;
+
+        /**
+         * A scanner of a range scanned alone.
+         */
+        Scanner(Rules rules, byte delimiter, long start, long limit, boolean failFast) {
+            this(rules, delimiter, start, limit, failFast, 0, new AtomicInteger(Integer.MAX_VALUE));
+        }
+
+        /**
+         * @param index The position of the scanner's range among those scanned in parallel.
+         * @param firstFailed The lowest index of a range that failed fast, shared by the ranges; the
+         *                    ranges after it stop.
+         */
+        Scanner(Rules rules, byte delimiter, long start, long limit, boolean failFast, int index,
+                AtomicInteger firstFailed) {
+            this.rules = rules;
+            this.delimiter = delimiter;
+            Arrays.fill(special, 0x80, 256, true);
+            special['"'] = true;
+            special['\n'] = true;
+            special['\r'] = true;
+            special[delimiter] = true;
+            this.start = start;
+            this.end = start;
+            this.limit = limit;
+            this.failFast = failFast;
+            this.index = index;
+            this.firstFailed = firstFailed;
+            this.capture = rules == null || rules.captures(0);
+            this.done = start >= limit;
+        }
+
+        /**
+         * Scans bytes until done.
+         * @return The number of bytes consumed.
+         */
+        int feed(byte[] bytes, int offset, int length) {
+            int stop = offset + length;
+            int i = offset;
+            int mark = offset;
+            while (i < stop && !done) {
+                if (!capture && pending == 0 && (state == UNQUOTED || state == QUOTED)) {
+                    while (i < stop && !special[bytes[i] & 0xFF]) {
+                        i++;
+                    }
+                    if (i == stop) {
+                        break;
+                    }
+                }
+                byte b = bytes[i++];
+                if (b < 0 || pending > 0) {
+                    utf8(b & 0xFF);
+                }
+                if (b == '\n') {
+                    newlines++;
+                }
+                if (state == QUOTED) {
+                    if (b == '"') {
+                        state = CLOSING_QUOTE;
+                    } else if (capture) {
+                        append(b);
+                    }
+                    continue;
+                }
+                if (state == CLOSING_QUOTE && b == '"') {
+                    state = QUOTED;
+                    if (capture) {
+                        append(b);
+                    }
+                } else if (b == delimiter) {
+                    blank = false;
+                    endField();
+                } else if (b == '\n') {
+                    end += i - mark;
+                    mark = i;
+                    endRecord();
+                } else if (b == '\r') {
+                    // Part of a CRLF line break
+                } else if (state == CLOSING_QUOTE) {
+                    problem(null, "Unexpected character after a closing quote");
+                    state = UNQUOTED;
+                    if (capture) {
+                        append(b);
+                    }
+                } else if (state == FIELD_START && b == '"') {
+                    state = QUOTED;
+                    blank = false;
+                } else {
+                    state = UNQUOTED;
+                    blank = false;
+                    if (capture) {
+                        append(b);
+                    }
+                }
+            }
+            end += i - mark;
+            return i - offset;
+        }
+
+        /**
+         * Ends the input: the last record may lack its line break.
+         */
+        void finish() {
+            if (done) {
+                return;
+            }
+            if (pending > 0) {
+                invalidEncoding();
+            }
+            if (state == QUOTED) {
+                problem(null, "Unterminated quoted field");
+            } else {
+                endRecord();
+            }
+            done = true;
+        }
+
+        /**
+         * Checks a byte of a UTF-8 sequence, rejecting overlong forms, surrogates and code points beyond U+10FFFF.
+         */
+        private void utf8(int b) {
+            if (pending > 0) {
+                if (b >= lower && b <= upper) {
+                    pending--;
+                    lower = 0x80;
+                    upper = 0xBF;
+                    return;
+                }
+                pending = 0;
+                invalidEncoding();
+            }
+            lower = 0x80;
+            upper = 0xBF;
+            if (b < 0x80) {
+                return;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                pending = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                pending = 2;
+                lower = b == 0xE0 ? 0xA0 : 0x80;
+                upper = b == 0xED ? 0x9F : 0xBF;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                pending = 3;
+                lower = b == 0xF0 ? 0x90 : 0x80;
+                upper = b == 0xF4 ? 0x8F : 0xBF;
+            } else {
+                invalidEncoding();
+            }
+        }
+
+        private void invalidEncoding() {
+            if (!encodingReported) {
+                encodingReported = true;
+                problem(null, "Invalid UTF-8 byte sequence");
+            }
+        }
+
+        private void append(byte b) {
+            if (valueLength == value.length) {
+                value = Arrays.copyOf(value, value.length * 2);
+            }
+            value[valueLength++] = b;
+        }
+
+        private void endField() {
+            if (rules == null) {
+                header.add(new String(value, 0, valueLength, StandardCharsets.UTF_8));
+            } else if (capture) {
+                check();
+            }
+            field++;
+            state = FIELD_START;
+            valueLength = 0;
+            capture = rules == null || rules.captures(field);
+        }
+
+        private void endRecord() {
+            if (!blank) {
+                endField();
+                if (rules == null) {
+                    done = true;
+                } else if (field != rules.names().length) {
+                    problem(null, "Expected " + rules.names().length + " fields, found " + field);
+                }
+            } else {
+                state = FIELD_START;
+            }
+            field = 0;
+            blank = true;
+            encodingReported = false;
+            valueLength = 0;
+            capture = rules == null || rules.captures(0);
+            if (!done) {
+                recordLine = newlines;
+                if (end >= limit) {
+                    done = true;
+                } else if (firstFailed.get() < index) {
+                    done = true;
+                    stopped = true;
+                }
+            }
+        }
+
+        private void check() {
+            int from = 0;
+            int to = valueLength;
+            while (from < to && value[from] == ' ') {
+                from++;
+            }
+            while (to > from && value[to - 1] == ' ') {
+                to--;
+            }
+            int types = rules.types()[field];
+            if (from == to) {
+                if (rules.required()[field]) {
+                    problem(rules.names()[field], "Missing value");
+                }
+            } else if (types != 0 && !matches(types, value, from, to)) {
+                String text = new String(value, from, Math.min(to - from, MAX_SHOWN_VALUE), StandardCharsets.UTF_8);
+                String shown = text + (to - from > MAX_SHOWN_VALUE ? "..." : "");
+                problem(rules.names()[field], "Value '" + shown + "' is not " + describe(types));
+            }
+        }
+
+        private void problem(String column, String message) {
+            if (done) {
+                return;
+            }
+            problems.add(new Problem(recordLine, column, message));
+            if (failFast || problems.size() >= ValidationErrors.MAX_ERRORS) {
+                done = true;
+                stopped = true;
+                if (failFast) {
+                    firstFailed.accumulateAndGet(index, Math::min);
+                }
+            }
+        }
+    }
+
+    private static boolean matches(int types, byte[] value, int from, int to) {
+        return (types & INTEGER) != 0 && isInteger(value, from, to)
+                || (types & NUMBER) != 0 && isNumber(value, from, to)
+                || (types & BOOLEAN) != 0 && isBoolean(value, from, to);
+    }
+
+    private static boolean isInteger(byte[] value, int from, int to) {
+        if (value[from] == '-' || value[from] == '+') {
+            from++;
+        }
+        return from < to && digits(value, from, to) == to;
+    }
+
+    private static boolean isNumber(byte[] value, int from, int to) {
+        int i = from;
+        if (value[i] == '-' || value[i] == '+') {
+            i++;
+        }
+        int integer = digits(value, i, to);
+        boolean hasDigits = integer > i;
+        i = integer;
+        if (i < to && value[i] == '.') {
+            int fraction = digits(value, i + 1, to);
+            hasDigits |= fraction > i + 1;
+            i = fraction;
+        }
+        if (!hasDigits) {
+            return false;
+        }
+        if (i < to && (value[i] == 'e' || value[i] == 'E')) {
+            i++;
+            if (i < to && (value[i] == '-' || value[i] == '+')) {
+                i++;
+            }
+            int exponent = digits(value, i, to);
+            if (exponent == i) {
+                return false;
+            }
+            i = exponent;
+        }
+        return i == to;
+    }
+
+    /** The offset of the first non-digit from {@code from}. */
+    private static int digits(byte[] value, int from, int to) {
+        while (from < to && value[from] >= '0' && value[from] <= '9') {
+            from++;
+        }
+        return from;
+    }
+
+    private static boolean isBoolean(byte[] value, int from, int to) {
+        String text = new String(value, from, to - from, StandardCharsets.US_ASCII);
+        return text.equalsIgnoreCase("true") || text.equalsIgnoreCase("false");
+    }
+
+    private static String describe(int types) {
+        List<String> names = new ArrayList<>(3);
+        if ((types & INTEGER) != 0) {
+            names.add("an integer");
+        }
+        if ((types & NUMBER) != 0) {
+            names.add("a number");
+        }
+        if ((types & BOOLEAN) != 0) {
+            names.add("a boolean");
+        }
+        return String.join(" or ", names);
+    }
+}
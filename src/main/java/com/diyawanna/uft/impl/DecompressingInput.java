@@ -0,0 +1,217 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.CompressionException;
+import com.diyawanna.uft.model.CompressionType;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Opens files and streams for reading with on-the-fly decompression. The format is detected from
+ * the magic number, not the file name, so a renamed or extension-less file is handled the same
+ * way; content in no known compression format is passed through unchanged. Nothing is written
+ * to disk. A ZIP file must hold exactly one file entry, which is read in place through the
+ * central directory; a ZIP stream yields its first file entry and fails if another follows.
+ * BGZF files are inflated block by block, ahead of the reader on the given executor when more
+ * than one processor is available.
+ */
+final class DecompressingInput {
+
+    /** Bytes needed to recognise every supported magic number, and a BGZF header. */
+    static final int MAGIC_LENGTH = 18;
+
+    private final CodecPool pool = CodecPool.shared();
+    private final Executor readAheadExecutor;
+    private final int readAhead;
+
+    /**
+     * Creates an input that inflates BGZF blocks on the reading thread.
+     */
+    DecompressingInput() {
+        this(null);
+    }
+
+    /**
+     * @param executor The threads to inflate BGZF blocks on ahead of the reader, typically the
+     *                 toolkit's executor; {@code null} to inflate them on the reading thread.
+     */
+    DecompressingInput(Executor executor) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.readAheadExecutor = processors > 1 ? executor : null;
+        this.readAhead = processors * 2;
+    }
+
+    /**
+     * Opens a file, decompressing it if it is compressed.
+     * @param file The file.
+     * @return The (decompressed) content; the caller must close it.
+     * @throws IOException if the file cannot be read or its compressed content is invalid.
+     */
+    InputStream open(Path file) throws IOException {
+        CompressionType type = detect(file);
+        if (type == CompressionType.ZIP) {
+            return openSingleEntry(file);
+        }
+        if (type == CompressionType.BGZF) {
+            return new BgzfInputStream(FileChannel.open(file, StandardOpenOption.READ), pool, readAheadExecutor, readAhead);
+        }
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), CodecPool.BUFFER_SIZE);
+        try {
+            return decompressor(type, in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Wraps a stream, decompressing it if its first bytes are a known magic number.
+     * @param in The stream; it is closed when the returned stream is closed.
+     * @return The (decompressed) content.
+     * @throws IOException if the stream cannot be read or its compressed content is invalid.
+     */
+    InputStream wrap(InputStream in) throws IOException {
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, CodecPool.BUFFER_SIZE);
+        buffered.mark(MAGIC_LENGTH);
+        byte[] magic = buffered.readNBytes(MAGIC_LENGTH);
+        buffered.reset();
+        CompressionType type = DefaultCompressionService.detect(magic, magic.length);
+        if (type == CompressionType.ZIP) {
+            return new SingleEntryZipStream(new ZipArchiveInputStream(buffered));
+        }
+        if (type == CompressionType.BGZF) {
+            return new BgzfInputStream(Channels.newChannel(buffered), pool, readAheadExecutor, readAhead);
+        }
+        return decompressor(type, buffered);
+    }
+
+    /**
+     * Detects the compression format of a file from its magic number.
+     * @return The detected type, or {@link CompressionType#NONE} for uncompressed content.
+     */
+    static CompressionType detect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(MAGIC_LENGTH);
+            return DefaultCompressionService.detect(magic, magic.length);
+        }
+    }
+
+    private static InputStream decompressor(CompressionType type, InputStream in) throws IOException {
+        if (type == CompressionType.GZIP) {
+            return new GZIPInputStream(in, CodecPool.BUFFER_SIZE);
+        }
+        if (CompressorStreams.handles(type)) {
+            try {
+                CompressorStreams.requireAvailable(type);
+            } catch (CompressionException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            return CompressorStreams.decompressor(type, in);
+        }
+        return in;
+    }
+
+    private InputStream openSingleEntry(Path file) throws IOException {
+        SeekableByteChannel channel = Files.newByteChannel(file, StandardOpenOption.READ);
+        try {
+            List<ZipCentralDirectory.Entry> files = ZipCentralDirectory.read(channel).entries().stream()
+                    .filter(entry -> !entry.isDirectory())
+                    .toList();
+            if (files.size() != 1) {
+                throw new ZipException("ZIP archive " + file + " holds " + files.size()
+                        + " files; only single-file archives can be read directly");
+            }
+            ZipCentralDirectory.Entry entry = files.get(0);
+            if (entry.encrypted()) {
+                throw new ZipException("Encrypted ZIP entries are not supported: " + entry.name());
+            }
+            if (entry.method() == ZipCentralDirectory.METHOD_STORED || entry.method() == ZipCentralDirectory.METHOD_DEFLATED) {
+                return new ZipEntryInputStream(channel, entry, ZipCentralDirectory.dataOffset(channel, entry), pool);
+            }
+            // Other methods (e.g. bzip2, deflate64) are left to Commons Compress
+            channel.position(entry.localHeaderOffset());
+            return new SingleEntryZipStream(new ZipArchiveInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), CodecPool.BUFFER_SIZE)));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The content of the first file entry of a ZIP stream; reaching its end with another file
+     * entry still to come is an error rather than silently ignoring the rest of the archive.
+     */
+    private static final class SingleEntryZipStream extends FilterInputStream {
+
+        private final ZipArchiveInputStream zip;
+        private boolean positioned;
+
+        SingleEntryZipStream(ZipArchiveInputStream zip) {
+            super(zip);
+            this.zip = zip;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!positioned) {
+                positioned = true;
+                if (nextFile() == null) {
+                    throw new ZipException("ZIP stream holds no file entry");
+                }
+            }
+            int n = zip.read(b, off, len);
+            if (n < 0) {
+                ArchiveEntry next = nextFile();
+                if (next != null) {
+                    throw new ZipException("ZIP stream holds more than one file (next: " + next.getName()
+                            + "); only single-file archives can be read directly");
+                }
+            }
+            return n;
+        }
+
+        private ArchiveEntry nextFile() throws IOException {
+            ArchiveEntry entry;
+            do {
+                entry = zip.getNextEntry();
+            } while (entry != null && entry.isDirectory());
+            return entry;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Through read, so that the stream is positioned at the entry first
+            byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (count < 0) {
+                    break;
+                }
+                skipped += count;
+            }
+            return skipped;
+        }
+    }
+}
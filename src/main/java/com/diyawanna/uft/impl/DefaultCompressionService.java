@@ -2,25 +2,806 @@ package com.diyawanna.uft.impl;
 
 import com.diyawanna.uft.CompressionException;
 import com.diyawanna.uft.api.CompressionService;
+import com.diyawanna.uft.model.CompressionOptions;
 import com.diyawanna.uft.model.CompressionType;
+import com.diyawanna.uft.util.OperationResult;
+import com.diyawanna.uft.util.PerformanceReport;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.parallel.FileBasedScatterGatherBackingStore;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
 
 /**
- * Placeholder default implementation for the {@link CompressionService} interface.
- * All methods throw {@link CompressionException} as actual implementation is pending.
+ * Default implementation of the {@link CompressionService} interface.
+ * Files are processed as streams through pooled codecs and buffers (see {@link CodecPool}), so
+ * memory use does not grow with the file size. Outputs are written to a temporary file and moved
+ * into place once complete. GZIP output is written adjacent to the source with a {@code .gz}
+ * suffix and ZIP output as a single-entry archive with a {@code .zip} suffix. LZ4, Zstandard,
+ * BZIP2 and XZ (see {@link CompressorStreams}) use {@code .lz4}, {@code .zst}, {@code .bz2} and
+ * {@code .xz}. The level in {@link CompressionOptions} is validated against the codec's range.
+ * Decompression detects the format from its magic number.
+ * <p>
+ * BGZF output (see {@link BgzfCodec}) is a {@code .gz} file of independent 64 KB blocks with a
+ * {@code .gz.gzi} block index beside it (see {@link BgzfIndex}). Its blocks are compressed and
+ * inflated in parallel, and {@link #openAt(Path, long)} starts reading at any uncompressed offset.
+ * <p>
+ * GZIP inputs of at least the parallel threshold are compressed on several threads (see
+ * {@link ParallelGzipCodec}); the output is still a single standard GZIP stream. The worker
+ * threads are created on first use and released by {@link #close()}. Multi-file ZIP archives
+ * (see {@link #compress(List, File, CompressionType)}) deflate their entries on the same number
+ * of threads, spilling each thread's compressed entries to a scatter file before they are
+ * gathered into the archive. Single entries are read in place by {@link #openEntry(Path, String)},
+ * which keeps the parsed central directories of recently used archives in a small cache.
  */
-public class DefaultCompressionService implements CompressionService {
+public class DefaultCompressionService implements CompressionService, AutoCloseable {
+
+    /** Default minimum input size for parallel GZIP compression. */
+    public static final long DEFAULT_PARALLEL_THRESHOLD = 16L * 1024 * 1024;
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+    private static final int ZIP_DIRECTORY_CACHE_SIZE = 32;
+
+    private final CodecPool pool = CodecPool.shared();
+    private final GzipCodec gzip = new GzipCodec(pool);
+    private final FileIdentityCache<ZipCentralDirectory> zipDirectories = new FileIdentityCache<>(ZIP_DIRECTORY_CACHE_SIZE);
+    private final LevelSampler levelSampler = new LevelSampler(pool);
+    private final int threads;
+    private final long parallelThreshold;
+    private final Path spillDirectory;
+    private ExecutorService workers;
+    private ParallelGzipCodec parallelGzip;
+
+    /**
+     * Creates a service that compresses large GZIP inputs on all available processors.
+     */
+    public DefaultCompressionService() {
+        this(-1, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates a service with explicit parallel GZIP settings.
+     * @param threads The number of compression threads, {@code -1} for the number of available processors; {@code 1} disables parallel compression.
+     * @param parallelThreshold The minimum input size in bytes for parallel compression.
+     */
+    public DefaultCompressionService(int threads, long parallelThreshold) {
+        this(threads, parallelThreshold, null);
+    }
+
+    /**
+     * Creates a service with explicit parallel compression settings.
+     * @param threads The number of compression threads, {@code -1} for the number of available processors.
+     * @param parallelThreshold The minimum input size in bytes for parallel GZIP compression.
+     * @param spillDirectory The directory for ZIP scatter files, or {@code null} for the system temporary directory.
+     */
+    public DefaultCompressionService(int threads, long parallelThreshold, Path spillDirectory) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.parallelThreshold = parallelThreshold;
+        this.spillDirectory = spillDirectory;
+    }
 
     @Override
     public File compress(File source, CompressionType type) throws CompressionException {
-        throw new CompressionException("DefaultCompressionService.compress(File, CompressionType) not yet implemented.");
+        return compressWithPerformance(source, type).getResult();
+    }
+
+    @Override
+    public File compress(File source, CompressionType type, CompressionOptions options) throws CompressionException {
+        return compressWithPerformance(source, type, options).getResult();
     }
 
     @Override
     public File decompress(File source) throws CompressionException {
-        throw new CompressionException("DefaultCompressionService.decompress(File) not yet implemented.");
+        return decompressWithPerformance(source).getResult();
+    }
+
+    @Override
+    public OperationResult<File> compressWithPerformance(File source, CompressionType type) throws CompressionException {
+        return compressWithPerformance(source, type, CompressionOptions.builder().build());
+    }
+
+    @Override
+    public OperationResult<File> compressWithPerformance(File source, CompressionType type, CompressionOptions options) throws CompressionException {
+        long start = System.nanoTime();
+        Path input = source.toPath().toAbsolutePath();
+        Path target = input.resolveSibling(input.getFileName() + extensionOf(type));
+        CompressorStreams.requireAvailable(type);
+        long bytesRead = sizeOf(input);
+        boolean parallel = (type == CompressionType.GZIP || type == CompressionType.BGZF) && threads > 1 && bytesRead >= parallelThreshold;
+        LevelSampler.Selection selection = selectLevel(type, Map.of(input, bytesRead), options, parallel ? threads : 1);
+        int level = CompressorStreams.resolveLevel(type, selection != null ? selection.level() : options.getLevel());
+        long bytesWritten;
+        try {
+            bytesWritten = switch (type) {
+                case GZIP -> writeAtomically(target, out -> {
+                    try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                        return parallel ? parallelGzip().compress(in, out, level) : gzip.compress(in, out, level);
+                    }
+                });
+                case BGZF -> compressBgzf(input, target, level, parallel);
+                case ZIP -> writeAtomically(target, out -> zip(input, out, level));
+                case LZ4, ZSTD, BZIP2, XZ -> writeAtomically(target, out -> compressStream(input, out, type, level));
+                default -> throw new CompressionException("Unsupported compression type: " + type);
+            };
+        } catch (IOException e) {
+            throw failure("Failed to compress " + input + " with " + type, e);
+        }
+        return new OperationResult<>(target.toFile(), report(start, bytesRead, bytesWritten, type, level, selection, parallel ? threads : 1));
+    }
+
+    @Override
+    public File decompress(File source, CompressionType type) throws CompressionException {
+        return decompressWithPerformance(source, type).getResult();
+    }
+
+    @Override
+    public OperationResult<File> decompressWithPerformance(File source) throws CompressionException {
+        return decompressWithPerformance(source, null);
+    }
+
+    /**
+     * Decompresses a file, checking its detected format against {@code expected} unless that is {@code null}.
+     */
+    private OperationResult<File> decompressWithPerformance(File source, CompressionType expected) throws CompressionException {
+        long start = System.nanoTime();
+        Path input = source.toPath().toAbsolutePath();
+        CompressionType type = detect(input);
+        // BGZF is GZIP, so either name fits it
+        if (expected != null && type != expected && !(expected == CompressionType.GZIP && type == CompressionType.BGZF)) {
+            throw new CompressionException("Expected " + expected + " content but " + input + " is " + type);
+        }
+        CompressorStreams.requireAvailable(type);
+        long bytesRead = sizeOf(input);
+        File result;
+        long bytesWritten;
+        try {
+            if (type == CompressionType.BGZF) {
+                Path target = input.resolveSibling(stripExtension(input.getFileName().toString(), type));
+                boolean parallel = threads > 1 && bytesRead >= parallelThreshold;
+                bytesWritten = writeAtomically(target, out -> {
+                    try (InputStream in = new BgzfInputStream(FileChannel.open(input, StandardOpenOption.READ), pool,
+                            parallel ? workers() : null, threads * 2)) {
+                        return copy(in, out);
+                    }
+                });
+                result = target.toFile();
+            } else if (type == CompressionType.GZIP) {
+                Path target = input.resolveSibling(stripExtension(input.getFileName().toString(), type));
+                bytesWritten = writeAtomically(target, out -> {
+                    try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                        return gzip.decompress(in, out);
+                    }
+                });
+                result = target.toFile();
+            } else if (CompressorStreams.handles(type)) {
+                Path target = input.resolveSibling(stripExtension(input.getFileName().toString(), type));
+                bytesWritten = writeAtomically(target, out -> decompressStream(input, out, type));
+                result = target.toFile();
+            } else {
+                long[] written = new long[1];
+                result = unzip(input, written);
+                bytesWritten = written[0];
+            }
+        } catch (IOException e) {
+            throw failure("Failed to decompress " + input, e);
+        }
+        return new OperationResult<>(result, report(start, bytesRead, bytesWritten, type, null, null, 1));
+    }
+
+    @Override
+    public File compress(List<File> sources, File target, CompressionType type) throws CompressionException {
+        return compress(sources, target, type, CompressionOptions.builder().build());
+    }
+
+    @Override
+    public File compress(List<File> sources, File target, CompressionType type, CompressionOptions options) throws CompressionException {
+        if (type != CompressionType.ZIP) {
+            throw new CompressionException("Only ZIP archives can hold multiple files, not " + type);
+        }
+        Path archive = target.toPath().toAbsolutePath();
+        Map<String, Path> entries = new LinkedHashMap<>();
+        try {
+            for (File source : sources) {
+                Path path = source.toPath().toAbsolutePath();
+                if (Files.isDirectory(path)) {
+                    collect(entries, path, path.getFileName() + "/", archive);
+                } else {
+                    addEntry(entries, path.getFileName().toString(), path);
+                }
+            }
+            Map<Path, Long> files = new LinkedHashMap<>();
+            if (options.isAdaptive()) {
+                for (Path path : entries.values()) {
+                    if (Files.isRegularFile(path)) {
+                        files.put(path, Files.size(path));
+                    }
+                }
+            }
+            LevelSampler.Selection selection = selectLevel(type, files, options, threads);
+            int level = CompressorStreams.resolveLevel(type, selection != null ? selection.level() : options.getLevel());
+            writeAtomically(archive, out -> zipParallel(entries, out, level));
+        } catch (IOException e) {
+            throw failure("Failed to create ZIP archive " + archive, e);
+        } catch (UncheckedIOException e) {
+            throw failure("Failed to create ZIP archive " + archive, e.getCause());
+        }
+        return archive.toFile();
+    }
+
+    @Override
+    public InputStream openEntry(Path archive, String entryName) throws CompressionException {
+        Path path = archive.toAbsolutePath().normalize();
+        SeekableByteChannel channel = null;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            channel = Files.newByteChannel(path, StandardOpenOption.READ);
+            SeekableByteChannel open = channel;
+            ZipCentralDirectory.Entry entry = zipDirectories.get(path, attributes, file -> ZipCentralDirectory.read(open)).find(entryName);
+            if (entry == null || entry.isDirectory()) {
+                throw new CompressionException("No file entry '" + entryName + "' in ZIP archive " + path);
+            }
+            if (entry.encrypted()) {
+                throw new CompressionException("Encrypted ZIP entries are not supported: " + entryName);
+            }
+            if (entry.method() != ZipCentralDirectory.METHOD_STORED && entry.method() != ZipCentralDirectory.METHOD_DEFLATED) {
+                throw new CompressionException("Unsupported ZIP compression method " + entry.method() + " for entry " + entryName);
+            }
+            return new ZipEntryInputStream(channel, entry, ZipCentralDirectory.dataOffset(channel, entry), pool);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw failure("Failed to open entry '" + entryName + "' in " + path, e);
+        } catch (CompressionException | RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream openAt(Path file, long uncompressedOffset) throws CompressionException {
+        Path path = file.toAbsolutePath().normalize();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            if (detect(path) != CompressionType.BGZF) {
+                throw new CompressionException("Random access requires BGZF content: " + path);
+            }
+            BgzfIndex.Position position = BgzfIndex.load(path, channel).locate(uncompressedOffset);
+            channel.position(position.blockOffset());
+            InputStream in = new BgzfInputStream(channel, pool, threads > 1 ? workers() : null, threads * 2);
+            in.skipNBytes(position.skip());
+            return in;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw failure("Failed to open " + path + " at offset " + uncompressedOffset, e);
+        } catch (CompressionException | RuntimeException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    /**
+     * Compresses {@code input} into BGZF blocks at {@code target}, then writes its block index beside it.
+     * @return The size of the compressed file.
+     */
+    private long compressBgzf(Path input, Path target, int level, boolean parallel) throws IOException {
+        BgzfIndex.Builder index = new BgzfIndex.Builder();
+        long[] end = new long[1];
+        long written = writeAtomically(target, out -> {
+            try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                long size = BgzfCodec.compress(in, out, level, pool, parallel ? workers() : null, threads, index);
+                end[0] = size - BgzfCodec.EOF_BLOCK.length;
+                return size;
+            }
+        });
+        writeAtomically(BgzfIndex.sidecarOf(target), index.build(end[0])::write);
+        return written;
+    }
+
+    private long copy(InputStream in, SeekableByteChannel out) throws IOException {
+        byte[] array = pool.borrowArray();
+        long written = 0;
+        try {
+            int n;
+            while ((n = in.read(array)) >= 0) {
+                written += GzipCodec.writeFully(out, ByteBuffer.wrap(array, 0, n));
+            }
+        } finally {
+            pool.release(array);
+        }
+        return written;
+    }
+
+    /**
+     * Samples the inputs to choose a level when {@code options} sets a target.
+     * @return The selection, or {@code null} if the options give a fixed level.
+     */
+    private LevelSampler.Selection selectLevel(CompressionType type, Map<Path, Long> inputs, CompressionOptions options,
+                                               double speedup) throws CompressionException {
+        if (!options.isAdaptive()) {
+            return null;
+        }
+        if (options.getLevel() != CompressionOptions.DEFAULT_LEVEL) {
+            throw new CompressionException("Set either a compression level or a target throughput/ratio, not both");
+        }
+        if (type == CompressionType.NONE) {
+            throw new CompressionException("Unsupported compression type: " + type);
+        }
+        try {
+            return levelSampler.select(type, inputs, options, speedup);
+        } catch (IOException e) {
+            throw failure("Failed to sample input for " + type + " level selection", e);
+        }
+    }
+
+    private static void closeQuietly(SeekableByteChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    /**
+     * Adds the content of {@code directory} to {@code entries}, with names prefixed by {@code prefix}.
+     * Empty directories are kept as directory entries; {@code exclude} (the archive itself) is skipped.
+     */
+    private static void collect(Map<String, Path> entries, Path directory, String prefix, Path exclude) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            paths = walk.filter(path -> !path.equals(exclude)).sorted().toList();
+        }
+        for (Path path : paths) {
+            String relative = directory.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    if (children.findAny().isEmpty()) {
+                        addEntry(entries, prefix + (relative.isEmpty() ? "" : relative + "/"), path);
+                    }
+                }
+            } else {
+                addEntry(entries, prefix + relative, path);
+            }
+        }
+    }
+
+    private static void addEntry(Map<String, Path> entries, String name, Path path) throws ZipException {
+        if (entries.putIfAbsent(name, path) != null) {
+            throw new ZipException("Duplicate ZIP entry name: " + name);
+        }
+    }
+
+    /**
+     * Deflates the entries concurrently with a {@link ParallelScatterZipCreator} and gathers them into {@code out}.
+     */
+    private long zipParallel(Map<String, Path> entries, SeekableByteChannel out, int level) throws IOException {
+        AtomicInteger counter = new AtomicInteger();
+        // The creator shuts its executor down once the archive is written, so each archive gets its own.
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "uft-zip-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Path scatterDirectory = spillDirectory != null ? spillDirectory : Path.of(System.getProperty("java.io.tmpdir"));
+        ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executor,
+                () -> new FileBasedScatterGatherBackingStore(Files.createTempFile(scatterDirectory, "uft-scatter", ".tmp")), level);
+        try (ZipArchiveOutputStream zip = new ZipArchiveOutputStream(out)) {
+            for (Map.Entry<String, Path> entry : entries.entrySet()) {
+                Path path = entry.getValue();
+                ZipArchiveEntry zipEntry = new ZipArchiveEntry(path, entry.getKey());
+                zipEntry.setMethod(ZipArchiveEntry.DEFLATED);
+                creator.addArchiveEntry(zipEntry, () -> {
+                    if (zipEntry.isDirectory()) {
+                        return InputStream.nullInputStream();
+                    }
+                    try {
+                        return Files.newInputStream(path);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            creator.writeTo(zip);
+            zip.finish();
+            return out.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while creating ZIP archive");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io
+                    : e.getCause() instanceof UncheckedIOException u ? u.getCause()
+                    : new IOException("Parallel ZIP compression failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Shuts down the parallel compression threads, if any were started.
+     */
+    @Override
+    public synchronized void close() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+            parallelGzip = null;
+        }
+    }
+
+    private synchronized ParallelGzipCodec parallelGzip() {
+        if (parallelGzip == null) {
+            parallelGzip = new ParallelGzipCodec(pool, workers(), threads);
+        }
+        return parallelGzip;
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger counter = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "uft-codec-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Detects the compression format of a file from its magic number.
+     * @param file The file to inspect.
+     * @return The detected type.
+     * @throws CompressionException if the file cannot be read or is not in a supported format.
+     */
+    static CompressionType detect(Path file) throws CompressionException {
+        byte[] magic = new byte[DecompressingInput.MAGIC_LENGTH];
+        int length;
+        try (InputStream in = Files.newInputStream(file)) {
+            length = in.readNBytes(magic, 0, magic.length);
+        } catch (IOException e) {
+            throw failure("Failed to read " + file, e);
+        }
+        CompressionType type = detect(magic, length);
+        if (type == CompressionType.NONE) {
+            throw new CompressionException("Unrecognised compression format: " + file);
+        }
+        return type;
+    }
+
+    /**
+     * Detects the compression format from the first bytes of some content.
+     * @param magic The leading bytes.
+     * @param length The number of valid bytes in {@code magic}.
+     * @return The detected type, or {@link CompressionType#NONE} if none matches.
+     */
+    static CompressionType detect(byte[] magic, int length) {
+        if (length >= 2 && (magic[0] & 0xff) == GzipCodec.MAGIC_1 && (magic[1] & 0xff) == GzipCodec.MAGIC_2) {
+            return BgzfCodec.isBgzf(magic, length) ? CompressionType.BGZF : CompressionType.GZIP;
+        }
+        // Local file header, or the end of central directory record of an empty archive
+        if (length >= 4 && magic[0] == 'P' && magic[1] == 'K'
+                && ((magic[2] == 3 && magic[3] == 4) || (magic[2] == 5 && magic[3] == 6))) {
+            return CompressionType.ZIP;
+        }
+        if (length >= 4 && (magic[0] & 0xff) == 0x04 && (magic[1] & 0xff) == 0x22 && (magic[2] & 0xff) == 0x4d && (magic[3] & 0xff) == 0x18) {
+            return CompressionType.LZ4;
+        }
+        if (length >= 4 && (magic[0] & 0xff) == 0x28 && (magic[1] & 0xff) == 0xb5 && (magic[2] & 0xff) == 0x2f && (magic[3] & 0xff) == 0xfd) {
+            return CompressionType.ZSTD;
+        }
+        if (length >= 3 && magic[0] == 'B' && magic[1] == 'Z' && magic[2] == 'h') {
+            return CompressionType.BZIP2;
+        }
+        if (length >= 6 && (magic[0] & 0xff) == 0xfd && magic[1] == '7' && magic[2] == 'z' && magic[3] == 'X' && magic[4] == 'Z' && magic[5] == 0) {
+            return CompressionType.XZ;
+        }
+        return CompressionType.NONE;
+    }
+
+    private long compressStream(Path input, SeekableByteChannel out, CompressionType type, int level) throws IOException {
+        byte[] array = pool.borrowArray();
+        try (InputStream in = Files.newInputStream(input);
+             OutputStream compressor = CompressorStreams.compressor(type,
+                     new BufferedOutputStream(new UnclosableOutputStream(Channels.newOutputStream(out)), CodecPool.BUFFER_SIZE), level)) {
+            int n;
+            while ((n = in.read(array)) >= 0) {
+                compressor.write(array, 0, n);
+            }
+        } finally {
+            pool.release(array);
+        }
+        return out.size();
+    }
+
+    private long decompressStream(Path input, SeekableByteChannel out, CompressionType type) throws IOException {
+        try (InputStream in = CompressorStreams.decompressor(type,
+                new BufferedInputStream(Files.newInputStream(input), CodecPool.BUFFER_SIZE))) {
+            return copy(in, out);
+        }
+    }
+
+    private long zip(Path input, SeekableByteChannel out, int level) throws IOException {
+        ByteBuffer buffer = pool.borrowBuffer();
+        byte[] array = pool.borrowArray();
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             ZipArchiveOutputStream zip = new ZipArchiveOutputStream(out)) {
+            zip.setLevel(level);
+            zip.putArchiveEntry(zip.createArchiveEntry(input, input.getFileName().toString()));
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    int n = Math.min(buffer.remaining(), array.length);
+                    buffer.get(array, 0, n);
+                    zip.write(array, 0, n);
+                }
+                buffer.clear();
+            }
+            zip.closeArchiveEntry();
+            zip.finish();
+            return out.size();
+        } finally {
+            pool.release(array);
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * Extracts a ZIP archive next to itself: a single file entry becomes a sibling file,
+     * anything else a sibling directory named after the archive.
+     */
+    private File unzip(Path input, long[] written) throws IOException {
+        try (ZipFile zipFile = ZipFile.builder().setSeekableByteChannel(Files.newByteChannel(input)).get()) {
+            List<ZipArchiveEntry> entries = new ArrayList<>();
+            zipFile.getEntriesInPhysicalOrder().asIterator().forEachRemaining(entries::add);
+            if (entries.size() == 1 && !entries.get(0).isDirectory()) {
+                ZipArchiveEntry entry = entries.get(0);
+                String name = Path.of(entry.getName()).getFileName().toString();
+                Path target = input.resolveSibling(safeChild(input.getParent(), name, entry).getFileName());
+                written[0] = writeAtomically(target, out -> extract(zipFile, entry, out));
+                return target.toFile();
+            }
+            Path directory = input.resolveSibling(stripExtension(input.getFileName().toString(), CompressionType.ZIP));
+            // Check every name before anything is written
+            List<Path> targets = new ArrayList<>(entries.size());
+            for (ZipArchiveEntry entry : entries) {
+                targets.add(safeChild(directory, entry.getName(), entry));
+            }
+            Files.createDirectories(directory);
+            for (int i = 0; i < entries.size(); i++) {
+                ZipArchiveEntry entry = entries.get(i);
+                Path target = targets.get(i);
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    written[0] += writeAtomically(target, out -> extract(zipFile, entry, out));
+                }
+            }
+            return directory.toFile();
+        }
     }
-}
 
+    /**
+     * Writes one entry's content. Stored and deflated entries are decoded here with pooled codecs
+     * and their CRC-32 is verified; other methods fall back to Commons Compress.
+     */
+    private long extract(ZipFile zipFile, ZipArchiveEntry entry, SeekableByteChannel out) throws IOException {
+        if (entry.getGeneralPurposeBit().usesEncryption()) {
+            throw new ZipException("Encrypted ZIP entries are not supported: " + entry.getName());
+        }
+        int method = entry.getMethod();
+        if (method != ZipArchiveEntry.STORED && method != ZipArchiveEntry.DEFLATED) {
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                return in.transferTo(Channels.newOutputStream(out));
+            }
+        }
+        Inflater inflater = method == ZipArchiveEntry.DEFLATED ? pool.borrowInflater() : null;
+        byte[] array = pool.borrowArray();
+        ByteBuffer output = pool.borrowBuffer();
+        CRC32 crc = new CRC32();
+        long written = 0;
+        try (InputStream raw = zipFile.getRawInputStream(entry)) {
+            int n;
+            while ((n = raw.read(array)) >= 0) {
+                if (inflater == null) {
+                    ByteBuffer chunk = ByteBuffer.wrap(array, 0, n);
+                    crc.update(array, 0, n);
+                    written += GzipCodec.writeFully(out, chunk);
+                    continue;
+                }
+                inflater.setInput(array, 0, n);
+                while (!inflater.needsInput() && !inflater.finished()) {
+                    inflater.inflate(output);
+                    output.flip();
+                    crc.update(output.duplicate());
+                    written += GzipCodec.writeFully(out, output);
+                    output.clear();
+                }
+            }
+            if (inflater != null && !inflater.finished()) {
+                throw new ZipException("Truncated ZIP entry: " + entry.getName());
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt ZIP entry " + entry.getName() + ": " + e.getMessage());
+        } finally {
+            pool.release(output);
+            pool.release(array);
+            if (inflater != null) {
+                pool.release(inflater);
+            }
+        }
+        if (entry.getCrc() >= 0 && crc.getValue() != entry.getCrc()) {
+            throw new ZipException("CRC-32 mismatch in ZIP entry " + entry.getName());
+        }
+        return written;
+    }
+
+    /**
+     * Resolves an entry name below {@code directory}, rejecting names that would escape it.
+     */
+    private static Path safeChild(Path directory, String name, ZipArchiveEntry entry) throws ZipException {
+        Path target = directory.resolve(name).normalize();
+        if (!target.startsWith(directory) || target.equals(directory)) {
+            throw new ZipException("ZIP entry outside of the target directory: " + entry.getName());
+        }
+        return target;
+    }
+
+    /**
+     * Writes {@code target} through a temporary sibling file that replaces it only on success.
+     * @return The number of bytes written, as reported by {@code body}.
+     */
+    static long writeAtomically(Path target, ChannelWriter body) throws IOException {
+        // Not Files.createTempFile, whose owner-only permissions would carry over to the target
+        Path temp = Files.createFile(target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp"));
+        try {
+            long written;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = body.write(out);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String extensionOf(CompressionType type) throws CompressionException {
+        String[] extensions = extensionsOf(type);
+        if (extensions.length == 0) {
+            throw new CompressionException("Unsupported compression type: " + type);
+        }
+        return extensions[0];
+    }
+
+    /**
+     * File name suffixes of a compression type, the preferred one first.
+     */
+    private static String[] extensionsOf(CompressionType type) {
+        return switch (type) {
+            case GZIP -> new String[]{".gz", ".gzip"};
+            case BGZF -> new String[]{".gz", ".bgz", ".gzip"};
+            case ZIP -> new String[]{".zip"};
+            case LZ4 -> new String[]{".lz4"};
+            case ZSTD -> new String[]{".zst", ".zstd"};
+            case BZIP2 -> new String[]{".bz2", ".bzip2"};
+            case XZ -> new String[]{".xz"};
+            case NONE -> new String[0];
+        };
+    }
+
+    private static String stripExtension(String fileName, CompressionType type) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (String extension : extensionsOf(type)) {
+            if (lower.endsWith(extension) && lower.length() > extension.length()) {
+                return fileName.substring(0, fileName.length() - extension.length());
+            }
+        }
+        if ((type == CompressionType.GZIP || type == CompressionType.BGZF) && lower.endsWith(".tgz")) {
+            return fileName.substring(0, fileName.length() - 4) + ".tar";
+        }
+        return fileName + ".out";
+    }
+
+    private static long sizeOf(Path file) throws CompressionException {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw failure("Failed to read " + file, e);
+        }
+    }
+
+    private static PerformanceReport report(long start, long bytesRead, long bytesWritten, CompressionType type, Integer level,
+                                            LevelSampler.Selection selection, int threads) {
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = Math.max(elapsedNanos, 1L) / 1_000_000_000.0;
+        Map<String, Object> stages = new LinkedHashMap<>();
+        stages.put("type", type);
+        if (level != null) {
+            stages.put("level", level);
+        }
+        if (selection != null) {
+            stages.put("levelSelection", selection.describe());
+        }
+        stages.put("threads", threads);
+        stages.put("throughputMBps", bytesRead / MEGABYTE / seconds);
+        stages.put("ratio", bytesRead == 0 ? 0.0 : (double) Math.min(bytesRead, bytesWritten) / Math.max(bytesRead, bytesWritten));
+        return new PerformanceReport(elapsedNanos / 1_000_000L, bytesRead, bytesWritten, 0L, stages);
+    }
+
+    private static CompressionException failure(String message, IOException e) {
+        if (e instanceof ClosedByInterruptException || e instanceof InterruptedIOException) {
+            Thread.currentThread().interrupt();
+            return new CompressionException(message + ": interrupted", e);
+        }
+        return new CompressionException(message + ": " + e.getMessage(), e);
+    }
+
+    @FunctionalInterface
+    interface ChannelWriter {
+        long write(SeekableByteChannel out) throws IOException;
+    }
+
+    /**
+     * Leaves the underlying channel open when a compressor closes its stream, so that the
+     * compressed size can still be read from it.
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
 
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
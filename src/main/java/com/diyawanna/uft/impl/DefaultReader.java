@@ -1,34 +1,96 @@
 package com.diyawanna.uft.impl;
 
+import com.diyawanna.uft.IOProcessingException;
 import com.diyawanna.uft.ToolkitException;
 import com.diyawanna.uft.api.Reader;
 import com.diyawanna.uft.model.ReadOptions;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 /**
  * Placeholder default implementation for the {@link Reader} interface.
- * All methods throw {@link ToolkitException} as actual implementation is pending.
+ * Input is opened through {@link DecompressingInput}, so compressed files and streams
+ * (GZIP, ZIP, LZ4, Zstandard, BZIP2, XZ) are decompressed on the fly; format parsing
+ * itself throws {@link ToolkitException} as actual implementation is pending.
  */
 public class DefaultReader implements Reader<Object> {
 
+    private final DecompressingInput input;
+
+    /**
+     * Creates a reader that decompresses BGZF input on the reading thread.
+     */
+    public DefaultReader() {
+        this(null);
+    }
+
+    /**
+     * Creates a reader that inflates BGZF input ahead of the reader.
+     * @param decompressionExecutor The threads to inflate BGZF blocks on, typically the toolkit's executor; {@code null} for the reading thread.
+     */
+    public DefaultReader(Executor decompressionExecutor) {
+        this.input = new DecompressingInput(decompressionExecutor);
+    }
+
     @Override
     public Object read(File source, ReadOptions options) throws ToolkitException {
-        throw new ToolkitException("DefaultReader.read(File, ReadOptions) not yet implemented.");
+        try (InputStream in = open(source)) {
+            return parse(in, options);
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to read " + source.getAbsolutePath(), e);
+        }
     }
 
     @Override
     public Object read(InputStream source, ReadOptions options) throws ToolkitException {
-        throw new ToolkitException("DefaultReader.read(InputStream, ReadOptions) not yet implemented.");
+        InputStream in;
+        try {
+            in = input.wrap(source);
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to read input stream", e);
+        }
+        return parse(in, options);
     }
 
     @Override
     public Stream<Map<String, Object>> stream(File source, ReadOptions options) throws ToolkitException {
-        throw new ToolkitException("DefaultReader.stream(File, ReadOptions) not yet implemented.");
+        InputStream in = open(source);
+        try {
+            return parseStream(in, options).onClose(() -> {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release.
+                }
+            });
+        } catch (ToolkitException | RuntimeException e) {
+            try {
+                in.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
     }
-}
 
+    private InputStream open(File source) throws IOProcessingException {
+        try {
+            return input.open(source.toPath());
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to open " + source.getAbsolutePath(), e);
+        }
+    }
+
+    private Object parse(InputStream in, ReadOptions options) throws ToolkitException {
+        throw new ToolkitException("DefaultReader.read(InputStream, ReadOptions) not yet implemented.");
+    }
 
+    private Stream<Map<String, Object>> parseStream(InputStream in, ReadOptions options) throws ToolkitException {
+        throw new ToolkitException("DefaultReader.stream(File, ReadOptions) not yet implemented.");
+    }
+}
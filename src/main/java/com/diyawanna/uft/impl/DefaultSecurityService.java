@@ -1,33 +1,573 @@
 package com.diyawanna.uft.impl;
 
+import com.diyawanna.uft.CompressionException;
 import com.diyawanna.uft.SecurityException;
 import com.diyawanna.uft.ToolkitException;
 import com.diyawanna.uft.api.SecurityService;
+import com.diyawanna.uft.model.CompressionType;
 import com.diyawanna.uft.model.EncryptionOptions;
+import com.diyawanna.uft.model.EncryptionType;
 import com.diyawanna.uft.model.HashType;
+import com.diyawanna.uft.model.MerkleTree;
+import com.diyawanna.uft.model.TreeHashOptions;
+import com.diyawanna.uft.util.ProviderSelection;
 
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Placeholder default implementation for the {@link SecurityService} interface.
- * All methods throw {@link ToolkitException} as actual implementation is pending.
+ * Default implementation of the {@link SecurityService} interface.
+ * Files are encrypted with AES-GCM into a segmented container (see {@link SegmentedAesGcm}) next
+ * to the source with an {@code .enc} suffix: constant memory, authenticated segment by segment,
+ * encrypted and decrypted on several threads, and readable from any offset through
+ * {@link #openDecrypted(Path, long, EncryptionOptions)}. {@link EncryptionType#AES} uses the key
+ * in the options; {@link EncryptionType#PBKDF2_PASSWORD} (or AES with only a password) derives a
+ * 256-bit key with PBKDF2-HMAC-SHA256, whose salt and iteration count are stored in the header.
+ * {@link EncryptionType#RSA} is envelope encryption: a random 256-bit data key encrypts the file
+ * and is stored in the header wrapped with RSA-OAEP (SHA-256) under the recipient's public key.
+ * With {@link EncryptionOptions#getCompressWith()} set, the plaintext is compressed on its way
+ * to the cipher in a single pass, and decryption decompresses it as recorded in the header.
+ * Derived keys and RSA data keys can be cached (see {@link DerivedKeyCache}); the cache is cleared
+ * by {@link #close()}. Without a cache, the batch methods cache keys for the batch, so that files
+ * encrypted together share one derivation or one wrapped data key, and files decrypted together
+ * unwrap a shared data key once.
+ * Each algorithm runs on a JCA provider chosen by rank or by benchmark, with per-thread cipher
+ * and MAC instances (see {@link CryptoProviders}). Several hashes of a file are computed in one
+ * read of the memory-mapped file, pipelined with one thread per algorithm (see {@link MultiDigest}).
+ * Merkle tree hashes are computed chunk by chunk on the worker threads (see {@link MerkleTreeHasher}).
+ * The worker threads are created on first use and released by {@link #close()}.
  */
-public class DefaultSecurityService implements SecurityService {
+public class DefaultSecurityService implements SecurityService, AutoCloseable {
+
+    private static final String ENCRYPTED_EXTENSION = ".enc";
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int PBKDF2_SALT_LENGTH = 16;
+    private static final int PBKDF2_KEY_BITS = 256;
+    private static final String RSA_TRANSFORMATION = "RSA/ECB/OAEPPadding";
+    private static final OAEPParameterSpec RSA_OAEP = new OAEPParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256,
+            PSource.PSpecified.DEFAULT);
+    private static final int DATA_KEY_LENGTH = 32;
+    /** Cache kinds of RSA data keys, apart from PBKDF2 iteration counts, which are positive. */
+    private static final int WRAPPED_DATA_KEY = -1;
+    private static final int UNWRAPPED_DATA_KEY = -2;
+    /** Bounds the keys cached for one batch; a batch rarely mixes more data keys than this. */
+    private static final int MAX_BATCH_KEYS = 1024;
+    private static final Duration BATCH_KEY_TTL = Duration.ofDays(1);
+
+    private final SecureRandom random = new SecureRandom();
+    private final int threads;
+    private final DerivedKeyCache keyCache;
+    private final CryptoProviders providers;
+    private ExecutorService workers;
+
+    /**
+     * Creates a service that encrypts and decrypts on all available processors.
+     */
+    public DefaultSecurityService() {
+        this(-1);
+    }
+
+    /**
+     * Creates a service with an explicit number of threads.
+     * @param threads The number of encryption threads, {@code -1} for the number of available processors; {@code 1} disables parallel encryption.
+     */
+    public DefaultSecurityService(int threads) {
+        this(threads, 0, Duration.ZERO);
+    }
+
+    /**
+     * Creates a service with an explicit number of threads and a cache of password-derived keys.
+     * @param threads The number of encryption threads, {@code -1} for the number of available processors.
+     * @param keyCacheSize The maximum number of cached derived keys, {@code 0} to derive keys on every use.
+     * @param keyCacheTtl How long a derived key stays cached.
+     */
+    public DefaultSecurityService(int threads, int keyCacheSize, Duration keyCacheTtl) {
+        this(threads, keyCacheSize, keyCacheTtl, ProviderSelection.RANKED, Map.of());
+    }
+
+    /**
+     * Creates a service with an explicit number of threads, a cache of password-derived keys and a choice of JCA providers.
+     * @param threads The number of encryption threads, {@code -1} for the number of available processors.
+     * @param keyCacheSize The maximum number of cached derived keys, {@code 0} to derive keys on every use.
+     * @param keyCacheTtl How long a derived key stays cached.
+     * @param providerSelection How to choose the provider of each algorithm.
+     * @param providerOverrides Provider names by algorithm, {@code "*"} applying to all, taking precedence over the selection.
+     */
+    public DefaultSecurityService(int threads, int keyCacheSize, Duration keyCacheTtl, ProviderSelection providerSelection,
+                                  Map<String, String> providerOverrides) {
+        this.providers = new CryptoProviders(providerSelection, providerOverrides);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.keyCache = keyCacheSize > 0 && keyCacheTtl.compareTo(Duration.ZERO) > 0 ? new DerivedKeyCache(keyCacheSize, keyCacheTtl) : null;
+    }
 
     @Override
     public File encrypt(File source, EncryptionOptions options) throws SecurityException {
-        throw new SecurityException("DefaultSecurityService.encrypt(File, EncryptionOptions) not yet implemented.");
+        return encrypt(source, options, keyCache);
+    }
+
+    @Override
+    public List<File> encrypt(List<File> sources, EncryptionOptions options) throws SecurityException {
+        DerivedKeyCache cache = keyCache != null ? keyCache : new DerivedKeyCache(1, BATCH_KEY_TTL);
+        try {
+            List<File> encrypted = new ArrayList<>(sources.size());
+            for (File source : sources) {
+                encrypted.add(encrypt(source, options, cache));
+            }
+            return encrypted;
+        } finally {
+            if (cache != keyCache) {
+                cache.clear();
+            }
+        }
+    }
+
+    private File encrypt(File source, EncryptionOptions options, DerivedKeyCache cache) throws SecurityException {
+        Path input = source.toPath().toAbsolutePath();
+        Path target = input.resolveSibling(input.getFileName() + ENCRYPTED_EXTENSION);
+        requireSegmentedAesGcm(options);
+        int segmentSize = options.getSegmentSize();
+        if (segmentSize < SegmentedAesGcm.MIN_SEGMENT_SIZE || segmentSize > SegmentedAesGcm.MAX_SEGMENT_SIZE) {
+            throw new SecurityException("Segment size must be between " + SegmentedAesGcm.MIN_SEGMENT_SIZE + " and "
+                    + SegmentedAesGcm.MAX_SEGMENT_SIZE + " bytes, was " + segmentSize);
+        }
+        CompressionType compression = options.getCompressWith() == null ? CompressionType.NONE : options.getCompressWith();
+        int level = compressionLevel(compression, options.getCompressionLevel());
+        SegmentedAesGcm.Header header;
+        SecretKey key;
+        if (options.getType() == EncryptionType.RSA) {
+            PublicKey recipient = options.getRsaPublicKey().or(() -> options.getRsaKeyPair().map(KeyPair::getPublic))
+                    .orElseThrow(() -> new SecurityException("RSA encryption requires a public key"));
+            byte[] identity = cache == null ? null : recipient.getEncoded();
+            DerivedKeyCache.Derived envelope = identity == null ? newDataKey(recipient)
+                    : cache.forEncryption(identity, WRAPPED_DATA_KEY, () -> newDataKey(recipient));
+            header = SegmentedAesGcm.Header.create(SegmentedAesGcm.KEY_SOURCE_RSA, segmentSize, 0, envelope.salt(), compression,
+                    random);
+            key = aesKey(envelope.material());
+        } else if (usesPassword(options)) {
+            byte[] salt = new byte[PBKDF2_SALT_LENGTH];
+            char[] password = options.getPassword().orElseThrow();
+            int iterations = options.getIterations();
+            byte[] material;
+            if (options.isUseSalt()) {
+                random.nextBytes(salt);
+                if (cache != null) {
+                    DerivedKeyCache.Derived derived = cache.forEncryption(password, iterations, salt,
+                            newSalt -> pbkdf2(password, newSalt, iterations));
+                    salt = derived.salt();
+                    material = derived.material();
+                } else {
+                    material = pbkdf2(password, salt, iterations);
+                }
+            } else {
+                material = derive(password, salt, iterations, cache);
+            }
+            header = SegmentedAesGcm.Header.create(SegmentedAesGcm.KEY_SOURCE_PASSWORD, segmentSize, iterations, salt, compression,
+                    random);
+            key = aesKey(material);
+        } else {
+            header = SegmentedAesGcm.Header.create(SegmentedAesGcm.KEY_SOURCE_KEY, segmentSize, 0, new byte[0], compression, random);
+            key = options.getSecretKey().orElseThrow(() -> new SecurityException("AES encryption requires a secret key or a password"));
+        }
+        try {
+            SecretKey fileKey = SegmentedAesGcm.fileKey(key, header, providers);
+            boolean parallel = threads > 1 && Files.size(input) > segmentSize;
+            DefaultCompressionService.writeAtomically(target, out -> {
+                if (compression == CompressionType.NONE) {
+                    try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                        return SegmentedAesGcm.encrypt(in, out, header, fileKey, providers, parallel ? workers() : null, threads);
+                    }
+                }
+                SegmentedAesGcm.EncryptingOutputStream encrypting = new SegmentedAesGcm.EncryptingOutputStream(out, header, fileKey,
+                        providers, parallel ? workers() : null, threads * 2);
+                // Closing the compressor finishes its stream, then encrypts the last segment
+                try (InputStream in = Files.newInputStream(input);
+                     OutputStream compressing = compressor(compression, new BufferedOutputStream(encrypting, CodecPool.BUFFER_SIZE), level)) {
+                    in.transferTo(compressing);
+                }
+                return encrypting.written();
+            });
+        } catch (GeneralSecurityException e) {
+            throw new SecurityException("Failed to encrypt " + input + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw failure("Failed to encrypt " + input, e);
+        }
+        return target.toFile();
     }
 
     @Override
     public File decrypt(File source, EncryptionOptions options) throws SecurityException {
-        throw new SecurityException("DefaultSecurityService.decrypt(File, EncryptionOptions) not yet implemented.");
+        return decrypt(source, options, keyCache);
+    }
+
+    @Override
+    public List<File> decrypt(List<File> sources, EncryptionOptions options) throws SecurityException {
+        DerivedKeyCache cache = keyCache != null ? keyCache
+                : new DerivedKeyCache(Math.max(1, Math.min(sources.size(), MAX_BATCH_KEYS)), BATCH_KEY_TTL);
+        try {
+            List<File> decrypted = new ArrayList<>(sources.size());
+            for (File source : sources) {
+                decrypted.add(decrypt(source, options, cache));
+            }
+            return decrypted;
+        } finally {
+            if (cache != keyCache) {
+                cache.clear();
+            }
+        }
+    }
+
+    private File decrypt(File source, EncryptionOptions options, DerivedKeyCache cache) throws SecurityException {
+        Path input = source.toPath().toAbsolutePath();
+        Path target = input.resolveSibling(stripExtension(input.getFileName().toString()));
+        try {
+            DefaultCompressionService.writeAtomically(target, out -> {
+                try (InputStream in = openDecryptedStream(input, 0, options, cache)) {
+                    byte[] buffer = new byte[CodecPool.BUFFER_SIZE];
+                    long written = 0;
+                    int n;
+                    while ((n = in.read(buffer)) >= 0) {
+                        written += GzipCodec.writeFully(out, ByteBuffer.wrap(buffer, 0, n));
+                    }
+                    return written;
+                }
+            });
+        } catch (IOException e) {
+            throw failure("Failed to decrypt " + input, e);
+        }
+        return target.toFile();
+    }
+
+    @Override
+    public InputStream openDecrypted(Path file, long offset, EncryptionOptions options) throws SecurityException {
+        Path path = file.toAbsolutePath();
+        try {
+            return openDecryptedStream(path, offset, options, keyCache);
+        } catch (IOException e) {
+            throw failure("Failed to open " + path + " at offset " + offset, e);
+        }
     }
 
     @Override
     public byte[] hash(File source, HashType type) throws ToolkitException {
-        throw new ToolkitException("DefaultSecurityService.hash(File, HashType) not yet implemented.");
+        return hash(source.toPath(), EnumSet.of(type)).get(type);
+    }
+
+    @Override
+    public Map<HashType, byte[]> hash(Path file, Set<HashType> types) throws SecurityException {
+        Path input = file.toAbsolutePath();
+        if (types.isEmpty()) {
+            throw new SecurityException("No hash type given for " + input);
+        }
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            boolean pipelined = types.size() > 1 && threads > 1 && in.size() > MultiDigest.PIPELINE_THRESHOLD;
+            return MultiDigest.digest(in, types, providers, pipelined ? workers() : null);
+        } catch (GeneralSecurityException e) {
+            throw new SecurityException("Failed to hash " + input + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw failure("Failed to hash " + input, e);
+        }
+    }
+
+    @Override
+    public MerkleTree treeHash(Path file, TreeHashOptions options) throws SecurityException {
+        Path input = file.toAbsolutePath();
+        int chunkSize = options.getChunkSize();
+        if (chunkSize < MerkleTreeHasher.MIN_CHUNK_SIZE || chunkSize > MerkleTreeHasher.MAX_CHUNK_SIZE) {
+            throw new SecurityException("Chunk size must be between " + MerkleTreeHasher.MIN_CHUNK_SIZE + " and "
+                    + MerkleTreeHasher.MAX_CHUNK_SIZE + " bytes, was " + chunkSize);
+        }
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            boolean parallel = threads > 1 && in.size() > chunkSize;
+            return MerkleTreeHasher.hash(input, in, options, providers, parallel ? workers() : null, threads);
+        } catch (GeneralSecurityException e) {
+            throw new SecurityException("Failed to hash " + input + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw failure("Failed to hash " + input, e);
+        }
     }
-}
 
+    @Override
+    public List<Integer> verifyTree(Path file, MerkleTree expected, TreeHashOptions options) throws SecurityException {
+        TreeHashOptions layout = TreeHashOptions.builder().hashType(expected.getHashType()).chunkSize(expected.getChunkSize())
+                .sidecar(options.isSidecar()).appendOnly(options.isAppendOnly()).build();
+        return treeHash(file, layout).differingChunks(expected);
+    }
 
+    /**
+     * Opens the container, derives its key and positions the decrypted stream at {@code offset}.
+     * Key and option errors surface as {@link IOException}s wrapping a {@link SecurityException}.
+     */
+    private InputStream openDecryptedStream(Path input, long offset, EncryptionOptions options, DerivedKeyCache cache)
+            throws IOException {
+        FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+        try {
+            SegmentedAesGcm.Header header = SegmentedAesGcm.Header.read(channel);
+            SecretKey key;
+            if (header.keySource() == SegmentedAesGcm.KEY_SOURCE_PASSWORD) {
+                if (options.getPassword().isEmpty()) {
+                    throw new IOException("The file is password-encrypted but no password was given");
+                }
+                key = aesKey(derive(options.getPassword().get(), header.keyData(), header.iterations(), cache));
+            } else if (header.keySource() == SegmentedAesGcm.KEY_SOURCE_RSA) {
+                PrivateKey privateKey = options.getRsaPrivateKey().or(() -> options.getRsaKeyPair().map(KeyPair::getPrivate))
+                        .orElseThrow(() -> new IOException("The file is RSA-encrypted but no private key was given"));
+                key = aesKey(unwrapDataKey(privateKey, header.keyData(), cache));
+            } else {
+                key = options.getSecretKey().orElseThrow(() -> new IOException("The file is key-encrypted but no secret key was given"));
+            }
+            SecretKey fileKey = SegmentedAesGcm.fileKey(key, header, providers);
+            boolean parallel = threads > 1 && channel.size() > header.segmentOffset(1);
+            if (header.compression() == CompressionType.NONE) {
+                return new SegmentedAesGcm.DecryptingInputStream(channel, header, fileKey, providers, offset,
+                        parallel ? workers() : null, threads * 2);
+            }
+            // Offsets are into the decompressed content, so it is decompressed from the start
+            InputStream in = decompressor(header.compression(), new SegmentedAesGcm.DecryptingInputStream(channel, header,
+                    fileKey, providers, 0, parallel ? workers() : null, threads * 2));
+            try {
+                in.skipNBytes(offset);
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+            return in;
+        } catch (GeneralSecurityException | SecurityException | CompressionException e) {
+            channel.close();
+            throw new IOException(e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void requireSegmentedAesGcm(EncryptionOptions options) throws SecurityException {
+        EncryptionType type = options.getType();
+        if (type != EncryptionType.AES && type != EncryptionType.PBKDF2_PASSWORD && type != EncryptionType.RSA) {
+            throw new SecurityException("Unsupported encryption type for file encryption: " + type);
+        }
+        String transformation = options.getCipherTransformation().orElse(SegmentedAesGcm.TRANSFORMATION);
+        if (!transformation.equalsIgnoreCase(SegmentedAesGcm.TRANSFORMATION)) {
+            throw new SecurityException("Unsupported cipher transformation " + transformation + "; files are encrypted with "
+                    + SegmentedAesGcm.TRANSFORMATION);
+        }
+    }
+
+    /**
+     * Checks that {@code compression} can be recorded in the container and resolves its level.
+     */
+    private static int compressionLevel(CompressionType compression, int level) throws SecurityException {
+        if (compression == CompressionType.NONE) {
+            return level;
+        }
+        if (!SegmentedAesGcm.supportsCompression(compression)) {
+            throw new SecurityException("Unsupported compression for encrypted files: " + compression);
+        }
+        try {
+            CompressorStreams.requireAvailable(compression);
+            return CompressorStreams.resolveLevel(compression, level);
+        } catch (CompressionException e) {
+            throw new SecurityException(e.getMessage(), e);
+        }
+    }
+
+    private static OutputStream compressor(CompressionType compression, OutputStream out, int level) throws IOException {
+        return switch (compression) {
+            case GZIP -> new GZIPOutputStream(out, CodecPool.BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+            case BGZF -> new BgzfCodec.BlockOutputStream(out, level, CodecPool.shared());
+            default -> CompressorStreams.compressor(compression, out, level);
+        };
+    }
+
+    private static InputStream decompressor(CompressionType compression, InputStream in) throws IOException, CompressionException {
+        try {
+            return switch (compression) {
+                // BGZF is multi-member GZIP
+                case GZIP, BGZF -> new GZIPInputStream(in, CodecPool.BUFFER_SIZE);
+                default -> {
+                    CompressorStreams.requireAvailable(compression);
+                    yield CompressorStreams.decompressor(compression, new BufferedInputStream(in, CodecPool.BUFFER_SIZE));
+                }
+            };
+        } catch (IOException | CompressionException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static boolean usesPassword(EncryptionOptions options) throws SecurityException {
+        if (options.getType() == EncryptionType.PBKDF2_PASSWORD || options.getSecretKey().isEmpty()) {
+            if (options.getPassword().isEmpty()) {
+                throw new SecurityException(options.getType() + " encryption requires a password");
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Derives key material from a password, through {@code cache} if not {@code null}.
+     */
+    private byte[] derive(char[] password, byte[] salt, int iterations, DerivedKeyCache cache) throws SecurityException {
+        if (cache == null) {
+            return pbkdf2(password, salt, iterations);
+        }
+        return cache.get(password, salt, iterations, cachedSalt -> pbkdf2(password, cachedSalt, iterations));
+    }
+
+    /**
+     * Creates a random data key and wraps it for {@code recipient}.
+     * @return The wrapped key, stored in the header, and the data key.
+     */
+    private DerivedKeyCache.Derived newDataKey(PublicKey recipient) throws SecurityException {
+        byte[] dataKey = new byte[DATA_KEY_LENGTH];
+        random.nextBytes(dataKey);
+        try {
+            Cipher rsa = providers.cipher(RSA_TRANSFORMATION);
+            rsa.init(Cipher.ENCRYPT_MODE, recipient, RSA_OAEP, random);
+            return new DerivedKeyCache.Derived(rsa.doFinal(dataKey), dataKey);
+        } catch (GeneralSecurityException e) {
+            Arrays.fill(dataKey, (byte) 0);
+            throw new SecurityException("Failed to wrap the data key: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Unwraps a data key with {@code privateKey}, through {@code cache} if not {@code null}.
+     * Keys that cannot be encoded, such as keys held in a hardware token, are not cached.
+     */
+    private byte[] unwrapDataKey(PrivateKey privateKey, byte[] wrapped, DerivedKeyCache cache) throws SecurityException {
+        byte[] identity = cache == null ? null : privateKey.getEncoded();
+        if (identity == null) {
+            return unwrap(privateKey, wrapped);
+        }
+        try {
+            return cache.get(identity, wrapped, UNWRAPPED_DATA_KEY, cachedWrapped -> unwrap(privateKey, cachedWrapped));
+        } finally {
+            Arrays.fill(identity, (byte) 0);
+        }
+    }
+
+    private byte[] unwrap(PrivateKey privateKey, byte[] wrapped) throws SecurityException {
+        try {
+            Cipher rsa = providers.cipher(RSA_TRANSFORMATION);
+            rsa.init(Cipher.DECRYPT_MODE, privateKey, RSA_OAEP);
+            byte[] dataKey = rsa.doFinal(wrapped);
+            if (dataKey.length != DATA_KEY_LENGTH) {
+                Arrays.fill(dataKey, (byte) 0);
+                throw new SecurityException("Unwrapped data key has " + dataKey.length + " bytes, expected " + DATA_KEY_LENGTH);
+            }
+            return dataKey;
+        } catch (GeneralSecurityException e) {
+            throw new SecurityException("Failed to unwrap the data key, wrong private key or corrupt file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Derives 256-bit key material from a password with PBKDF2-HMAC-SHA256.
+     */
+    private byte[] pbkdf2(char[] password, byte[] salt, int iterations) throws SecurityException {
+        if (iterations <= 0) {
+            throw new SecurityException("PBKDF2 iterations must be positive, was " + iterations);
+        }
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, PBKDF2_KEY_BITS);
+        try {
+            return providers.secretKeyFactory(PBKDF2_ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new SecurityException("Failed to derive a key from the password: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Wraps key material as an AES key and zeroes the material.
+     */
+    private static SecretKey aesKey(byte[] material) {
+        try {
+            return new SecretKeySpec(material, "AES");
+        } finally {
+            Arrays.fill(material, (byte) 0);
+        }
+    }
+
+    private static String stripExtension(String fileName) {
+        if (fileName.toLowerCase(Locale.ROOT).endsWith(ENCRYPTED_EXTENSION) && fileName.length() > ENCRYPTED_EXTENSION.length()) {
+            return fileName.substring(0, fileName.length() - ENCRYPTED_EXTENSION.length());
+        }
+        return fileName + ".out";
+    }
+
+    /**
+     * Shuts down the encryption threads, if any were started, and zeroes the cached derived keys.
+     */
+    @Override
+    public synchronized void close() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+        if (keyCache != null) {
+            keyCache.clear();
+        }
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger counter = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "uft-crypto-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    private static SecurityException failure(String message, IOException e) {
+        if (e instanceof ClosedByInterruptException || e instanceof InterruptedIOException) {
+            Thread.currentThread().interrupt();
+            return new SecurityException(message + ": interrupted", e);
+        }
+        return new SecurityException(message + ": " + e.getMessage(), e);
+    }
+}
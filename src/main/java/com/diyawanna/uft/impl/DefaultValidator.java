@@ -1,23 +1,178 @@
 package com.diyawanna.uft.impl;
 
+import com.diyawanna.uft.IOProcessingException;
 import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.ValidationException;
 import com.diyawanna.uft.api.Validator;
+import com.diyawanna.uft.model.CompressionType;
 import com.diyawanna.uft.model.FileFormat;
 import com.diyawanna.uft.model.ValidationResult;
 import com.diyawanna.uft.model.ValidationOptions;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import javax.xml.validation.Schema;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Placeholder default implementation for the {@link Validator} interface.
- * All methods throw {@link ToolkitException} as actual implementation is pending.
+ * Default implementation of the {@link Validator} interface.
+ * JSON files are validated against the JSON Schema in the options, if any, and otherwise only
+ * checked to be well-formed; top-level arrays of records are streamed element by element (see
+ * {@link JsonValidation}). XML files are validated against an XML Schema the same way (see
+ * {@link XmlValidation}). CSV files are checked against the required columns and, with a JSON
+ * Schema of the rows, the column types; large uncompressed ones are scanned in parallel byte
+ * ranges (see {@link CsvValidation}). {@linkplain ValidationOptions#isStructuralOnly() Structural}
+ * validation ignores the schema, leaving the well-formedness checks, which for CSV do not read
+ * the values. Compiled schemas are cached by file, and compiled again when
+ * the file changes (see {@link FileIdentityCache}). Input is opened through {@link DecompressingInput},
+ * so compressed files are validated without being decompressed to disk. Other formats are not
+ * supported yet. The worker threads are created on first use and released by {@link #close()}.
  */
-public class DefaultValidator implements Validator {
+public class DefaultValidator implements Validator, AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int SCHEMA_CACHE_SIZE = 32;
+
+    private final DecompressingInput input;
+    private final FileIdentityCache<JsonValidation.CompiledSchema> jsonSchemas = new FileIdentityCache<>(SCHEMA_CACHE_SIZE);
+    private final FileIdentityCache<Schema> xmlSchemas = new FileIdentityCache<>(SCHEMA_CACHE_SIZE);
+    private final FileIdentityCache<CsvValidation.Columns> csvSchemas = new FileIdentityCache<>(SCHEMA_CACHE_SIZE);
+    private final int threads;
+    private ExecutorService workers;
+
+    /**
+     * Creates a validator that uses all available processors for large files.
+     */
+    public DefaultValidator() {
+        this(-1);
+    }
+
+    /**
+     * Creates a validator with an explicit number of threads.
+     * @param threads The number of threads that validate a large CSV file, {@code -1} for the number of available processors; {@code 1} disables parallel validation.
+     */
+    public DefaultValidator(int threads) {
+        this(threads, null);
+    }
+
+    /**
+     * Creates a validator with an explicit number of threads that inflates BGZF input ahead of the reader.
+     * @param threads The number of threads that validate a large CSV file, {@code -1} for the number of available processors; {@code 1} disables parallel validation.
+     * @param decompressionExecutor The threads to inflate BGZF blocks on, typically the toolkit's executor; {@code null} for the reading thread.
+     */
+    public DefaultValidator(int threads, Executor decompressionExecutor) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.input = new DecompressingInput(decompressionExecutor);
+    }
+
+    /**
+     * Validates the content of a file once it is open.
+     */
+    @FunctionalInterface
+    private interface ContentValidation {
+        ValidationResult validate(InputStream in) throws IOException;
+    }
 
     @Override
-    public ValidationResult validate(File input, FileFormat format, ValidationOptions options) throws ToolkitException {
-        throw new ToolkitException("DefaultValidator.validate(File, FileFormat, ValidationOptions) not yet implemented.");
+    public ValidationResult validate(File source, FileFormat format, ValidationOptions options) throws ToolkitException {
+        Path schemaFile = options.isStructuralOnly() ? null
+                : options.getSchemaFile().map(file -> file.toPath().toAbsolutePath().normalize()).orElse(null);
+        return switch (format) {
+            case JSON -> {
+                JsonValidation.CompiledSchema schema = schemaFile == null ? null : compiled(jsonSchemas, schemaFile, DefaultValidator::jsonSchema);
+                yield validate(source, in -> JsonValidation.validate(in, schema, options.isFailFast()));
+            }
+            case XML -> {
+                Schema schema = schemaFile == null ? null : compiled(xmlSchemas, schemaFile, XmlValidation::compile);
+                yield validate(source, in -> XmlValidation.validate(in, schema, options.isFailFast()));
+            }
+            case CSV -> {
+                CsvValidation.Columns columns = schemaFile == null ? null : compiled(csvSchemas, schemaFile,
+                        file -> CsvValidation.compile(readSchema(file)));
+                yield validateCsv(source, columns, options);
+            }
+            default -> throw new ValidationException("Validation of " + format + " files is not supported yet");
+        };
     }
-}
 
+    private ValidationResult validate(File source, ContentValidation validation) throws ToolkitException {
+        try (InputStream in = input.open(source.toPath())) {
+            return validation.validate(in);
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to validate " + source.getAbsolutePath(), e);
+        }
+    }
 
+    private ValidationResult validateCsv(File source, CsvValidation.Columns columns, ValidationOptions options) throws ToolkitException {
+        Path path = source.toPath();
+        try {
+            if (threads > 1 && Files.size(path) >= 2 * CsvValidation.MIN_SHARD_SIZE && DecompressingInput.detect(path) == CompressionType.NONE) {
+                return CsvValidation.validate(path, columns, options, workers(), threads, CsvValidation.MIN_SHARD_SIZE);
+            }
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to validate " + source.getAbsolutePath(), e);
+        }
+        return validate(source, in -> CsvValidation.validate(in, columns, options));
+    }
+
+    /**
+     * Returns the compiled schema of a file from {@code cache}, compiling it on a miss or if the file has changed.
+     */
+    private static <T> T compiled(FileIdentityCache<T> cache, Path schemaFile, FileIdentityCache.Loader<T, ToolkitException> compiler)
+            throws ToolkitException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(schemaFile, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to read schema " + schemaFile, e);
+        }
+        return cache.get(schemaFile, attributes, compiler);
+    }
+
+    private static JsonValidation.CompiledSchema jsonSchema(Path schemaFile) throws ToolkitException {
+        return JsonValidation.compile(readSchema(schemaFile));
+    }
+
+    private static JsonNode readSchema(Path schemaFile) throws ToolkitException {
+        try {
+            return MAPPER.readTree(schemaFile.toFile());
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Malformed JSON schema " + schemaFile + ": " + e.getOriginalMessage(), e);
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to read JSON schema " + schemaFile, e);
+        }
+    }
+
+    /**
+     * Shuts down the validation threads, if any were started.
+     */
+    @Override
+    public synchronized void close() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            AtomicInteger counter = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "uft-validate-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+}
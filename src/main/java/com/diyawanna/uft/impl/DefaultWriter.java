@@ -1,15 +1,21 @@
 package com.diyawanna.uft.impl;
 
+import com.diyawanna.uft.FormatException;
 import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.api.RecordSink;
 import com.diyawanna.uft.api.Writer;
+import com.diyawanna.uft.model.CompressionType;
+import com.diyawanna.uft.model.FileFormat;
 import com.diyawanna.uft.model.WriteOptions;
 
 import java.io.File;
 import java.io.OutputStream;
+import java.nio.file.Path;
 
 /**
  * Placeholder default implementation for the {@link Writer} interface.
- * All methods throw {@link ToolkitException} as actual implementation is pending.
+ * Whole-object writes throw {@link ToolkitException} as actual implementation is pending;
+ * incremental writes via {@link #openSink(Path, FileFormat, WriteOptions)} support CSV, JSON, XML and COLUMNAR.
  */
 public class DefaultWriter implements Writer {
 
@@ -22,6 +28,20 @@ public class DefaultWriter implements Writer {
     public void write(Object data, OutputStream out, WriteOptions options) throws ToolkitException {
         throw new ToolkitException("DefaultWriter.write(Object, OutputStream, WriteOptions) not yet implemented.");
     }
-}
-
 
+    @Override
+    public RecordSink openSink(Path target, FileFormat format, WriteOptions options) throws ToolkitException {
+        return switch (format) {
+            case CSV -> new CsvRecordSink(target, options);
+            case JSON -> new JsonRecordSink(target, options);
+            case XML -> new XmlRecordSink(target, options);
+            case COLUMNAR -> {
+                if (options.getCompressWith() != CompressionType.NONE) {
+                    throw new FormatException("Columnar files are already compact and cannot be wrapped in " + options.getCompressWith());
+                }
+                yield new ColumnarRecordSink(target, options);
+            }
+            default -> throw new FormatException("Incremental writing is not supported for format " + format);
+        };
+    }
+}
@@ -0,0 +1,257 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.SecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of password-derived key material, so that encrypting many
+ * files with the same password runs PBKDF2 once per salt. Entries are keyed by a digest of the
+ * password, the salt and the iteration count, and expire after a time to live. For encryption,
+ * {@link #forEncryption} reuses the salt of a cached key for the same password, so that a batch
+ * of files shares one derivation; this is safe for containers that derive a further per-file
+ * key from a random salt of their own (see {@link SegmentedAesGcm}). Passwords are
+ * never stored: the digest is an HMAC under a random key that lives only in this instance. Key
+ * material is zeroed when an entry is evicted or expires and when the cache is cleared.
+ * <p>
+ * RSA envelope keys are cached the same way, with the encoded RSA key in place of the password
+ * and the wrapped data key in place of the salt: encrypting for a recipient reuses a wrapped data
+ * key, and decrypting reuses an unwrapped one, instead of an RSA operation per file.
+ */
+final class DerivedKeyCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final long ttlNanos;
+    private final Map<CacheKey, Cached> cache;
+    private final Mac passwordDigest;
+
+    /**
+     * @param capacity The maximum number of cached keys.
+     * @param ttl How long a derived key stays cached after it was derived.
+     */
+    DerivedKeyCache(int capacity, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Cached> eldest) {
+                if (size() > capacity) {
+                    eldest.getValue().destroy();
+                    return true;
+                }
+                return false;
+            }
+        };
+        try {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            this.passwordDigest = Mac.getInstance(HMAC_ALGORITHM);
+            passwordDigest.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            Arrays.fill(secret, (byte) 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Source of key material on a cache miss.
+     */
+    @FunctionalInterface
+    interface Derivation {
+        byte[] derive(byte[] salt) throws SecurityException;
+    }
+
+    /**
+     * Source of new key material and its salt on a cache miss when encrypting.
+     */
+    @FunctionalInterface
+    interface Creation {
+        Derived create() throws SecurityException;
+    }
+
+    /**
+     * Key material and the salt it was derived with.
+     * @param salt The salt.
+     * @param material A copy of the key material, which the caller should zero after use.
+     */
+    record Derived(byte[] salt, byte[] material) {
+    }
+
+    /**
+     * Returns the key material for a password, salt and iteration count, deriving it on a miss.
+     * @return A copy of the key material, which the caller should zero after use.
+     * @throws SecurityException if the derivation fails.
+     */
+    byte[] get(char[] password, byte[] salt, int iterations, Derivation derivation) throws SecurityException {
+        return get(new CacheKey(digest(password), salt.clone(), iterations), derivation);
+    }
+
+    /**
+     * Returns the key material for a key other than a password, such as an RSA private key,
+     * deriving it on a miss.
+     * @param identity The encoded key the material is derived with.
+     * @param salt The salt or other public input of the derivation.
+     * @param kind Distinguishes derivations over the same secret, as the iteration count does for passwords.
+     * @return A copy of the key material, which the caller should zero after use.
+     * @throws SecurityException if the derivation fails.
+     */
+    byte[] get(byte[] identity, byte[] salt, int kind, Derivation derivation) throws SecurityException {
+        return get(new CacheKey(digest(identity), salt.clone(), kind), derivation);
+    }
+
+    private byte[] get(CacheKey key, Derivation derivation) throws SecurityException {
+        synchronized (cache) {
+            Cached cached = cache.get(key);
+            if (cached != null) {
+                if (System.nanoTime() - cached.created < ttlNanos) {
+                    return cached.material.clone();
+                }
+                cache.remove(key).destroy();
+            }
+        }
+        return put(key, derivation.derive(key.salt()));
+    }
+
+    /**
+     * Returns key material for encrypting with a password: that of the most recently derived
+     * cached key for the password and iteration count, else material derived with {@code newSalt}.
+     * @throws SecurityException if the derivation fails.
+     */
+    Derived forEncryption(char[] password, int iterations, byte[] newSalt, Derivation derivation) throws SecurityException {
+        byte[] passwordDigest = digest(password);
+        Derived latest = latest(passwordDigest, iterations);
+        if (latest != null) {
+            return latest;
+        }
+        CacheKey key = new CacheKey(passwordDigest, newSalt.clone(), iterations);
+        return new Derived(newSalt, put(key, derivation.derive(key.salt())));
+    }
+
+    /**
+     * Returns key material for encrypting with a key other than a password, such as an RSA
+     * public key: that of the most recently created cached entry for the key and kind, else
+     * new material from {@code creation}.
+     * @throws SecurityException if the creation fails.
+     */
+    Derived forEncryption(byte[] identity, int kind, Creation creation) throws SecurityException {
+        byte[] identityDigest = digest(identity);
+        Derived latest = latest(identityDigest, kind);
+        if (latest != null) {
+            return latest;
+        }
+        Derived created = creation.create();
+        put(new CacheKey(identityDigest, created.salt().clone(), kind), created.material());
+        return created;
+    }
+
+    private Derived latest(byte[] passwordDigest, int iterations) {
+        synchronized (cache) {
+            removeExpired();
+            Map.Entry<CacheKey, Cached> latest = null;
+            for (Map.Entry<CacheKey, Cached> entry : cache.entrySet()) {
+                CacheKey key = entry.getKey();
+                if (key.iterations() == iterations && Arrays.equals(key.passwordDigest(), passwordDigest)
+                        && (latest == null || entry.getValue().created - latest.getValue().created > 0)) {
+                    latest = entry;
+                }
+            }
+            if (latest != null) {
+                // Through get, to refresh the entry's recency
+                return new Derived(latest.getKey().salt().clone(), cache.get(latest.getKey()).material.clone());
+            }
+            return null;
+        }
+    }
+
+    private byte[] put(CacheKey key, byte[] material) {
+        synchronized (cache) {
+            removeExpired();
+            Cached previous = cache.put(key, new Cached(material.clone(), System.nanoTime()));
+            if (previous != null) {
+                previous.destroy();
+            }
+        }
+        return material;
+    }
+
+    /**
+     * Zeroes and removes every cached key.
+     */
+    void clear() {
+        synchronized (cache) {
+            cache.values().forEach(Cached::destroy);
+            cache.clear();
+        }
+    }
+
+    private void removeExpired() {
+        long now = System.nanoTime();
+        for (Iterator<Cached> i = cache.values().iterator(); i.hasNext(); ) {
+            Cached cached = i.next();
+            if (now - cached.created >= ttlNanos) {
+                cached.destroy();
+                i.remove();
+            }
+        }
+    }
+
+    private byte[] digest(char[] password) {
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        try {
+            return digest(bytes);
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+            if (encoded.hasArray()) {
+                Arrays.fill(encoded.array(), (byte) 0);
+            }
+        }
+    }
+
+    private byte[] digest(byte[] identity) {
+        synchronized (passwordDigest) {
+            return passwordDigest.doFinal(identity);
+        }
+    }
+
+    private record CacheKey(byte[] passwordDigest, byte[] salt, int iterations) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CacheKey key && iterations == key.iterations
+                    && Arrays.equals(passwordDigest, key.passwordDigest) && Arrays.equals(salt, key.salt);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Arrays.hashCode(passwordDigest) + Arrays.hashCode(salt)) + iterations;
+        }
+    }
+
+    private static final class Cached {
+
+        private final byte[] material;
+        private final long created;
+
+        Cached(byte[] material, long created) {
+            this.material = material;
+            this.created = created;
+        }
+
+        void destroy() {
+            Arrays.fill(material, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.diyawanna.uft.impl;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of values derived from files, such as compiled schemas or
+ * parsed ZIP central directories. An entry is reused only while the file's size and modification
+ * time are unchanged, so a rewritten file is loaded again on its next use. Callers pass the
+ * attributes they already read, so a lookup costs no extra file access; on a miss, the value is
+ * loaded outside the lock, so a slow load does not hold up lookups of other files. No file
+ * handles are held between lookups.
+ * @param <T> The type of cached value.
+ */
+final class FileIdentityCache<T> {
+
+    /**
+     * Loads the value of a file on a cache miss.
+     * @param <T> The type of cached value.
+     * @param <E> The exception thrown when the file cannot be loaded.
+     */
+    @FunctionalInterface
+    interface Loader<T, E extends Exception> {
+        T load(Path file) throws E;
+    }
+
+    private final Map<Path, Cached<T>> cache;
+
+    FileIdentityCache(int capacity) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Cached<T>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the value of a file, loading it on a miss or if the file has changed.
+     * @param file The absolute, normalized file path.
+     * @param attributes The file's current attributes.
+     * @param loader Loads the value.
+     * @return The cached or loaded value.
+     * @throws E if the value cannot be loaded.
+     */
+    <E extends Exception> T get(Path file, BasicFileAttributes attributes, Loader<T, E> loader) throws E {
+        synchronized (cache) {
+            Cached<T> cached = cache.get(file);
+            if (cached != null && cached.size == attributes.size() && cached.modified.equals(attributes.lastModifiedTime())) {
+                return cached.value;
+            }
+        }
+        T value = loader.load(file);
+        synchronized (cache) {
+            cache.put(file, new Cached<>(attributes.size(), attributes.lastModifiedTime(), value));
+        }
+        return value;
+    }
+
+    private record Cached<T>(long size, FileTime modified, T value) {
+    }
+}
@@ -0,0 +1,249 @@
+package com.diyawanna.uft.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Channel-to-channel GZIP (RFC 1952) codec built on pooled raw deflate codecs and direct buffers.
+ * Data flows through two fixed buffers, so memory use does not depend on the file size.
+ * Decompression accepts concatenated members, as produced by {@code cat a.gz b.gz} or parallel
+ * compressors, and verifies the CRC-32 and size trailer of each member.
+ */
+final class GzipCodec {
+
+    static final int MAGIC_1 = 0x1f;
+    static final int MAGIC_2 = 0x8b;
+
+    private static final int METHOD_DEFLATE = 8;
+    private static final int FLAG_HCRC = 0x02;
+    private static final int FLAG_EXTRA = 0x04;
+    private static final int FLAG_NAME = 0x08;
+    private static final int FLAG_COMMENT = 0x10;
+    private static final byte OS_UNKNOWN = (byte) 0xff;
+
+    private final CodecPool pool;
+
+    GzipCodec(CodecPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Compresses everything readable from {@code in} into a single GZIP member on {@code out}.
+     * @param in The uncompressed input.
+     * @param out The compressed output.
+     * @param level The deflate level.
+     * @return The number of bytes written to {@code out}.
+     * @throws IOException if reading or writing fails.
+     */
+    long compress(ReadableByteChannel in, WritableByteChannel out, int level) throws IOException {
+        Deflater deflater = pool.borrowDeflater(level);
+        ByteBuffer input = pool.borrowBuffer();
+        ByteBuffer output = pool.borrowBuffer();
+        try {
+            CRC32 crc = new CRC32();
+            long size = 0;
+            long written = writeFully(out, header(level));
+            while (in.read(input) >= 0) {
+                input.flip();
+                size += input.remaining();
+                crc.update(input.duplicate());
+                deflater.setInput(input);
+                while (!deflater.needsInput()) {
+                    written += drain(deflater, output, out, Deflater.NO_FLUSH);
+                }
+                input.clear();
+            }
+            // The deflater reads the buffer's live position and limit, so leave nothing readable.
+            input.limit(0);
+            deflater.finish();
+            while (!deflater.finished()) {
+                written += drain(deflater, output, out, Deflater.NO_FLUSH);
+            }
+            return written + writeFully(out, trailer(crc.getValue(), size));
+        } finally {
+            pool.release(output);
+            pool.release(input);
+            pool.release(deflater, level);
+        }
+    }
+
+    /**
+     * Decompresses all GZIP members readable from {@code in} onto {@code out}.
+     * @param in The compressed input, positioned at the first member header.
+     * @param out The decompressed output.
+     * @return The number of bytes written to {@code out}.
+     * @throws IOException if the input is not valid GZIP, is truncated or fails its checksum.
+     */
+    long decompress(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        Inflater inflater = pool.borrowInflater();
+        ByteBuffer input = pool.borrowBuffer().flip();
+        ByteBuffer output = pool.borrowBuffer();
+        try {
+            CRC32 crc = new CRC32();
+            long written = 0;
+            boolean first = true;
+            while (readHeader(in, input, first)) {
+                first = false;
+                inflater.reset();
+                crc.reset();
+                long size = 0;
+                while (!inflater.finished()) {
+                    if (inflater.needsInput()) {
+                        if (!fill(in, input, 1)) {
+                            throw new EOFException("Truncated GZIP data");
+                        }
+                        inflater.setInput(input);
+                    }
+                    int n = inflater.inflate(output);
+                    if (n > 0) {
+                        output.flip();
+                        crc.update(output.duplicate());
+                        size += n;
+                        written += writeFully(out, output);
+                        output.clear();
+                    } else if (inflater.needsDictionary()) {
+                        throw new ZipException("GZIP member requires a preset dictionary");
+                    }
+                }
+                if (!fill(in, input, 8)) {
+                    throw new EOFException("Truncated GZIP trailer");
+                }
+                ByteBuffer trailer = input.slice(input.position(), 8).order(ByteOrder.LITTLE_ENDIAN);
+                input.position(input.position() + 8);
+                if ((trailer.getInt(0) & 0xffffffffL) != crc.getValue()) {
+                    throw new ZipException("GZIP CRC-32 mismatch");
+                }
+                if (trailer.getInt(4) != (int) size) {
+                    throw new ZipException("GZIP size mismatch");
+                }
+            }
+            return written;
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt GZIP data: " + e.getMessage());
+        } finally {
+            pool.release(output);
+            pool.release(input);
+            pool.release(inflater);
+        }
+    }
+
+    /**
+     * Builds the fixed 10-byte member header.
+     */
+    static ByteBuffer header(int level) {
+        byte extraFlags = (byte) (level == Deflater.BEST_COMPRESSION ? 2 : level == Deflater.BEST_SPEED ? 4 : 0);
+        return ByteBuffer.wrap(new byte[]{(byte) MAGIC_1, (byte) MAGIC_2, METHOD_DEFLATE, 0, 0, 0, 0, 0, extraFlags, OS_UNKNOWN});
+    }
+
+    /**
+     * Builds the 8-byte member trailer (CRC-32 and size modulo 2^32, little-endian).
+     */
+    static ByteBuffer trailer(long crc, long size) {
+        return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt((int) crc).putInt((int) size).flip();
+    }
+
+    /**
+     * Reads and skips a member header.
+     * @return {@code false} if the input ends (or holds no further member) after at least one member.
+     */
+    private static boolean readHeader(ReadableByteChannel in, ByteBuffer input, boolean first) throws IOException {
+        if (!fill(in, input, 2) || input.get(input.position()) != (byte) MAGIC_1 || input.get(input.position() + 1) != (byte) MAGIC_2) {
+            if (first) {
+                throw new ZipException("Not in GZIP format");
+            }
+            // Like gzip, ignore trailing data that is not another member.
+            return false;
+        }
+        if (!fill(in, input, 10)) {
+            throw new EOFException("Truncated GZIP header");
+        }
+        input.position(input.position() + 2);
+        if (input.get() != METHOD_DEFLATE) {
+            throw new ZipException("Unsupported GZIP compression method");
+        }
+        int flags = input.get() & 0xff;
+        input.position(input.position() + 6);
+        if ((flags & FLAG_EXTRA) != 0) {
+            if (!fill(in, input, 2)) {
+                throw new EOFException("Truncated GZIP header");
+            }
+            int length = (input.get() & 0xff) | (input.get() & 0xff) << 8;
+            skip(in, input, length);
+        }
+        if ((flags & FLAG_NAME) != 0) {
+            skipZeroTerminated(in, input);
+        }
+        if ((flags & FLAG_COMMENT) != 0) {
+            skipZeroTerminated(in, input);
+        }
+        if ((flags & FLAG_HCRC) != 0) {
+            skip(in, input, 2);
+        }
+        return true;
+    }
+
+    private static void skip(ReadableByteChannel in, ByteBuffer input, int count) throws IOException {
+        while (count > 0) {
+            if (!fill(in, input, 1)) {
+                throw new EOFException("Truncated GZIP header");
+            }
+            int step = Math.min(count, input.remaining());
+            input.position(input.position() + step);
+            count -= step;
+        }
+    }
+
+    private static void skipZeroTerminated(ReadableByteChannel in, ByteBuffer input) throws IOException {
+        do {
+            if (!fill(in, input, 1)) {
+                throw new EOFException("Truncated GZIP header");
+            }
+        } while (input.get() != 0);
+    }
+
+    /**
+     * Ensures at least {@code count} bytes are readable in {@code input} (which is in read mode).
+     * @return {@code false} if the channel ends first.
+     */
+    static boolean fill(ReadableByteChannel in, ByteBuffer input, int count) throws IOException {
+        if (input.remaining() >= count) {
+            return true;
+        }
+        input.compact();
+        try {
+            while (input.position() < count) {
+                if (in.read(input) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            input.flip();
+        }
+    }
+
+    private static long drain(Deflater deflater, ByteBuffer output, WritableByteChannel out, int flush) throws IOException {
+        deflater.deflate(output, flush);
+        output.flip();
+        long written = writeFully(out, output);
+        output.clear();
+        return written;
+    }
+
+    static long writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,60 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.FormatException;
+import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.model.WriteOptions;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Map;
+
+/**
+ * {@link com.diyawanna.uft.api.RecordSink} producing a JSON array of objects,
+ * one element per record.
+ */
+final class JsonRecordSink extends AbstractRecordSink {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+
+    private final JsonGenerator generator;
+
+    JsonRecordSink(Path target, WriteOptions options) throws ToolkitException {
+        super(target, options);
+        try {
+            ObjectMapper mapper = options.getDateFormat() == null
+                    ? MAPPER
+                    : MAPPER.copy().setDateFormat(new SimpleDateFormat(options.getDateFormat()));
+            this.generator = mapper.getFactory().createGenerator(new OutputStreamWriter(out, options.getCharset()));
+            if (options.isPrettyPrintJson()) {
+                generator.useDefaultPrettyPrinter();
+            }
+            generator.writeStartArray();
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw new FormatException("Failed to initialise JSON output for " + target, e);
+        }
+    }
+
+    @Override
+    protected void writeRecord(Map<String, Object> record) throws IOException {
+        generator.writeObject(record);
+    }
+
+    @Override
+    protected void flushFormat() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        generator.writeEndArray();
+        generator.flush();
+    }
+}
@@ -0,0 +1,169 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.ValidationException;
+import com.diyawanna.uft.model.ValidationResult;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaException;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.SpecVersionDetector;
+import com.networknt.schema.ValidationMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Validation of JSON documents, against a JSON Schema if one is given.
+ * <p>
+ * A schema that only describes a top-level array of items ({@code "type": "array"} with a single
+ * {@code items} schema, and at most {@code minItems}/{@code maxItems} among the array keywords)
+ * is checked element by element while Jackson's parser streams through the array: each element
+ * is read into a tree, validated and dropped, so memory stays flat however large the file is.
+ * An element is validated as a one-element array against the schema without its count keywords,
+ * so that {@code $ref}s into the schema's definitions resolve as they would for the whole
+ * document; the counts are checked at the end. Any other schema is applied to the document read
+ * whole. Without a schema, the document is only checked to be well-formed, token by token.
+ * <p>
+ * Malformed JSON is reported as a validation error at the element it occurs in, with its line and
+ * column. At most {@value ValidationErrors#MAX_ERRORS} errors are reported.
+ */
+final class JsonValidation {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Top-level keywords of a schema that can be checked element by element. */
+    private static final Set<String> STREAMABLE_KEYWORDS = Set.of("$schema", "$id", "id", "$comment", "title", "description",
+            "default", "examples", "definitions", "$defs", "type", "items", "minItems", "maxItems");
+
+    private JsonValidation() {
+    }
+
+    /**
+     * A compiled JSON Schema.
+     * @param document The schema of the whole document.
+     * @param elements The schema of a one-element array, for streaming validation of a top-level
+     *                 array, or {@code null} if the schema cannot be checked element by element.
+     * @param minItems The minimum number of items of a streamed array.
+     * @param maxItems The maximum number of items of a streamed array.
+     */
+    record CompiledSchema(JsonSchema document, JsonSchema elements, long minItems, long maxItems) {
+    }
+
+    /**
+     * Compiles a JSON Schema, of the draft named by its {@code $schema}, draft 7 if it has none.
+     * @throws ValidationException if the schema is invalid or of an unsupported draft.
+     */
+    static CompiledSchema compile(JsonNode schema) throws ValidationException {
+        try {
+            SpecVersion.VersionFlag version = schema.has("$schema") ? SpecVersionDetector.detect(schema) : SpecVersion.VersionFlag.V7;
+            JsonSchemaFactory factory = JsonSchemaFactory.getInstance(version);
+            JsonSchema document = factory.getSchema(schema);
+            if (!isStreamable(schema)) {
+                return new CompiledSchema(document, null, 0, Long.MAX_VALUE);
+            }
+            ObjectNode elements = ((ObjectNode) schema).deepCopy();
+            elements.remove("minItems");
+            elements.remove("maxItems");
+            return new CompiledSchema(document, factory.getSchema(elements), schema.path("minItems").asLong(0),
+                    schema.has("maxItems") ? schema.get("maxItems").asLong() : Long.MAX_VALUE);
+        } catch (JsonSchemaException | IllegalArgumentException e) {
+            throw new ValidationException("Invalid JSON schema: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isStreamable(JsonNode schema) {
+        if (!schema.isObject() || !"array".equals(schema.path("type").asText()) || !schema.path("items").isObject()) {
+            return false;
+        }
+        for (Iterator<String> names = schema.fieldNames(); names.hasNext(); ) {
+            if (!STREAMABLE_KEYWORDS.contains(names.next())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates a JSON document.
+     * @param in The document.
+     * @param schema The compiled schema, or {@code null} to only check that the document is well-formed.
+     * @param failFast Whether to stop at the first error.
+     * @throws IOException if reading fails.
+     */
+    static ValidationResult validate(InputStream in, CompiledSchema schema, boolean failFast) throws IOException {
+        ValidationErrors errors = new ValidationErrors(failFast);
+        String path = "$";
+        try (JsonParser parser = MAPPER.getFactory().createParser(in)) {
+            JsonToken first = parser.nextToken();
+            if (first == null) {
+                errors.add("$", "Empty document");
+                return errors.result();
+            }
+            if (schema == null) {
+                parser.skipChildren();
+            } else if (schema.elements() != null && first == JsonToken.START_ARRAY) {
+                ArrayNode wrapper = MAPPER.createArrayNode().add(NullNode.getInstance());
+                long index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    path = "$[" + index + "]";
+                    JsonNode element = MAPPER.readTree(parser);
+                    wrapper.set(0, element == null ? NullNode.getInstance() : element);
+                    for (ValidationMessage message : schema.elements().validate(wrapper)) {
+                        if (!errors.add(elementPath(path, message), text(message))) {
+                            return errors.result();
+                        }
+                    }
+                    index++;
+                }
+                path = "$";
+                if (index < schema.minItems()) {
+                    errors.add("$", "Array has " + index + " items, fewer than the minimum of " + schema.minItems());
+                } else if (index > schema.maxItems()) {
+                    errors.add("$", "Array has " + index + " items, more than the maximum of " + schema.maxItems());
+                }
+            } else {
+                JsonNode document = MAPPER.readTree(parser);
+                for (ValidationMessage message : schema.document().validate(document)) {
+                    if (!errors.add(message.getInstanceLocation().toString(), text(message))) {
+                        return errors.result();
+                    }
+                }
+            }
+            if (!errors.isStopped() && parser.nextToken() != null) {
+                errors.add("$", "Unexpected content after the document " + position(parser.currentTokenLocation()));
+            }
+        } catch (JsonProcessingException e) {
+            errors.add(path, "Malformed JSON " + position(e.getLocation()) + ": " + e.getOriginalMessage());
+        }
+        return errors.result();
+    }
+
+    /**
+     * The path of an element's error, which the schema reports in the wrapping array's first item.
+     */
+    private static String elementPath(String elementPath, ValidationMessage message) {
+        String location = message.getInstanceLocation().toString();
+        return location.startsWith("$[0]") ? elementPath + location.substring("$[0]".length()) : elementPath;
+    }
+
+    private static String text(ValidationMessage message) {
+        String prefix = message.getInstanceLocation() + ": ";
+        String text = message.getMessage();
+        return text.startsWith(prefix) ? text.substring(prefix.length()) : text;
+    }
+
+    private static String position(JsonLocation location) {
+        return location == null ? "at an unknown position" : "at line " + location.getLineNr() + ", column " + location.getColumnNr();
+    }
+}
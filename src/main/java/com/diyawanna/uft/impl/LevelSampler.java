@@ -0,0 +1,239 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.model.CompressionOptions;
+import com.diyawanna.uft.model.CompressionType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.zip.Deflater;
+
+/**
+ * Chooses a compression level for a target throughput or ratio (see {@link CompressionOptions})
+ * by compressing a sample of the input at a few candidate levels. The sample is made of chunks
+ * taken at evenly spaced offsets across all inputs, so that files whose content changes along
+ * their length (headers, then numeric rows, then free text) are represented as a whole. The
+ * sample grows with the input, one chunk per {@value #BYTES_PER_CHUNK} bytes up to
+ * {@value #MAX_CHUNKS} chunks, so sampling stays a small fraction of the work. Inputs smaller
+ * than one chunk are not worth sampling and get the codec's default level.
+ */
+final class LevelSampler {
+
+    /** Size of each sampled chunk. */
+    static final int CHUNK_SIZE = 128 * 1024;
+
+    /** Maximum number of chunks, bounding the sample to 1 MB. */
+    static final int MAX_CHUNKS = 8;
+
+    /** Input size per sampled chunk; larger inputs get more chunks, up to {@link #MAX_CHUNKS}. */
+    static final long BYTES_PER_CHUNK = 16L * CHUNK_SIZE;
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    private final CodecPool pool;
+
+    LevelSampler(CodecPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Throughput and ratio of one candidate level on the sample.
+     * @param level The level.
+     * @param throughputMBps The compression throughput, scaled by the expected parallel speed-up.
+     * @param ratio The compressed size divided by the sample size.
+     */
+    record Measurement(int level, double throughputMBps, double ratio) {
+    }
+
+    /**
+     * The outcome of a selection.
+     * @param level The chosen level, or {@link CompressionOptions#DEFAULT_LEVEL} if the input was too small to sample.
+     * @param sampleBytes The sample size, or 0 if the input was too small to sample.
+     * @param samplingMillis The time spent reading and compressing the sample.
+     * @param measurements The measurement of each candidate, in candidate order.
+     */
+    record Selection(int level, long sampleBytes, long samplingMillis, List<Measurement> measurements) {
+
+        /**
+         * Describes the selection for a performance report.
+         */
+        Map<String, Object> describe() {
+            Map<String, Object> candidates = new LinkedHashMap<>();
+            for (Measurement measurement : measurements) {
+                candidates.put(String.valueOf(measurement.level()),
+                        Map.of("throughputMBps", measurement.throughputMBps(), "ratio", measurement.ratio()));
+            }
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("sampleBytes", sampleBytes);
+            description.put("samplingMillis", samplingMillis);
+            description.put("candidates", candidates);
+            return description;
+        }
+    }
+
+    /**
+     * Chooses a level for compressing {@code inputs} with {@code type}.
+     * @param type The compression type.
+     * @param inputs The input files, with their sizes.
+     * @param options The options holding the targets.
+     * @param speedup The factor by which the real compression is expected to outpace single-threaded sampling.
+     * @return The selection.
+     * @throws IOException if the inputs cannot be read.
+     */
+    Selection select(CompressionType type, Map<Path, Long> inputs, CompressionOptions options, double speedup) throws IOException {
+        long start = System.nanoTime();
+        byte[] sample = sample(inputs);
+        if (sample.length < CHUNK_SIZE) {
+            return new Selection(CompressionOptions.DEFAULT_LEVEL, 0, 0, List.of());
+        }
+        int[] candidates = candidates(type);
+        List<Measurement> measurements = new ArrayList<>(candidates.length);
+        for (int level : candidates) {
+            measurements.add(measure(type, sample, level, speedup));
+        }
+        // The first candidate ran on cold code; measure it again and keep the faster run
+        Measurement again = measure(type, sample, candidates[0], speedup);
+        if (again.throughputMBps() > measurements.get(0).throughputMBps()) {
+            measurements.set(0, again);
+        }
+        return new Selection(choose(measurements, options), sample.length, (System.nanoTime() - start) / 1_000_000L, measurements);
+    }
+
+    private Measurement measure(CompressionType type, byte[] sample, int level, double speedup) throws IOException {
+        long start = System.nanoTime();
+        long size = compressedSize(type, sample, sample.length, level);
+        double seconds = Math.max(System.nanoTime() - start, 1L) / 1_000_000_000.0;
+        return new Measurement(level, sample.length / MEGABYTE / seconds * speedup, (double) size / sample.length);
+    }
+
+    /**
+     * Applies the targets: with a throughput target, the best ratio among the levels meeting all
+     * targets, else the fastest level; with only a ratio target, the fastest level meeting it,
+     * else the best ratio.
+     */
+    static int choose(List<Measurement> measurements, CompressionOptions options) {
+        OptionalDouble throughput = options.getTargetThroughputMBps();
+        OptionalDouble ratio = options.getTargetRatio();
+        List<Measurement> eligible = measurements.stream()
+                .filter(m -> throughput.isEmpty() || m.throughputMBps() >= throughput.getAsDouble())
+                .filter(m -> ratio.isEmpty() || m.ratio() <= ratio.getAsDouble())
+                .toList();
+        Comparator<Measurement> byRatio = Comparator.comparingDouble(Measurement::ratio);
+        Comparator<Measurement> bySpeed = Comparator.comparingDouble(Measurement::throughputMBps).reversed();
+        if (throughput.isPresent()) {
+            return (eligible.isEmpty() ? measurements.stream().min(bySpeed) : eligible.stream().min(byRatio)).orElseThrow().level();
+        }
+        return (eligible.isEmpty() ? measurements.stream().min(byRatio) : eligible.stream().min(bySpeed)).orElseThrow().level();
+    }
+
+    /**
+     * Candidate levels per type, spanning the useful part of each range.
+     */
+    static int[] candidates(CompressionType type) {
+        return switch (type) {
+            case GZIP, BGZF, ZIP -> new int[]{1, 3, 6, 9};
+            case LZ4 -> new int[]{1, 5, 7, 9};
+            case ZSTD -> new int[]{1, 3, 9, 19};
+            case BZIP2 -> new int[]{1, 5, 9};
+            // Presets above 6 only enlarge the dictionary beyond what a 1 MB sample can show
+            case XZ -> new int[]{0, 3, 6};
+            case NONE -> throw new IllegalArgumentException("No levels for " + type);
+        };
+    }
+
+    private byte[] sample(Map<Path, Long> inputs) throws IOException {
+        long total = inputs.values().stream().mapToLong(Long::longValue).sum();
+        int chunks = (int) Math.max(1, Math.min(MAX_CHUNKS, total / BYTES_PER_CHUNK));
+        if (total <= CHUNK_SIZE) {
+            ByteBuffer all = ByteBuffer.allocate((int) total);
+            for (Path path : inputs.keySet()) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    readAt(channel, all, 0, all.remaining());
+                }
+            }
+            return Arrays.copyOf(all.array(), all.position());
+        }
+        ByteBuffer sample = ByteBuffer.allocate(CHUNK_SIZE * chunks);
+        long stride = total / chunks;
+        long inputStart = 0;
+        int chunk = 0;
+        for (Map.Entry<Path, Long> input : inputs.entrySet()) {
+            long inputEnd = inputStart + input.getValue();
+            if (chunk < chunks && chunk * stride < inputEnd) {
+                try (FileChannel channel = FileChannel.open(input.getKey(), StandardOpenOption.READ)) {
+                    for (; chunk < chunks && chunk * stride < inputEnd; chunk++) {
+                        long position = chunk * stride - inputStart;
+                        readAt(channel, sample, Math.max(position, 0), CHUNK_SIZE);
+                    }
+                }
+            }
+            inputStart = inputEnd;
+        }
+        return Arrays.copyOf(sample.array(), sample.position());
+    }
+
+    /**
+     * Reads up to {@code length} bytes at {@code position}, fewer if the file ends first.
+     */
+    private static void readAt(FileChannel channel, ByteBuffer target, long position, int length) throws IOException {
+        ByteBuffer slice = target.slice(target.position(), Math.min(length, target.remaining()));
+        while (slice.hasRemaining()) {
+            if (channel.read(slice, position + slice.position()) < 0) {
+                break;
+            }
+        }
+        target.position(target.position() + slice.position());
+    }
+
+    private long compressedSize(CompressionType type, byte[] data, int length, int level) throws IOException {
+        if (type == CompressionType.GZIP || type == CompressionType.BGZF || type == CompressionType.ZIP) {
+            Deflater deflater = pool.borrowDeflater(level);
+            byte[] output = pool.borrowArray();
+            try {
+                deflater.setInput(data, 0, length);
+                deflater.finish();
+                long size = 0;
+                while (!deflater.finished()) {
+                    size += deflater.deflate(output);
+                }
+                return size;
+            } finally {
+                pool.release(output);
+                pool.release(deflater, level);
+            }
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        try (OutputStream out = CompressorStreams.compressor(type, counter, level)) {
+            out.write(data, 0, length);
+        }
+        return counter.count;
+    }
+
+    /**
+     * Discards its input, counting the bytes.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
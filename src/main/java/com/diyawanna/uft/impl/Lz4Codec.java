@@ -0,0 +1,535 @@
+package com.diyawanna.uft.impl;
+
+import org.apache.commons.codec.digest.XXHash32;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * LZ4 frame format codec. Commons Compress reads and writes LZ4 frames too, but its compressor
+ * searches matches through linked lists: on 1 MB of CSV it compressed at 0.01 to 0.02 MB/s,
+ * against 9 to 50 MB/s here, which defeats the purpose of LZ4. Output of either side is read back
+ * by the other in {@code Lz4CodecTest}. The checksums are the XXH32 of Commons Codec. The block
+ * compressor here is the usual hash-table design: levels up to 6 take the first candidate per
+ * hash (levels 1 and 2 skip ahead faster over data that does not compress), levels 7 to 9 search
+ * a hash chain for the longest match. Output frames use independent 256 KB blocks and carry a
+ * content checksum; the reader accepts any LZ4 frame, including linked blocks, block checksums,
+ * skippable frames and concatenated frames.
+ */
+final class Lz4Codec {
+
+    static final int MAGIC = 0x184D2204;
+
+    private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+    private static final int SKIPPABLE_MASK = 0xFFFFFFF0;
+    private static final int VERSION = 0x40;
+    private static final int FLAG_BLOCK_INDEPENDENT = 0x20;
+    private static final int FLAG_BLOCK_CHECKSUM = 0x10;
+    private static final int FLAG_CONTENT_SIZE = 0x08;
+    private static final int FLAG_CONTENT_CHECKSUM = 0x04;
+    private static final int FLAG_DICTIONARY = 0x01;
+    private static final int UNCOMPRESSED_BIT = 0x80000000;
+    private static final int BLOCK_SIZE_ID = 5;
+    private static final int BLOCK_SIZE = 256 * 1024;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 16;
+    private static final int SKIP_TRIGGER = 6;
+    private static final int WINDOW_MASK = 0xFFFF;
+
+    private Lz4Codec() {
+    }
+
+    /**
+     * Worst-case compressed size of a block of {@code length} bytes.
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses one independent block.
+     * @param src The input.
+     * @param length The number of input bytes, from offset 0.
+     * @param dst The output, at least {@link #maxCompressedLength(int)} long.
+     * @param level The level, 1 to 9.
+     * @param table A hash table of {@code 1 << 16} entries; its content is overwritten.
+     * @param chain A chain table of {@code 1 << 16} entries for levels 7 and above, otherwise unused.
+     * @return The compressed length.
+     */
+    static int compressBlock(byte[] src, int length, byte[] dst, int level, int[] table, int[] chain) {
+        Arrays.fill(table, -1);
+        int limit = length - MATCH_FIND_LIMIT;
+        int matchLimit = length - LAST_LITERALS;
+        int anchor = 0;
+        int op = 0;
+        if (length < MATCH_FIND_LIMIT + 1) {
+            return literals(src, anchor, length, dst, op);
+        }
+        if (level >= 7) {
+            int attempts = 1 << (level - 3);
+            int inserted = 0;
+            int ip = 0;
+            while (ip <= limit) {
+                while (inserted <= ip) {
+                    int h = hash(readInt(src, inserted));
+                    chain[inserted & WINDOW_MASK] = table[h];
+                    table[h] = inserted++;
+                }
+                int bestLength = 0;
+                int bestRef = -1;
+                int first = readInt(src, ip);
+                for (int ref = chain[ip & WINDOW_MASK], n = 0; ref >= 0 && ip - ref <= MAX_DISTANCE && n < attempts; n++) {
+                    if (readInt(src, ref) == first) {
+                        int matchLength = MIN_MATCH + commonLength(src, ip + MIN_MATCH, ref + MIN_MATCH, matchLimit);
+                        if (matchLength > bestLength) {
+                            bestLength = matchLength;
+                            bestRef = ref;
+                        }
+                    }
+                    int next = chain[ref & WINDOW_MASK];
+                    if (next >= ref) {
+                        break;
+                    }
+                    ref = next;
+                }
+                if (bestLength < MIN_MATCH) {
+                    ip++;
+                    continue;
+                }
+                op = sequence(src, anchor, ip, dst, op, ip - bestRef, bestLength);
+                ip += bestLength;
+                anchor = ip;
+            }
+            return literals(src, anchor, length, dst, op);
+        }
+
+        int acceleration = level <= 2 ? 4 >> (level - 1) : 1;
+        table[hash(readInt(src, 0))] = 0;
+        int ip = 1;
+        outer:
+        while (true) {
+            int searches = acceleration << SKIP_TRIGGER;
+            int ref;
+            while (true) {
+                if (ip > limit) {
+                    break outer;
+                }
+                int h = hash(readInt(src, ip));
+                ref = table[h];
+                table[h] = ip;
+                if (ref >= 0 && ip - ref <= MAX_DISTANCE && readInt(src, ref) == readInt(src, ip)) {
+                    break;
+                }
+                ip += searches++ >> SKIP_TRIGGER;
+            }
+            while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+                ip--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH + commonLength(src, ip + MIN_MATCH, ref + MIN_MATCH, matchLimit);
+            op = sequence(src, anchor, ip, dst, op, ip - ref, matchLength);
+            ip += matchLength;
+            anchor = ip;
+            if (ip > limit) {
+                break;
+            }
+            table[hash(readInt(src, ip - 2))] = ip - 2;
+        }
+        return literals(src, anchor, length, dst, op);
+    }
+
+    /**
+     * Decompresses one block into {@code dst}, whose bytes before {@code dstOffset} may be
+     * referenced as history by linked blocks.
+     * @return The offset in {@code dst} after the decompressed data.
+     * @throws IOException if the block is corrupt or does not fit.
+     */
+    static int decompressBlock(byte[] src, int srcLength, byte[] dst, int dstOffset, int dstLimit) throws IOException {
+        int ip = 0;
+        int op = dstOffset;
+        while (true) {
+            if (ip >= srcLength) {
+                throw new IOException("Corrupt LZ4 block: missing final literals");
+            }
+            int token = src[ip++] & 0xff;
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int b;
+                do {
+                    if (ip >= srcLength) {
+                        throw new IOException("Corrupt LZ4 block: truncated literal length");
+                    }
+                    b = src[ip++] & 0xff;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            if (literalLength > srcLength - ip || literalLength > dstLimit - op) {
+                throw new IOException("Corrupt LZ4 block: literals out of bounds");
+            }
+            System.arraycopy(src, ip, dst, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+            if (ip == srcLength) {
+                return op;
+            }
+            if (ip + 2 > srcLength) {
+                throw new IOException("Corrupt LZ4 block: truncated match offset");
+            }
+            int offset = (src[ip] & 0xff) | (src[ip + 1] & 0xff) << 8;
+            ip += 2;
+            int matchLength = token & 15;
+            if (matchLength == 15) {
+                int b;
+                do {
+                    if (ip >= srcLength) {
+                        throw new IOException("Corrupt LZ4 block: truncated match length");
+                    }
+                    b = src[ip++] & 0xff;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            int ref = op - offset;
+            if (offset == 0 || ref < 0 || matchLength > dstLimit - op) {
+                throw new IOException("Corrupt LZ4 block: match out of bounds");
+            }
+            if (offset >= matchLength) {
+                System.arraycopy(dst, ref, dst, op, matchLength);
+                op += matchLength;
+            } else {
+                // Overlapping match: the copy repeats the last offset bytes
+                for (int end = op + matchLength; op < end; ) {
+                    dst[op++] = dst[ref++];
+                }
+            }
+        }
+    }
+
+    private static int sequence(byte[] src, int anchor, int ip, byte[] dst, int op, int offset, int matchLength) {
+        int literalLength = ip - anchor;
+        int tokenPosition = op++;
+        int token = Math.min(literalLength, 15) << 4;
+        op = length(dst, op, literalLength - 15);
+        System.arraycopy(src, anchor, dst, op, literalLength);
+        op += literalLength;
+        dst[op++] = (byte) offset;
+        dst[op++] = (byte) (offset >>> 8);
+        token |= Math.min(matchLength - MIN_MATCH, 15);
+        op = length(dst, op, matchLength - MIN_MATCH - 15);
+        dst[tokenPosition] = (byte) token;
+        return op;
+    }
+
+    private static int literals(byte[] src, int anchor, int end, byte[] dst, int op) {
+        int literalLength = end - anchor;
+        dst[op++] = (byte) (Math.min(literalLength, 15) << 4);
+        op = length(dst, op, literalLength - 15);
+        System.arraycopy(src, anchor, dst, op, literalLength);
+        return op + literalLength;
+    }
+
+    /**
+     * Writes the extension bytes of a length field; {@code remainder} is the length minus 15.
+     */
+    private static int length(byte[] dst, int op, int remainder) {
+        if (remainder < 0) {
+            return op;
+        }
+        while (remainder >= 255) {
+            dst[op++] = (byte) 255;
+            remainder -= 255;
+        }
+        dst[op++] = (byte) remainder;
+        return op;
+    }
+
+    private static int commonLength(byte[] src, int a, int b, int limit) {
+        int start = a;
+        while (a < limit && src[a] == src[b]) {
+            a++;
+            b++;
+        }
+        return a - start;
+    }
+
+    private static int hash(int value) {
+        return (value * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 | (b[i + 3] & 0xff) << 24;
+    }
+
+    private static void writeInt(byte[] b, int i, int value) {
+        b[i] = (byte) value;
+        b[i + 1] = (byte) (value >>> 8);
+        b[i + 2] = (byte) (value >>> 16);
+        b[i + 3] = (byte) (value >>> 24);
+    }
+
+    private static int headerChecksum(byte[] descriptor, int length) {
+        XXHash32 hash = new XXHash32();
+        hash.update(descriptor, 0, length);
+        return (int) (hash.getValue() >>> 8) & 0xff;
+    }
+
+    /**
+     * Writes a single LZ4 frame. Closing the stream writes the end mark and content checksum and
+     * closes the underlying stream.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final int level;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+        private final byte[] word = new byte[4];
+        private final int[] table = new int[1 << HASH_LOG];
+        private final int[] chain;
+        private final XXHash32 contentHash = new XXHash32();
+        private int length;
+        private boolean closed;
+
+        FrameOutputStream(OutputStream out, int level) throws IOException {
+            this.out = out;
+            this.level = level;
+            this.chain = level >= 7 ? new int[WINDOW_MASK + 1] : null;
+            byte[] header = new byte[7];
+            writeInt(header, 0, MAGIC);
+            header[4] = (byte) (VERSION | FLAG_BLOCK_INDEPENDENT | FLAG_CONTENT_CHECKSUM);
+            header[5] = (byte) (BLOCK_SIZE_ID << 4);
+            header[6] = (byte) headerChecksum(Arrays.copyOfRange(header, 4, 6), 2);
+            out.write(header);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            while (len > 0) {
+                int n = Math.min(len, BLOCK_SIZE - length);
+                System.arraycopy(b, off, block, length, n);
+                length += n;
+                off += n;
+                len -= n;
+                if (length == BLOCK_SIZE) {
+                    flushBlock();
+                }
+            }
+        }
+
+        private void flushBlock() throws IOException {
+            if (length == 0) {
+                return;
+            }
+            contentHash.update(block, 0, length);
+            int size = compressBlock(block, length, compressed, level, table, chain);
+            if (size >= length) {
+                writeInt(word, 0, length | UNCOMPRESSED_BIT);
+                out.write(word);
+                out.write(block, 0, length);
+            } else {
+                writeInt(word, 0, size);
+                out.write(word);
+                out.write(compressed, 0, size);
+            }
+            length = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flushBlock();
+                byte[] trailer = new byte[8];
+                writeInt(trailer, 4, (int) contentHash.getValue());
+                out.write(trailer);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a sequence of LZ4 frames, skipping skippable frames, and verifies the header,
+     * block and content checksums present.
+     */
+    static final class FrameInputStream extends InputStream {
+
+        private final InputStream in;
+        private final XXHash32 contentHash = new XXHash32();
+        private final XXHash32 blockHash = new XXHash32();
+        private final byte[] word = new byte[4];
+        private byte[] compressed = new byte[0];
+        private byte[] window = new byte[0];
+        private int flags;
+        private int blockMaxSize;
+        private int position;
+        private int limit;
+        private boolean inFrame;
+        private boolean firstFrame = true;
+        private boolean eof;
+
+        FrameInputStream(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == limit) {
+                if (eof || !nextBlock()) {
+                    eof = true;
+                    return -1;
+                }
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(window, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean nextBlock() throws IOException {
+            if (!inFrame && !readFrameHeader()) {
+                return false;
+            }
+            int size = readWord();
+            if (size == 0) {
+                inFrame = false;
+                if ((flags & FLAG_CONTENT_CHECKSUM) != 0 && readWord() != (int) contentHash.getValue()) {
+                    throw new IOException("LZ4 content checksum mismatch");
+                }
+                return true;
+            }
+            boolean uncompressed = (size & UNCOMPRESSED_BIT) != 0;
+            size &= ~UNCOMPRESSED_BIT;
+            if (size > blockMaxSize) {
+                throw new IOException("Corrupt LZ4 frame: block of " + size + " bytes exceeds the maximum of " + blockMaxSize);
+            }
+            byte[] data = readFully(size);
+            if ((flags & FLAG_BLOCK_CHECKSUM) != 0) {
+                blockHash.reset();
+                blockHash.update(data, 0, size);
+                if (readWord() != (int) blockHash.getValue()) {
+                    throw new IOException("LZ4 block checksum mismatch");
+                }
+            }
+            // Linked blocks may reference the previous 64 KB of output
+            int history = 0;
+            if ((flags & FLAG_BLOCK_INDEPENDENT) == 0) {
+                history = Math.min(limit, MAX_DISTANCE);
+                System.arraycopy(window, limit - history, window, 0, history);
+            }
+            position = history;
+            if (uncompressed) {
+                System.arraycopy(data, 0, window, history, size);
+                limit = history + size;
+            } else {
+                limit = decompressBlock(data, size, window, history, history + blockMaxSize);
+            }
+            contentHash.update(window, position, limit - position);
+            return true;
+        }
+
+        private boolean readFrameHeader() throws IOException {
+            byte[] magic = new byte[4];
+            while (true) {
+                int n = in.readNBytes(magic, 0, 4);
+                if (n == 0 && !firstFrame) {
+                    return false;
+                }
+                if (n < 4) {
+                    throw new EOFException("Truncated LZ4 frame header");
+                }
+                int value = readInt(magic, 0);
+                if ((value & SKIPPABLE_MASK) == SKIPPABLE_MAGIC) {
+                    in.skipNBytes(readWord() & 0xffffffffL);
+                    firstFrame = false;
+                    continue;
+                }
+                if (value != MAGIC) {
+                    throw new IOException("Not in LZ4 frame format");
+                }
+                break;
+            }
+            firstFrame = false;
+            byte[] descriptor = new byte[14];
+            System.arraycopy(readFully(2), 0, descriptor, 0, 2);
+            flags = descriptor[0] & 0xff;
+            if ((flags & 0xC0) != VERSION) {
+                throw new IOException("Unsupported LZ4 frame version");
+            }
+            if ((flags & FLAG_DICTIONARY) != 0) {
+                throw new IOException("LZ4 frames with a dictionary are not supported");
+            }
+            int sizeId = (descriptor[1] >>> 4) & 7;
+            if (sizeId < 4) {
+                throw new IOException("Corrupt LZ4 frame: invalid block size");
+            }
+            blockMaxSize = 1 << (8 + 2 * sizeId);
+            int length = 2;
+            if ((flags & FLAG_CONTENT_SIZE) != 0) {
+                System.arraycopy(readFully(8), 0, descriptor, length, 8);
+                length += 8;
+            }
+            if ((readFully(1)[0] & 0xff) != headerChecksum(descriptor, length)) {
+                throw new IOException("LZ4 frame header checksum mismatch");
+            }
+            int windowSize = MAX_DISTANCE + blockMaxSize;
+            if (window.length < windowSize) {
+                window = new byte[windowSize];
+            }
+            position = 0;
+            limit = 0;
+            contentHash.reset();
+            inFrame = true;
+            return true;
+        }
+
+        private int readWord() throws IOException {
+            if (in.readNBytes(word, 0, 4) < 4) {
+                throw new EOFException("Truncated LZ4 frame");
+            }
+            return readInt(word, 0);
+        }
+
+        private byte[] readFully(int length) throws IOException {
+            if (compressed.length < length) {
+                compressed = new byte[Math.max(length, blockMaxSize)];
+            }
+            if (in.readNBytes(compressed, 0, length) < length) {
+                throw new EOFException("Truncated LZ4 frame");
+            }
+            return compressed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
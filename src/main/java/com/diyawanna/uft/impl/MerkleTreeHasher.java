@@ -0,0 +1,245 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.model.MerkleTree;
+import com.diyawanna.uft.model.TreeHashOptions;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Merkle tree hashing of files. The file is cut into fixed-size chunks that are read and hashed
+ * independently, on several threads; the chunk digests are the leaves of a binary tree whose root
+ * identifies the file. As in RFC 6962, leaves are hashed with a {@code 0x00} prefix and inner
+ * nodes with {@code 0x01}, so a leaf cannot pass for an inner node; an odd node is promoted to the
+ * next level unchanged. An empty file has one empty chunk.
+ * <p>
+ * The chunk digests can be saved next to the file with a {@value #SUFFIX} suffix, together with
+ * the file's size and modification time. If those still match, the saved tree is returned
+ * without reading the file; for a file known to only grow, the complete chunks it had are reused
+ * and only the rest is hashed. A sidecar that cannot be read, or was made with another hash type
+ * or chunk size, is ignored and replaced.
+ * <p>
+ * Sidecar layout: the magic {@code UFTM}, a version byte, the hash type ordinal byte, the chunk
+ * size as a big-endian int, the file size and modification time in milliseconds as big-endian
+ * longs, the digest length byte, the chunk count as a big-endian int, then the chunk digests.
+ */
+final class MerkleTreeHasher {
+
+    /** Suffix of the chunk digest sidecar file. */
+    static final String SUFFIX = ".merkle";
+
+    /** Smallest accepted chunk size. */
+    static final int MIN_CHUNK_SIZE = 4096;
+
+    /** Largest accepted chunk size, bounding the memory held per chunk in flight. */
+    static final int MAX_CHUNK_SIZE = 256 * 1024 * 1024;
+
+    private static final byte[] MAGIC = {'U', 'F', 'T', 'M'};
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 2 + 4 + 8 + 8 + 1 + 4;
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte NODE_PREFIX = 1;
+
+    private MerkleTreeHasher() {
+    }
+
+    /**
+     * A tree as saved in a sidecar, with the file state it was computed for.
+     */
+    private record Saved(MerkleTree tree, long modifiedMillis) {
+    }
+
+    /**
+     * Computes the tree of {@code file}, reusing and updating its sidecar if the options ask for it.
+     * @param file The file.
+     * @param in An open channel on {@code file}.
+     * @param options The hash type, chunk size and sidecar use.
+     * @param providers The providers of the digests.
+     * @param workers The threads to hash chunks on, or {@code null} to hash on the calling thread.
+     * @param threads The number of worker threads, which bounds the chunks in flight.
+     * @throws IOException if reading fails or the thread is interrupted.
+     * @throws GeneralSecurityException if the hash algorithm is not available.
+     */
+    static MerkleTree hash(Path file, FileChannel in, TreeHashOptions options, CryptoProviders providers,
+                           ExecutorService workers, int threads) throws IOException, GeneralSecurityException {
+        // Before reading, so that a change while hashing invalidates the sidecar
+        long modifiedMillis = Files.getLastModifiedTime(file).toMillis();
+        long size = in.size();
+        int chunkSize = options.getChunkSize();
+        long chunks = size == 0 ? 1 : (size + chunkSize - 1) / chunkSize;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IOException("File too large for chunk size " + chunkSize);
+        }
+        String algorithm = MultiDigest.algorithm(options.getHashType());
+        Saved saved = options.isSidecar() ? readSidecar(sidecarOf(file), options, providers) : null;
+        if (saved != null && saved.tree().getFileSize() == size && saved.modifiedMillis() == modifiedMillis) {
+            return saved.tree();
+        }
+        byte[][] digests = new byte[(int) chunks][];
+        int first = 0;
+        if (saved != null && options.isAppendOnly() && size >= saved.tree().getFileSize()) {
+            // Only the chunks that were complete: the last one may have grown
+            first = (int) (saved.tree().getFileSize() / chunkSize);
+            for (int i = 0; i < first; i++) {
+                digests[i] = saved.tree().getChunkDigest(i);
+            }
+        }
+        hashChunks(in, size, chunkSize, algorithm, providers, digests, first, workers, threads);
+        MerkleTree tree = new MerkleTree(options.getHashType(), chunkSize, size, Arrays.asList(digests),
+                root(providers.digest(algorithm), digests));
+        if (options.isSidecar()) {
+            writeSidecar(sidecarOf(file), tree, modifiedMillis);
+        }
+        return tree;
+    }
+
+    /**
+     * The sidecar path of a file.
+     */
+    static Path sidecarOf(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    private static void hashChunks(FileChannel in, long size, int chunkSize, String algorithm, CryptoProviders providers,
+                                   byte[][] digests, int first, ExecutorService workers, int threads)
+            throws IOException, GeneralSecurityException {
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        int next = first;
+        try {
+            for (int i = first; i < digests.length; i++) {
+                long position = (long) i * chunkSize;
+                int length = (int) Math.min(chunkSize, size - position);
+                if (workers == null) {
+                    digests[i] = hashChunk(in, position, length, algorithm, providers);
+                    continue;
+                }
+                pending.add(workers.submit(() -> hashChunk(in, position, length, algorithm, providers)));
+                if (pending.size() >= threads * 2) {
+                    digests[next++] = await(pending.poll());
+                }
+            }
+            while (!pending.isEmpty()) {
+                digests[next++] = await(pending.poll());
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static byte[] hashChunk(FileChannel in, long position, int length, String algorithm, CryptoProviders providers)
+            throws IOException, GeneralSecurityException {
+        ByteBuffer chunk = ByteBuffer.allocate(length);
+        while (chunk.hasRemaining()) {
+            if (in.read(chunk, position + chunk.position()) < 0) {
+                throw new EOFException("File shrank while hashing, at offset " + (position + chunk.position()));
+            }
+        }
+        MessageDigest digest = providers.digest(algorithm);
+        digest.update(LEAF_PREFIX);
+        digest.update(chunk.array());
+        return digest.digest();
+    }
+
+    private static byte[] root(MessageDigest digest, byte[][] leaves) {
+        byte[][] level = leaves;
+        while (level.length > 1) {
+            byte[][] parents = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < parents.length; i++) {
+                if (2 * i + 1 == level.length) {
+                    parents[i] = level[2 * i];
+                } else {
+                    digest.update(NODE_PREFIX);
+                    digest.update(level[2 * i]);
+                    digest.update(level[2 * i + 1]);
+                    parents[i] = digest.digest();
+                }
+            }
+            level = parents;
+        }
+        return level[0].clone();
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for chunk digest");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Chunk hashing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Reads a sidecar made with the options' hash type and chunk size.
+     * @return The saved tree, or {@code null} if there is no usable sidecar.
+     */
+    private static Saved readSidecar(Path sidecar, TreeHashOptions options, CryptoProviders providers) {
+        try (FileChannel in = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (in.size() < HEADER_LENGTH || in.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) in.size());
+            while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+                // Read the whole sidecar
+            }
+            buffer.flip();
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            int version = buffer.get() & 0xff;
+            int type = buffer.get() & 0xff;
+            int chunkSize = buffer.getInt();
+            long fileSize = buffer.getLong();
+            long modifiedMillis = buffer.getLong();
+            int digestLength = buffer.get() & 0xff;
+            int count = buffer.getInt();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION || type != options.getHashType().ordinal()
+                    || chunkSize != options.getChunkSize() || count <= 0 || (long) count * digestLength != buffer.remaining()) {
+                return null;
+            }
+            List<byte[]> digests = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] digest = new byte[digestLength];
+                buffer.get(digest);
+                digests.add(digest);
+            }
+            // The root is cheap to recompute and so is not stored
+            byte[] root = root(providers.digest(MultiDigest.algorithm(options.getHashType())), digests.toArray(new byte[0][]));
+            return new Saved(new MerkleTree(options.getHashType(), chunkSize, fileSize, digests, root), modifiedMillis);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            // Missing, unreadable or corrupt: hash the file and replace the sidecar
+            return null;
+        }
+    }
+
+    private static void writeSidecar(Path sidecar, MerkleTree tree, long modifiedMillis) throws IOException {
+        int digestLength = tree.getChunkDigest(0).length;
+        long length = HEADER_LENGTH + (long) tree.getChunkCount() * digestLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Too many chunks for a sidecar: " + tree.getChunkCount());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length)
+                .put(MAGIC).put((byte) VERSION).put((byte) tree.getHashType().ordinal()).putInt(tree.getChunkSize())
+                .putLong(tree.getFileSize()).putLong(modifiedMillis).put((byte) digestLength).putInt(tree.getChunkCount());
+        for (int i = 0; i < tree.getChunkCount(); i++) {
+            buffer.put(tree.getChunkDigest(i));
+        }
+        DefaultCompressionService.writeAtomically(sidecar, out -> GzipCodec.writeFully(out, buffer.flip()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.model.HashType;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Computes several digests of a file in one read. The file is memory-mapped a window at a time.
+ * On a single thread each window is fed to every digest a slice at a time, so a slice is still in
+ * the CPU cache when the next digest reads it. Given an executor, the work is pipelined instead:
+ * the calling thread maps and faults in the next windows while each digest runs on its own
+ * thread, so a file is read once at the speed of the slowest digest rather than their sum.
+ */
+final class MultiDigest {
+
+    /** Smallest file worth pipelining; below it the digests run on the calling thread. */
+    static final long PIPELINE_THRESHOLD = 4L * 1024 * 1024;
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int SLICE_SIZE = 256 * 1024;
+    private static final int WINDOWS_AHEAD = 2;
+
+    private MultiDigest() {
+    }
+
+    /**
+     * The JCA algorithm name of a hash type.
+     */
+    static String algorithm(HashType type) {
+        return switch (type) {
+            case MD5 -> "MD5";
+            case SHA_1 -> "SHA-1";
+            case SHA_256 -> "SHA-256";
+            case SHA_512 -> "SHA-512";
+        };
+    }
+
+    /**
+     * Digests the whole of {@code in} with every algorithm in {@code types}.
+     * @param in The file.
+     * @param types The hash types, not empty.
+     * @param providers The providers of the digests.
+     * @param executor The threads to run the digests on, one per type, or {@code null} to digest on the calling thread.
+     * @return The digests by type.
+     * @throws IOException if reading fails or the thread is interrupted.
+     * @throws GeneralSecurityException if an algorithm is not available.
+     */
+    static Map<HashType, byte[]> digest(FileChannel in, Set<HashType> types, CryptoProviders providers,
+                                        ExecutorService executor) throws IOException, GeneralSecurityException {
+        Map<HashType, MessageDigest> digests = new EnumMap<>(HashType.class);
+        for (HashType type : types) {
+            // Not the per-thread instances: in a pipeline a digest moves between worker threads
+            digests.put(type, providers.newDigest(algorithm(type)));
+        }
+        if (executor == null) {
+            digestSequentially(in, digests.values());
+        } else {
+            digestPipelined(in, digests.values(), executor);
+        }
+        Map<HashType, byte[]> result = new EnumMap<>(HashType.class);
+        digests.forEach((type, digest) -> result.put(type, digest.digest()));
+        return result;
+    }
+
+    private static void digestSequentially(FileChannel in, Iterable<MessageDigest> digests) throws IOException {
+        long size = in.size();
+        byte[] slice = new byte[(int) Math.min(SLICE_SIZE, Math.max(1, size))];
+        for (long position = 0; position < size; position += WINDOW_SIZE) {
+            MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+            while (window.hasRemaining()) {
+                int n = Math.min(slice.length, window.remaining());
+                window.get(slice, 0, n);
+                for (MessageDigest digest : digests) {
+                    digest.update(slice, 0, n);
+                }
+            }
+        }
+    }
+
+    private static void digestPipelined(FileChannel in, Iterable<MessageDigest> digests, ExecutorService executor)
+            throws IOException {
+        List<CompletableFuture<Void>> chains = new ArrayList<>();
+        for (MessageDigest ignored : digests) {
+            chains.add(CompletableFuture.completedFuture(null));
+        }
+        Deque<CompletableFuture<Void>> windows = new ArrayDeque<>();
+        try {
+            long size = in.size();
+            for (long position = 0; position < size; position += WINDOW_SIZE) {
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+                // The read stage: fault the window in on this thread while the digests work on earlier ones
+                window.load();
+                int i = 0;
+                for (MessageDigest digest : digests) {
+                    // Chained per digest, so each sees the windows in order
+                    chains.set(i, chains.get(i).thenRunAsync(() -> digest.update(window.duplicate()), executor));
+                    i++;
+                }
+                windows.add(CompletableFuture.allOf(chains.toArray(new CompletableFuture<?>[0])));
+                if (windows.size() > WINDOWS_AHEAD) {
+                    await(windows.poll());
+                }
+            }
+            await(CompletableFuture.allOf(chains.toArray(new CompletableFuture<?>[0])));
+        } finally {
+            chains.forEach(chain -> chain.cancel(true));
+        }
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for digests");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException c && c.getCause() != null ? c.getCause() : e.getCause();
+            throw cause instanceof IOException io ? io : new IOException("Digest failed", cause);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.diyawanna.uft.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Parallel GZIP compressor in the style of pigz. The input is split into fixed blocks that are
+ * deflated concurrently; each block is primed with the last 32 KB of its predecessor as preset
+ * dictionary, so matches may reach across block boundaries, and ends on a sync flush so that
+ * the raw deflate outputs concatenate into one valid stream. The result is a single standard
+ * GZIP member readable by any decompressor. The CRC-32 is computed on the calling thread while
+ * blocks are read, and only a bounded number of blocks are in flight at a time.
+ */
+final class ParallelGzipCodec {
+
+    /** Uncompressed size of each block. */
+    static final int BLOCK_SIZE = 128 * 1024;
+
+    /** Deflate window size; the amount of the previous block used as dictionary. */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final CodecPool pool;
+    private final ExecutorService workers;
+    private final int threads;
+
+    ParallelGzipCodec(CodecPool pool, ExecutorService workers, int threads) {
+        this.pool = pool;
+        this.workers = workers;
+        this.threads = threads;
+    }
+
+    /**
+     * Compresses the whole of {@code in} into a single GZIP member on {@code out}.
+     * @param in The uncompressed input file.
+     * @param out The compressed output.
+     * @param level The deflate level.
+     * @return The number of bytes written to {@code out}.
+     * @throws IOException if reading or writing fails, or the thread is interrupted.
+     */
+    long compress(FileChannel in, WritableByteChannel out, int level) throws IOException {
+        long size = in.size();
+        long blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        CRC32 crc = new CRC32();
+        long written = GzipCodec.writeFully(out, GzipCodec.header(level));
+        try {
+            byte[] previous = null;
+            for (long i = 0; i < blocks; i++) {
+                long position = i * BLOCK_SIZE;
+                byte[] block = readBlock(in, position, (int) Math.min(BLOCK_SIZE, size - position));
+                crc.update(block);
+                byte[] dictionary = previous;
+                boolean last = i == blocks - 1;
+                pending.add(workers.submit(() -> deflate(block, dictionary, level, last)));
+                previous = block;
+                if (pending.size() >= threads * 2) {
+                    written += GzipCodec.writeFully(out, ByteBuffer.wrap(await(pending.poll())));
+                }
+            }
+            while (!pending.isEmpty()) {
+                written += GzipCodec.writeFully(out, ByteBuffer.wrap(await(pending.poll())));
+            }
+            if (blocks == 0) {
+                // An empty input still needs a final deflate block between header and trailer
+                written += GzipCodec.writeFully(out, ByteBuffer.wrap(deflate(new byte[0], null, level, true)));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+        return written + GzipCodec.writeFully(out, GzipCodec.trailer(crc.getValue(), size));
+    }
+
+    private byte[] deflate(byte[] block, byte[] dictionary, int level, boolean last) {
+        Deflater deflater = pool.borrowDeflater(level);
+        try {
+            if (dictionary != null) {
+                int length = Math.min(DICTIONARY_SIZE, dictionary.length);
+                deflater.setDictionary(dictionary, dictionary.length - length, length);
+            }
+            deflater.setInput(block);
+            if (last) {
+                deflater.finish();
+            }
+            int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+            byte[] output = new byte[block.length + (block.length >> 3) + 64];
+            int length = 0;
+            while (true) {
+                length += deflater.deflate(output, length, output.length - length, flush);
+                // A sync flush is complete once it leaves room in the output buffer
+                if (last ? deflater.finished() : length < output.length) {
+                    return Arrays.copyOf(output, length);
+                }
+                if (length == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+            }
+        } finally {
+            pool.release(deflater, level);
+        }
+    }
+
+    private static byte[] readBlock(FileChannel in, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("File shrank while being compressed");
+            }
+        }
+        return buffer.array();
+    }
+
+    static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for compressed block");
+        } catch (ExecutionException e) {
+            throw new IOException("Block compression failed", e.getCause());
+        }
+    }
+}
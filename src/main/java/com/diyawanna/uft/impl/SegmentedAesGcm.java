@@ -0,0 +1,560 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.model.CompressionType;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Segmented streaming AES-GCM container, in the manner of Tink's streaming AEAD. A file is a
+ * header followed by segments of a fixed plaintext size, each encrypted on its own with a 16-byte
+ * tag; only the last segment may be shorter. Segments are independent, so they are encrypted and
+ * decrypted in parallel, in constant memory, and decryption can start at any segment.
+ * <p>
+ * Each file gets its own AES key, derived with HKDF-SHA256 from the caller's key and a random
+ * salt in the header, so nonces cannot repeat across files encrypted under the same key. The
+ * nonce of a segment is a random per-file prefix, the segment number and a last-segment flag;
+ * segments that are reordered, dropped, duplicated or appended, or a file truncated at a segment
+ * boundary, therefore fail authentication. The header is authenticated as associated data of
+ * every segment.
+ * <p>
+ * The plaintext may be the output of a compressor, recorded in the header, so that a file is
+ * compressed and encrypted in one pass (see {@link EncryptingOutputStream}) and the reader knows
+ * how to decompress it.
+ * <p>
+ * Header layout: the magic {@code UFTE}, a version byte, a key source byte (a key, a password
+ * through PBKDF2, or a data key wrapped with RSA), the segment size and PBKDF2 iteration count as
+ * big-endian ints, the key data (the PBKDF2 salt or the wrapped data key) prefixed by its length
+ * as a big-endian short, the 16-byte HKDF salt, the 7-byte nonce prefix and a byte for the
+ * compression of the plaintext.
+ */
+final class SegmentedAesGcm {
+
+    /** Authentication tag size of each segment. */
+    static final int TAG_LENGTH = 16;
+
+    /** Smallest accepted segment size. */
+    static final int MIN_SEGMENT_SIZE = 1024;
+
+    /** Largest accepted segment size, bounding the memory held per segment in flight. */
+    static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /** Key source: the caller's AES key is used directly. */
+    static final int KEY_SOURCE_KEY = 0;
+
+    /** Key source: the AES key is derived from a password with PBKDF2. */
+    static final int KEY_SOURCE_PASSWORD = 1;
+
+    /** Key source: a random AES data key, wrapped with the recipient's RSA public key. */
+    static final int KEY_SOURCE_RSA = 2;
+
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final byte[] MAGIC = {'U', 'F', 'T', 'E'};
+    private static final int VERSION = 1;
+    private static final CompressionType[] COMPRESSION_CODES = {
+            CompressionType.NONE, CompressionType.GZIP, CompressionType.BGZF, CompressionType.LZ4,
+            CompressionType.ZSTD, CompressionType.BZIP2, CompressionType.XZ
+    };
+    private static final int FILE_SALT_LENGTH = 16;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int FIXED_HEADER_LENGTH = MAGIC.length + 2 + 8;
+    private static final int MAX_KEY_DATA_LENGTH = 0xffff;
+    private static final byte[] HKDF_INFO = "uft-segmented-aes-gcm".getBytes(StandardCharsets.US_ASCII);
+    private static final long MAX_SEGMENTS = 0xffffffffL;
+
+    private SegmentedAesGcm() {
+    }
+
+    /**
+     * The container header.
+     * @param keySource {@link #KEY_SOURCE_KEY}, {@link #KEY_SOURCE_PASSWORD} or {@link #KEY_SOURCE_RSA}.
+     * @param segmentSize The plaintext size of every segment but the last.
+     * @param iterations The PBKDF2 iteration count, 0 unless a password.
+     * @param keyData The PBKDF2 salt or the wrapped data key, empty for a key.
+     * @param fileSalt The HKDF salt of the per-file key.
+     * @param noncePrefix The per-file nonce prefix.
+     * @param compression The compression of the plaintext, {@link CompressionType#NONE} if uncompressed.
+     * @param encoded The encoded header, authenticated with every segment.
+     */
+    record Header(int keySource, int segmentSize, int iterations, byte[] keyData, byte[] fileSalt, byte[] noncePrefix,
+                  CompressionType compression, byte[] encoded) {
+
+        /**
+         * Creates a header with a fresh file salt and nonce prefix.
+         * @throws IllegalArgumentException if the compression cannot be recorded (see {@link #supportsCompression(CompressionType)}).
+         */
+        static Header create(int keySource, int segmentSize, int iterations, byte[] keyData, CompressionType compression,
+                             SecureRandom random) {
+            int code = List.of(COMPRESSION_CODES).indexOf(compression);
+            if (code < 0) {
+                throw new IllegalArgumentException("Unsupported plaintext compression: " + compression);
+            }
+            if (keyData.length > MAX_KEY_DATA_LENGTH) {
+                throw new IllegalArgumentException("Key data too long: " + keyData.length + " bytes");
+            }
+            byte[] fileSalt = new byte[FILE_SALT_LENGTH];
+            byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+            random.nextBytes(fileSalt);
+            random.nextBytes(noncePrefix);
+            ByteBuffer encoded = ByteBuffer.allocate(FIXED_HEADER_LENGTH + 2 + keyData.length + FILE_SALT_LENGTH + NONCE_PREFIX_LENGTH + 1)
+                    .put(MAGIC).put((byte) VERSION).put((byte) keySource).putInt(segmentSize).putInt(iterations)
+                    .putShort((short) keyData.length).put(keyData).put(fileSalt).put(noncePrefix).put((byte) code);
+            return new Header(keySource, segmentSize, iterations, keyData.clone(), fileSalt, noncePrefix, compression,
+                    encoded.array());
+        }
+
+        /**
+         * Reads and checks the header at the start of {@code in}.
+         * @throws IOException if the file is not a container of a supported version.
+         */
+        static Header read(FileChannel in) throws IOException {
+            ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_LENGTH + 2);
+            readFully(in, fixed, 0);
+            byte[] magic = new byte[MAGIC.length];
+            fixed.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not an encrypted toolkit file");
+            }
+            int version = fixed.get(MAGIC.length) & 0xff;
+            if (version != VERSION) {
+                throw new IOException("Unsupported encrypted file version " + version);
+            }
+            fixed.flip().position(MAGIC.length + 1);
+            int keySource = fixed.get() & 0xff;
+            int segmentSize = fixed.getInt();
+            int iterations = fixed.getInt();
+            int keyDataLength = fixed.getShort() & 0xffff;
+            if ((keySource != KEY_SOURCE_KEY && keySource != KEY_SOURCE_PASSWORD && keySource != KEY_SOURCE_RSA)
+                    || segmentSize < MIN_SEGMENT_SIZE || segmentSize > MAX_SEGMENT_SIZE || iterations < 0) {
+                throw new IOException("Corrupt encrypted file header");
+            }
+            int fixedLength = fixed.limit();
+            ByteBuffer rest = ByteBuffer.allocate(keyDataLength + FILE_SALT_LENGTH + NONCE_PREFIX_LENGTH + 1);
+            readFully(in, rest, fixedLength);
+            rest.flip();
+            byte[] keyData = new byte[keyDataLength];
+            byte[] fileSalt = new byte[FILE_SALT_LENGTH];
+            byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+            rest.get(keyData).get(fileSalt).get(noncePrefix);
+            int code = rest.get() & 0xff;
+            if (code >= COMPRESSION_CODES.length) {
+                throw new IOException("Corrupt encrypted file header");
+            }
+            byte[] encoded = new byte[fixedLength + rest.capacity()];
+            System.arraycopy(fixed.array(), 0, encoded, 0, fixedLength);
+            System.arraycopy(rest.array(), 0, encoded, fixedLength, rest.capacity());
+            return new Header(keySource, segmentSize, iterations, keyData, fileSalt, noncePrefix, COMPRESSION_CODES[code], encoded);
+        }
+
+        /**
+         * The file offset of a segment.
+         */
+        long segmentOffset(long segment) {
+            return encoded.length + segment * (segmentSize + (long) TAG_LENGTH);
+        }
+    }
+
+    /**
+     * Whether plaintext compressed with {@code type} can be recorded in the header.
+     */
+    static boolean supportsCompression(CompressionType type) {
+        return List.of(COMPRESSION_CODES).contains(type);
+    }
+
+    /**
+     * Derives the per-file AES key from the caller's key with HKDF-SHA256; the result has the same length.
+     * @throws InvalidKeyException if {@code key} is not a 128, 192 or 256 bit AES key.
+     */
+    static SecretKey fileKey(SecretKey key, Header header, CryptoProviders providers) throws GeneralSecurityException {
+        byte[] material = key.getEncoded();
+        if (material == null || (material.length != 16 && material.length != 24 && material.length != 32)) {
+            throw new InvalidKeyException("AES keys must be 128, 192 or 256 bits");
+        }
+        byte[] pseudoRandomKey = null;
+        byte[] output = null;
+        try {
+            Mac mac = providers.mac("HmacSHA256");
+            mac.init(new SecretKeySpec(header.fileSalt(), "HmacSHA256"));
+            pseudoRandomKey = mac.doFinal(material);
+            mac.init(new SecretKeySpec(pseudoRandomKey, "HmacSHA256"));
+            mac.update(HKDF_INFO);
+            mac.update((byte) 1);
+            output = mac.doFinal();
+            return new SecretKeySpec(output, 0, material.length, "AES");
+        } finally {
+            Arrays.fill(material, (byte) 0);
+            if (pseudoRandomKey != null) {
+                Arrays.fill(pseudoRandomKey, (byte) 0);
+            }
+            if (output != null) {
+                Arrays.fill(output, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Encrypts the whole of {@code in} into a container on {@code out}.
+     * @param in The plaintext.
+     * @param out The container output.
+     * @param header The header to write.
+     * @param fileKey The per-file key (see {@link #fileKey(SecretKey, Header, CryptoProviders)}).
+     * @param providers The providers of the cipher.
+     * @param workers The threads to encrypt segments on, or {@code null} to encrypt on the calling thread.
+     * @param threads The number of worker threads, which bounds the segments in flight.
+     * @return The number of bytes written.
+     * @throws IOException if reading, writing or encryption fails, or the thread is interrupted.
+     */
+    static long encrypt(FileChannel in, WritableByteChannel out, Header header, SecretKey fileKey, CryptoProviders providers,
+                        ExecutorService workers, int threads) throws IOException {
+        long size = in.size();
+        int segmentSize = header.segmentSize();
+        long segments = Math.max(1, (size + segmentSize - 1) / segmentSize);
+        if (segments > MAX_SEGMENTS) {
+            throw new IOException("File too large for segment size " + segmentSize);
+        }
+        long written = GzipCodec.writeFully(out, ByteBuffer.wrap(header.encoded()));
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        try {
+            for (long segment = 0; segment < segments; segment++) {
+                long position = segment * segmentSize;
+                ByteBuffer plaintext = ByteBuffer.allocate((int) Math.min(segmentSize, size - position));
+                readFully(in, plaintext, position);
+                long index = segment;
+                boolean last = segment == segments - 1;
+                if (workers == null) {
+                    written += GzipCodec.writeFully(out, ByteBuffer.wrap(encryptSegment(providers, fileKey, header, index, last, plaintext.array())));
+                    continue;
+                }
+                pending.add(workers.submit(() -> encryptSegment(providers, fileKey, header, index, last, plaintext.array())));
+                if (pending.size() >= threads * 2) {
+                    written += GzipCodec.writeFully(out, ByteBuffer.wrap(await(pending.poll())));
+                }
+            }
+            while (!pending.isEmpty()) {
+                written += GzipCodec.writeFully(out, ByteBuffer.wrap(await(pending.poll())));
+            }
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+        return written;
+    }
+
+    private static byte[] encryptSegment(CryptoProviders providers, SecretKey fileKey, Header header, long segment, boolean last,
+                                         byte[] plaintext) throws IOException {
+        try {
+            Cipher cipher = providers.cipher(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, fileKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce(header, segment, last)));
+            cipher.updateAAD(header.encoded());
+            return cipher.doFinal(plaintext);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encrypt segment " + segment + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] decryptSegment(CryptoProviders providers, SecretKey fileKey, Header header, long segment, boolean last,
+                                         byte[] ciphertext) throws IOException {
+        try {
+            Cipher cipher = providers.cipher(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, fileKey, new GCMParameterSpec(TAG_LENGTH * 8, nonce(header, segment, last)));
+            cipher.updateAAD(header.encoded());
+            return cipher.doFinal(ciphertext);
+        } catch (AEADBadTagException e) {
+            throw new IOException("Authentication failed for segment " + segment + ": wrong key, or the file was modified or truncated", e);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to decrypt segment " + segment + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] nonce(Header header, long segment, boolean last) {
+        return ByteBuffer.allocate(NONCE_PREFIX_LENGTH + 5).put(header.noncePrefix()).putInt((int) segment)
+                .put((byte) (last ? 1 : 0)).array();
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for segment");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Segment processing failed", e.getCause());
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file at offset " + (position + buffer.position()));
+            }
+        }
+    }
+
+    /**
+     * Encrypts what is written to it into a container, for plaintext that is produced on the fly,
+     * such as the output of a compressor. Written bytes are cut into segments; a full segment is
+     * only encrypted once more data follows it, since the last segment is marked as such, and
+     * {@link #close()} encrypts the last one. Given an executor, segments are encrypted on its
+     * threads while the writer produces the next ones, a bounded number at a time.
+     */
+    static final class EncryptingOutputStream extends OutputStream {
+
+        private final WritableByteChannel out;
+        private final Header header;
+        private final SecretKey fileKey;
+        private final CryptoProviders providers;
+        private final ExecutorService executor;
+        private final int inFlight;
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private byte[] segment;
+        private int count;
+        private long segmentIndex;
+        private long written;
+        private boolean closed;
+
+        /**
+         * Writes the header to {@code out}.
+         * @param out The container output; not closed with this stream.
+         * @param header The header to write.
+         * @param fileKey The per-file key.
+         * @param providers The providers of the cipher.
+         * @param executor The threads to encrypt segments on, or {@code null} to encrypt on the writing thread.
+         * @param inFlight The maximum number of segments encrypted ahead of the output.
+         * @throws IOException if the header cannot be written.
+         */
+        EncryptingOutputStream(WritableByteChannel out, Header header, SecretKey fileKey, CryptoProviders providers,
+                               ExecutorService executor, int inFlight) throws IOException {
+            this.out = out;
+            this.header = header;
+            this.fileKey = fileKey;
+            this.providers = providers;
+            this.executor = executor;
+            this.inFlight = Math.max(1, inFlight);
+            this.segment = new byte[header.segmentSize()];
+            this.written = GzipCodec.writeFully(out, ByteBuffer.wrap(header.encoded()));
+        }
+
+        /**
+         * The number of bytes written to the container output so far, all of them once closed.
+         */
+        long written() {
+            return written;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            while (len > 0) {
+                if (count == segment.length) {
+                    emit(false);
+                }
+                int n = Math.min(len, segment.length - count);
+                System.arraycopy(b, off, segment, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void emit(boolean last) throws IOException {
+            if (segmentIndex >= MAX_SEGMENTS) {
+                throw new IOException("Content too large for segment size " + header.segmentSize());
+            }
+            byte[] plaintext = count == segment.length ? segment : Arrays.copyOf(segment, count);
+            long index = segmentIndex++;
+            if (executor == null) {
+                written += GzipCodec.writeFully(out, ByteBuffer.wrap(encryptSegment(providers, fileKey, header, index, last, plaintext)));
+            } else {
+                pending.add(executor.submit(() -> encryptSegment(providers, fileKey, header, index, last, plaintext)));
+                while (pending.size() >= inFlight || (last && !pending.isEmpty())) {
+                    written += GzipCodec.writeFully(out, ByteBuffer.wrap(await(pending.poll())));
+                }
+            }
+            if (executor != null) {
+                // The full segment may still be in use by a worker
+                segment = new byte[header.segmentSize()];
+            }
+            count = 0;
+        }
+
+        /**
+         * Encrypts the last segment and waits for all segments to be written; does not close the output.
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                emit(true);
+            } finally {
+                pending.forEach(future -> future.cancel(true));
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * Decrypted content of a container from a given plaintext offset. Segments are read on the
+     * calling thread and, given an executor, decrypted ahead of the reader on its threads; content
+     * is only returned once its segment has been authenticated.
+     */
+    static final class DecryptingInputStream extends InputStream {
+
+        private static final byte[] EMPTY = new byte[0];
+
+        private final FileChannel in;
+        private final Header header;
+        private final SecretKey fileKey;
+        private final CryptoProviders providers;
+        private final ExecutorService executor;
+        private final int readAhead;
+        private final long segments;
+        private final long lastSegmentLength;
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private long nextSegment;
+        private byte[] current = EMPTY;
+        private int position;
+        private boolean closed;
+
+        /**
+         * @param in The container; closed with this stream.
+         * @param header The header read from {@code in}.
+         * @param fileKey The per-file key.
+         * @param providers The providers of the cipher.
+         * @param offset The plaintext offset to start at.
+         * @param executor The threads to decrypt segments on, or {@code null} to decrypt on the calling thread.
+         * @param readAhead The maximum number of segments decrypted ahead of the reader.
+         * @throws IOException if the container is truncated or {@code offset} is beyond its content.
+         */
+        DecryptingInputStream(FileChannel in, Header header, SecretKey fileKey, CryptoProviders providers, long offset,
+                              ExecutorService executor, int readAhead) throws IOException {
+            this.in = in;
+            this.header = header;
+            this.fileKey = fileKey;
+            this.providers = providers;
+            this.executor = executor;
+            this.readAhead = executor == null ? 1 : Math.max(1, readAhead);
+            long stride = header.segmentSize() + (long) TAG_LENGTH;
+            long length = in.size() - header.encoded().length;
+            this.segments = (length + stride - 1) / stride;
+            this.lastSegmentLength = length - (segments - 1) * stride;
+            if (segments == 0 || lastSegmentLength < TAG_LENGTH) {
+                throw new EOFException("Truncated encrypted file");
+            }
+            long plaintextSize = length - segments * TAG_LENGTH;
+            if (offset < 0 || offset > plaintextSize) {
+                throw new EOFException("Offset " + offset + " is outside the content (" + plaintextSize + " bytes)");
+            }
+            this.nextSegment = Math.min(offset / header.segmentSize(), segments - 1);
+            long skip = offset - nextSegment * header.segmentSize();
+            if (skip > 0) {
+                available(true);
+                position = (int) skip;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!available(true)) {
+                return -1;
+            }
+            return current[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!available(true)) {
+                return -1;
+            }
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return available(false) ? current.length - position : 0;
+        }
+
+        private boolean available(boolean advance) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            while (position >= current.length) {
+                if (!advance) {
+                    return false;
+                }
+                fill();
+                Future<byte[]> next = pending.poll();
+                if (next == null) {
+                    return false;
+                }
+                current = await(next);
+                position = 0;
+            }
+            return true;
+        }
+
+        private void fill() throws IOException {
+            while (nextSegment < segments && pending.size() < readAhead) {
+                long segment = nextSegment++;
+                boolean last = segment == segments - 1;
+                ByteBuffer ciphertext = ByteBuffer.allocate((int) (last ? lastSegmentLength : header.segmentSize() + TAG_LENGTH));
+                readFully(in, ciphertext, header.segmentOffset(segment));
+                if (executor == null) {
+                    pending.add(CompletableFuture.completedFuture(decryptSegment(providers, fileKey, header, segment, last, ciphertext.array())));
+                } else {
+                    pending.add(executor.submit(() -> decryptSegment(providers, fileKey, header, segment, last, ciphertext.array())));
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.forEach(future -> future.cancel(true));
+            pending.clear();
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.model.ValidationError;
+import com.diyawanna.uft.model.ValidationResult;
+import com.diyawanna.uft.model.ValidationSeverity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The errors found by one validation, up to {@link #MAX_ERRORS}, or up to the first error when
+ * failing fast. A document with only warnings is valid.
+ */
+final class ValidationErrors {
+
+    /** The most errors reported for one document, bounding the memory a bad file can take. */
+    static final int MAX_ERRORS = 1000;
+
+    private final List<ValidationError> errors = new ArrayList<>();
+    private final boolean failFast;
+    private boolean stopped;
+
+    ValidationErrors(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * Adds an error.
+     * @return Whether validation should go on.
+     */
+    boolean add(String path, String message) {
+        return add(path, message, ValidationSeverity.ERROR);
+    }
+
+    /**
+     * Adds an error or warning.
+     * @return Whether validation should go on.
+     */
+    boolean add(String path, String message, ValidationSeverity severity) {
+        if (stopped) {
+            return false;
+        }
+        errors.add(new ValidationError(path, message, severity));
+        if (failFast && severity == ValidationSeverity.ERROR) {
+            stopped = true;
+        } else if (errors.size() >= MAX_ERRORS) {
+            stopped = true;
+            errors.add(new ValidationError("$", "Validation stopped after " + MAX_ERRORS + " errors", ValidationSeverity.WARNING));
+        }
+        return !stopped;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    ValidationResult result() {
+        boolean valid = errors.stream().noneMatch(error -> error.getSeverity() == ValidationSeverity.ERROR);
+        return new ValidationResult(valid, errors);
+    }
+}
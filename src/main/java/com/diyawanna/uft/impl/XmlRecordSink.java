@@ -0,0 +1,98 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.FormatException;
+import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.model.WriteOptions;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * {@link com.diyawanna.uft.api.RecordSink} producing an XML document with a
+ * {@code <records>} root and one {@code <record>} element per record. Column names
+ * are used as child element names, with characters that are not legal in XML
+ * names replaced by {@code _}.
+ */
+final class XmlRecordSink extends AbstractRecordSink {
+
+    static final String ROOT_ELEMENT = "records";
+    static final String RECORD_ELEMENT = "record";
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private final XMLStreamWriter xml;
+
+    XmlRecordSink(Path target, WriteOptions options) throws ToolkitException {
+        super(target, options);
+        try {
+            String encoding = options.getCharset().name();
+            this.xml = OUTPUT_FACTORY.createXMLStreamWriter(out, encoding);
+            xml.writeStartDocument(encoding, "1.0");
+            xml.writeStartElement(ROOT_ELEMENT);
+        } catch (XMLStreamException | RuntimeException e) {
+            abort();
+            throw new FormatException("Failed to initialise XML output for " + target, e);
+        }
+    }
+
+    @Override
+    protected void writeRecord(Map<String, Object> record) throws IOException {
+        try {
+            xml.writeStartElement(RECORD_ELEMENT);
+            for (Map.Entry<String, Object> entry : record.entrySet()) {
+                String text = formatValue(entry.getValue());
+                String name = toElementName(entry.getKey());
+                if (text == null) {
+                    xml.writeEmptyElement(name);
+                } else {
+                    xml.writeStartElement(name);
+                    xml.writeCharacters(text);
+                    xml.writeEndElement();
+                }
+            }
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    protected void flushFormat() throws IOException {
+        try {
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    protected void finish() throws IOException {
+        try {
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String toElementName(String column) {
+        if (column == null || column.isEmpty()) {
+            return "_";
+        }
+        StringBuilder name = new StringBuilder(column.length());
+        for (int i = 0; i < column.length(); i++) {
+            char c = column.charAt(i);
+            boolean legal = i == 0
+                    ? Character.isLetter(c) || c == '_'
+                    : Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.';
+            name.append(legal ? c : '_');
+        }
+        return name.toString();
+    }
+}
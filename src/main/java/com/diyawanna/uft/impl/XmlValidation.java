@@ -0,0 +1,142 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.ValidationException;
+import com.diyawanna.uft.model.ValidationResult;
+import com.diyawanna.uft.model.ValidationSeverity;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Validation of XML documents, against an XML Schema (XSD) if one is given, and otherwise only
+ * for well-formedness. Documents are parsed as a SAX stream, so memory does not grow with their
+ * size. External DTDs are not fetched; a schema may include or import other local schema files.
+ * Errors are reported with their line and column as the path.
+ */
+final class XmlValidation {
+
+    private XmlValidation() {
+    }
+
+    /**
+     * Compiles an XML Schema. {@link Schema} objects are immutable and can be shared between threads.
+     * @throws ValidationException if the schema is invalid.
+     */
+    static Schema compile(Path xsd) throws ValidationException {
+        try {
+            // Factories are not thread-safe, and compilation is rare enough for one per schema
+            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "file");
+            return factory.newSchema(xsd.toFile());
+        } catch (SAXException e) {
+            throw new ValidationException("Invalid XML schema " + xsd + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Validates an XML document.
+     * @param in The document.
+     * @param schema The compiled schema, or {@code null} to only check that the document is well-formed.
+     * @param failFast Whether to stop at the first error.
+     * @throws IOException if reading fails.
+     */
+    static ValidationResult validate(InputStream in, Schema schema, boolean failFast) throws IOException {
+        ValidationErrors errors = new ValidationErrors(failFast);
+        Collector collector = new Collector(errors);
+        try {
+            if (schema != null) {
+                Validator validator = schema.newValidator();
+                validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+                validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+                validator.setErrorHandler(collector);
+                validator.validate(new StreamSource(in));
+            } else {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+                factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                DefaultHandler handler = new DefaultHandler() {
+                    @Override
+                    public void warning(SAXParseException e) throws SAXException {
+                        collector.warning(e);
+                    }
+
+                    @Override
+                    public void error(SAXParseException e) throws SAXException {
+                        collector.error(e);
+                    }
+
+                    @Override
+                    public void fatalError(SAXParseException e) throws SAXException {
+                        collector.fatalError(e);
+                    }
+                };
+                factory.newSAXParser().parse(new InputSource(in), handler);
+            }
+        } catch (SAXException e) {
+            // Either the collector stopped the parse or the error was reported already
+            if (!errors.isStopped() && e != collector.last) {
+                errors.add("$", e.getMessage());
+            }
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("XML parser does not support secure processing", e);
+        }
+        return errors.result();
+    }
+
+    /**
+     * Records parse and validation errors, and stops the parse when no more are wanted.
+     */
+    private static final class Collector implements ErrorHandler {
+        private final ValidationErrors errors;
+        private SAXParseException last;
+
+        Collector(ValidationErrors errors) {
+            this.errors = errors;
+        }
+
+        @Override
+        public void warning(SAXParseException e) throws SAXException {
+            report(e, ValidationSeverity.WARNING);
+        }
+
+        @Override
+        public void error(SAXParseException e) throws SAXException {
+            report(e, ValidationSeverity.ERROR);
+        }
+
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            report(e, ValidationSeverity.ERROR);
+            // The parser cannot go on after a fatal error
+            throw e;
+        }
+
+        private void report(SAXParseException e, ValidationSeverity severity) throws SAXException {
+            // Xerces reports some constraint violations twice at the same position
+            boolean repeated = last != null && last.getLineNumber() == e.getLineNumber()
+                    && last.getColumnNumber() == e.getColumnNumber() && String.valueOf(last.getMessage()).equals(e.getMessage());
+            last = e;
+            if (!repeated && !errors.add("line " + e.getLineNumber() + ", column " + e.getColumnNumber(), e.getMessage(), severity)) {
+                throw e;
+            }
+        }
+    }
+}
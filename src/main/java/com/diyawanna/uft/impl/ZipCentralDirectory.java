@@ -0,0 +1,191 @@
+package com.diyawanna.uft.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * The parsed central directory of a ZIP archive: entry names mapped to the metadata needed to
+ * locate and decode their data. Reading it touches only the end of the archive, so a single
+ * entry can be found in a multi-gigabyte archive with a few small reads. ZIP64 archives are
+ * supported; multi-disk archives are not.
+ */
+final class ZipCentralDirectory {
+
+    static final int METHOD_STORED = 0;
+    static final int METHOD_DEFLATED = 8;
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_LENGTH = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int FLAG_ENCRYPTED = 0x0001;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final long MAGIC_32 = 0xffffffffL;
+    private static final int MAGIC_16 = 0xffff;
+    private static final Charset LEGACY_CHARSET = legacyCharset();
+
+    private final Map<String, Entry> entries;
+
+    private ZipCentralDirectory(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Metadata of one entry, as recorded in the central directory.
+     * @param name The entry name.
+     * @param method The compression method, e.g. {@link #METHOD_STORED} or {@link #METHOD_DEFLATED}.
+     * @param crc The CRC-32 of the uncompressed data.
+     * @param compressedSize The size of the stored data.
+     * @param size The uncompressed size.
+     * @param localHeaderOffset The offset of the entry's local file header.
+     * @param encrypted Whether the entry is encrypted.
+     */
+    record Entry(String name, int method, long crc, long compressedSize, long size, long localHeaderOffset, boolean encrypted) {
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+
+    Entry find(String name) {
+        return entries.get(name);
+    }
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    /**
+     * Reads the central directory of the archive open on {@code channel}.
+     * @param channel The archive.
+     * @return The parsed directory.
+     * @throws IOException if the channel cannot be read or holds no valid ZIP central directory.
+     */
+    static ZipCentralDirectory read(SeekableByteChannel channel) throws IOException {
+        long size = channel.size();
+        int tailLength = (int) Math.min(size, EOCD_LENGTH + MAGIC_16 + ZIP64_LOCATOR_LENGTH);
+        ByteBuffer tail = readFully(channel, size - tailLength, tailLength);
+        int eocd = -1;
+        for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE && i + EOCD_LENGTH + (tail.getShort(i + 20) & MAGIC_16) == tailLength) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new ZipException("No ZIP end of central directory record found");
+        }
+        long count = tail.getShort(eocd + 10) & MAGIC_16;
+        long directorySize = tail.getInt(eocd + 12) & MAGIC_32;
+        long directoryOffset = tail.getInt(eocd + 16) & MAGIC_32;
+        int locator = eocd - ZIP64_LOCATOR_LENGTH;
+        if (locator >= 0 && tail.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+            ByteBuffer zip64 = readFully(channel, tail.getLong(locator + 8), 56);
+            if (zip64.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                throw new ZipException("Corrupt ZIP64 end of central directory record");
+            }
+            count = zip64.getLong(32);
+            directorySize = zip64.getLong(40);
+            directoryOffset = zip64.getLong(48);
+        }
+        if (directorySize > Integer.MAX_VALUE || directoryOffset + directorySize > size) {
+            throw new ZipException("Corrupt ZIP central directory bounds");
+        }
+
+        ByteBuffer directory = readFully(channel, directoryOffset, (int) directorySize);
+        Map<String, Entry> entries = new HashMap<>((int) Math.min(count, 1 << 20) * 4 / 3 + 1);
+        for (long i = 0; i < count; i++) {
+            int start = directory.position();
+            if (directory.remaining() < 46 || directory.getInt(start) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Corrupt ZIP central directory header at entry " + i);
+            }
+            int flags = directory.getShort(start + 8) & MAGIC_16;
+            int method = directory.getShort(start + 10) & MAGIC_16;
+            long crc = directory.getInt(start + 16) & MAGIC_32;
+            long compressedSize = directory.getInt(start + 20) & MAGIC_32;
+            long uncompressedSize = directory.getInt(start + 24) & MAGIC_32;
+            int nameLength = directory.getShort(start + 28) & MAGIC_16;
+            int extraLength = directory.getShort(start + 30) & MAGIC_16;
+            int commentLength = directory.getShort(start + 32) & MAGIC_16;
+            long offset = directory.getInt(start + 42) & MAGIC_32;
+
+            byte[] nameBytes = new byte[nameLength];
+            directory.position(start + 46);
+            directory.get(nameBytes);
+            String name = new String(nameBytes, (flags & FLAG_UTF8) != 0 ? StandardCharsets.UTF_8 : LEGACY_CHARSET);
+
+            // ZIP64 extended information holds, in order, only the fields saturated above
+            int extraEnd = directory.position() + extraLength;
+            while (directory.position() + 4 <= extraEnd) {
+                int id = directory.getShort() & MAGIC_16;
+                int length = directory.getShort() & MAGIC_16;
+                int next = directory.position() + length;
+                if (id == ZIP64_EXTRA_ID) {
+                    if (uncompressedSize == MAGIC_32) {
+                        uncompressedSize = directory.getLong();
+                    }
+                    if (compressedSize == MAGIC_32) {
+                        compressedSize = directory.getLong();
+                    }
+                    if (offset == MAGIC_32) {
+                        offset = directory.getLong();
+                    }
+                }
+                directory.position(next);
+            }
+            directory.position(extraEnd + commentLength);
+            entries.putIfAbsent(name, new Entry(name, method, crc, compressedSize, uncompressedSize, offset,
+                    (flags & FLAG_ENCRYPTED) != 0));
+        }
+        return new ZipCentralDirectory(entries);
+    }
+
+    /**
+     * Returns the offset of an entry's data, which follows its variable-length local header.
+     * @param channel The archive.
+     * @param entry The entry.
+     * @return The absolute offset of the first data byte.
+     * @throws IOException if the local header cannot be read or is invalid.
+     */
+    static long dataOffset(SeekableByteChannel channel, Entry entry) throws IOException {
+        ByteBuffer header = readFully(channel, entry.localHeaderOffset(), LOCAL_HEADER_LENGTH);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Corrupt ZIP local header for entry " + entry.name());
+        }
+        return entry.localHeaderOffset() + LOCAL_HEADER_LENGTH + (header.getShort(26) & MAGIC_16) + (header.getShort(28) & MAGIC_16);
+    }
+
+    private static ByteBuffer readFully(SeekableByteChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of ZIP archive at offset " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static Charset legacyCharset() {
+        try {
+            return Charset.forName("IBM437");
+        } catch (UnsupportedCharsetException e) {
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.diyawanna.uft.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decoded content of a single stored or deflated ZIP entry, read directly from its position in
+ * the archive. The inflater and buffer are borrowed from a {@link CodecPool} and returned on
+ * {@link #close()}, which also closes the archive channel. The CRC-32 and size recorded in the
+ * central directory are verified when the end of the entry is reached.
+ */
+final class ZipEntryInputStream extends InputStream {
+
+    private final SeekableByteChannel channel;
+    private final ZipCentralDirectory.Entry entry;
+    private final CodecPool pool;
+    private final CRC32 crc = new CRC32();
+    private Inflater inflater;
+    private byte[] buffer;
+    private long position;
+    private long remaining;
+    private long produced;
+    private boolean closed;
+
+    ZipEntryInputStream(SeekableByteChannel channel, ZipCentralDirectory.Entry entry, long dataOffset, CodecPool pool) {
+        this.channel = channel;
+        this.entry = entry;
+        this.pool = pool;
+        this.position = dataOffset;
+        this.remaining = entry.compressedSize();
+        this.buffer = pool.borrowArray();
+        this.inflater = entry.method() == ZipCentralDirectory.METHOD_DEFLATED ? pool.borrowInflater() : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int n = inflater == null ? readStored(b, off, len) : readDeflated(b, off, len);
+        if (n < 0) {
+            verify();
+            return -1;
+        }
+        crc.update(b, off, n);
+        produced += n;
+        return n;
+    }
+
+    private int readStored(byte[] b, int off, int len) throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+        int n = readChannel(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)));
+        remaining -= n;
+        return n;
+    }
+
+    private int readDeflated(byte[] b, int off, int len) throws IOException {
+        try {
+            while (true) {
+                int n = inflater.inflate(b, off, len);
+                if (n > 0) {
+                    return n;
+                }
+                if (inflater.finished()) {
+                    return -1;
+                }
+                if (inflater.needsDictionary()) {
+                    throw new ZipException("ZIP entry requires a preset dictionary: " + entry.name());
+                }
+                if (inflater.needsInput()) {
+                    if (remaining == 0) {
+                        throw new EOFException("Truncated ZIP entry: " + entry.name());
+                    }
+                    int count = readChannel(ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, remaining)));
+                    remaining -= count;
+                    inflater.setInput(buffer, 0, count);
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt ZIP entry " + entry.name() + ": " + e.getMessage());
+        }
+    }
+
+    private int readChannel(ByteBuffer target) throws IOException {
+        channel.position(position);
+        int n = channel.read(target);
+        if (n < 0) {
+            throw new EOFException("Unexpected end of ZIP archive in entry " + entry.name());
+        }
+        position += n;
+        return n;
+    }
+
+    private void verify() throws ZipException {
+        if (produced != entry.size()) {
+            throw new ZipException("Size mismatch in ZIP entry " + entry.name());
+        }
+        if (crc.getValue() != entry.crc()) {
+            throw new ZipException("CRC-32 mismatch in ZIP entry " + entry.name());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        pool.release(buffer);
+        buffer = null;
+        if (inflater != null) {
+            pool.release(inflater);
+            inflater = null;
+        }
+        channel.close();
+    }
+}
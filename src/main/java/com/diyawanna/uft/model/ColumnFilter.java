@@ -0,0 +1,146 @@
+package com.diyawanna.uft.model;
+
+import java.util.Objects;
+
+/**
+ * An inclusive range condition on a single column, used to filter tabular reads.
+ * Readers of formats that keep per-chunk statistics (see {@link FileFormat#COLUMNAR}) use it to
+ * skip whole chunks whose min/max range cannot match, before applying it to individual rows.
+ * Numbers are compared by value regardless of their boxed type; other values must be
+ * mutually {@link Comparable}. A {@code null} cell never matches.
+ */
+public final class ColumnFilter {
+    private final String column;
+    private final Object min;
+    private final Object max;
+
+    private ColumnFilter(String column, Object min, Object max) {
+        this.column = Objects.requireNonNull(column, "column");
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Matches values between {@code min} and {@code max}, both inclusive.
+     * @param column The column name.
+     * @param min The lower bound.
+     * @param max The upper bound.
+     * @return A new {@link ColumnFilter}.
+     */
+    public static ColumnFilter between(String column, Object min, Object max) {
+        return new ColumnFilter(column, Objects.requireNonNull(min, "min"), Objects.requireNonNull(max, "max"));
+    }
+
+    /**
+     * Matches values equal to {@code value}.
+     * @param column The column name.
+     * @param value The value to match.
+     * @return A new {@link ColumnFilter}.
+     */
+    public static ColumnFilter equalTo(String column, Object value) {
+        return between(column, value, value);
+    }
+
+    /**
+     * Matches values greater than or equal to {@code min}.
+     * @param column The column name.
+     * @param min The lower bound.
+     * @return A new {@link ColumnFilter}.
+     */
+    public static ColumnFilter atLeast(String column, Object min) {
+        return new ColumnFilter(column, Objects.requireNonNull(min, "min"), null);
+    }
+
+    /**
+     * Matches values less than or equal to {@code max}.
+     * @param column The column name.
+     * @param max The upper bound.
+     * @return A new {@link ColumnFilter}.
+     */
+    public static ColumnFilter atMost(String column, Object max) {
+        return new ColumnFilter(column, null, Objects.requireNonNull(max, "max"));
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public Object getMin() {
+        return min;
+    }
+
+    public Object getMax() {
+        return max;
+    }
+
+    /**
+     * Checks whether a single value matches this filter.
+     * @param value The cell value.
+     * @return {@code true} if the value lies within the range.
+     */
+    public boolean matches(Object value) {
+        if (value == null) {
+            return false;
+        }
+        Integer lower = min == null ? Integer.valueOf(1) : compare(value, min);
+        Integer upper = max == null ? Integer.valueOf(-1) : compare(value, max);
+        return lower != null && upper != null && lower >= 0 && upper <= 0;
+    }
+
+    /**
+     * Checks whether any value within {@code [chunkMin, chunkMax]} could match this filter.
+     * Returns {@code true} whenever the answer is not certain, e.g. for incomparable types.
+     * @param chunkMin The smallest value of the chunk.
+     * @param chunkMax The largest value of the chunk.
+     * @return {@code false} only if no value in the range can match.
+     */
+    public boolean mayMatch(Object chunkMin, Object chunkMax) {
+        if (chunkMin == null || chunkMax == null) {
+            return true;
+        }
+        if (min != null) {
+            Integer cmp = compare(chunkMax, min);
+            if (cmp != null && cmp < 0) {
+                return false;
+            }
+        }
+        if (max != null) {
+            Integer cmp = compare(chunkMin, max);
+            if (cmp != null && cmp > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two values, treating all numbers as comparable with each other.
+     * @return The comparison result, or {@code null} if the values are not comparable.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Integer compare(Object a, Object b) {
+        if (a instanceof Number x && b instanceof Number y) {
+            if (isIntegral(x) && isIntegral(y)) {
+                return Long.compare(x.longValue(), y.longValue());
+            }
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a instanceof Comparable ca && a.getClass().isInstance(b)) {
+            return ca.compareTo(b);
+        }
+        return null;
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnFilter{" +
+               "column='" + column + '\'' +
+               ", min=" + min +
+               ", max=" + max +
+               '}';
+    }
+}
@@ -0,0 +1,111 @@
+package com.diyawanna.uft.model;
+
+import java.util.OptionalDouble;
+
+/**
+ * Options for controlling compression operations.
+ * The level trades speed for ratio; its range depends on the {@link CompressionType}:
+ * <ul>
+ *     <li>GZIP, ZIP: deflate level 0 (store) to 9, default 6.</li>
+ *     <li>LZ4: 1 to 9, default 5; levels 1 and 2 favour speed, 7 and above search harder for matches.</li>
+ *     <li>ZSTD: 1 to 22, default 3.</li>
+ *     <li>BZIP2: block size 1 (100 KB) to 9 (900 KB), default 9.</li>
+ *     <li>XZ: preset 0 to 9, default 6.</li>
+ * </ul>
+ * Instead of a level, a target throughput or ratio may be given. The level is then chosen per
+ * input by compressing a sample of it at a few candidate levels: with a throughput target, the
+ * strongest level that is fast enough; with only a ratio target, the fastest level that compresses
+ * well enough. The chosen level is reported in the {@code level} stage of the performance report.
+ */
+public final class CompressionOptions {
+    /** Level value selecting the codec's default. */
+    public static final int DEFAULT_LEVEL = -1;
+
+    private final int level;
+    private final OptionalDouble targetThroughputMBps;
+    private final OptionalDouble targetRatio;
+
+    private CompressionOptions(Builder builder) {
+        this.level = builder.level;
+        this.targetThroughputMBps = builder.targetThroughputMBps > 0 ? OptionalDouble.of(builder.targetThroughputMBps) : OptionalDouble.empty();
+        this.targetRatio = builder.targetRatio > 0 ? OptionalDouble.of(builder.targetRatio) : OptionalDouble.empty();
+    }
+
+    /**
+     * Returns a new builder for creating {@link CompressionOptions} instances.
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public OptionalDouble getTargetThroughputMBps() {
+        return targetThroughputMBps;
+    }
+
+    public OptionalDouble getTargetRatio() {
+        return targetRatio;
+    }
+
+    /**
+     * Whether the level is chosen by sampling the input against a target.
+     * @return {@code true} if a target throughput or ratio is set.
+     */
+    public boolean isAdaptive() {
+        return targetThroughputMBps.isPresent() || targetRatio.isPresent();
+    }
+
+    /**
+     * Builder class for {@link CompressionOptions}.
+     */
+    public static final class Builder {
+        private int level = DEFAULT_LEVEL;
+        private double targetThroughputMBps = 0; // 0 for no target
+        private double targetRatio = 0; // 0 for no target
+
+        private Builder() {}
+
+        /**
+         * Sets the compression level.
+         * @param level The codec-specific level, or {@link #DEFAULT_LEVEL} for the codec's default.
+         * @return The builder instance.
+         */
+        public Builder level(int level) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Chooses the level adaptively: the strongest level whose sampled throughput reaches the target.
+         * @param targetThroughputMBps The minimum compression throughput in MB/s (MiB per second).
+         * @return The builder instance.
+         */
+        public Builder targetThroughputMBps(double targetThroughputMBps) {
+            this.targetThroughputMBps = targetThroughputMBps;
+            return this;
+        }
+
+        /**
+         * Chooses the level adaptively: the fastest level whose sampled ratio reaches the target.
+         * Combined with a throughput target, levels must meet both.
+         * @param targetRatio The maximum ratio of compressed to original size, e.g. {@code 0.3}.
+         * @return The builder instance.
+         */
+        public Builder targetRatio(double targetRatio) {
+            this.targetRatio = targetRatio;
+            return this;
+        }
+
+        /**
+         * Builds an immutable {@link CompressionOptions} instance.
+         * @return A new {@link CompressionOptions} instance.
+         */
+        public CompressionOptions build() {
+            return new CompressionOptions(this);
+        }
+    }
+}
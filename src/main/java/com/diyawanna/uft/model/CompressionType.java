@@ -6,7 +6,10 @@ package com.diyawanna.uft.model;
 public enum CompressionType {
     GZIP,
     ZIP,
-    NONE
+    NONE,
+    LZ4,   // LZ4 frame format; fastest, moderate ratio
+    ZSTD,  // Zstandard; fast with good ratio, requires zstd-jni on the classpath
+    BZIP2, // High ratio, slow
+    XZ,    // Highest ratio (LZMA2), slowest; requires org.tukaani:xz on the classpath
+    BGZF   // Blocked GZIP (as in htslib): gunzip-compatible, indexed for parallel and random-access reads
 }
-
-
@@ -1,5 +1,6 @@
 package com.diyawanna.uft.model;
 
+import javax.crypto.SecretKey;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.security.PublicKey;
@@ -10,7 +11,12 @@ import java.util.Optional;
  * Includes settings for encryption type, keys, passwords, and algorithm details.
  */
 public final class EncryptionOptions {
+
+    /** Default plaintext size of each encrypted segment (1 MB). */
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
     private final EncryptionType type;
+    private final Optional<SecretKey> secretKey;
     private final Optional<KeyPair> rsaKeyPair;
     private final Optional<PublicKey> rsaPublicKey;
     private final Optional<PrivateKey> rsaPrivateKey;
@@ -18,9 +24,13 @@ public final class EncryptionOptions {
     private final Optional<String> cipherTransformation;
     private final boolean useSalt;
     private final int iterations;
+    private final int segmentSize;
+    private final CompressionType compressWith;
+    private final int compressionLevel;
 
     private EncryptionOptions(Builder builder) {
         this.type = builder.type;
+        this.secretKey = Optional.ofNullable(builder.secretKey);
         this.rsaKeyPair = Optional.ofNullable(builder.rsaKeyPair);
         this.rsaPublicKey = Optional.ofNullable(builder.rsaPublicKey);
         this.rsaPrivateKey = Optional.ofNullable(builder.rsaPrivateKey);
@@ -28,6 +38,9 @@ public final class EncryptionOptions {
         this.cipherTransformation = Optional.ofNullable(builder.cipherTransformation);
         this.useSalt = builder.useSalt;
         this.iterations = builder.iterations;
+        this.segmentSize = builder.segmentSize;
+        this.compressWith = builder.compressWith;
+        this.compressionLevel = builder.compressionLevel;
     }
 
     /**
@@ -42,6 +55,10 @@ public final class EncryptionOptions {
         return type;
     }
 
+    public Optional<SecretKey> getSecretKey() {
+        return secretKey;
+    }
+
     public Optional<KeyPair> getRsaKeyPair() {
         return rsaKeyPair;
     }
@@ -70,11 +87,24 @@ public final class EncryptionOptions {
         return iterations;
     }
 
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public CompressionType getCompressWith() {
+        return compressWith;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
     /**
      * Builder class for {@link EncryptionOptions}.
      */
     public static final class Builder {
         private EncryptionType type = EncryptionType.AES;
+        private SecretKey secretKey = null;
         private KeyPair rsaKeyPair = null;
         private PublicKey rsaPublicKey = null;
         private PrivateKey rsaPrivateKey = null;
@@ -82,6 +112,9 @@ public final class EncryptionOptions {
         private String cipherTransformation = null;
         private boolean useSalt = true;
         private int iterations = 10000; // Default PBKDF2 iterations
+        private int segmentSize = DEFAULT_SEGMENT_SIZE;
+        private CompressionType compressWith = CompressionType.NONE;
+        private int compressionLevel = CompressionOptions.DEFAULT_LEVEL;
 
         private Builder() {}
 
@@ -90,6 +123,14 @@ public final class EncryptionOptions {
             return this;
         }
 
+        /**
+         * Sets the AES key (128, 192 or 256 bits) for {@link EncryptionType#AES}.
+         */
+        public Builder secretKey(SecretKey secretKey) {
+            this.secretKey = secretKey;
+            return this;
+        }
+
         public Builder rsaKeyPair(KeyPair rsaKeyPair) {
             this.rsaKeyPair = rsaKeyPair;
             return this;
@@ -125,6 +166,36 @@ public final class EncryptionOptions {
             return this;
         }
 
+        /**
+         * Sets the plaintext size of each independently authenticated segment of the encrypted file.
+         * Segments are encrypted and decrypted in parallel and are the unit of random access;
+         * each adds 16 bytes of authentication tag. Decryption reads the size from the file.
+         */
+        public Builder segmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the compression applied to the plaintext before it is encrypted, in the same pass:
+         * the file is read once and no compressed intermediate is written. The compression is
+         * recorded in the encrypted file, and decryption decompresses accordingly. ZIP is not
+         * supported, being an archive format.
+         */
+        public Builder compressWith(CompressionType compressWith) {
+            this.compressWith = compressWith;
+            return this;
+        }
+
+        /**
+         * Sets the level of the {@link #compressWith(CompressionType) compression}, within the
+         * range of its type (see {@link CompressionOptions}); {@link CompressionOptions#DEFAULT_LEVEL} by default.
+         */
+        public Builder compressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
         public EncryptionOptions build() {
             return new EncryptionOptions(this);
         }
@@ -10,7 +10,8 @@ public enum FileFormat {
     EXCEL,
     YAML,
     GZIP, // Used for compression operations
-    ZIP   // Used for compression operations
+    ZIP,  // Used for compression operations
+    COLUMNAR // Toolkit-native binary columnar format for intermediate/cache files
 }
 
 
@@ -0,0 +1,117 @@
+package com.diyawanna.uft.model;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Describes one unit of work in a bulk job: a single-file transform, validation or compression.
+ * Instances are immutable and created with the static factory methods.
+ */
+public final class FileJob {
+
+    /**
+     * The operation a {@link FileJob} performs.
+     */
+    public enum Operation {
+        TRANSFORM,
+        VALIDATE,
+        COMPRESS
+    }
+
+    private final Operation operation;
+    private final File source;
+    private final FileFormat sourceFormat;
+    private final File target;
+    private final FileFormat targetFormat;
+    private final TransformOptions transformOptions;
+    private final ValidationOptions validationOptions;
+    private final CompressionType compressionType;
+
+    private FileJob(Operation operation, File source, FileFormat sourceFormat, File target, FileFormat targetFormat,
+                    TransformOptions transformOptions, ValidationOptions validationOptions, CompressionType compressionType) {
+        this.operation = operation;
+        this.source = Objects.requireNonNull(source, "source");
+        this.sourceFormat = sourceFormat;
+        this.target = target;
+        this.targetFormat = targetFormat;
+        this.transformOptions = transformOptions;
+        this.validationOptions = validationOptions;
+        this.compressionType = compressionType;
+    }
+
+    /**
+     * Creates a job that transforms {@code source} into {@code target}.
+     * @param source The source file.
+     * @param sourceFormat The format of the source file.
+     * @param target The target file.
+     * @param targetFormat The desired format for the target file.
+     * @param options Transformation options.
+     * @return A new transform job.
+     */
+    public static FileJob transform(File source, FileFormat sourceFormat, File target, FileFormat targetFormat, TransformOptions options) {
+        return new FileJob(Operation.TRANSFORM, source, sourceFormat, Objects.requireNonNull(target, "target"), targetFormat,
+                options, null, null);
+    }
+
+    /**
+     * Creates a job that validates {@code source}.
+     * @param source The file to validate.
+     * @param format The format of the file.
+     * @param options Validation options.
+     * @return A new validation job.
+     */
+    public static FileJob validate(File source, FileFormat format, ValidationOptions options) {
+        return new FileJob(Operation.VALIDATE, source, format, null, null, null, options, null);
+    }
+
+    /**
+     * Creates a job that compresses {@code source}.
+     * @param source The file to compress.
+     * @param type The type of compression to apply.
+     * @return A new compression job.
+     */
+    public static FileJob compress(File source, CompressionType type) {
+        return new FileJob(Operation.COMPRESS, source, null, null, null, null, null, type);
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public File getSource() {
+        return source;
+    }
+
+    public FileFormat getSourceFormat() {
+        return sourceFormat;
+    }
+
+    public File getTarget() {
+        return target;
+    }
+
+    public FileFormat getTargetFormat() {
+        return targetFormat;
+    }
+
+    public TransformOptions getTransformOptions() {
+        return transformOptions;
+    }
+
+    public ValidationOptions getValidationOptions() {
+        return validationOptions;
+    }
+
+    public CompressionType getCompressionType() {
+        return compressionType;
+    }
+
+    @Override
+    public String toString() {
+        return "FileJob{" +
+               "operation=" + operation +
+               ", source=" + source +
+               (target != null ? ", target=" + target : "") +
+               '}';
+    }
+}
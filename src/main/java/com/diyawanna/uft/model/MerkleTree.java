@@ -0,0 +1,92 @@
+package com.diyawanna.uft.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the Merkle tree hash of a file: the digest of every fixed-size chunk and the root
+ * that combines them. Two trees of the same hash type and chunk size can be compared chunk by
+ * chunk to find which parts of a file differ.
+ */
+public final class MerkleTree {
+    private final HashType hashType;
+    private final int chunkSize;
+    private final long fileSize;
+    private final byte[][] chunkDigests;
+    private final byte[] root;
+
+    /**
+     * Constructs a new MerkleTree.
+     * @param hashType The hash algorithm of the tree.
+     * @param chunkSize The size of every chunk but the last.
+     * @param fileSize The size of the hashed file.
+     * @param chunkDigests The digest of each chunk, in file order.
+     * @param root The root digest.
+     */
+    public MerkleTree(HashType hashType, int chunkSize, long fileSize, List<byte[]> chunkDigests, byte[] root) {
+        this.hashType = hashType;
+        this.chunkSize = chunkSize;
+        this.fileSize = fileSize;
+        this.chunkDigests = chunkDigests.stream().map(byte[]::clone).toArray(byte[][]::new);
+        this.root = root.clone();
+    }
+
+    public HashType getHashType() {
+        return hashType;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public int getChunkCount() {
+        return chunkDigests.length;
+    }
+
+    /**
+     * Returns the digest of a chunk.
+     * @param chunk The chunk index.
+     * @return A copy of the digest.
+     */
+    public byte[] getChunkDigest(int chunk) {
+        return chunkDigests[chunk].clone();
+    }
+
+    /**
+     * Returns the root digest, which identifies the whole file.
+     * @return A copy of the root digest.
+     */
+    public byte[] getRoot() {
+        return root.clone();
+    }
+
+    /**
+     * Lists the chunks whose content differs from another tree of the same file layout,
+     * including chunks present in only one of them.
+     * @param other The tree to compare with, e.g. that of the original file.
+     * @return The indices of the differing chunks, empty if the files are identical.
+     * @throws IllegalArgumentException if the trees use different hash types or chunk sizes.
+     */
+    public List<Integer> differingChunks(MerkleTree other) {
+        if (hashType != other.hashType || chunkSize != other.chunkSize) {
+            throw new IllegalArgumentException("Cannot compare a " + hashType + " tree of " + chunkSize + "-byte chunks with a "
+                    + other.hashType + " tree of " + other.chunkSize + "-byte chunks");
+        }
+        List<Integer> differing = new ArrayList<>();
+        if (fileSize == other.fileSize && Arrays.equals(root, other.root)) {
+            return differing;
+        }
+        int count = Math.max(chunkDigests.length, other.chunkDigests.length);
+        for (int i = 0; i < count; i++) {
+            if (i >= chunkDigests.length || i >= other.chunkDigests.length || !Arrays.equals(chunkDigests[i], other.chunkDigests[i])) {
+                differing.add(i);
+            }
+        }
+        return differing;
+    }
+}
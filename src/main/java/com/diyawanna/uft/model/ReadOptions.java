@@ -2,12 +2,13 @@ package com.diyawanna.uft.model;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
 import java.io.File;
 
 /**
  * Options for controlling how data is read from files.
- * Includes settings for character encoding, CSV delimiters, and schema files.
+ * Includes settings for character encoding, CSV delimiters, schema files, and column projection and filtering.
  */
 public final class ReadOptions {
     private final Charset charset;
@@ -16,6 +17,8 @@ public final class ReadOptions {
     private final boolean streamMode;
     private final Optional<File> schemaFile; // For JSON schema / XSD
     private final boolean allowAdditionalProperties; // For JSON
+    private final List<String> columns; // Projection; empty for all columns
+    private final List<ColumnFilter> filters;
 
     private ReadOptions(Builder builder) {
         this.charset = builder.charset;
@@ -24,6 +27,8 @@ public final class ReadOptions {
         this.streamMode = builder.streamMode;
         this.schemaFile = Optional.ofNullable(builder.schemaFile);
         this.allowAdditionalProperties = builder.allowAdditionalProperties;
+        this.columns = List.copyOf(builder.columns);
+        this.filters = List.copyOf(builder.filters);
     }
 
     /**
@@ -58,6 +63,14 @@ public final class ReadOptions {
         return allowAdditionalProperties;
     }
 
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<ColumnFilter> getFilters() {
+        return filters;
+    }
+
     /**
      * Builder class for {@link ReadOptions}.
      */
@@ -68,6 +81,8 @@ public final class ReadOptions {
         private boolean streamMode = false;
         private File schemaFile = null;
         private boolean allowAdditionalProperties = true;
+        private List<String> columns = List.of();
+        private List<ColumnFilter> filters = List.of();
 
         private Builder() {}
 
@@ -101,6 +116,26 @@ public final class ReadOptions {
             return this;
         }
 
+        /**
+         * Restricts tabular reads to the given columns, in the given order.
+         * @param columns The column names to read; empty for all columns.
+         * @return The builder instance.
+         */
+        public Builder columns(List<String> columns) {
+            this.columns = columns;
+            return this;
+        }
+
+        /**
+         * Only returns rows matching all of the given filters.
+         * @param filters The row filters.
+         * @return The builder instance.
+         */
+        public Builder filters(List<ColumnFilter> filters) {
+            this.filters = filters;
+            return this;
+        }
+
         public ReadOptions build() {
             return new ReadOptions(this);
         }
@@ -0,0 +1,96 @@
+package com.diyawanna.uft.model;
+
+/**
+ * Options for Merkle tree hashing of a file.
+ * Includes settings for the hash algorithm, the chunk size and the reuse of earlier chunk digests.
+ */
+public final class TreeHashOptions {
+
+    /** Default size of each hashed chunk (4 MB). */
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final HashType hashType;
+    private final int chunkSize;
+    private final boolean sidecar;
+    private final boolean appendOnly;
+
+    private TreeHashOptions(Builder builder) {
+        this.hashType = builder.hashType;
+        this.chunkSize = builder.chunkSize;
+        this.sidecar = builder.sidecar;
+        this.appendOnly = builder.appendOnly;
+    }
+
+    /**
+     * Returns a new builder for creating {@link TreeHashOptions} instances.
+     * @return A new {@link Builder} instance.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public HashType getHashType() {
+        return hashType;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isSidecar() {
+        return sidecar;
+    }
+
+    public boolean isAppendOnly() {
+        return appendOnly;
+    }
+
+    /**
+     * Builder class for {@link TreeHashOptions}.
+     */
+    public static final class Builder {
+        private HashType hashType = HashType.SHA_256;
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private boolean sidecar = false;
+        private boolean appendOnly = false;
+
+        private Builder() {}
+
+        public Builder hashType(HashType hashType) {
+            this.hashType = hashType;
+            return this;
+        }
+
+        /**
+         * Sets the size of the chunks hashed in parallel, the leaves of the tree. Smaller chunks
+         * locate differences more precisely at the cost of a larger tree.
+         */
+        public Builder chunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Sets whether the chunk digests are saved next to the file and reused. A file whose size
+         * and modification time match its saved digests is not read again.
+         */
+        public Builder sidecar(boolean sidecar) {
+            this.sidecar = sidecar;
+            return this;
+        }
+
+        /**
+         * Sets whether the file is known to only grow, such as a transfer in progress or resumed.
+         * The complete chunks recorded in the sidecar are then trusted and only the chunks from
+         * the previous end of the file onwards are hashed. Has no effect without {@link #sidecar(boolean)}.
+         */
+        public Builder appendOnly(boolean appendOnly) {
+            this.appendOnly = appendOnly;
+            return this;
+        }
+
+        public TreeHashOptions build() {
+            return new TreeHashOptions(this);
+        }
+    }
+}
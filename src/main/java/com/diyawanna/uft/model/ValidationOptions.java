@@ -6,19 +6,24 @@ import java.util.Optional;
 
 /**
  * Options for controlling validation operations.
- * Includes settings for fail-fast behavior, schema files, required columns, and additional properties.
+ * Includes settings for fail-fast behavior, schema files, required columns, additional properties,
+ * structure-only checks and the CSV delimiter.
  */
 public final class ValidationOptions {
     private final boolean failFast;
     private final Optional<File> schemaFile;
     private final List<String> requiredColumns;
     private final boolean allowAdditionalProperties;
+    private final boolean structuralOnly;
+    private final String csvDelimiter;
 
     private ValidationOptions(Builder builder) {
         this.failFast = builder.failFast;
         this.schemaFile = Optional.ofNullable(builder.schemaFile);
         this.requiredColumns = builder.requiredColumns;
         this.allowAdditionalProperties = builder.allowAdditionalProperties;
+        this.structuralOnly = builder.structuralOnly;
+        this.csvDelimiter = builder.csvDelimiter;
     }
 
     /**
@@ -45,6 +50,14 @@ public final class ValidationOptions {
         return allowAdditionalProperties;
     }
 
+    public boolean isStructuralOnly() {
+        return structuralOnly;
+    }
+
+    public String getCsvDelimiter() {
+        return csvDelimiter;
+    }
+
     /**
      * Builder class for {@link ValidationOptions}.
      */
@@ -53,6 +66,8 @@ public final class ValidationOptions {
         private File schemaFile = null;
         private List<String> requiredColumns = List.of();
         private boolean allowAdditionalProperties = true;
+        private boolean structuralOnly = false;
+        private String csvDelimiter = ",";
 
         private Builder() {}
 
@@ -76,6 +91,34 @@ public final class ValidationOptions {
             return this;
         }
 
+        /**
+         * Checks only the structure of the file and ignores the schema file: well-formedness, and
+         * for CSV the header, required columns, field counts, quoting and encoding, without
+         * reading the values. It rejects malformed files much faster than a full validation.
+         * @param structuralOnly {@code true} to skip schema validation.
+         * @return The builder instance.
+         */
+        public Builder structuralOnly(boolean structuralOnly) {
+            this.structuralOnly = structuralOnly;
+            return this;
+        }
+
+        /**
+         * Sets the field delimiter of CSV files.
+         * @param csvDelimiter A single ASCII character other than a quote or a line break (default {@code ","}).
+         * @return The builder instance.
+         * @throws IllegalArgumentException if {@code csvDelimiter} is not such a character.
+         */
+        public Builder csvDelimiter(String csvDelimiter) {
+            if (csvDelimiter == null || csvDelimiter.length() != 1 || csvDelimiter.charAt(0) >= 0x80
+                    || "\"\r\n".indexOf(csvDelimiter.charAt(0)) >= 0) {
+                throw new IllegalArgumentException("CSV delimiter must be a single ASCII character other than a quote or a line break, got "
+                        + (csvDelimiter == null ? null : "'" + csvDelimiter + "'"));
+            }
+            this.csvDelimiter = csvDelimiter;
+            return this;
+        }
+
         public ValidationOptions build() {
             return new ValidationOptions(this);
         }
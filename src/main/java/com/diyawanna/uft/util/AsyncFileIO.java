@@ -0,0 +1,217 @@
+package com.diyawanna.uft.util;
+
+import com.diyawanna.uft.IOProcessingException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Whole-file reads and writes on top of {@link AsynchronousFileChannel}.
+ * I/O is issued in chunks and continued from completion handlers, so no caller thread waits
+ * on the disk. Cancelling a returned future closes the channel, which aborts the pending
+ * chunk and stops any further I/O; a cancelled or failed write never replaces the target.
+ */
+public final class AsyncFileIO {
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private AsyncFileIO() {
+        // Utility class
+    }
+
+    /**
+     * Asynchronously writes {@code data} to {@code target}, replacing it atomically on success.
+     * @param target The file to write.
+     * @param data The bytes to write, from the buffer's position to its limit.
+     * @param channelExecutor The executor for the channel's completion handlers, or {@code null} for the JDK default group.
+     * @return A future that completes when the file is in place; cancel it to abort the write.
+     */
+    public static CompletableFuture<Void> write(Path target, ByteBuffer data, ExecutorService channelExecutor) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Path absolute = target.toAbsolutePath();
+        Path temp = null;
+        AsynchronousFileChannel channel;
+        try {
+            Files.createDirectories(absolute.getParent());
+            temp = Files.createTempFile(absolute.getParent(), "." + absolute.getFileName(), ".tmp");
+            channel = AsynchronousFileChannel.open(temp,
+                    EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), channelExecutor);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            result.completeExceptionally(new IOProcessingException("Failed to open " + absolute + " for asynchronous writing", e));
+            return result;
+        }
+        Path tempFile = temp;
+        result.whenComplete((value, error) -> {
+            closeQuietly(channel);
+            if (error != null) {
+                deleteQuietly(tempFile);
+            }
+        });
+        new ChunkWriter(channel, data, tempFile, absolute, result).writeFrom(0L);
+        return result;
+    }
+
+    /**
+     * Asynchronously reads the whole of {@code source} into memory.
+     * @param source The file to read.
+     * @param channelExecutor The executor for the channel's completion handlers, or {@code null} for the JDK default group.
+     * @return A future completing with the file content; cancel it to abort the read.
+     */
+    public static CompletableFuture<byte[]> readAll(Path source, ExecutorService channelExecutor) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel;
+        long size;
+        try {
+            channel = AsynchronousFileChannel.open(source, EnumSet.of(StandardOpenOption.READ), channelExecutor);
+            size = channel.size();
+        } catch (IOException e) {
+            result.completeExceptionally(new IOProcessingException("Failed to open " + source.toAbsolutePath() + " for asynchronous reading", e));
+            return result;
+        }
+        result.whenComplete((value, error) -> closeQuietly(channel));
+        if (size > Integer.MAX_VALUE - 8) {
+            result.completeExceptionally(new IOProcessingException("File too large to read into memory: " + source.toAbsolutePath()));
+            return result;
+        }
+        new ChunkReader(channel, ByteBuffer.allocate((int) size), source, result).readFrom(0L);
+        return result;
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Best effort cleanup of a temporary file.
+        }
+    }
+
+    private static final class ChunkWriter implements CompletionHandler<Integer, Long> {
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer data;
+        private final Path temp;
+        private final Path target;
+        private final CompletableFuture<Void> result;
+
+        ChunkWriter(AsynchronousFileChannel channel, ByteBuffer data, Path temp, Path target, CompletableFuture<Void> result) {
+            this.channel = channel;
+            this.data = data;
+            this.temp = temp;
+            this.target = target;
+            this.result = result;
+        }
+
+        void writeFrom(long position) {
+            if (result.isDone()) {
+                return;
+            }
+            ByteBuffer chunk = data.duplicate();
+            chunk.limit(Math.min(chunk.position() + CHUNK_SIZE, chunk.limit()));
+            try {
+                channel.write(chunk, position, position, this);
+            } catch (RuntimeException e) {
+                failed(e, position);
+            }
+        }
+
+        @Override
+        public void completed(Integer written, Long position) {
+            if (result.isDone()) {
+                return;
+            }
+            data.position(data.position() + written);
+            if (data.hasRemaining()) {
+                writeFrom(position + written);
+                return;
+            }
+            try {
+                channel.close();
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                result.complete(null);
+            } catch (IOException e) {
+                failed(e, position);
+            }
+        }
+
+        @Override
+        public void failed(Throwable exc, Long position) {
+            result.completeExceptionally(new IOProcessingException("Asynchronous write to " + target + " failed at offset " + position, exc));
+        }
+    }
+
+    private static final class ChunkReader implements CompletionHandler<Integer, Long> {
+        private final AsynchronousFileChannel channel;
+        private final ByteBuffer buffer;
+        private final Path source;
+        private final CompletableFuture<byte[]> result;
+
+        ChunkReader(AsynchronousFileChannel channel, ByteBuffer buffer, Path source, CompletableFuture<byte[]> result) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.source = source;
+            this.result = result;
+        }
+
+        void readFrom(long position) {
+            if (result.isDone()) {
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                result.complete(buffer.array());
+                return;
+            }
+            ByteBuffer chunk = buffer.duplicate();
+            chunk.limit(Math.min(chunk.position() + CHUNK_SIZE, chunk.limit()));
+            try {
+                channel.read(chunk, position, position, this);
+            } catch (RuntimeException e) {
+                failed(e, position);
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Long position) {
+            if (result.isDone()) {
+                return;
+            }
+            if (read < 0) {
+                // The file shrank after its size was taken; return what is there.
+                result.complete(Arrays.copyOf(buffer.array(), buffer.position()));
+                return;
+            }
+            buffer.position(buffer.position() + read);
+            readFrom(position + read);
+        }
+
+        @Override
+        public void failed(Throwable exc, Long position) {
+            result.completeExceptionally(new IOProcessingException("Asynchronous read of " + source.toAbsolutePath() + " failed at offset " + position, exc));
+        }
+    }
+}
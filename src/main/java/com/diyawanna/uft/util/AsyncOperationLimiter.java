@@ -0,0 +1,95 @@
+package com.diyawanna.uft.util;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of asynchronous operations in flight without blocking the submitting thread.
+ * Operations over the limit are queued and started as running ones complete. An operation
+ * whose result future is already done (e.g. cancelled while queued) is skipped.
+ */
+public final class AsyncOperationLimiter {
+
+    private final int maxConcurrent;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * Constructs a new AsyncOperationLimiter.
+     * @param maxConcurrent The maximum number of operations in flight; zero or negative for no limit.
+     */
+    public AsyncOperationLimiter(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Starts {@code operation} now or once a slot frees up. The slot is held until {@code result}
+     * completes, whichever way it completes. If {@code operation} throws, {@code result} is
+     * completed exceptionally with the thrown exception.
+     * @param result The future that represents the operation's outcome.
+     * @param operation The action that starts the operation; it must eventually complete {@code result}.
+     */
+    public void submit(CompletableFuture<?> result, Runnable operation) {
+        if (maxConcurrent <= 0) {
+            start(result, operation);
+            return;
+        }
+        pending.add(() -> {
+            result.whenComplete((value, error) -> release());
+            start(result, operation);
+        });
+        drain();
+    }
+
+    /**
+     * Returns the number of operations currently holding a slot.
+     * @return The active operation count.
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Returns the number of operations waiting for a slot.
+     * @return The queued operation count.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private static void start(CompletableFuture<?> result, Runnable operation) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            operation.run();
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private void release() {
+        active.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            int current = active.get();
+            if (current >= maxConcurrent) {
+                return;
+            }
+            if (!active.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable next = pending.poll();
+            if (next == null) {
+                active.decrementAndGet();
+                continue;
+            }
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.diyawanna.uft.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk job: one {@link FileJobResult} per submitted job, in submission order,
+ * plus a {@link PerformanceReport} aggregated over the whole run.
+ * The aggregate report's stage timings include {@code jobs}, {@code succeeded}, {@code failed},
+ * {@code filesPerSecond} and {@code throughputMBps}.
+ */
+public final class BulkResult {
+    private final List<FileJobResult> results;
+    private final PerformanceReport performanceReport;
+
+    /**
+     * Constructs a new BulkResult.
+     * @param results The per-job results, in submission order.
+     * @param performanceReport The aggregate performance report.
+     */
+    public BulkResult(List<FileJobResult> results, PerformanceReport performanceReport) {
+        this.results = Collections.unmodifiableList(results);
+        this.performanceReport = performanceReport;
+    }
+
+    public List<FileJobResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the results of the jobs that failed.
+     * @return The failed job results.
+     */
+    public List<FileJobResult> getFailures() {
+        return results.stream().filter(result -> !result.isSuccess()).toList();
+    }
+
+    public int getSuccessCount() {
+        return (int) results.stream().filter(FileJobResult::isSuccess).count();
+    }
+
+    public int getFailureCount() {
+        return results.size() - getSuccessCount();
+    }
+
+    public PerformanceReport getPerformanceReport() {
+        return performanceReport;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" +
+               "jobs=" + results.size() +
+               ", failures=" + getFailureCount() +
+               ", performanceReport=" + performanceReport +
+               '}';
+    }
+}
@@ -0,0 +1,9 @@
+package com.diyawanna.uft.util;
+
+/**
+ * Defines how the Universal File Toolkit runs asynchronous and bulk operations.
+ */
+public enum ExecutionMode {
+    PLATFORM_THREADS, // Run on the configured executor or a toolkit-owned pool of platform threads
+    VIRTUAL_THREADS   // Run each operation on its own virtual thread (Java 21+, falls back to PLATFORM_THREADS)
+}
@@ -0,0 +1,103 @@
+package com.diyawanna.uft.util;
+
+import com.diyawanna.uft.IOProcessingException;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of files a toolkit instance holds open at the same time across its
+ * asynchronous and bulk operations. Bulk jobs block until a permit is available, which is
+ * cheap on virtual threads and lets I/O-bound jobs run at high concurrency without
+ * exhausting file descriptors. Asynchronous operations instead wait for a permit as a future,
+ * completed when another permit is released, so no executor thread is parked on the limit.
+ */
+public final class FileHandleLimiter {
+
+    private final Semaphore permits;
+    private final Queue<CompletableFuture<Permit>> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a new FileHandleLimiter.
+     * @param maxOpenFiles The maximum number of files open at once; zero or negative for no limit.
+     */
+    public FileHandleLimiter(int maxOpenFiles) {
+        this.permits = maxOpenFiles > 0 ? new Semaphore(maxOpenFiles, true) : null;
+    }
+
+    /**
+     * Waits for and takes one permit. Use the returned {@link Permit} in a try-with-resources block.
+     * @return The acquired permit.
+     * @throws IOProcessingException if the thread is interrupted while waiting.
+     */
+    public Permit acquire() throws IOProcessingException {
+        if (permits != null) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOProcessingException("Interrupted while waiting for a file handle permit", e);
+            }
+        }
+        return new Permit();
+    }
+
+    /**
+     * Takes one permit without blocking: now if one is available, otherwise once one is released.
+     * Cancelling the returned future before it completes gives up the place in the queue.
+     * @return A future of the permit.
+     */
+    public CompletableFuture<Permit> acquireAsync() {
+        if (permits == null || permits.tryAcquire()) {
+            return CompletableFuture.completedFuture(new Permit());
+        }
+        CompletableFuture<Permit> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        drain();
+        return waiter;
+    }
+
+    /**
+     * Hands released permits to waiting asynchronous callers.
+     */
+    private void drain() {
+        while (!waiters.isEmpty() && permits.tryAcquire()) {
+            CompletableFuture<Permit> waiter = waiters.poll();
+            if (waiter == null || !waiter.complete(new Permit())) {
+                // Taken by another drain, or cancelled meanwhile
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of permits currently available.
+     * @return The available permits, or {@link Integer#MAX_VALUE} if unlimited.
+     */
+    public int getAvailablePermits() {
+        return permits == null ? Integer.MAX_VALUE : permits.availablePermits();
+    }
+
+    /**
+     * A permit for one open file. Closing it more than once has no further effect.
+     */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                if (permits != null) {
+                    permits.release();
+                    drain();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.diyawanna.uft.util;
+
+import com.diyawanna.uft.ToolkitException;
+import com.diyawanna.uft.model.FileJob;
+
+import java.util.Optional;
+
+/**
+ * The outcome of a single {@link FileJob} within a bulk job.
+ */
+public final class FileJobResult {
+    private final FileJob job;
+    private final Object result;
+    private final ToolkitException error;
+    private final PerformanceReport performanceReport;
+
+    /**
+     * Constructs a new FileJobResult.
+     * @param job The job this result belongs to.
+     * @param result The operation result (e.g., the written file or a {@link com.diyawanna.uft.model.ValidationResult}), or {@code null} on failure.
+     * @param error The error that made the job fail, or {@code null} on success.
+     * @param performanceReport The performance report for the job.
+     */
+    public FileJobResult(FileJob job, Object result, ToolkitException error, PerformanceReport performanceReport) {
+        this.job = job;
+        this.result = result;
+        this.error = error;
+        this.performanceReport = performanceReport;
+    }
+
+    public FileJob getJob() {
+        return job;
+    }
+
+    /**
+     * Checks if the job completed without an error.
+     * @return {@code true} if the job succeeded, {@code false} otherwise.
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns the operation result: the target {@link java.io.File} for transform and compression jobs,
+     * or the {@link com.diyawanna.uft.model.ValidationResult} for validation jobs.
+     * @return The result, or {@code null} if the job failed.
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    public Optional<ToolkitException> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    public PerformanceReport getPerformanceReport() {
+        return performanceReport;
+    }
+
+    @Override
+    public String toString() {
+        return "FileJobResult{" +
+               "job=" + job +
+               ", success=" + isSuccess() +
+               (error != null ? ", error=" + error.getMessage() : "") +
+               '}';
+    }
+}
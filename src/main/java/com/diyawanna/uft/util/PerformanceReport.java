@@ -2,6 +2,7 @@ package com.diyawanna.uft.util;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.OptionalInt;
 
 /**
  * Represents a report of performance metrics for an operation.
@@ -50,6 +51,27 @@ public final class PerformanceReport {
         return stageTimings;
     }
 
+    /**
+     * Returns the read throughput in MB/s (MiB per second). Uses the {@code throughputMBps} stage
+     * when the operation recorded one, and otherwise derives it from bytes read and elapsed time.
+     * @return The throughput, or 0 if it cannot be determined.
+     */
+    public double getThroughputMBps() {
+        if (stageTimings.get("throughputMBps") instanceof Number throughput) {
+            return throughput.doubleValue();
+        }
+        return elapsedMillis > 0 ? bytesRead / (1024.0 * 1024.0) / (elapsedMillis / 1000.0) : 0.0;
+    }
+
+    /**
+     * Returns the compression level used, which for adaptive compression is the level chosen by
+     * sampling (the {@code levelSelection} stage then holds the sampled candidates).
+     * @return The level, or empty if the operation recorded none.
+     */
+    public OptionalInt getCompressionLevel() {
+        return stageTimings.get("level") instanceof Number level ? OptionalInt.of(level.intValue()) : OptionalInt.empty();
+    }
+
     @Override
     public String toString() {
         return "PerformanceReport{" +
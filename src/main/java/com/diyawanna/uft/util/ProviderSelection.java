@@ -0,0 +1,10 @@
+package com.diyawanna.uft.util;
+
+/**
+ * Defines how the Universal File Toolkit chooses a JCA provider for each cipher, MAC, digest and
+ * key derivation algorithm it uses.
+ */
+public enum ProviderSelection {
+    RANKED,   // Fixed ranking: JDK providers (CPU intrinsics for AES-GCM and SHA) first, BouncyCastle last
+    BENCHMARK // Micro-benchmark the providers supporting an algorithm on first use and keep the fastest
+}
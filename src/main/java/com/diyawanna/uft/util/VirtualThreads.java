@@ -0,0 +1,32 @@
+package com.diyawanna.uft.util;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Access point for virtual threads. This is the Java 17 variant, which reports them as unavailable;
+ * the multi-release jar carries a Java 21 variant under {@code META-INF/versions/21} that creates them.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+        // Utility class
+    }
+
+    /**
+     * Checks whether the running JVM supports virtual threads.
+     * @return {@code true} if virtual threads can be created, {@code false} otherwise.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * @param namePrefix The prefix for the thread names.
+     * @return A new {@link ExecutorService}.
+     * @throws UnsupportedOperationException if virtual threads are not supported on this JVM.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+    }
+}
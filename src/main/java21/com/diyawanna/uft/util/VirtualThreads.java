@@ -0,0 +1,32 @@
+package com.diyawanna.uft.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access point for virtual threads. This is the Java 21 variant packaged under
+ * {@code META-INF/versions/21} of the multi-release jar.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+        // Utility class
+    }
+
+    /**
+     * Checks whether the running JVM supports virtual threads.
+     * @return Always {@code true} on Java 21 and later.
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * @param namePrefix The prefix for the thread names.
+     * @return A new {@link ExecutorService}.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+}
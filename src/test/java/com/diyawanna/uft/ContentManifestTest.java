@@ -0,0 +1,183 @@
+package com.diyawanna.uft;
+
+import com.diyawanna.uft.api.SecurityService;
+import com.diyawanna.uft.impl.DefaultSecurityService;
+import com.diyawanna.uft.model.EncryptionOptions;
+import com.diyawanna.uft.model.EncryptionType;
+import com.diyawanna.uft.model.HashType;
+import com.diyawanna.uft.util.LogLevel;
+import com.diyawanna.uft.util.ToolkitLogger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContentManifestTest {
+
+    @TempDir
+    Path dir;
+
+    private final DefaultSecurityService security = new DefaultSecurityService(1);
+    private final AtomicInteger hashes = new AtomicInteger();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void close() {
+        security.close();
+    }
+
+    @Test
+    void newSecretKeyIsNotSkipped() throws Exception {
+        ContentManifest manifest = manifest();
+        Path source = source("payload");
+        EncryptionOptions first = keyOptions((byte) 1);
+        EncryptionOptions second = keyOptions((byte) 2);
+        encrypt(manifest, source, first);
+        encrypt(manifest, source, first);
+        assertEquals(1, runs.get(), "same key: skipped");
+        encrypt(manifest, source, second);
+        assertEquals(2, runs.get(), "new key: encrypted again");
+    }
+
+    @Test
+    void newPasswordIsNotSkipped() throws Exception {
+        ContentManifest manifest = manifest();
+        Path source = source("payload");
+        encrypt(manifest, source, passwordOptions("old password"));
+        encrypt(manifest, source, passwordOptions("old password"));
+        encrypt(manifest, source, passwordOptions("new password"));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void keyIdentifiersAreSaltedPerManifestAndHoldNoSecret() throws Exception {
+        ContentManifest manifest = manifest();
+        EncryptionOptions options = passwordOptions("correct horse");
+        String fingerprint = manifest.fingerprint(options);
+        assertEquals(fingerprint, manifest.fingerprint(options));
+        assertNotEquals(fingerprint, new ContentManifest(dir.resolve("other.json"), service(), logger()).fingerprint(options));
+
+        Path source = source("payload");
+        encrypt(manifest, source, keyOptions((byte) 7));
+        manifest.flush();
+        String saved = Files.readString(dir.resolve("manifest.json"));
+        assertFalse(saved.contains("correct horse"));
+        assertFalse(saved.contains(HexFormat.of().formatHex(key((byte) 7))));
+        // A reloaded manifest keeps its salt, and so its key identifiers
+        assertEquals(fingerprint, manifest().fingerprint(options));
+    }
+
+    @Test
+    void unexportableKeyBypassesTheManifest() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(key((byte) 3), "AES") {
+            @Override
+            public byte[] getEncoded() {
+                return null;
+            }
+        };
+        assertNull(manifest().fingerprint(EncryptionOptions.builder().type(EncryptionType.AES).secretKey(key).build()));
+    }
+
+    @Test
+    void recordReusesKnownHashes() throws Exception {
+        ContentManifest manifest = manifest();
+        Path source = source("payload");
+        manifest.run("compress", source.toFile(), "GZIP", "level=1", this::output);
+        assertEquals(1, hashes.get(), "a new source is hashed once, when recorded");
+
+        manifest.run("compress", source.toFile(), "GZIP", "level=9", this::output);
+        assertEquals(2, runs.get());
+        assertEquals(1, hashes.get(), "an unchanged source keeps its recorded hash");
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() - 60_000));
+        manifest.run("compress", source.toFile(), "GZIP", "level=6", this::output);
+        assertEquals(3, runs.get());
+        assertEquals(2, hashes.get(), "touched and options changed: nothing to compare, the source is hashed when recorded");
+        hashes.set(0);
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() - 60_000));
+        manifest.run("compress", source.toFile(), "GZIP", "level=6", this::output);
+        assertEquals(3, runs.get(), "touched but unchanged: skipped");
+        assertEquals(1, hashes.get());
+
+        Files.writeString(source, "PAYLOAD");
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() - 60_000));
+        manifest.run("compress", source.toFile(), "GZIP", "level=6", this::output);
+        assertEquals(4, runs.get(), "same size, new content: run again");
+        assertEquals(2, hashes.get(), "the hash taken by the lookup is recorded");
+    }
+
+    private void encrypt(ContentManifest manifest, Path source, EncryptionOptions options) throws ToolkitException {
+        manifest.run("encrypt", source.toFile(), "", manifest.fingerprint(options), this::output);
+    }
+
+    private File output() throws ToolkitException {
+        runs.incrementAndGet();
+        try {
+            return Files.writeString(dir.resolve("output-" + runs.get()), "output").toFile();
+        } catch (IOException e) {
+            throw new IOProcessingException("Failed to write output", e);
+        }
+    }
+
+    private ContentManifest manifest() {
+        return new ContentManifest(dir.resolve("manifest.json"), service(), logger());
+    }
+
+    /**
+     * The security service, counting content hashes.
+     */
+    private SecurityService service() {
+        return (SecurityService) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SecurityService.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("hash") && args.length == 2 && args[1] == HashType.SHA_256) {
+                        hashes.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(security, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private Path source(String content) throws Exception {
+        return Files.writeString(dir.resolve("source.txt"), content, StandardCharsets.UTF_8);
+    }
+
+    private static EncryptionOptions keyOptions(byte seed) {
+        return EncryptionOptions.builder().type(EncryptionType.AES).secretKey(new SecretKeySpec(key(seed), "AES")).build();
+    }
+
+    private static EncryptionOptions passwordOptions(String password) {
+        return EncryptionOptions.builder().type(EncryptionType.AES).password(password.toCharArray()).build();
+    }
+
+    private static byte[] key(byte seed) {
+        byte[] key = new byte[32];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) (seed * 31 + i);
+        }
+        return key;
+    }
+
+    private static ToolkitLogger logger() {
+        return new ToolkitLogger(false, LogLevel.ERROR, null);
+    }
+}
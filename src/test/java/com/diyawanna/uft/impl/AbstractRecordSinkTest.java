@@ -0,0 +1,86 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.IOProcessingException;
+import com.diyawanna.uft.model.WriteOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AbstractRecordSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void publishesOnClose() throws Exception {
+        Path target = dir.resolve("out.txt");
+        LineSink sink = new LineSink(target, false);
+        sink.write(Map.of("a", 1));
+        sink.write(Map.of("a", 2));
+        sink.close();
+        assertEquals("{a=1}\n{a=2}\nend\n", Files.readString(target));
+        assertEquals(2, sink.getRecordCount());
+        assertEquals(1, fileCount());
+    }
+
+    @Test
+    void closesOutputAndDiscardsItWhenFinishingFails() throws Exception {
+        Path target = dir.resolve("out.txt");
+        LineSink sink = new LineSink(target, true);
+        sink.write(Map.of("a", 1));
+        assertThrows(IOProcessingException.class, sink::close);
+        assertFalse(Files.exists(target));
+        assertEquals(0, fileCount());
+        // The stream under the sink was closed before the temporary file was deleted
+        assertThrows(IOException.class, () -> {
+            sink.out.write('x');
+            sink.out.flush();
+        });
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * Writes one line per record and a closing line, or fails to finish.
+     */
+    private static final class LineSink extends AbstractRecordSink {
+
+        private final boolean failToFinish;
+
+        LineSink(Path target, boolean failToFinish) throws Exception {
+            super(target, WriteOptions.builder().build());
+            this.failToFinish = failToFinish;
+        }
+
+        @Override
+        protected void writeRecord(Map<String, Object> record) throws IOException {
+            out.write((record + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected void finish() throws IOException {
+            if (failToFinish) {
+                throw new IOException("Cannot finish");
+            }
+            out.write("end\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected void flushFormat() {
+        }
+    }
+}
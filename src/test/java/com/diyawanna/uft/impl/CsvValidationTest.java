@@ -0,0 +1,170 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.model.ValidationError;
+import com.diyawanna.uft.model.ValidationOptions;
+import com.diyawanna.uft.model.ValidationResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvValidationTest {
+
+    private static final int THREADS = 4;
+
+    @TempDir
+    Path dir;
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void close() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    void shardedScanMatchesSequentialAcrossQuotedNewlines() throws Exception {
+        String csv = sample(new Random(1), 400, ',');
+        CsvValidation.Columns columns = columns();
+        for (boolean failFast : new boolean[]{false, true}) {
+            ValidationOptions options = ValidationOptions.builder().failFast(failFast).build();
+            List<String> expected = sequential(csv, columns, options);
+            assertFalse(expected.isEmpty());
+            // Boundaries land in every position of records, quoted fields and escaped quotes
+            for (long shardSize = 7; shardSize < 600; shardSize += 13) {
+                assertEquals(expected, sharded(csv, columns, options, shardSize),
+                        "shard size " + shardSize + ", fail fast " + failFast);
+            }
+        }
+    }
+
+    @Test
+    void rebasesLineNumbersOfLaterShards() throws Exception {
+        StringBuilder csv = new StringBuilder("id,note\n");
+        for (int i = 1; i <= 300; i++) {
+            csv.append(i == 250 ? "x" : String.valueOf(i)).append(",\"line one\nline two\"\n");
+        }
+        ValidationOptions options = ValidationOptions.builder().build();
+        List<String> expected = sequential(csv.toString(), columns(), options);
+        // Header on line 1, two lines per record: record 250 starts on line 2 + 249 * 2
+        assertEquals(List.of("line 500, column 'id': Value 'x' is not an integer"), expected);
+        for (long shardSize : new long[]{16, 100, 1000}) {
+            assertEquals(expected, sharded(csv.toString(), columns(), options, shardSize));
+        }
+    }
+
+    @Test
+    void failFastReportsTheFirstErrorWhenALaterShardCancels() throws Exception {
+        Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            StringBuilder csv = new StringBuilder("id,note\n");
+            int first = 100 + random.nextInt(800);
+            for (int i = 1; i <= 1000; i++) {
+                // One early error, and a cluster of later ones that the other shards find first
+                boolean bad = i == first || (i > first && random.nextInt(10) == 0);
+                csv.append(bad ? "bad" : String.valueOf(i)).append(',')
+                        .append(random.nextBoolean() ? "\"a,\"\"b\"\"\nc\"" : "plain").append('\n');
+            }
+            ValidationOptions options = ValidationOptions.builder().failFast(true).build();
+            List<String> expected = sequential(csv.toString(), columns(), options);
+            assertEquals(1, expected.size());
+            assertEquals(expected, sharded(csv.toString(), columns(), options, 64), "round " + round);
+        }
+    }
+
+    @Test
+    void reportsErrorsInTheLastRecordWithoutLineBreak() throws Exception {
+        String csv = "id,note\n1,a\n2,\"unterminated\n";
+        ValidationOptions options = ValidationOptions.builder().build();
+        List<String> expected = sequential(csv, null, options);
+        assertEquals(List.of("line 3: Unterminated quoted field"), expected);
+        assertEquals(expected, sharded(csv, null, options, 4));
+    }
+
+    @Test
+    void usesTheConfiguredDelimiter() throws Exception {
+        String csv = sample(new Random(3), 200, ';');
+        ValidationOptions semicolon = ValidationOptions.builder().csvDelimiter(";").build();
+        List<String> expected = sequential(csv, columns(), semicolon);
+        for (long shardSize : new long[]{9, 50, 333}) {
+            assertEquals(expected, sharded(csv, columns(), semicolon, shardSize));
+        }
+        ValidationOptions tab = ValidationOptions.builder().csvDelimiter("\t").build();
+        assertEquals(List.of(), sequential("id\tnote\n1\ta,b\n", columns(), tab));
+        // Read with commas, the header is a single column
+        assertTrue(sequential("id;note\n1;a,b\n", null, ValidationOptions.builder().build())
+                .contains("line 2: Expected 1 fields, found 2"));
+    }
+
+    @Test
+    void rejectsUnusableDelimiters() {
+        for (String delimiter : new String[]{"", ";;", "\"", "\n", "\r", "\u00a7"}) {
+            assertThrows(IllegalArgumentException.class, () -> ValidationOptions.builder().csvDelimiter(delimiter));
+        }
+    }
+
+    /**
+     * Records with integer ids, some invalid, and notes that are often quoted with escaped quotes,
+     * delimiters and line breaks inside; a few records have the wrong number of fields.
+     */
+    private static String sample(Random random, int records, char delimiter) {
+        StringBuilder csv = new StringBuilder("id").append(delimiter).append("note\n");
+        for (int i = 1; i <= records; i++) {
+            int kind = random.nextInt(20);
+            csv.append(kind == 0 ? "x" + i : String.valueOf(i)).append(delimiter);
+            switch (random.nextInt(4)) {
+                case 0 -> csv.append("plain");
+                case 1 -> csv.append("\"quoted ").append(delimiter).append(" value\"");
+                case 2 -> csv.append("\"multi\n").append(i).append(delimiter).append("\"\"looks\"\"")
+                        .append(delimiter).append("like\na record\"");
+                default -> csv.append("\"\"");
+            }
+            if (kind == 1) {
+                csv.append(delimiter).append("extra");
+            }
+            csv.append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        return csv.toString();
+    }
+
+    private static CsvValidation.Columns columns() throws Exception {
+        return CsvValidation.compile(new ObjectMapper().readTree("{\"type\":\"array\",\"items\":{"
+                + "\"properties\":{\"id\":{\"type\":\"integer\"},\"note\":{\"type\":\"string\"}},"
+                + "\"required\":[\"id\"]}}"));
+    }
+
+    private static List<String> sequential(String csv, CsvValidation.Columns columns, ValidationOptions options)
+            throws Exception {
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        return describe(CsvValidation.validate(new ByteArrayInputStream(bytes), columns, options));
+    }
+
+    private List<String> sharded(String csv, CsvValidation.Columns columns, ValidationOptions options, long shardSize)
+            throws Exception {
+        Path file = Files.writeString(dir.resolve("data.csv"), csv, StandardCharsets.UTF_8);
+        return describe(CsvValidation.validate(file, columns, options, workers, THREADS, shardSize));
+    }
+
+    private static List<String> describe(ValidationResult result) {
+        assertEquals(result.getErrors().isEmpty(), result.isValid());
+        return result.getErrors().stream().map(CsvValidationTest::describe).toList();
+    }
+
+    private static String describe(ValidationError error) {
+        return error.getPath() + ": " + error.getMessage();
+    }
+}
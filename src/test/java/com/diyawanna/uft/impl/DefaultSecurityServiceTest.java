@@ -0,0 +1,205 @@
+package com.diyawanna.uft.impl;
+
+import com.diyawanna.uft.SecurityException;
+import com.diyawanna.uft.model.CompressionType;
+import com.diyawanna.uft.model.EncryptionOptions;
+import com.diyawanna.uft.model.EncryptionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DefaultSecurityServiceTest {
+
+    private static final int SEGMENT = SegmentedAesGcm.MIN_SEGMENT_SIZE;
+    private static final int SEGMENT_ON_DISK = SEGMENT + SegmentedAesGcm.TAG_LENGTH;
+
+    @TempDir
+    Path dir;
+
+    private final DefaultSecurityService sequential = new DefaultSecurityService(1);
+    private final DefaultSecurityService parallel = new DefaultSecurityService(4);
+    private final SecretKey key = aesKey();
+    private final EncryptionOptions options = EncryptionOptions.builder()
+            .type(EncryptionType.AES).secretKey(key).segmentSize(SEGMENT).build();
+
+    @AfterEach
+    void close() {
+        sequential.close();
+        parallel.close();
+    }
+
+    @Test
+    void roundTripsAcrossSegmentBoundaries() throws Exception {
+        for (int size : new int[]{1, SEGMENT - 1, SEGMENT + 1, 7 * SEGMENT + 100}) {
+            for (DefaultSecurityService service : new DefaultSecurityService[]{sequential, parallel}) {
+                byte[] data = random(size);
+                assertArrayEquals(data, decrypt(service, encrypt(service, data, options), options), size + " bytes");
+            }
+        }
+    }
+
+    @Test
+    void roundTripsEmptyFile() throws Exception {
+        File encrypted = encrypt(sequential, new byte[0], options);
+        // The header and one empty, authenticated last segment
+        assertEquals(header(encrypted).segmentOffset(0) + SegmentedAesGcm.TAG_LENGTH, encrypted.length());
+        assertArrayEquals(new byte[0], decrypt(sequential, encrypted, options));
+    }
+
+    @Test
+    void roundTripsExactSegmentMultiple() throws Exception {
+        for (DefaultSecurityService service : new DefaultSecurityService[]{sequential, parallel}) {
+            byte[] data = random(3 * SEGMENT);
+            File encrypted = encrypt(service, data, options);
+            // The third segment is full and flagged as the last, with no empty segment after it
+            assertEquals(header(encrypted).segmentOffset(3), encrypted.length());
+            assertArrayEquals(data, decrypt(service, encrypted, options));
+            // Dropping it leaves a file that ends in a segment not flagged as the last
+            truncate(encrypted, header(encrypted).segmentOffset(2));
+            assertThrows(SecurityException.class, () -> decrypt(service, encrypted, options));
+        }
+    }
+
+    @Test
+    void roundTripsPasswordAndCompressedPlaintext() throws Exception {
+        EncryptionOptions password = EncryptionOptions.builder().type(EncryptionType.AES).password("secret".toCharArray())
+                .iterations(1000).segmentSize(SEGMENT).compressWith(CompressionType.GZIP).build();
+        byte[] data = "id,name\n1,a\n2,b\n".repeat(500).getBytes();
+        File encrypted = encrypt(parallel, data, password);
+        assertEquals(CompressionType.GZIP, header(encrypted).compression());
+        assertArrayEquals(data, decrypt(parallel, encrypted, password));
+    }
+
+    @Test
+    void opensAtAnyOffset() throws Exception {
+        byte[] data = random(5 * SEGMENT + 17);
+        File encrypted = encrypt(parallel, data, options);
+        for (long offset : new long[]{0, 1, SEGMENT, 3 * SEGMENT + 5, data.length}) {
+            try (InputStream in = parallel.openDecrypted(encrypted.toPath(), offset, options)) {
+                assertArrayEquals(Arrays.copyOfRange(data, (int) offset, data.length), in.readAllBytes(), "offset " + offset);
+            }
+        }
+    }
+
+    @Test
+    void rejectsTamperedSegment() throws Exception {
+        for (DefaultSecurityService service : new DefaultSecurityService[]{sequential, parallel}) {
+            File encrypted = encrypt(service, random(4 * SEGMENT + 10), options);
+            byte[] content = Files.readAllBytes(encrypted.toPath());
+            content[(int) header(encrypted).segmentOffset(2) + 100] ^= 1;
+            Files.write(encrypted.toPath(), content);
+            assertThrows(SecurityException.class, () -> decrypt(service, encrypted, options));
+            assertFalse(Files.exists(plaintextOf(encrypted)), "no partial plaintext is left behind");
+        }
+    }
+
+    @Test
+    void rejectsTamperedHeader() throws Exception {
+        File encrypted = encrypt(sequential, random(2 * SEGMENT), options);
+        byte[] content = Files.readAllBytes(encrypted.toPath());
+        // Last header byte before the compression code: the nonce prefix
+        content[(int) header(encrypted).segmentOffset(0) - 2] ^= 1;
+        Files.write(encrypted.toPath(), content);
+        assertThrows(SecurityException.class, () -> decrypt(sequential, encrypted, options));
+    }
+
+    @Test
+    void rejectsTruncation() throws Exception {
+        byte[] data = random(4 * SEGMENT + 10);
+        for (int cut : new int[]{1, SegmentedAesGcm.TAG_LENGTH + 10, 10 + SegmentedAesGcm.TAG_LENGTH + SEGMENT_ON_DISK}) {
+            File encrypted = encrypt(sequential, data, options);
+            truncate(encrypted, encrypted.length() - cut);
+            assertThrows(SecurityException.class, () -> decrypt(sequential, encrypted, options), "cut " + cut);
+        }
+    }
+
+    @Test
+    void rejectsReorderedSegments() throws Exception {
+        for (DefaultSecurityService service : new DefaultSecurityService[]{sequential, parallel}) {
+            File encrypted = encrypt(service, random(4 * SEGMENT + 10), options);
+            byte[] content = Files.readAllBytes(encrypted.toPath());
+            int first = (int) header(encrypted).segmentOffset(1);
+            int second = (int) header(encrypted).segmentOffset(2);
+            byte[] swapped = content.clone();
+            System.arraycopy(content, first, swapped, second, SEGMENT_ON_DISK);
+            System.arraycopy(content, second, swapped, first, SEGMENT_ON_DISK);
+            Files.write(encrypted.toPath(), swapped);
+            assertThrows(SecurityException.class, () -> decrypt(service, encrypted, options));
+        }
+    }
+
+    @Test
+    void rejectsWrongKey() throws Exception {
+        File encrypted = encrypt(sequential, random(SEGMENT + 1), options);
+        EncryptionOptions other = EncryptionOptions.builder().type(EncryptionType.AES).secretKey(aesKey()).segmentSize(SEGMENT).build();
+        assertThrows(SecurityException.class, () -> decrypt(sequential, encrypted, other));
+    }
+
+    private File encrypt(DefaultSecurityService service, byte[] data, EncryptionOptions encryption) throws Exception {
+        Path source = Files.createTempFile(dir, "plain", ".bin");
+        Files.write(source, data);
+        File encrypted = service.encrypt(source.toFile(), encryption);
+        Files.delete(source);
+        return encrypted;
+    }
+
+    private byte[] decrypt(DefaultSecurityService service, File encrypted, EncryptionOptions encryption) throws Exception {
+        File decrypted = service.decrypt(encrypted, encryption);
+        try {
+            return Files.readAllBytes(decrypted.toPath());
+        } finally {
+            Files.delete(decrypted.toPath());
+        }
+    }
+
+    private static Path plaintextOf(File encrypted) {
+        String name = encrypted.getName();
+        return encrypted.toPath().resolveSibling(name.substring(0, name.length() - ".enc".length()));
+    }
+
+    private static SegmentedAesGcm.Header header(File encrypted) throws IOException {
+        try (FileChannel in = FileChannel.open(encrypted.toPath(), StandardOpenOption.READ)) {
+            return SegmentedAesGcm.Header.read(in);
+        }
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private static byte[] random(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static SecretKey aesKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            return generator.generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.diyawanna.uft.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileIdentityCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void reusesValueWhileFileIsUnchanged() throws IOException {
+        FileIdentityCache<String> cache = new FileIdentityCache<>(4);
+        Path file = Files.writeString(dir.resolve("a.json"), "one");
+        assertEquals("one", get(cache, file));
+        assertEquals("one", get(cache, file));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void reloadsChangedFile() throws IOException {
+        FileIdentityCache<String> cache = new FileIdentityCache<>(4);
+        Path file = Files.writeString(dir.resolve("a.json"), "one");
+        get(cache, file);
+        // Same size, new modification time
+        Files.writeString(file, "two");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5_000));
+        assertEquals("two", get(cache, file));
+        // Same modification time, new size
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.writeString(file, "three");
+        Files.setLastModifiedTime(file, modified);
+        assertEquals("three", get(cache, file));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws IOException {
+        FileIdentityCache<String> cache = new FileIdentityCache<>(2);
+        Path a = Files.writeString(dir.resolve("a"), "a");
+        Path b = Files.writeString(dir.resolve("b"), "b");
+        Path c = Files.writeString(dir.resolve("c"), "c");
+        get(cache, a);
+        get(cache, b);
+        get(cache, a);
+        get(cache, c);
+        assertEquals(3, loads.get());
+        get(cache, a);
+        assertEquals(3, loads.get(), "a was used more recently than b");
+        get(cache, b);
+        assertEquals(4, loads.get(), "b was evicted");
+    }
+
+    private String get(FileIdentityCache<String> cache, Path file) throws IOException {
+        return cache.get(file, Files.readAttributes(file, BasicFileAttributes.class), path -> {
+            loads.incrementAndGet();
+            return Files.readString(path);
+        });
+    }
+}
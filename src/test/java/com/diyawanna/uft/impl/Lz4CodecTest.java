@@ -0,0 +1,114 @@
+package com.diyawanna.uft.impl;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Lz4CodecTest {
+
+    @Test
+    void framesAreReadByCommonsCompressAtEveryLevel() throws IOException {
+        byte[] data = sample(700_000);
+        for (int level = 1; level <= 9; level++) {
+            byte[] frame = compress(data, level);
+            try (InputStream in = new FramedLZ4CompressorInputStream(new ByteArrayInputStream(frame), true)) {
+                assertArrayEquals(data, in.readAllBytes(), "level " + level);
+            }
+            assertArrayEquals(data, decompress(frame), "level " + level);
+        }
+    }
+
+    @Test
+    void readsCommonsCompressFrames() throws IOException {
+        for (FramedLZ4CompressorOutputStream.BlockSize size : FramedLZ4CompressorOutputStream.BlockSize.values()) {
+            // Commons Compress 1.26 cannot read back its own linked blocks beyond 64 KB, so only those are
+            // linked, over several blocks; other inputs stay small as its LZ4 compressor is very slow
+            boolean linkable = size == FramedLZ4CompressorOutputStream.BlockSize.K64;
+            byte[] data = sample(linkable ? 150_000 : 20_000);
+            for (boolean dependent : linkable ? new boolean[]{false, true} : new boolean[]{false}) {
+                ByteArrayOutputStream frame = new ByteArrayOutputStream();
+                FramedLZ4CompressorOutputStream.Parameters parameters = new FramedLZ4CompressorOutputStream.Parameters(
+                        size, true, true, dependent, BlockLZ4CompressorOutputStream.createParameterBuilder().tunedForSpeed().build());
+                try (OutputStream out = new FramedLZ4CompressorOutputStream(frame, parameters)) {
+                    out.write(data);
+                }
+                assertArrayEquals(data, decompress(frame.toByteArray()), size + (dependent ? ", linked blocks" : ""));
+            }
+        }
+    }
+
+    @Test
+    void roundTripsEmptyIncompressibleAndTinyInput() throws IOException {
+        byte[] random = new byte[300_000];
+        new Random(7).nextBytes(random);
+        for (byte[] data : new byte[][]{new byte[0], new byte[]{42}, "abcabcabcabc".getBytes(StandardCharsets.US_ASCII), random}) {
+            byte[] frame = compress(data, CompressorStreams.LZ4_DEFAULT_LEVEL);
+            assertArrayEquals(data, decompress(frame));
+            try (InputStream in = new FramedLZ4CompressorInputStream(new ByteArrayInputStream(frame), true)) {
+                assertArrayEquals(data, in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void readsConcatenatedAndSkippableFrames() throws IOException {
+        byte[] first = sample(100_000);
+        byte[] second = "tail of the stream".getBytes(StandardCharsets.US_ASCII);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(compress(first, 3));
+        // Skippable frame: magic, little-endian length, payload
+        stream.write(new byte[]{0x50, 0x2A, 0x4D, 0x18, 3, 0, 0, 0, 1, 2, 3});
+        stream.write(compress(second, 8));
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first);
+        expected.write(second);
+        assertArrayEquals(expected.toByteArray(), decompress(stream.toByteArray()));
+    }
+
+    @Test
+    void rejectsCorruptedContent() throws IOException {
+        byte[] frame = compress(sample(50_000), CompressorStreams.LZ4_DEFAULT_LEVEL);
+        // Flip a byte in the middle of the first block, past the 7-byte frame header and the block size
+        frame[frame.length / 2] ^= 0x55;
+        assertThrows(IOException.class, () -> decompress(frame));
+    }
+
+    private static byte[] compress(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        try (OutputStream out = new Lz4Codec.FrameOutputStream(frame, level)) {
+            out.write(data);
+        }
+        return frame.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] frame) throws IOException {
+        try (InputStream in = new Lz4Codec.FrameInputStream(new ByteArrayInputStream(frame))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * CSV-like text: repetitive enough to compress, varied enough to exercise literals.
+     */
+    private static byte[] sample(int size) {
+        Random random = new Random(size);
+        StringBuilder text = new StringBuilder(size + 64);
+        while (text.length() < size) {
+            text.append(random.nextInt(100_000)).append(",customer-").append(random.nextInt(500))
+                    .append(',').append(random.nextDouble()).append(',').append(random.nextBoolean()).append('\n');
+        }
+        return text.substring(0, size).getBytes(StandardCharsets.US_ASCII);
+    }
+}